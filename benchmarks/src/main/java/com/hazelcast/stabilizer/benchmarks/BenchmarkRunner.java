@@ -0,0 +1,218 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * Runs the benchmarks and checks the scores, so a slowdown of a load thread hot path fails the build.
+ *
+ * All benchmarks measure the average time per operation. Since the absolute scores depend on the machine, the check
+ * that always runs compares scores of the same run: a {@code _fourThreads} benchmark is a scaling regression if its
+ * score is more than the scaling threshold times the score of its {@code _singleThread} counterpart, and likewise for
+ * {@code _fourProbeThreads} and {@code _singleProbeThread}. Benchmarks that are contended by design are named
+ * differently, e.g. {@code _fourThreads_contended}, so they aren't paired. Benchmarks with more threads than the
+ * machine has processors measure the scheduler rather than the code, so they are left out.
+ *
+ * The scores can also be compared with a baseline measured on the same machine, with
+ * -Dbenchmarks.compareBaseline=true: a score that is more than the regression threshold higher than its baseline is a
+ * regression, a benchmark without a baseline is reported but doesn't fail the run. With
+ * -Dbenchmarks.updateBaseline=true the scores of the run are written to the baseline file instead.
+ *
+ * The configuration is passed as system properties:
+ * <ul>
+ * <li>benchmarks.include: the regular expression selecting the benchmarks.</li>
+ * <li>benchmarks.warmupIterations, benchmarks.iterations, benchmarks.forks: passed to JMH.</li>
+ * <li>benchmarks.resultFile: the file the JMH results are written to in JSON.</li>
+ * <li>benchmarks.baselineFile: the properties file with the baseline score per benchmark.</li>
+ * <li>benchmarks.scalingThreshold: the allowed multi threaded score as a multiple of the single threaded one.</li>
+ * <li>benchmarks.compareBaseline: compares the scores with the baseline file.</li>
+ * <li>benchmarks.regressionThreshold: the allowed slowdown, 0.25 allows a score 25% above the baseline.</li>
+ * <li>benchmarks.updateBaseline: writes the scores to the baseline file instead of comparing them.</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+    // the multi threaded benchmark suffixes by the single threaded benchmark suffix they are compared with
+    private static final String[][] SCALING_PAIRS = {
+            {"_singleThread", "_fourThreads"},
+            {"_singleProbeThread", "_fourProbeThreads"},
+    };
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        File baselineFile = new File(System.getProperty("benchmarks.baselineFile", "baseline.properties"));
+        double threshold = Double.parseDouble(System.getProperty("benchmarks.regressionThreshold", "0.25"));
+        double scalingThreshold = Double.parseDouble(System.getProperty("benchmarks.scalingThreshold", "2"));
+
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmarks.include", ".*"))
+                .warmupIterations(Integer.getInteger("benchmarks.warmupIterations", 5))
+                .measurementIterations(Integer.getInteger("benchmarks.iterations", 5))
+                .forks(Integer.getInteger("benchmarks.forks", 1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmarks.resultFile", "jmh-result.json"))
+                .shouldFailOnError(true)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        Properties scores = new Properties();
+        for (RunResult result : results) {
+            String key = getKey(result);
+            int threads = result.getParams().getThreads();
+            if (threads > processors) {
+                System.out.println(format("Ignoring %s, it runs %d threads on %d processors", key, threads, processors));
+                continue;
+            }
+            scores.setProperty(key, Double.toString(result.getPrimaryResult().getScore()));
+        }
+
+        if (Boolean.getBoolean("benchmarks.updateBaseline")) {
+            Properties baseline = load(baselineFile);
+            baseline.putAll(scores);
+            store(baseline, baselineFile);
+            System.out.println(format("Wrote the scores of %d benchmarks to baseline %s", scores.size(),
+                    baselineFile.getAbsolutePath()));
+            return;
+        }
+
+        List<String> regressions = compareScaling(scores, scalingThreshold);
+        if (Boolean.getBoolean("benchmarks.compareBaseline")) {
+            regressions.addAll(compare(scores, load(baselineFile), threshold));
+        }
+        if (!regressions.isEmpty()) {
+            for (String regression : regressions) {
+                System.err.println(regression);
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the key of the benchmark in the baseline: the benchmark method and its parameters, e.g.
+     * "ProbeBenchmark.startedDone_singleThread(probeType=hdr)".
+     */
+    static String getKey(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        String className = benchmark.substring(0, benchmark.lastIndexOf('.'));
+        StringBuilder key = new StringBuilder(benchmark.substring(className.lastIndexOf('.') + 1));
+
+        Collection<String> paramKeys = new TreeSet<String>(result.getParams().getParamsKeys());
+        if (!paramKeys.isEmpty()) {
+            key.append('(');
+            String separator = "";
+            for (String paramKey : paramKeys) {
+                key.append(separator).append(paramKey).append('=').append(result.getParams().getParam(paramKey));
+                separator = ",";
+            }
+            key.append(')');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Compares the multi threaded scores with the single threaded scores of the same run.
+     *
+     * @return the description of every scaling regression, empty if there is none.
+     */
+    static List<String> compareScaling(Properties scores, double scalingThreshold) {
+        List<String> regressions = new ArrayList<String>();
+        for (String key : new TreeSet<String>(scores.stringPropertyNames())) {
+            for (String[] pair : SCALING_PAIRS) {
+                if (!key.contains(pair[0])) {
+                    continue;
+                }
+                String multiThreadedKey = key.replace(pair[0], pair[1]);
+                String multiThreadedScore = scores.getProperty(multiThreadedKey);
+                if (multiThreadedScore == null) {
+                    continue;
+                }
+
+                double ratio = Double.parseDouble(multiThreadedScore) / Double.parseDouble(scores.getProperty(key));
+                if (ratio > scalingThreshold) {
+                    regressions.add(format("Scaling regression in %s: score %s is %.2f times the score of %s, more "
+                            + "than %.2f", multiThreadedKey, multiThreadedScore, ratio, key, scalingThreshold));
+                } else {
+                    System.out.println(format("%s: score %s is %.2f times the score of %s", multiThreadedKey,
+                            multiThreadedScore, ratio, key));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Compares the scores with the baseline.
+     *
+     * @return the description of every regression, empty if there is none.
+     */
+    static List<String> compare(Properties scores, Properties baseline, double threshold) {
+        List<String> regressions = new ArrayList<String>();
+        for (String key : new TreeSet<String>(scores.stringPropertyNames())) {
+            double score = Double.parseDouble(scores.getProperty(key));
+            String baselineScore = baseline.getProperty(key);
+            if (baselineScore == null) {
+                System.out.println(format("No baseline for %s, score %.2f", key, score));
+                continue;
+            }
+
+            double limit = Double.parseDouble(baselineScore) * (1 + threshold);
+            if (score > limit) {
+                regressions.add(format("Regression in %s: score %.2f exceeds baseline %s by more than %.0f%%", key,
+                        score, baselineScore, threshold * 100));
+            } else {
+                System.out.println(format("%s: score %.2f, baseline %s", key, score, baselineScore));
+            }
+        }
+        return regressions;
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        if (!file.exists()) {
+            return properties;
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return properties;
+    }
+
+    // writes the baseline sorted by benchmark, so a change of the baseline gives a readable diff
+    private static void store(Properties properties, File file) throws IOException {
+        StringBuilder text = new StringBuilder("# average time per operation in ns, see BenchmarkRunner\n");
+        for (String key : new TreeSet<String>(properties.stringPropertyNames())) {
+            text.append(key.replace("=", "\\=").replace(":", "\\:").replace(" ", "\\ "))
+                    .append('=').append(properties.getProperty(key)).append('\n');
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "ISO-8859-1");
+        try {
+            out.write(text.toString());
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import com.hazelcast.stabilizer.tests.helpers.KeyLocality;
+import com.hazelcast.stabilizer.tests.helpers.KeyUtils;
+import com.hazelcast.stabilizer.tests.helpers.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the key and value generators that tests call while running.
+ *
+ * The generators share a single Random, so the multi threaded benchmarks show the contention on it; they are named
+ * contended, so {@link BenchmarkRunner} doesn't expect them to scale.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class KeyGeneratorBenchmark {
+
+    private static final int KEY_MAX_VALUE = 1000000;
+
+    @Param({"10", "100"})
+    public int keyLength;
+
+    @Benchmark
+    @Threads(1)
+    public String generateString_singleThread() {
+        return StringUtils.generateString(keyLength);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateString_fourThreads_contended() {
+        return StringUtils.generateString(keyLength);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateStringKey_singleThread() {
+        return KeyUtils.generateStringKey(keyLength, KeyLocality.Random, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int generateIntKey_singleThread() {
+        return KeyUtils.generateIntKey(KEY_MAX_VALUE, KeyLocality.Random, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int generateIntKey_fourThreads_contended() {
+        return KeyUtils.generateIntKey(KEY_MAX_VALUE, KeyLocality.Random, null);
+    }
+}
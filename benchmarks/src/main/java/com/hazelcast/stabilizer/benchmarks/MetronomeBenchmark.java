@@ -0,0 +1,57 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import com.hazelcast.stabilizer.worker.Metronome;
+import com.hazelcast.stabilizer.worker.MetronomeSettings;
+import com.hazelcast.stabilizer.worker.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link Metronome#waitForNext()}.
+ *
+ * A rate of 0 gives the metronome without rate limit. The other rate is so high that the metronome is always behind
+ * its schedule and never waits, so only the bookkeeping is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MetronomeBenchmark {
+
+    private static final int THREAD_COUNT = 4;
+
+    @Param({"0", "1000000000000"})
+    public double opsPerSecond;
+
+    private Metronome metronome;
+
+    @Setup
+    public void setUp() {
+        MetronomeSettings settings = new MetronomeSettings();
+        settings.opsPerSecond = opsPerSecond;
+        settings.waitStrategy = WaitStrategy.BUSY_SPIN;
+        metronome = settings.newMetronome(THREAD_COUNT);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long waitForNext_singleThread() {
+        metronome.waitForNext();
+        return metronome.getIntendedStartNanos();
+    }
+
+    @Benchmark
+    @Threads(THREAD_COUNT)
+    public long waitForNext_fourThreads() {
+        metronome.waitForNext();
+        return metronome.getIntendedStartNanos();
+    }
+}
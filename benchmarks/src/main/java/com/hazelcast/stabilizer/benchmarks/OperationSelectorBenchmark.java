@@ -0,0 +1,74 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import com.hazelcast.stabilizer.worker.OperationSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the selection of the next operation, which a load thread does on every operation.
+ *
+ * The contended benchmark shares a single selector between the threads, the uncontended benchmarks give every thread
+ * its own selector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OperationSelectorBenchmark {
+
+    enum Operation {
+        PUT, GET, REMOVE, QUERY
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedSelector {
+        OperationSelector<Operation> selector;
+
+        @Setup
+        public void setUp() {
+            selector = newSelector();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadSelector {
+        OperationSelector<Operation> selector;
+
+        @Setup
+        public void setUp() {
+            selector = newSelector();
+        }
+    }
+
+    private static OperationSelector<Operation> newSelector() {
+        return new OperationSelector<Operation>()
+                .addOperation(Operation.PUT, 0.1)
+                .addOperation(Operation.GET, 0.7)
+                .addOperation(Operation.REMOVE, 0.05)
+                .addOperationRemainingProbability(Operation.QUERY);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Operation select_singleThread(ThreadSelector state) {
+        return state.selector.select();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Operation select_fourThreads_uncontended(ThreadSelector state) {
+        return state.selector.select();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Operation select_fourThreads_contended(SharedSelector state) {
+        return state.selector.select();
+    }
+}
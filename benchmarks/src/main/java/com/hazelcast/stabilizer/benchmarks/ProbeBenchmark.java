@@ -0,0 +1,97 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+import com.hazelcast.stabilizer.probes.probes.Probes;
+import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of a started/done pair on an interval probe, which a load thread pays on every operation.
+ *
+ * The probe is shared by all benchmark threads, just like the probe of a test is shared by its load threads. Every
+ * thread records in its own probe, so on a machine with at least four processors the multi threaded numbers should
+ * stay close to the single threaded ones.
+ *
+ * The load threads of a test are {@link ProbeThread}s, which find their probe by their slot. The ProbeThread
+ * benchmarks run on such threads through {@link ProbeThreadExecutor}; the other benchmarks run on plain JMH threads,
+ * which take the ThreadLocal fallback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ProbeBenchmark {
+
+    // an annotation value must be a constant, so the class name is spelled out
+    private static final String PROBE_THREAD_EXECUTOR =
+            "-Djmh.executor.class=com.hazelcast.stabilizer.benchmarks.ProbeThreadExecutor";
+
+    @Param({"hdr", "latency", "maxLatency"})
+    public String probeType;
+
+    private IntervalProbe probe;
+
+    @Setup
+    public void setUp() {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("probe", probeType);
+        probe = Probes.createProbe(IntervalProbe.class, "probe", probesConfiguration);
+        probe.startProbing(System.currentTimeMillis());
+    }
+
+    /**
+     * Fails the ProbeThread benchmarks if they run on other threads, e.g. when the benchmarks aren't forked, so they
+     * can't silently measure the ThreadLocal fallback.
+     */
+    @State(Scope.Thread)
+    public static class ProbeThreadCheck {
+        @Setup
+        public void setUp() {
+            if (!(Thread.currentThread() instanceof ProbeThread)) {
+                throw new IllegalStateException("Benchmark isn't running on a ProbeThread but on "
+                        + Thread.currentThread());
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void startedDone_singleThread() {
+        probe.started();
+        probe.done();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void startedDone_fourThreads() {
+        probe.started();
+        probe.done();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @Fork(jvmArgsAppend = {"-Djmh.executor=CUSTOM", PROBE_THREAD_EXECUTOR})
+    public void startedDone_singleProbeThread(ProbeThreadCheck check) {
+        probe.started();
+        probe.done();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @Fork(jvmArgsAppend = {"-Djmh.executor=CUSTOM", PROBE_THREAD_EXECUTOR})
+    public void startedDone_fourProbeThreads(ProbeThreadCheck check) {
+        probe.started();
+        probe.done();
+    }
+}
@@ -0,0 +1,33 @@
+package com.hazelcast.stabilizer.benchmarks;
+
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the JMH worker threads as {@link ProbeThread}s, like the load threads of a test.
+ *
+ * JMH creates it in the forked VM when it is started with -Djmh.executor=CUSTOM and
+ * -Djmh.executor.class=com.hazelcast.stabilizer.benchmarks.ProbeThreadExecutor, see {@link ProbeBenchmark}.
+ */
+public class ProbeThreadExecutor extends ThreadPoolExecutor {
+
+    public ProbeThreadExecutor(int maxThreads, final String prefix) {
+        super(maxThreads, maxThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable task) {
+                        ProbeThread thread = new ProbeThread(task, prefix + "-probe-worker-"
+                                + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -1,5 +1,36 @@
 package com.hazelcast.stabilizer.probes.probes;
 
 public interface IntervalProbe<R extends Result<R>, T extends SimpleProbe<R, T>> extends SimpleProbe<R, T>{
+
+    /**
+     * The intended start time of an operation that wasn't scheduled, e.g. because there is no rate limit. The latency
+     * of such an operation isn't corrected for coordinated omission.
+     */
+    public static final long NOT_SCHEDULED = Long.MIN_VALUE;
+
     public void started();
+
+    /**
+     * Marks the start of an operation that was scheduled to start at the given time, e.g. by a Metronome.
+     *
+     * Probes that correct for coordinated omission measure the latency from the intended start time as well, so a
+     * stalled system can't hide its latency by delaying the start of the next operations. Other probes treat this
+     * like a normal {@link #started()}.
+     *
+     * @param intendedStartNanos the {@link System#nanoTime()} at which the operation should have started, or
+     *                           {@link #NOT_SCHEDULED}.
+     */
+    public void started(long intendedStartNanos);
+
+    /**
+     * Marks the end of an operation that was started at the given times, possibly by another thread.
+     *
+     * This is meant for asynchronous operations that complete in a callback: the issuing thread remembers the start
+     * times and the completing thread records the latency, without going through {@link #started()} of its own probe.
+     *
+     * @param startedNanos       the {@link System#nanoTime()} at which the operation was started.
+     * @param intendedStartNanos the {@link System#nanoTime()} at which the operation should have started, or
+     *                           {@link #NOT_SCHEDULED}.
+     */
+    public void done(long startedNanos, long intendedStartNanos);
 }
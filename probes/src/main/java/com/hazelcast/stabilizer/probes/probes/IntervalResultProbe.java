@@ -0,0 +1,18 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+/**
+ * A probe that can hand out the result of the last interval while the probe is still recording.
+ *
+ * Every call returns what has been recorded since the previous call, so there should only be a single reader.
+ *
+ * @param <R> the result type.
+ */
+public interface IntervalResultProbe<R extends Result<R>> {
+
+    /**
+     * Returns the result of everything recorded since the previous call.
+     *
+     * @return the interval result or null if the probe doesn't support intervals or nothing has been recorded yet.
+     */
+    R getIntervalResult();
+}
@@ -0,0 +1,196 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A histogram with log-linear buckets: every power of two range is split in 2^subBucketBits linear sub buckets. So
+ * the width of a bucket is at most 1/2^subBucketBits of its lower bound, which bounds the relative error of every
+ * recorded value, while the number of buckets only grows with the logarithm of the highest trackable value.
+ *
+ * With the default precision and a highest trackable value of a minute in microseconds, the histogram has about 2500
+ * buckets (20 KB) and a relative error below 1%.
+ *
+ * Values above the highest trackable value are recorded in the last bucket. This class is not thread-safe.
+ */
+public class LogLinearHistogram implements Serializable {
+
+    public static final int DEFAULT_SUB_BUCKET_BITS = 7;
+
+    private final long highestTrackableValue;
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final long[] counts;
+
+    public LogLinearHistogram(long highestTrackableValue) {
+        this(highestTrackableValue, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    public LogLinearHistogram(long highestTrackableValue, int subBucketBits) {
+        if (highestTrackableValue <= 0) {
+            throw new IllegalArgumentException("Highest trackable value must be greater than 0. Passed value: "
+                    + highestTrackableValue);
+        }
+        if (subBucketBits < 1 || subBucketBits > 20) {
+            throw new IllegalArgumentException("Sub bucket bits must be between 1 and 20. Passed value: " + subBucketBits);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.counts = new long[indexOf(highestTrackableValue) + 1];
+    }
+
+    private LogLinearHistogram(LogLinearHistogram histogram) {
+        this.highestTrackableValue = histogram.highestTrackableValue;
+        this.subBucketBits = histogram.subBucketBits;
+        this.subBucketCount = histogram.subBucketCount;
+        this.counts = histogram.counts.clone();
+    }
+
+    public void recordValue(long value) {
+        recordValues(value, 1);
+    }
+
+    public void recordValues(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be a negative number. Passed value: " + value);
+        }
+        counts[value > highestTrackableValue ? counts.length - 1 : indexOf(value)] += count;
+    }
+
+    /**
+     * Adds the counts of the other histogram to this histogram without allocating.
+     */
+    public void add(LogLinearHistogram other) {
+        if (highestTrackableValue != other.highestTrackableValue || subBucketBits != other.subBucketBits) {
+            throw new IllegalStateException("Cannot combine " + this + " with " + other
+                    + " as they have a different highest trackable value or precision");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public LogLinearHistogram copy() {
+        return new LogLinearHistogram(this);
+    }
+
+    public long getTotalCount() {
+        long totalCount = 0;
+        for (long count : counts) {
+            totalCount += count;
+        }
+        return totalCount;
+    }
+
+    /**
+     * Returns the highest value of the bucket that contains the given percentile of the recorded values.
+     *
+     * @param percentile the percentile between 0 and 1.
+     * @return the value at the percentile, 0 if the histogram is empty.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long totalCount = getTotalCount();
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(getUpperBound(i) - 1, highestTrackableValue);
+            }
+        }
+        return highestTrackableValue;
+    }
+
+    /**
+     * Returns the number of recorded values in the buckets up to and including the bucket of the given value.
+     */
+    public long getCountAtOrBelow(long value) {
+        int lastIndex = value > highestTrackableValue ? counts.length - 1 : indexOf(value);
+        long count = 0;
+        for (int i = 0; i <= lastIndex; i++) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns the lowest value of the bucket (inclusive).
+     */
+    public long getLowerBound(int bucket) {
+        if (bucket < 2 * subBucketCount) {
+            return bucket;
+        }
+        int shift = (bucket >> subBucketBits) - 1;
+        return (long) (subBucketCount + (bucket & (subBucketCount - 1))) << shift;
+    }
+
+    /**
+     * Returns the upper bound of the bucket (exclusive).
+     */
+    public long getUpperBound(int bucket) {
+        if (bucket < 2 * subBucketCount) {
+            return bucket + 1;
+        }
+        int shift = (bucket >> subBucketBits) - 1;
+        return (long) (subBucketCount + (bucket & (subBucketCount - 1)) + 1) << shift;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getSubBucketBits() {
+        return subBucketBits;
+    }
+
+    private int indexOf(long value) {
+        if (value < 2 * subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return ((shift + 1) << subBucketBits) + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LogLinearHistogram that = (LogLinearHistogram) o;
+
+        if (highestTrackableValue != that.highestTrackableValue) return false;
+        if (subBucketBits != that.subBucketBits) return false;
+        if (!Arrays.equals(counts, that.counts)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (highestTrackableValue ^ (highestTrackableValue >>> 32));
+        result = 31 * result + subBucketBits;
+        result = 31 * result + Arrays.hashCode(counts);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "LogLinearHistogram{" +
+                "highestTrackableValue=" + highestTrackableValue +
+                ", subBucketBits=" + subBucketBits +
+                '}';
+    }
+}
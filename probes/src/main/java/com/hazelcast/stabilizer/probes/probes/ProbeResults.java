@@ -0,0 +1,48 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Combines the results of the probes of multiple workers into a single result per probe.
+ */
+public final class ProbeResults {
+
+    private ProbeResults() {
+    }
+
+    /**
+     * Combines all probe results into a single result per probe name. Missing (null) maps and results are skipped.
+     *
+     * @param probeResults the probe results per worker/agent.
+     * @return the combined result per probe.
+     */
+    public static <R extends Result<R>> Map<String, R> combine(Iterable<? extends Map<String, R>> probeResults) {
+        Map<String, R> combinedResults = new HashMap<String, R>();
+        for (Map<String, R> results : probeResults) {
+            combine(combinedResults, results);
+        }
+        return combinedResults;
+    }
+
+    /**
+     * Combines the results into the target.
+     *
+     * @param target  the combined results; updated in place.
+     * @param results the results to add, can be null.
+     */
+    public static <R extends Result<R>> void combine(Map<String, R> target, Map<String, R> results) {
+        if (results == null) {
+            return;
+        }
+
+        for (Map.Entry<String, R> entry : results.entrySet()) {
+            R result = entry.getValue();
+            if (result == null) {
+                continue;
+            }
+            String probeName = entry.getKey();
+            target.put(probeName, result.combine(target.get(probeName)));
+        }
+    }
+}
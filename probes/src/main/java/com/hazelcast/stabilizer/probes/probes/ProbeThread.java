@@ -0,0 +1,73 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread that owns a probe slot while it is running.
+ *
+ * The concurrent probes created by {@link Probes} use this slot as a plain array index to find the recorder of the
+ * calling thread, so a {@link IntervalProbe#started()}/{@link SimpleProbe#done()} call doesn't need a ThreadLocal
+ * or a map lookup. Threads that are not a ProbeThread still work, they just take the slower path.
+ *
+ * The slot is claimed when the thread starts running and released when it terminates, so the slots of finished
+ * load threads are reused by the load threads of the next test. Subclasses put their logic in {@link #runWithSlot()},
+ * which runs while the slot is claimed.
+ */
+public class ProbeThread extends Thread {
+
+    private static final AtomicInteger SLOT_GENERATOR = new AtomicInteger();
+    private static final Queue<Integer> FREE_SLOTS = new ConcurrentLinkedQueue<Integer>();
+
+    private int probeSlot = -1;
+
+    public ProbeThread(Runnable task, String name) {
+        super(task, name);
+    }
+
+    public ProbeThread(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns the slot of this thread or -1 if the thread isn't running.
+     *
+     * Should only be called by the thread itself.
+     *
+     * @return the probe slot.
+     */
+    public final int getProbeSlot() {
+        return probeSlot;
+    }
+
+    @Override
+    public final void run() {
+        probeSlot = acquireSlot();
+        try {
+            runWithSlot();
+        } finally {
+            releaseSlot(probeSlot);
+            probeSlot = -1;
+        }
+    }
+
+    /**
+     * Runs the thread while it owns its probe slot. Runs the task the thread was created with by default.
+     */
+    protected void runWithSlot() {
+        super.run();
+    }
+
+    private static int acquireSlot() {
+        Integer slot = FREE_SLOTS.poll();
+        if (slot != null) {
+            return slot;
+        }
+        return SLOT_GENERATOR.getAndIncrement();
+    }
+
+    private static void releaseSlot(int slot) {
+        FREE_SLOTS.add(slot);
+    }
+}
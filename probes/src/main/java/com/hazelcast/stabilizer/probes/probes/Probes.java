@@ -1,12 +1,13 @@
 package com.hazelcast.stabilizer.probes.probes;
 
-import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyDistributionProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.ConcurrentHdrLatencyDistributionProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.ConcurrentIntervalProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.ConcurrentSimpleProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.DisabledProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.OperationsPerSecProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineProbe;
 
 public class Probes {
 
@@ -25,6 +26,8 @@ public class Probes {
                 return (T) newDefaultSimpleProbe();
             } else if ("throughput".equals(config)) {
                 return (T) newOperationsPerSecProbe();
+            } else if ("throughputTimeline".equals(config)) {
+                return (T) newThroughputTimelineProbe();
             } else if ("disabled".equals(config)) {
                 return (T) disabledProbe();
             } else {
@@ -50,7 +53,7 @@ public class Probes {
     }
 
     private static IntervalProbe hdrProbe() {
-        return Probes.wrapAsThreadLocal(new HdrLatencyDistributionProbe());
+        return new ConcurrentHdrLatencyDistributionProbe();
     }
 
     public static <T extends IntervalProbe> IntervalProbe newMaxLatencyProbe() {
@@ -61,6 +64,10 @@ public class Probes {
         return Probes.wrapAsThreadLocal(new OperationsPerSecProbe());
     }
 
+    public static SimpleProbe newThroughputTimelineProbe() {
+        return Probes.wrapAsThreadLocal(new ThroughputTimelineProbe());
+    }
+
     public static IntervalProbe newLatencyDistributionProbe() {
         return Probes.wrapAsThreadLocal(new LatencyDistributionProbe());
     }
@@ -0,0 +1,141 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import com.hazelcast.stabilizer.probes.probes.impl.DisabledResult;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
+import com.hazelcast.stabilizer.probes.probes.impl.OperationsPerSecondResult;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineResult;
+import org.HdrHistogram.Histogram;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+/**
+ * The explicit encoding of the probe results, used for the chunks of the binary probes result file and for the results
+ * sent between worker, agent and coordinator.
+ *
+ * The type of a result isn't part of its encoding; the binary probes result file stores it in the index, a caller
+ * sending a result has to write it in front of the result. Results are encoded field by field instead of Java
+ * serialized, so the encoding doesn't depend on the class layout of the results.
+ */
+public final class ProbesResultBinaryCodec {
+
+    private ProbesResultBinaryCodec() {
+    }
+
+    public static String getType(Result result) {
+        return result.getClass().getSimpleName();
+    }
+
+    public static void write(DataOutput out, Result result) throws IOException {
+        if (result instanceof HdrLatencyProbeResult) {
+            HdrLatencyProbeResult hdrResult = (HdrLatencyProbeResult) result;
+            writeHistogram(out, hdrResult.getHistogram());
+            Histogram correctedHistogram = hdrResult.getCorrectedHistogram();
+            out.writeBoolean(correctedHistogram != null);
+            if (correctedHistogram != null) {
+                writeHistogram(out, correctedHistogram);
+            }
+        } else if (result instanceof LatencyDistributionResult) {
+            writeLogLinearHistogram(out, ((LatencyDistributionResult) result).getHistogram());
+        } else if (result instanceof MaxLatencyResult) {
+            out.writeLong(((MaxLatencyResult) result).getMaxLatency());
+        } else if (result instanceof OperationsPerSecondResult) {
+            out.writeDouble(((OperationsPerSecondResult) result).getOperationsPerSecond());
+        } else if (result instanceof ThroughputTimelineResult) {
+            ThroughputTimelineResult timelineResult = (ThroughputTimelineResult) result;
+            long[] operations = timelineResult.getOperations();
+            out.writeLong(timelineResult.getStartSecond());
+            out.writeInt(operations.length);
+            for (long count : operations) {
+                out.writeLong(count);
+            }
+        } else if (result instanceof MeasurementWindowResult) {
+            MeasurementWindowResult windowResult = (MeasurementWindowResult) result;
+            out.writeLong(windowResult.getStartMillis());
+            out.writeLong(windowResult.getEndMillis());
+        } else if (!(result instanceof DisabledResult)) {
+            throw new IOException("Unsupported result type " + getType(result));
+        }
+    }
+
+    public static Result read(DataInput in, String type) throws IOException {
+        if ("HdrLatencyProbeResult".equals(type)) {
+            Histogram histogram = readHistogram(in);
+            Histogram correctedHistogram = in.readBoolean() ? readHistogram(in) : null;
+            return new HdrLatencyProbeResult(histogram, correctedHistogram);
+        } else if ("LatencyDistributionResult".equals(type)) {
+            return new LatencyDistributionResult(readLogLinearHistogram(in));
+        } else if ("MaxLatencyResult".equals(type)) {
+            return new MaxLatencyResult(in.readLong());
+        } else if ("OperationsPerSecondResult".equals(type)) {
+            return new OperationsPerSecondResult(in.readDouble());
+        } else if ("ThroughputTimelineResult".equals(type)) {
+            long startSecond = in.readLong();
+            long[] operations = new long[in.readInt()];
+            for (int k = 0; k < operations.length; k++) {
+                operations[k] = in.readLong();
+            }
+            return new ThroughputTimelineResult(startSecond, operations);
+        } else if ("MeasurementWindowResult".equals(type)) {
+            return new MeasurementWindowResult(in.readLong(), in.readLong());
+        } else if ("DisabledResult".equals(type)) {
+            return new DisabledResult();
+        }
+        throw new IOException("Unknown result type " + type);
+    }
+
+    private static void writeHistogram(DataOutput out, Histogram histogram) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        out.writeInt(length);
+        out.write(buffer.array(), 0, length);
+    }
+
+    private static Histogram readHistogram(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IOException("Failed to decode histogram", e);
+        }
+    }
+
+    // only the non empty buckets are written
+    private static void writeLogLinearHistogram(DataOutput out, LogLinearHistogram histogram) throws IOException {
+        out.writeLong(histogram.getHighestTrackableValue());
+        out.writeByte(histogram.getSubBucketBits());
+        int nonEmptyBuckets = 0;
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            if (histogram.getCount(i) != 0) {
+                nonEmptyBuckets++;
+            }
+        }
+        out.writeInt(nonEmptyBuckets);
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            long count = histogram.getCount(i);
+            if (count != 0) {
+                out.writeInt(i);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    private static LogLinearHistogram readLogLinearHistogram(DataInput in) throws IOException {
+        long highestTrackableValue = in.readLong();
+        int subBucketBits = in.readByte();
+        LogLinearHistogram histogram = new LogLinearHistogram(highestTrackableValue, subBucketBits);
+        int nonEmptyBuckets = in.readInt();
+        for (int k = 0; k < nonEmptyBuckets; k++) {
+            int bucket = in.readInt();
+            histogram.recordValues(histogram.getLowerBound(bucket), in.readLong());
+        }
+        return histogram;
+    }
+}
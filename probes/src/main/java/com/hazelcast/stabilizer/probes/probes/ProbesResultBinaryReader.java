@@ -0,0 +1,207 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+
+import static com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter.CHUNK_MARKER;
+import static com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter.HEADER_LENGTH;
+import static com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter.INDEX_MARKER;
+import static com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter.MAGIC;
+import static com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter.VERSION;
+
+/**
+ * Reads a binary probes result file written by the {@link ProbesResultBinaryWriter}.
+ *
+ * Only the index is read when the reader is opened; the chunks are read on demand, so a single probe or time window
+ * can be read without parsing the rest of the file. When the file has no complete index at its end, because the
+ * writer didn't close it, the index is recovered by scanning the chunk headers.
+ */
+public class ProbesResultBinaryReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final List<ProbesResultIndexEntry> index;
+    private long end;
+
+    public ProbesResultBinaryReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            this.index = Collections.unmodifiableList(readIndex());
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    private List<ProbesResultIndexEntry> readIndex() throws IOException {
+        if (file.length() < HEADER_LENGTH || file.readInt() != MAGIC) {
+            throw new IOException("Not a probes result file");
+        }
+        int version = file.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported probes result file version: " + version);
+        }
+        long indexOffset = file.readLong();
+        if (indexOffset >= HEADER_LENGTH && indexOffset < file.length()) {
+            byte[] bytes = new byte[(int) (file.length() - indexOffset)];
+            file.seek(indexOffset);
+            file.readFully(bytes);
+            ByteArrayInputStream indexBytes = new ByteArrayInputStream(bytes);
+            List<ProbesResultIndexEntry> index = readIndex(new DataInputStream(indexBytes));
+            // chunks written after the index means the file was appended to without being closed
+            if (index != null && indexBytes.available() == 0) {
+                end = file.length();
+                return index;
+            }
+        }
+        return scan();
+    }
+
+    // returns null if there is no complete index at the current position.
+    private static List<ProbesResultIndexEntry> readIndex(DataInput in) throws IOException {
+        try {
+            if (in.readInt() != INDEX_MARKER) {
+                return null;
+            }
+            int entryCount = in.readInt();
+            List<ProbesResultIndexEntry> index = new ArrayList<ProbesResultIndexEntry>();
+            for (int k = 0; k < entryCount; k++) {
+                index.add(new ProbesResultIndexEntry(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(),
+                        in.readLong(), in.readInt()));
+            }
+            return index;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private List<ProbesResultIndexEntry> scan() throws IOException {
+        List<ProbesResultIndexEntry> index = new ArrayList<ProbesResultIndexEntry>();
+        long position = HEADER_LENGTH;
+        long length = file.length();
+        try {
+            while (position < length) {
+                file.seek(position);
+                int marker = file.readInt();
+                if (marker == CHUNK_MARKER) {
+                    String probeName = file.readUTF();
+                    String type = file.readUTF();
+                    long startMillis = file.readLong();
+                    long endMillis = file.readLong();
+                    int dataLength = file.readInt();
+                    long dataOffset = file.getFilePointer();
+                    if (dataLength < 0 || dataOffset + dataLength > length) {
+                        break;
+                    }
+                    index.add(new ProbesResultIndexEntry(probeName, type, startMillis, endMillis, dataOffset,
+                            dataLength));
+                    position = dataOffset + dataLength;
+                } else if (marker == INDEX_MARKER) {
+                    // an index of a previous writer; its entries are the chunks before it
+                    file.seek(position);
+                    if (readIndex(file) == null) {
+                        break;
+                    }
+                    position = file.getFilePointer();
+                } else {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // an incompletely written last chunk
+        }
+        end = position;
+        return index;
+    }
+
+    /**
+     * Returns the end of the last complete chunk or index, this is where a writer continues.
+     */
+    long getEnd() {
+        return end;
+    }
+
+    public List<ProbesResultIndexEntry> getIndex() {
+        return index;
+    }
+
+    public Set<String> getProbeNames() {
+        Set<String> probeNames = new LinkedHashSet<String>();
+        for (ProbesResultIndexEntry entry : index) {
+            probeNames.add(entry.getProbeName());
+        }
+        return probeNames;
+    }
+
+    /**
+     * Finds the chunks of a probe that overlap with the time window.
+     */
+    public List<ProbesResultIndexEntry> find(String probeName, long fromMillis, long toMillis) {
+        List<ProbesResultIndexEntry> result = new ArrayList<ProbesResultIndexEntry>();
+        for (ProbesResultIndexEntry entry : index) {
+            if (entry.getProbeName().equals(probeName) && entry.overlaps(fromMillis, toMillis)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public Result read(ProbesResultIndexEntry entry) throws IOException {
+        byte[] bytes = new byte[entry.getLength()];
+        file.seek(entry.getOffset());
+        file.readFully(bytes);
+
+        DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+        try {
+            return ProbesResultBinaryCodec.read(in, entry.getType());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the chunks of a probe that overlap with the time window and combines them.
+     *
+     * @return the combined result or null if there are no chunks.
+     */
+    public Result read(String probeName, long fromMillis, long toMillis) throws IOException {
+        Result combined = null;
+        for (ProbesResultIndexEntry entry : find(probeName, fromMillis, toMillis)) {
+            combined = read(entry).combine(combined);
+        }
+        return combined;
+    }
+
+    public Result read(String probeName) throws IOException {
+        return read(probeName, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the combined result of every probe.
+     */
+    public Map<String, Result> readAll() throws IOException {
+        Map<String, Result> result = new HashMap<String, Result>();
+        for (String probeName : getProbeNames()) {
+            result.put(probeName, read(probeName));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
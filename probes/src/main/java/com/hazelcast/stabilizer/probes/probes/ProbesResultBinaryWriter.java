@@ -0,0 +1,160 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes probe results to a chunked binary file, which can be read by the {@link ProbesResultBinaryReader} without
+ * parsing the whole file.
+ *
+ * The file layout is:
+ * <pre>
+ * header: magic (int), version (int), index offset (long)
+ * chunks: per chunk: chunk marker (int), probe name, type, start millis, end millis, data length (int) and the
+ *         deflate compressed result, encoded by the {@link ProbesResultBinaryCodec}
+ * index:  index marker (int), entry count (int), per entry: probe name, type, start millis, end millis, data offset,
+ *         data length
+ * </pre>
+ * The index offset in the header is only written when the writer is closed. Since every chunk describes itself, the
+ * reader recovers a file without a complete index, e.g. because the coordinator crashed, by scanning the chunks; an
+ * incompletely written last chunk is dropped.
+ *
+ * If the file already exists, the new chunks and the new index are appended after the old index, so the results of
+ * multiple tests can be written to the same file. The header keeps pointing to the old index until the new index has
+ * been written; the old index becomes dead space that is skipped when the file is scanned.
+ *
+ * The writer can be shared by multiple threads, so interval results can be written as they are produced.
+ */
+public class ProbesResultBinaryWriter implements Closeable {
+
+    static final int MAGIC = 0x53545052;
+    static final int VERSION = 1;
+    static final int INDEX_OFFSET_POSITION = 8;
+    static final int HEADER_LENGTH = 16;
+    static final int CHUNK_MARKER = 0x43484e4b;
+    static final int INDEX_MARKER = 0x494e4458;
+
+    private final RandomAccessFile file;
+    private final List<ProbesResultIndexEntry> index = new ArrayList<ProbesResultIndexEntry>();
+
+    public ProbesResultBinaryWriter(File file) throws IOException {
+        long end = 0;
+        if (file.exists() && file.length() > 0) {
+            ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+            try {
+                index.addAll(reader.getIndex());
+                end = reader.getEnd();
+            } finally {
+                reader.close();
+            }
+        }
+
+        this.file = new RandomAccessFile(file, "rw");
+        if (index.isEmpty()) {
+            this.file.setLength(0);
+            this.file.writeInt(MAGIC);
+            this.file.writeInt(VERSION);
+            this.file.writeLong(0);
+        } else {
+            // an incompletely written last chunk of a recovered file is cut off
+            this.file.setLength(end);
+            this.file.seek(end);
+        }
+    }
+
+    public synchronized <R extends Result<R>> void write(Map<String, R> results, long startMillis, long endMillis)
+            throws IOException {
+        for (Map.Entry<String, R> entry : results.entrySet()) {
+            write(entry.getKey(), entry.getValue(), startMillis, endMillis);
+        }
+    }
+
+    /**
+     * Writes a single chunk.
+     *
+     * @param probeName   the name of the probe.
+     * @param result      the result of the probe.
+     * @param startMillis the start of the time range covered by the result.
+     * @param endMillis   the end of the time range covered by the result.
+     */
+    public synchronized void write(String probeName, Result result, long startMillis, long endMillis)
+            throws IOException {
+        String type = ProbesResultBinaryCodec.getType(result);
+        byte[] data = compress(result);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(CHUNK_MARKER);
+        out.writeUTF(probeName);
+        out.writeUTF(type);
+        out.writeLong(startMillis);
+        out.writeLong(endMillis);
+        out.writeInt(data.length);
+        out.flush();
+        long dataOffset = file.getFilePointer() + bytes.size();
+        out.write(data);
+        out.flush();
+
+        // the chunk is written at once, so only the last chunk can be incomplete
+        file.write(bytes.toByteArray());
+        index.add(new ProbesResultIndexEntry(probeName, type, startMillis, endMillis, dataOffset, data.length));
+    }
+
+    private static byte[] compress(Result result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes));
+        ProbesResultBinaryCodec.write(out, result);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks if a chunk has been written for the probe, including the chunks of an appended file.
+     */
+    public synchronized boolean contains(String probeName) {
+        for (ProbesResultIndexEntry entry : index) {
+            if (entry.getProbeName().equals(probeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the index and completes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            long indexOffset = file.getFilePointer();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(INDEX_MARKER);
+            out.writeInt(index.size());
+            for (ProbesResultIndexEntry entry : index) {
+                out.writeUTF(entry.getProbeName());
+                out.writeUTF(entry.getType());
+                out.writeLong(entry.getStartMillis());
+                out.writeLong(entry.getEndMillis());
+                out.writeLong(entry.getOffset());
+                out.writeInt(entry.getLength());
+            }
+            out.flush();
+            file.write(bytes.toByteArray());
+            file.setLength(file.getFilePointer());
+
+            file.seek(INDEX_OFFSET_POSITION);
+            file.writeLong(indexOffset);
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+/**
+ * An entry in the index of a binary probes result file: the location of a single probe result chunk and the time range
+ * it covers.
+ */
+public class ProbesResultIndexEntry {
+    private final String probeName;
+    private final String type;
+    private final long startMillis;
+    private final long endMillis;
+    private final long offset;
+    private final int length;
+
+    public ProbesResultIndexEntry(String probeName, String type, long startMillis, long endMillis, long offset,
+                                  int length) {
+        this.probeName = probeName;
+        this.type = type;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String getProbeName() {
+        return probeName;
+    }
+
+    /**
+     * Returns the simple class name of the result, so the type is known without reading the chunk.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean overlaps(long fromMillis, long toMillis) {
+        return startMillis <= toMillis && endMillis >= fromMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ProbesResultIndexEntry{" +
+                "probeName='" + probeName + '\'' +
+                ", type='" + type + '\'' +
+                ", startMillis=" + startMillis +
+                ", endMillis=" + endMillis +
+                ", offset=" + offset +
+                ", length=" + length +
+                '}';
+    }
+}
@@ -3,7 +3,9 @@ package com.hazelcast.stabilizer.probes.probes;
 import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
 import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
 import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
 import com.hazelcast.stabilizer.probes.probes.impl.OperationsPerSecondResult;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineResult;
 import org.HdrHistogram.Histogram;
 import sun.misc.BASE64Decoder;
 
@@ -18,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.zip.DataFormatException;
 
@@ -75,6 +78,10 @@ public class ProbesResultXmlReader {
             probeResult = parseOperationsPerSecondResult(reader);
         } else if ("HdrLatencyProbeResult".equals(type)) {
             probeResult = parseHdrLatencyProbeResult(reader);
+        } else if ("ThroughputTimelineResult".equals(type)) {
+            probeResult = parseThroughputTimelineResult(reader);
+        } else if ("MeasurementWindowResult".equals(type)) {
+            probeResult = parseMeasurementWindowResult(reader);
         }
         result.put(name, probeResult);
 
@@ -96,25 +103,37 @@ public class ProbesResultXmlReader {
     }
 
     private Result parseHdrLatencyProbeResult(XMLEventReader reader) throws XMLStreamException {
+        Histogram histogram = parseHdrHistogram(reader, "data");
+
+        // the corrected histogram is optional, it is only written when the test used intended start times.
+        Histogram correctedHistogram = null;
+        XMLEvent nextEvent = reader.peek();
+        if (nextEvent != null && nextEvent.isStartElement()
+                && "corrected-data".equals(nextEvent.asStartElement().getName().getLocalPart())) {
+            correctedHistogram = parseHdrHistogram(reader, "corrected-data");
+        }
+        return new HdrLatencyProbeResult(histogram, correctedHistogram);
+    }
+
+    private Histogram parseHdrHistogram(XMLEventReader reader, String elementName) throws XMLStreamException {
         String encodedData = null;
         while (reader.hasNext()) {
             XMLEvent xmlEvent = reader.nextEvent();
             if (xmlEvent.isEndElement()) {
                 EndElement endElement = xmlEvent.asEndElement();
-                if ("data".equals(endElement.getName().getLocalPart())) {
+                if (elementName.equals(endElement.getName().getLocalPart())) {
                     if (encodedData != null) {
                         BASE64Decoder base64Decoder = new BASE64Decoder();
                         try {
                             byte[] bytes = base64Decoder.decodeBuffer(encodedData);
-                            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
-                            return new HdrLatencyProbeResult(histogram);
+                            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
                         } catch (IOException e) {
-                            new RuntimeException(e);
+                            throw new XMLStreamException(e);
                         } catch (DataFormatException e) {
-                            new RuntimeException(e);
+                            throw new XMLStreamException(e);
                         }
                     } else {
-                        throw new XMLStreamException("Unexpected end element data.");
+                        throw new XMLStreamException("Unexpected end element " + elementName + ".");
                     }
                 } else {
                     throw new XMLStreamException("Unexpected end element "+endElement.getName());
@@ -124,7 +143,66 @@ public class ProbesResultXmlReader {
             }
         }
         throw new XMLStreamException("Unexpected end of stream");
+    }
+
+    private ThroughputTimelineResult parseThroughputTimelineResult(XMLEventReader reader) throws XMLStreamException {
+        Long startSecond = null;
+        while (reader.hasNext()) {
+            XMLEvent xmlEvent = reader.nextEvent();
+            if (xmlEvent.isStartElement()) {
+                String elementName = xmlEvent.asStartElement().getName().getLocalPart();
+                if ("start-second".equals(elementName)) {
+                    startSecond = Long.parseLong(parseCharsAndEndCurrentElement(reader));
+                } else if ("timeline".equals(elementName)) {
+                    if (startSecond == null) {
+                        throw new XMLStreamException("Unexpected element timeline. Start-second has not been defined");
+                    }
+                    return new ThroughputTimelineResult(startSecond, parseTimeline(reader));
+                }
+            }
+        }
+        throw new XMLStreamException("Unexpected end of the document");
+    }
+
+    private MeasurementWindowResult parseMeasurementWindowResult(XMLEventReader reader) throws XMLStreamException {
+        Long startMillis = null;
+        while (reader.hasNext()) {
+            XMLEvent xmlEvent = reader.nextEvent();
+            if (xmlEvent.isStartElement()) {
+                String elementName = xmlEvent.asStartElement().getName().getLocalPart();
+                if ("start-millis".equals(elementName)) {
+                    startMillis = Long.parseLong(parseCharsAndEndCurrentElement(reader));
+                } else if ("end-millis".equals(elementName)) {
+                    if (startMillis == null) {
+                        throw new XMLStreamException("Unexpected element end-millis. Start-millis has not been defined");
+                    }
+                    return new MeasurementWindowResult(startMillis, Long.parseLong(parseCharsAndEndCurrentElement(reader)));
+                }
+            }
+        }
+        throw new XMLStreamException("Unexpected end of the document");
+    }
 
+    private long[] parseTimeline(XMLEventReader reader) throws XMLStreamException {
+        StringBuilder data = new StringBuilder();
+        while (reader.hasNext()) {
+            XMLEvent xmlEvent = reader.nextEvent();
+            if (xmlEvent.isCharacters()) {
+                data.append(xmlEvent.asCharacters().getData());
+            } else if (xmlEvent.isEndElement()) {
+                String timeline = data.toString().trim();
+                if (timeline.isEmpty()) {
+                    return new long[0];
+                }
+                String[] values = timeline.split(",");
+                long[] operations = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    operations[i] = Long.parseLong(values[i].trim());
+                }
+                return operations;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of the document");
     }
 
     private Result parseOperationsPerSecondResult(XMLEventReader reader) throws XMLStreamException {
@@ -150,65 +228,85 @@ public class ProbesResultXmlReader {
         throw new XMLStreamException("Unexpected end of stream");
     }
 
+    /**
+     * Parses a latency distribution. Older versions wrote a linear histogram (step and max-value), the current version
+     * writes a log-linear histogram (highest-trackable-value and sub-bucket-bits); both are read.
+     */
     private LatencyDistributionResult parseLatencyDistributionResult(XMLEventReader reader) throws XMLStreamException {
-        LinearHistogram histogram = null;
         Integer step = null;
         Integer maxValue = null;
+        Long highestTrackableValue = null;
+        int subBucketBits = LogLinearHistogram.DEFAULT_SUB_BUCKET_BITS;
 
         while (reader.hasNext()) {
             XMLEvent xmlEvent = reader.nextEvent();
             if (xmlEvent.isStartElement()) {
                 StartElement startElement = xmlEvent.asStartElement();
-                if ("step".equals(startElement.getName().getLocalPart())) {
+                String elementName = startElement.getName().getLocalPart();
+                if ("step".equals(elementName)) {
                     if (step == null) {
                         step = Integer.parseInt(parseCharsAndEndCurrentElement(reader));
-                        if (maxValue != null) {
-                            histogram = new LinearHistogram(maxValue, step);
-                        }
                     } else {
                         throw new XMLStreamException("Unexpected element step. Step has been already defined");
                     }
-                } else if ("max-value".equals(startElement.getName().getLocalPart())) {
+                } else if ("max-value".equals(elementName)) {
                     if (maxValue == null) {
                         maxValue = Integer.parseInt(parseCharsAndEndCurrentElement(reader));
-                        if (step != null) {
-                            histogram = new LinearHistogram(maxValue, step);
-                        }
                     } else {
                         throw new XMLStreamException("Unexpected element max-value. Max-value has been already defined");
                     }
-                } else if ("buckets".equals(startElement.getName().getLocalPart())) {
-                    parseBuckets(reader, histogram);
-                    return new LatencyDistributionResult(histogram);
+                } else if ("highest-trackable-value".equals(elementName)) {
+                    highestTrackableValue = Long.parseLong(parseCharsAndEndCurrentElement(reader));
+                } else if ("sub-bucket-bits".equals(elementName)) {
+                    subBucketBits = Integer.parseInt(parseCharsAndEndCurrentElement(reader));
+                } else if ("buckets".equals(elementName)) {
+                    Map<Long, Long> buckets = parseBuckets(reader);
+                    if (highestTrackableValue != null) {
+                        LogLinearHistogram histogram = new LogLinearHistogram(highestTrackableValue, subBucketBits);
+                        for (Map.Entry<Long, Long> bucket : buckets.entrySet()) {
+                            histogram.recordValues(bucket.getKey() - 1, bucket.getValue());
+                        }
+                        return new LatencyDistributionResult(histogram);
+                    } else if (step != null && maxValue != null) {
+                        LinearHistogram histogram = new LinearHistogram(maxValue, step);
+                        for (Map.Entry<Long, Long> bucket : buckets.entrySet()) {
+                            histogram.addMultipleValues((int) (bucket.getKey() - 1), bucket.getValue().intValue());
+                        }
+                        return new LatencyDistributionResult(histogram);
+                    } else {
+                        throw new XMLStreamException("Unexpected element buckets. The histogram has not been defined");
+                    }
                 }
             }
         }
         throw new XMLStreamException("Unexpected end of the document");
     }
 
-    private void parseBuckets(XMLEventReader reader, LinearHistogram histogram) throws XMLStreamException {
+    private Map<Long, Long> parseBuckets(XMLEventReader reader) throws XMLStreamException {
+        Map<Long, Long> buckets = new LinkedHashMap<Long, Long>();
         while (reader.hasNext()) {
             XMLEvent xmlEvent = reader.nextEvent();
             if (xmlEvent.isEndElement()) {
                 EndElement endElement = xmlEvent.asEndElement();
                 if ("buckets".equals(endElement.getName().getLocalPart())) {
-                    return;
+                    return buckets;
                 } else {
                     throw new XMLStreamException("Unexpected end element "+endElement.getName());
                 }
             } else if (xmlEvent.isStartElement()) {
                 StartElement startElement = xmlEvent.asStartElement();
                 if ("bucket".equals(startElement.getName().getLocalPart())) {
-                    parseBucket(reader, startElement, histogram);
+                    parseBucket(reader, startElement, buckets);
                 }
             }
         }
+        throw new XMLStreamException("Unexpected end of the document");
     }
 
-    private void parseBucket(XMLEventReader reader, StartElement element, LinearHistogram histogram) throws XMLStreamException {
+    private void parseBucket(XMLEventReader reader, StartElement element, Map<Long, Long> buckets) throws XMLStreamException {
         String upperBound = element.getAttributeByName(new QName("upper-bound")).getValue();
         String values = element.getAttributeByName(new QName("values")).getValue();
-        histogram.addMultipleValues(Integer.parseInt(upperBound)-1, Integer.parseInt(values));
+        buckets.put(Long.parseLong(upperBound), Long.parseLong(values));
 
         while (reader.hasNext()) {
             XMLEvent xmlEvent = reader.nextEvent();
@@ -1,18 +1,34 @@
 package com.hazelcast.stabilizer.probes.probes.impl;
 
+import com.hazelcast.stabilizer.probes.probes.IntervalResultProbe;
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
 import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
 import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.probes.probes.util.ConcurrencyUtil;
 import com.hazelcast.stabilizer.probes.probes.util.ConstructorFunction;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 
-public abstract class AbstractConcurrentProbe<R extends Result<R>, T extends SimpleProbe<R, T>> {
+/**
+ * Gives every thread its own probe, so the probes themselves don't need to be thread-safe.
+ *
+ * A {@link ProbeThread} finds its probe by its slot in the {@link #slots} array; this is just an array load and doesn't
+ * allocate. All other threads fall back to a ThreadLocal. Either way the probe is created once, by the thread that is
+ * going to use it, and is registered in the probeMap so the results can be collected.
+ */
+public abstract class AbstractConcurrentProbe<R extends Result<R>, T extends SimpleProbe<R, T>>
+        implements IntervalResultProbe<R> {
+    private static final Object[] NO_SLOTS = new Object[0];
+
     private final ThreadLocal<T> threadLocalProbe;
     private final ConcurrentHashMap<Long, T> probeMap;
     private final ConstructorFunction<Long, T> constructorFunction;
-    private long startedAt;
+    private volatile Object[] slots = NO_SLOTS;
+    private volatile long startedAt;
+    private volatile boolean recording = true;
 
     public AbstractConcurrentProbe(ConstructorFunction<Long, T> constructorFunction) {
         this.constructorFunction = constructorFunction;
@@ -34,10 +50,45 @@ public abstract class AbstractConcurrentProbe<R extends Result<R>, T extends Sim
         return result;
     }
 
+    @Override
+    public R getIntervalResult() {
+        R result = null;
+        for (T probe : probeMap.values()) {
+            if (!(probe instanceof IntervalResultProbe)) {
+                return null;
+            }
+            R nextData = ((IntervalResultProbe<R>) probe).getIntervalResult();
+            result = result == null ? nextData : result.combine(nextData);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the probes of the threads that have used this probe.
+     */
+    Collection<T> getProbes() {
+        return probeMap.values();
+    }
+
     T getProbe() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ProbeThread) {
+            int slot = ((ProbeThread) thread).getProbeSlot();
+            if (slot >= 0) {
+                Object[] slots = this.slots;
+                if (slot < slots.length) {
+                    T probe = (T) slots[slot];
+                    if (probe != null) {
+                        return probe;
+                    }
+                }
+                return registerSlot(slot, thread.getId());
+            }
+        }
+
         T probe = threadLocalProbe.get();
         if (probe == null) {
-            long id = Thread.currentThread().getId();
+            long id = thread.getId();
             probe = ConcurrencyUtil.getOrPutIfAbsent(probeMap, id, constructorFunction);
             probe.startProbing(startedAt);
             threadLocalProbe.set(probe);
@@ -45,8 +96,39 @@ public abstract class AbstractConcurrentProbe<R extends Result<R>, T extends Sim
         return probe;
     }
 
+    // a slot is only registered once per probe, so there is no point in making this lock free.
+    private synchronized T registerSlot(int slot, long threadId) {
+        Object[] slots = this.slots;
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slot + 1, slots.length * 2));
+        }
+
+        T probe = (T) slots[slot];
+        if (probe == null) {
+            probe = constructorFunction.createNew(threadId);
+            probe.startProbing(startedAt);
+            probeMap.put(threadId, probe);
+            slots[slot] = probe;
+        }
+
+        this.slots = slots;
+        return probe;
+    }
+
+    /**
+     * Starts the probing at the given time.
+     *
+     * The probes the threads have already created are started again as well, so when the probing is restarted, e.g.
+     * when a measurement window opens after a warmup, the throughput of the thread probes is calculated from the new
+     * start time rather than from the time their thread first used them.
+     *
+     * @param time the start time in milliseconds.
+     */
     public void startProbing(long time) {
         startedAt = time;
+        for (T probe : probeMap.values()) {
+            probe.startProbing(time);
+        }
     }
 
     public void stopProbing(long time) {
@@ -54,4 +136,19 @@ public abstract class AbstractConcurrentProbe<R extends Result<R>, T extends Sim
             probe.stopProbing(time);
         }
     }
+
+    /**
+     * Turns the recording of completed operations on or off, e.g. to leave the warmup of a test out of the results.
+     *
+     * The probes of the threads are kept, so this doesn't lose what has been recorded so far.
+     *
+     * @param recording true if {@link SimpleProbe#done()} should be recorded.
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
 }
@@ -0,0 +1,43 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.Result;
+
+/**
+ * Base class for the single threaded interval probes.
+ *
+ * The started timestamp is written on every operation, so it is padded on both sides to make sure the recorders of
+ * different load threads never share a cache line.
+ */
+public abstract class AbstractIntervalProbe<R extends Result<R>, T extends IntervalProbe<R, T>>
+        extends StartedField implements IntervalProbe<R, T> {
+
+    protected long p9, p10, p11, p12, p13, p14, p15;
+
+    @Override
+    public void started() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void started(long intendedStartNanos) {
+        started();
+    }
+
+    @Override
+    public void startProbing(long time) {
+    }
+
+    @Override
+    public void stopProbing(long time) {
+    }
+}
+
+abstract class LeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class StartedField extends LeftPadding {
+    protected long started;
+    protected long intendedStarted;
+}
@@ -0,0 +1,43 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.util.ConstructorFunction;
+
+/**
+ * The concurrent {@link HdrLatencyDistributionProbe}.
+ *
+ * The probe of every thread only holds the active and inactive recording of the current interval. The interval and
+ * cumulative histograms are kept once for all threads by a shared {@link HdrLatencyAccumulator}, instead of per thread
+ * and combined by copying.
+ */
+public class ConcurrentHdrLatencyDistributionProbe
+        extends ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> {
+
+    private static final ConstructorFunction<Long, HdrLatencyDistributionProbe> CONSTRUCTOR_FUNCTION
+            = new ConstructorFunction<Long, HdrLatencyDistributionProbe>() {
+        @Override
+        public HdrLatencyDistributionProbe createNew(Long arg) {
+            return new HdrLatencyDistributionProbe();
+        }
+    };
+
+    private final HdrLatencyAccumulator accumulator = new HdrLatencyAccumulator();
+
+    public ConcurrentHdrLatencyDistributionProbe() {
+        super(CONSTRUCTOR_FUNCTION);
+    }
+
+    @Override
+    public HdrLatencyProbeResult getResult() {
+        return accumulator.getResult(getProbes());
+    }
+
+    @Override
+    public HdrLatencyProbeResult getIntervalResult() {
+        return accumulator.getIntervalResult(getProbes());
+    }
+
+    @Override
+    public ConcurrentHdrLatencyDistributionProbe createNew(Long arg) {
+        return new ConcurrentHdrLatencyDistributionProbe();
+    }
+}
@@ -19,9 +19,23 @@ public class ConcurrentIntervalProbe<R extends Result<R>, T extends IntervalProb
         getProbe().started();
     }
 
+    @Override
+    public void started(long intendedStartNanos) {
+        getProbe().started(intendedStartNanos);
+    }
+
     @Override
     public void done() {
-        getProbe().done();
+        if (isRecording()) {
+            getProbe().done();
+        }
+    }
+
+    @Override
+    public void done(long startedNanos, long intendedStartNanos) {
+        if (isRecording()) {
+            getProbe().done(startedNanos, intendedStartNanos);
+        }
     }
 
     @Override
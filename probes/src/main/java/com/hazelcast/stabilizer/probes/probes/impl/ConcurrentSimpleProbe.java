@@ -16,7 +16,9 @@ public class ConcurrentSimpleProbe<R extends Result<R>, T extends SimpleProbe<R,
 
     @Override
     public void done() {
-        getProbe().done();
+        if (isRecording()) {
+            getProbe().done();
+        }
     }
 
     @Override
@@ -11,6 +11,9 @@ public class DisabledProbe implements IntervalProbe<DisabledResult, DisabledProb
     @Override
     public void started() {  }
 
+    @Override
+    public void started(long intendedStartNanos) {  }
+
     @Override
     public void startProbing(long time) {    }
 
@@ -20,6 +23,9 @@ public class DisabledProbe implements IntervalProbe<DisabledResult, DisabledProb
     @Override
     public void done() {   }
 
+    @Override
+    public void done(long startedNanos, long intendedStartNanos) {   }
+
     @Override
     public DisabledResult getResult() {
         return RESULT;
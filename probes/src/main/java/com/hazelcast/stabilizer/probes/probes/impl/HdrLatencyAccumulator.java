@@ -0,0 +1,61 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyDistributionProbe.Recording;
+
+import java.util.Collection;
+
+/**
+ * Keeps the interval and the cumulative recording of a set of {@link HdrLatencyDistributionProbe}s.
+ *
+ * The probes are drained into a single interval recording, which is handed out as is by {@link #getIntervalResult}
+ * instead of being copied. Every drained value is added to the cumulative recording as well, so there is a single
+ * cumulative histogram no matter how many threads record.
+ */
+final class HdrLatencyAccumulator {
+
+    private final Recording cumulative = new Recording();
+    // created on demand, since it is handed out with every interval result; it can't be reset and reused, because the
+    // result may still be queued, e.g. in a metrics snapshot. It is one recording per probe, not per thread.
+    private Recording interval;
+    private boolean drained;
+
+    /**
+     * Returns the cumulative result. The interval of the probes is kept for the next {@link #getIntervalResult}.
+     *
+     * @return the result or null if there are no probes.
+     */
+    synchronized HdrLatencyProbeResult getResult(Collection<HdrLatencyDistributionProbe> probes) {
+        if (!drain(probes)) {
+            return null;
+        }
+        return cumulative.toResultCopy();
+    }
+
+    /**
+     * Returns everything recorded since the previous call.
+     *
+     * @return the interval result or null if there are no probes.
+     */
+    synchronized HdrLatencyProbeResult getIntervalResult(Collection<HdrLatencyDistributionProbe> probes) {
+        if (!drain(probes)) {
+            return null;
+        }
+        HdrLatencyProbeResult result = interval.toResult();
+        interval = null;
+        return result;
+    }
+
+    private boolean drain(Collection<HdrLatencyDistributionProbe> probes) {
+        if (interval == null) {
+            if (probes.isEmpty() && !drained) {
+                return false;
+            }
+            interval = new Recording();
+        }
+        for (HdrLatencyDistributionProbe probe : probes) {
+            probe.drain(interval, cumulative);
+        }
+        drained = true;
+        return true;
+    }
+}
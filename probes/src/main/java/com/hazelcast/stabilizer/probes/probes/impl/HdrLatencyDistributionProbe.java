@@ -1,42 +1,170 @@
 package com.hazelcast.stabilizer.probes.probes.impl;
 
-import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.IntervalResultProbe;
 import org.HdrHistogram.Histogram;
+import org.HdrHistogram.WriterReaderPhaser;
+
+import java.util.Collections;
+
+/**
+ * Records the latency in a HdrHistogram.
+ *
+ * Like the HdrHistogram Recorder the probe has an active and an inactive histogram. The writer records in the active
+ * histogram. A reader swaps the active and inactive histogram and flips the phase of the {@link WriterReaderPhaser};
+ * once the flip returns the inactive histogram is no longer written to and can be drained by the reader. So a reader
+ * can take a consistent interval snapshot without stopping the writer.
+ *
+ * The two recordings are allocated once and reused: after a drain the inactive recording is reset, not replaced. The
+ * probe only keeps the recording of the current interval; the interval and cumulative histograms are kept by the
+ * {@link HdrLatencyAccumulator} that drains it, which is shared by all threads of a
+ * {@link ConcurrentHdrLatencyDistributionProbe}.
+ *
+ * When an operation is started with an intended start time, the latency measured from the intended start time is
+ * recorded as well, in a separate histogram that is corrected for coordinated omission. An operation without one, e.g.
+ * started with {@link #started()} or with {@link #NOT_SCHEDULED}, is only recorded in the uncorrected histogram.
+ */
+public class HdrLatencyDistributionProbe
+        extends AbstractIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe>
+        implements IntervalResultProbe<HdrLatencyProbeResult> {
 
-public class HdrLatencyDistributionProbe implements IntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> {
     public static final long MAXIMUM_LATENCY = 60 * 1000 * 1000; // 1 minute
-    private final Histogram histogram = new Histogram(MAXIMUM_LATENCY, 4);
 
-    private long started;
+    // the precision of the existing results, so new results can be compared with them.
+    static final int SIGNIFICANT_DIGITS = 4;
+
+    private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+    private volatile Recording activeRecording = new Recording();
 
+    // only accessed while holding the reader lock.
+    private Recording inactiveRecording = new Recording();
+
+    // only created when the results are taken from this probe itself instead of from a concurrent probe.
+    private HdrLatencyAccumulator accumulator;
 
     @Override
     public void started() {
         started = System.nanoTime();
+        intendedStarted = NOT_SCHEDULED;
+    }
+
+    @Override
+    public void started(long intendedStartNanos) {
+        started = System.nanoTime();
+        intendedStarted = intendedStartNanos;
     }
 
     @Override
     public void done() {
-        histogram.recordValue((System.nanoTime() - started) / 1000);
+        record(started, intendedStarted);
     }
 
     @Override
-    public void startProbing(long time) {
+    public void done(long startedNanos, long intendedStartNanos) {
+        record(startedNanos, intendedStartNanos);
+    }
 
+    private void record(long startedNanos, long intendedStartNanos) {
+        long now = System.nanoTime();
+        long criticalValue = phaser.writerCriticalSectionEnter();
+        try {
+            Recording recording = activeRecording;
+            recording.histogram.recordValue(toMicrosClamped(now - startedNanos));
+            if (intendedStartNanos != NOT_SCHEDULED) {
+                recording.getCorrectedHistogram().recordValue(toMicrosClamped(now - intendedStartNanos));
+            }
+        } finally {
+            phaser.writerCriticalSectionExit(criticalValue);
+        }
     }
 
-    @Override
-    public void stopProbing(long time) {
+    // a latency outside the trackable range would make the histogram throw in the load thread; it is negative if e.g.
+    // the metronome scheduled the operation to start a bit later than it actually started.
+    private static long toMicrosClamped(long latencyNanos) {
+        return Math.max(0, Math.min(latencyNanos / 1000, MAXIMUM_LATENCY));
+    }
+
+    /**
+     * Adds everything recorded since the previous drain to the interval and the cumulative recording.
+     */
+    void drain(Recording interval, Recording cumulative) {
+        phaser.readerLock();
+        try {
+            // the inactive recording was reset by the previous drain, so it can be written to right away
+            Recording replacement = inactiveRecording;
+            inactiveRecording = activeRecording;
+            activeRecording = replacement;
+            phaser.flipPhase();
 
+            interval.add(inactiveRecording);
+            cumulative.add(inactiveRecording);
+            inactiveRecording.reset();
+        } finally {
+            phaser.readerUnlock();
+        }
     }
 
     @Override
-    public HdrLatencyProbeResult getResult() {
-        return new HdrLatencyProbeResult(histogram);
+    public synchronized HdrLatencyProbeResult getResult() {
+        return getAccumulator().getResult(Collections.singletonList(this));
+    }
+
+    @Override
+    public synchronized HdrLatencyProbeResult getIntervalResult() {
+        return getAccumulator().getIntervalResult(Collections.singletonList(this));
+    }
+
+    private HdrLatencyAccumulator getAccumulator() {
+        if (accumulator == null) {
+            accumulator = new HdrLatencyAccumulator();
+        }
+        return accumulator;
     }
 
     @Override
     public HdrLatencyDistributionProbe createNew(Long arg) {
         return new HdrLatencyDistributionProbe();
     }
+
+    /**
+     * The uncorrected histogram and the lazily created corrected histogram that are swapped together.
+     */
+    static final class Recording {
+        private final Histogram histogram = new Histogram(MAXIMUM_LATENCY, SIGNIFICANT_DIGITS);
+        private Histogram correctedHistogram;
+
+        private Histogram getCorrectedHistogram() {
+            if (correctedHistogram == null) {
+                correctedHistogram = new Histogram(MAXIMUM_LATENCY, SIGNIFICANT_DIGITS);
+            }
+            return correctedHistogram;
+        }
+
+        void add(Recording other) {
+            if (other.histogram.getTotalCount() > 0) {
+                histogram.add(other.histogram);
+            }
+            if (other.correctedHistogram != null && other.correctedHistogram.getTotalCount() > 0) {
+                getCorrectedHistogram().add(other.correctedHistogram);
+            }
+        }
+
+        private void reset() {
+            histogram.reset();
+            if (correctedHistogram != null) {
+                correctedHistogram.reset();
+            }
+        }
+
+        /**
+         * Hands out the histograms of this recording, so the recording must not be used afterwards.
+         */
+        HdrLatencyProbeResult toResult() {
+            return new HdrLatencyProbeResult(histogram, correctedHistogram);
+        }
+
+        HdrLatencyProbeResult toResultCopy() {
+            Histogram correctedCopy = correctedHistogram == null ? null : correctedHistogram.copy();
+            return new HdrLatencyProbeResult(histogram.copy(), correctedCopy);
+        }
+    }
 }
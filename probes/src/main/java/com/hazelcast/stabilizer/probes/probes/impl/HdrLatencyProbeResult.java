@@ -10,11 +10,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
 
+/**
+ * The latency distribution of a {@link HdrLatencyDistributionProbe}.
+ *
+ * The corrected histogram is only available when the operations were started with their intended start time, it
+ * contains the latencies corrected for coordinated omission.
+ */
 public class HdrLatencyProbeResult implements Result<HdrLatencyProbeResult> {
     private final Histogram histogram;
+    private final Histogram correctedHistogram;
 
     public HdrLatencyProbeResult(Histogram histogram) {
+        this(histogram, null);
+    }
+
+    public HdrLatencyProbeResult(Histogram histogram, Histogram correctedHistogram) {
         this.histogram = histogram;
+        this.correctedHistogram = correctedHistogram;
     }
 
     @Override
@@ -22,22 +34,52 @@ public class HdrLatencyProbeResult implements Result<HdrLatencyProbeResult> {
         if (other == null) {
             return this;
         }
-        Histogram histogramCopy = new Histogram(histogram);
+        Histogram histogramCopy = histogram.copy();
         histogramCopy.add(other.histogram);
-        return new HdrLatencyProbeResult(histogramCopy);
+
+        Histogram correctedHistogramCopy = null;
+        if (correctedHistogram != null) {
+            correctedHistogramCopy = correctedHistogram.copy();
+            if (other.correctedHistogram != null) {
+                correctedHistogramCopy.add(other.correctedHistogram);
+            }
+        } else if (other.correctedHistogram != null) {
+            correctedHistogramCopy = other.correctedHistogram.copy();
+        }
+        return new HdrLatencyProbeResult(histogramCopy, correctedHistogramCopy);
     }
 
     @Override
     public String toHumanString() {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PrintStream stream = new PrintStream(outputStream);
-        histogram.outputPercentileDistribution(stream, 1.0);
+        if (correctedHistogram == null) {
+            histogram.outputPercentileDistribution(stream, 1.0);
+        } else {
+            stream.println("Uncorrected latency distribution in microseconds");
+            histogram.outputPercentileDistribution(stream, 1.0);
+            stream.println();
+            stream.println("Latency distribution corrected for coordinated omission in microseconds");
+            correctedHistogram.outputPercentileDistribution(stream, 1.0);
+        }
         stream.flush();
         return new String(outputStream.toByteArray());
     }
 
     @Override
     public void writeTo(XMLStreamWriter writer) {
+        try {
+            writeHistogram(writer, "data", histogram);
+            if (correctedHistogram != null) {
+                writeHistogram(writer, "corrected-data", correctedHistogram);
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeHistogram(XMLStreamWriter writer, String element, Histogram histogram)
+            throws XMLStreamException {
         int size = histogram.getNeededByteBufferCapacity();
         ByteBuffer byteBuffer = ByteBuffer.allocate(size);
         int bytesWritten = histogram.encodeIntoCompressedByteBuffer(byteBuffer);
@@ -45,13 +87,9 @@ public class HdrLatencyProbeResult implements Result<HdrLatencyProbeResult> {
         byteBuffer.limit(bytesWritten);
         BASE64Encoder encoder = new BASE64Encoder();
         String encodedData = encoder.encode(byteBuffer);
-        try {
-            writer.writeStartElement("data");
-            writer.writeCData(encodedData);
-            writer.writeEndElement();
-        } catch (XMLStreamException e) {
-            new RuntimeException(e);
-        }
+        writer.writeStartElement(element);
+        writer.writeCData(encodedData);
+        writer.writeEndElement();
     }
 
     @Override
@@ -62,16 +100,29 @@ public class HdrLatencyProbeResult implements Result<HdrLatencyProbeResult> {
         HdrLatencyProbeResult that = (HdrLatencyProbeResult) o;
 
         if (histogram != null ? !histogram.equals(that.histogram) : that.histogram != null) return false;
+        if (correctedHistogram != null ? !correctedHistogram.equals(that.correctedHistogram)
+                : that.correctedHistogram != null) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return histogram != null ? histogram.hashCode() : 0;
+        int result = histogram != null ? histogram.hashCode() : 0;
+        result = 31 * result + (correctedHistogram != null ? correctedHistogram.hashCode() : 0);
+        return result;
     }
 
     public Histogram getHistogram() {
         return histogram;
     }
+
+    /**
+     * Returns the histogram corrected for coordinated omission.
+     *
+     * @return the corrected histogram or null if no operation was started with its intended start time.
+     */
+    public Histogram getCorrectedHistogram() {
+        return correctedHistogram;
+    }
 }
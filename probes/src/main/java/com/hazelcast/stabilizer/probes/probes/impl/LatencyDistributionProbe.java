@@ -1,40 +1,26 @@
 package com.hazelcast.stabilizer.probes.probes.impl;
 
-import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
-import com.hazelcast.stabilizer.probes.probes.LinearHistogram;
+import com.hazelcast.stabilizer.probes.probes.LogLinearHistogram;
 
-public class LatencyDistributionProbe implements IntervalProbe<LatencyDistributionResult, LatencyDistributionProbe> {
-    private static final int MAXIMUM_LATENCY = 5000000;
-    private static final int STEP = 10;
+public class LatencyDistributionProbe
+        extends AbstractIntervalProbe<LatencyDistributionResult, LatencyDistributionProbe> {
+    public static final long MAXIMUM_LATENCY = 60 * 1000 * 1000; // 1 minute
 
-    private final LinearHistogram histogram = new LinearHistogram(MAXIMUM_LATENCY, STEP);
-
-    private long started;
-
-
-    @Override
-    public void started() {
-        started = System.nanoTime();
-    }
+    private final LogLinearHistogram histogram = new LogLinearHistogram(MAXIMUM_LATENCY);
 
     @Override
     public void done() {
-        histogram.addValue((int) ((System.nanoTime() - started) / 1000));
+        histogram.recordValue((System.nanoTime() - started) / 1000);
     }
 
     @Override
-    public void startProbing(long time) {
-
-    }
-
-    @Override
-    public void stopProbing(long time) {
-
+    public void done(long startedNanos, long intendedStartNanos) {
+        histogram.recordValue((System.nanoTime() - startedNanos) / 1000);
     }
 
     @Override
     public LatencyDistributionResult getResult() {
-        return new LatencyDistributionResult(histogram);
+        return new LatencyDistributionResult(histogram.copy());
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.hazelcast.stabilizer.probes.probes.impl;
 
 import com.hazelcast.stabilizer.probes.probes.LinearHistogram;
+import com.hazelcast.stabilizer.probes.probes.LogLinearHistogram;
 import com.hazelcast.stabilizer.probes.probes.Result;
 
 import javax.xml.stream.XMLStreamException;
@@ -9,10 +10,25 @@ import java.text.NumberFormat;
 import java.util.Locale;
 
 public class LatencyDistributionResult implements Result<LatencyDistributionResult> {
-    private final LinearHistogram linearHistogram;
+    private final LogLinearHistogram histogram;
 
+    public LatencyDistributionResult(LogLinearHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Creates the result from a linear histogram, as written by older versions. Every linear bucket is recorded at its
+     * highest value.
+     */
     public LatencyDistributionResult(LinearHistogram linearHistogram) {
-        this.linearHistogram = linearHistogram;
+        int step = linearHistogram.getStep();
+        int[] buckets = linearHistogram.getBuckets();
+        this.histogram = new LogLinearHistogram(Math.max(linearHistogram.getMaxValue(), buckets.length * step));
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != 0) {
+                histogram.recordValues((i + 1) * step - 1, buckets[i]);
+            }
+        }
     }
 
     @Override
@@ -20,8 +36,9 @@ public class LatencyDistributionResult implements Result<LatencyDistributionResu
         if (other == null) {
             return this;
         }
-        LatencyDistributionResult result = new LatencyDistributionResult(linearHistogram.combine(other.linearHistogram));
-        return result;
+        LogLinearHistogram combined = histogram.copy();
+        combined.add(other.histogram);
+        return new LatencyDistributionResult(combined);
     }
 
     @Override
@@ -33,44 +50,40 @@ public class LatencyDistributionResult implements Result<LatencyDistributionResu
         builder.append('\n');
         for (int i = 0; i < percentiles.length; i++) {
             double percentile = percentiles[i];
-            HistogramPart value = linearHistogram.getPercentile(percentile);
+            long value = histogram.getValueAtPercentile(percentile);
             String formattedPercentile = numberFormat.format(percentile);
             builder.append("Percentile ")
                     .append(formattedPercentile).append(" ")
-                    .append(String.format("%"+ (numberOfSpaces - formattedPercentile.length()) +"s", value.getBucket()))
+                    .append(String.format("%"+ (numberOfSpaces - formattedPercentile.length()) +"s", value))
                     .append(" µs")
-                    .append(String.format("%"+ numberOfSpaces +"s", value.getValues()))
+                    .append(String.format("%"+ numberOfSpaces +"s", histogram.getCountAtOrBelow(value)))
                     .append(" Ops.\n");
         }
         return builder.toString();
     }
 
-    public LinearHistogram getHistogram() {
-        return linearHistogram;
+    public LogLinearHistogram getHistogram() {
+        return histogram;
     }
 
     @Override
     public void writeTo(XMLStreamWriter writer) {
         try {
-            writer.writeStartElement("step");
-            int step = linearHistogram.getStep();
-            writer.writeCharacters(Integer.toString(step));
+            writer.writeStartElement("highest-trackable-value");
+            writer.writeCharacters(Long.toString(histogram.getHighestTrackableValue()));
             writer.writeEndElement();
 
-            writer.writeStartElement("max-value");
-            int maxValue = linearHistogram.getMaxValue();
-            writer.writeCharacters(Integer.toString(maxValue));
+            writer.writeStartElement("sub-bucket-bits");
+            writer.writeCharacters(Integer.toString(histogram.getSubBucketBits()));
             writer.writeEndElement();
 
             writer.writeStartElement("buckets");
-            int[] buckets = linearHistogram.getBuckets();
-            for (int i = 0; i < buckets.length; i++) {
-                int upperBound = (i + 1) * step;
-                int values = buckets[i];
+            for (int i = 0; i < histogram.getBucketCount(); i++) {
+                long values = histogram.getCount(i);
                 if (values != 0) {
                     writer.writeStartElement("bucket");
-                    writer.writeAttribute("upper-bound", Integer.toString(upperBound));
-                    writer.writeAttribute("values", Integer.toString(values));
+                    writer.writeAttribute("upper-bound", Long.toString(histogram.getUpperBound(i)));
+                    writer.writeAttribute("values", Long.toString(values));
                     writer.writeEndElement();
                 }
             }
@@ -87,13 +100,13 @@ public class LatencyDistributionResult implements Result<LatencyDistributionResu
 
         LatencyDistributionResult that = (LatencyDistributionResult) o;
 
-        if (!linearHistogram.equals(that.linearHistogram)) return false;
+        if (!histogram.equals(that.histogram)) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return linearHistogram.hashCode();
+        return histogram.hashCode();
     }
 }
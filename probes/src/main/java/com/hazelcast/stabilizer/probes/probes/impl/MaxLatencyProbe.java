@@ -1,9 +1,8 @@
 package com.hazelcast.stabilizer.probes.probes.impl;
 
-import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import java.util.concurrent.TimeUnit;
 
-public class MaxLatencyProbe implements IntervalProbe<MaxLatencyResult, MaxLatencyProbe> {
-    private long started;
+public class MaxLatencyProbe extends AbstractIntervalProbe<MaxLatencyResult, MaxLatencyProbe> {
     private long maxLatency;
 
     @Override
@@ -11,16 +10,6 @@ public class MaxLatencyProbe implements IntervalProbe<MaxLatencyResult, MaxLaten
         started = System.currentTimeMillis();
     }
 
-    @Override
-    public void startProbing(long time) {
-
-    }
-
-    @Override
-    public void stopProbing(long time) {
-
-    }
-
     @Override
     public void done() {
         long now = System.currentTimeMillis();
@@ -28,6 +17,12 @@ public class MaxLatencyProbe implements IntervalProbe<MaxLatencyResult, MaxLaten
         maxLatency = Math.max(maxLatency, latency);
     }
 
+    @Override
+    public void done(long startedNanos, long intendedStartNanos) {
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
     @Override
     public MaxLatencyResult getResult() {
         return new MaxLatencyResult(maxLatency);
@@ -53,4 +53,7 @@ public class MaxLatencyResult implements Result<MaxLatencyResult> {
         return (int) (maxLatency ^ (maxLatency >>> 32));
     }
 
+    public long getMaxLatency() {
+        return maxLatency;
+    }
 }
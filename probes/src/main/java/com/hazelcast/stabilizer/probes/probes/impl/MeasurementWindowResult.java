@@ -0,0 +1,77 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.Result;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * The period in which the probes of a test recorded, so the results of different runs can be compared.
+ *
+ * Combining the windows of different workers gives the period from the first start to the last end.
+ */
+public class MeasurementWindowResult implements Result<MeasurementWindowResult> {
+    private final long startMillis;
+    private final long endMillis;
+
+    public MeasurementWindowResult(long startMillis, long endMillis) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    @Override
+    public MeasurementWindowResult combine(MeasurementWindowResult other) {
+        if (other == null) {
+            return this;
+        }
+        return new MeasurementWindowResult(Math.min(startMillis, other.startMillis),
+                Math.max(endMillis, other.endMillis));
+    }
+
+    @Override
+    public String toHumanString() {
+        return "Measured from " + startMillis + " till " + endMillis + " (" + (endMillis - startMillis) + " ms).";
+    }
+
+    @Override
+    public void writeTo(XMLStreamWriter writer) {
+        try {
+            writer.writeStartElement("start-millis");
+            writer.writeCharacters(Long.toString(startMillis));
+            writer.writeEndElement();
+            writer.writeStartElement("end-millis");
+            writer.writeCharacters(Long.toString(endMillis));
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Error while writing probe output", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        MeasurementWindowResult that = (MeasurementWindowResult) o;
+
+        if (startMillis != that.startMillis) return false;
+        if (endMillis != that.endMillis) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (startMillis ^ (startMillis >>> 32));
+        result = 31 * result + (int) (endMillis ^ (endMillis >>> 32));
+        return result;
+    }
+}
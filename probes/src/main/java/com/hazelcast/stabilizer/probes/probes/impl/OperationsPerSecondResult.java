@@ -55,4 +55,8 @@ public class OperationsPerSecondResult implements Result<OperationsPerSecondResu
         long temp = Double.doubleToLongBits(operationsPerSecond);
         return (int) (temp ^ (temp >>> 32));
     }
+
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
 }
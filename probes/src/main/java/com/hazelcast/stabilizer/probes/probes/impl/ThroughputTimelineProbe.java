@@ -0,0 +1,68 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
+
+import java.util.Arrays;
+
+/**
+ * Counts the operations per second of wall clock time, so the throughput over time can be reconstructed.
+ *
+ * The counts are kept in a preallocated array of {@link #INITIAL_CAPACITY} seconds, which is doubled when the test runs
+ * longer, so the timeline always covers the whole run; it costs 8 bytes per second. The seconds are epoch based, so the
+ * results of different threads and workers can be merged by timestamp.
+ */
+public class ThroughputTimelineProbe implements SimpleProbe<ThroughputTimelineResult, ThroughputTimelineProbe> {
+    public static final int INITIAL_CAPACITY = 4096;
+
+    // the operations per second since the first second.
+    private long[] operations = new long[INITIAL_CAPACITY];
+    private long firstSecond = -1;
+    private long currentSecond = -1;
+
+    @Override
+    public void startProbing(long time) {
+    }
+
+    @Override
+    public void stopProbing(long time) {
+    }
+
+    @Override
+    public void done() {
+        done(System.currentTimeMillis());
+    }
+
+    void done(long timeMillis) {
+        long second = timeMillis / 1000;
+        if (second > currentSecond) {
+            advance(second);
+        }
+        operations[(int) (currentSecond - firstSecond)]++;
+    }
+
+    private void advance(long second) {
+        if (firstSecond < 0) {
+            firstSecond = second;
+        }
+        // the seconds without operations are still 0, since they were never written to.
+        long index = second - firstSecond;
+        if (index >= operations.length) {
+            operations = Arrays.copyOf(operations, (int) Math.max(2L * operations.length, index + 1));
+        }
+        currentSecond = second;
+    }
+
+    @Override
+    public ThroughputTimelineResult getResult() {
+        if (firstSecond < 0) {
+            return new ThroughputTimelineResult(0, new long[0]);
+        }
+        return new ThroughputTimelineResult(firstSecond,
+                Arrays.copyOf(operations, (int) (currentSecond - firstSecond + 1)));
+    }
+
+    @Override
+    public ThroughputTimelineProbe createNew(Long arg) {
+        return new ThroughputTimelineProbe();
+    }
+}
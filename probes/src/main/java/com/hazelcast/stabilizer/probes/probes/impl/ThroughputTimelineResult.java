@@ -0,0 +1,161 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.Result;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The number of operations for every second of the test, starting at an epoch second.
+ *
+ * The statistics ignore the first and the last second of the timeline, since these are normally only partially
+ * covered by the test.
+ */
+public class ThroughputTimelineResult implements Result<ThroughputTimelineResult> {
+    private final long startSecond;
+    private final long[] operations;
+
+    public ThroughputTimelineResult(long startSecond, long[] operations) {
+        this.startSecond = startSecond;
+        this.operations = operations;
+    }
+
+    @Override
+    public ThroughputTimelineResult combine(ThroughputTimelineResult other) {
+        if (other == null || other.operations.length == 0) {
+            return this;
+        }
+        if (operations.length == 0) {
+            return other;
+        }
+
+        long combinedStart = Math.min(startSecond, other.startSecond);
+        long combinedEnd = Math.max(startSecond + operations.length, other.startSecond + other.operations.length);
+        long[] combined = new long[(int) (combinedEnd - combinedStart)];
+        addTo(combined, combinedStart);
+        other.addTo(combined, combinedStart);
+        return new ThroughputTimelineResult(combinedStart, combined);
+    }
+
+    private void addTo(long[] combined, long combinedStart) {
+        int offset = (int) (startSecond - combinedStart);
+        for (int i = 0; i < operations.length; i++) {
+            combined[offset + i] += operations[i];
+        }
+    }
+
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    public long[] getOperations() {
+        return operations;
+    }
+
+    public double getMean() {
+        int from = statisticsFrom();
+        int to = statisticsTo();
+        if (from >= to) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += operations[i];
+        }
+        return (double) total / (to - from);
+    }
+
+    public long getMin() {
+        long min = Long.MAX_VALUE;
+        for (int i = statisticsFrom(); i < statisticsTo(); i++) {
+            min = Math.min(min, operations[i]);
+        }
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMax() {
+        long max = 0;
+        for (int i = statisticsFrom(); i < statisticsTo(); i++) {
+            max = Math.max(max, operations[i]);
+        }
+        return max;
+    }
+
+    public double getStandardDeviation() {
+        int from = statisticsFrom();
+        int to = statisticsTo();
+        if (from >= to) {
+            return 0;
+        }
+        double mean = getMean();
+        double sumOfSquares = 0;
+        for (int i = from; i < to; i++) {
+            double delta = operations[i] - mean;
+            sumOfSquares += delta * delta;
+        }
+        return Math.sqrt(sumOfSquares / (to - from));
+    }
+
+    private int statisticsFrom() {
+        return operations.length > 2 ? 1 : 0;
+    }
+
+    private int statisticsTo() {
+        return operations.length > 2 ? operations.length - 1 : operations.length;
+    }
+
+    @Override
+    public String toHumanString() {
+        NumberFormat floatFormat = NumberFormat.getInstance(Locale.US);
+        return "Operations / second: mean " + floatFormat.format(getMean())
+                + ", min " + floatFormat.format(getMin())
+                + ", max " + floatFormat.format(getMax())
+                + ", stddev " + floatFormat.format(getStandardDeviation())
+                + " over " + operations.length + " seconds";
+    }
+
+    @Override
+    public void writeTo(XMLStreamWriter writer) {
+        try {
+            writer.writeStartElement("start-second");
+            writer.writeCharacters(Long.toString(startSecond));
+            writer.writeEndElement();
+
+            writer.writeStartElement("timeline");
+            StringBuilder timeline = new StringBuilder();
+            for (int i = 0; i < operations.length; i++) {
+                if (i > 0) {
+                    timeline.append(',');
+                }
+                timeline.append(operations[i]);
+            }
+            writer.writeCharacters(timeline.toString());
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Error while writing probe output", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ThroughputTimelineResult that = (ThroughputTimelineResult) o;
+
+        if (startSecond != that.startSecond) return false;
+        if (!Arrays.equals(operations, that.operations)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (startSecond ^ (startSecond >>> 32));
+        result = 31 * result + Arrays.hashCode(operations);
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void testRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram(60 * 1000 * 1000);
+
+        for (long value = 1; value < 60 * 1000 * 1000; value = value * 3 + 1) {
+            histogram.recordValue(value);
+            int bucket = bucketOf(histogram, value);
+            long lowerBound = histogram.getLowerBound(bucket);
+            long upperBound = histogram.getUpperBound(bucket);
+            assertTrue(lowerBound <= value && value < upperBound);
+            assertTrue((upperBound - lowerBound) <= Math.max(1, value / 128));
+        }
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        LogLinearHistogram histogram = new LogLinearHistogram(1000 * 1000, 3);
+
+        assertEquals(0, histogram.getLowerBound(0));
+        for (int i = 1; i < histogram.getBucketCount(); i++) {
+            assertEquals(histogram.getUpperBound(i - 1), histogram.getLowerBound(i));
+        }
+    }
+
+    @Test
+    public void testSize() {
+        LogLinearHistogram histogram = new LogLinearHistogram(60 * 1000 * 1000);
+
+        assertTrue(histogram.getBucketCount() < 3000);
+    }
+
+    @Test
+    public void testValueAtPercentile() {
+        LogLinearHistogram histogram = new LogLinearHistogram(1000);
+        for (int value = 1; value <= 100; value++) {
+            histogram.recordValue(value);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(50, histogram.getValueAtPercentile(0.5));
+        assertEquals(100, histogram.getValueAtPercentile(1));
+        assertEquals(50, histogram.getCountAtOrBelow(50));
+    }
+
+    @Test
+    public void testValueAboveHighestTrackableValue() {
+        LogLinearHistogram histogram = new LogLinearHistogram(1000);
+        histogram.recordValue(Long.MAX_VALUE);
+
+        assertEquals(1, histogram.getCount(histogram.getBucketCount() - 1));
+        assertEquals(1000, histogram.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void testAdd() {
+        LogLinearHistogram histogram1 = new LogLinearHistogram(1000);
+        histogram1.recordValues(10, 3000000000L);
+        LogLinearHistogram histogram2 = new LogLinearHistogram(1000);
+        histogram2.recordValues(10, 3000000000L);
+        histogram2.recordValue(500);
+
+        histogram1.add(histogram2);
+
+        assertEquals(6000000001L, histogram1.getTotalCount());
+        assertEquals(6000000000L, histogram1.getCountAtOrBelow(10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAdd_differentHighestTrackableValue() {
+        new LogLinearHistogram(1000).add(new LogLinearHistogram(2000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValue() {
+        new LogLinearHistogram(1000).recordValue(-1);
+    }
+
+    private static int bucketOf(LogLinearHistogram histogram, long value) {
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            if (value < histogram.getUpperBound(i)) {
+                return i;
+            }
+        }
+        return histogram.getBucketCount() - 1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProbeResultsTest {
+
+    @Test
+    public void testCombine() {
+        Map<String, MaxLatencyResult> worker1 = new HashMap<String, MaxLatencyResult>();
+        worker1.put("get", new MaxLatencyResult(10));
+        worker1.put("put", new MaxLatencyResult(30));
+        worker1.put("remove", null);
+
+        Map<String, MaxLatencyResult> worker2 = new HashMap<String, MaxLatencyResult>();
+        worker2.put("get", new MaxLatencyResult(20));
+
+        Map<String, MaxLatencyResult> combined = ProbeResults.combine(Arrays.asList(worker1, null, worker2));
+
+        assertEquals(2, combined.size());
+        assertEquals(new MaxLatencyResult(20), combined.get("get"));
+        assertEquals(new MaxLatencyResult(30), combined.get("put"));
+    }
+}
@@ -0,0 +1,203 @@
+package com.hazelcast.stabilizer.probes.probes;
+
+import com.hazelcast.stabilizer.probes.probes.impl.DisabledResult;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
+import com.hazelcast.stabilizer.probes.probes.impl.OperationsPerSecondResult;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineResult;
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProbesResultBinaryWriterTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("results", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Histogram histogram = new Histogram(1000, 3);
+        histogram.recordValue(10);
+        HdrLatencyProbeResult latency = new HdrLatencyProbeResult(histogram);
+
+        Map<String, Result> results = new HashMap<String, Result>();
+        results.put("latency", latency);
+        results.put("throughput", new OperationsPerSecondResult(100));
+
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write(results, 1000, 2000);
+        writer.close();
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(2, reader.getIndex().size());
+            assertEquals(results, reader.readAll());
+            assertEquals("HdrLatencyProbeResult", reader.find("latency", 0, Long.MAX_VALUE).get(0).getType());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testWriteAndReadEveryResultType() throws Exception {
+        Histogram histogram = new Histogram(1000, 3);
+        histogram.recordValue(10);
+        Histogram correctedHistogram = new Histogram(1000, 3);
+        correctedHistogram.recordValue(20);
+        LogLinearHistogram logLinearHistogram = new LogLinearHistogram(10000);
+        logLinearHistogram.recordValue(5);
+        logLinearHistogram.recordValues(5000, 3);
+
+        Map<String, Result> results = new HashMap<String, Result>();
+        results.put("hdr", new HdrLatencyProbeResult(histogram));
+        results.put("hdrCorrected", new HdrLatencyProbeResult(histogram, correctedHistogram));
+        results.put("distribution", new LatencyDistributionResult(logLinearHistogram));
+        results.put("max", new MaxLatencyResult(10));
+        results.put("throughput", new OperationsPerSecondResult(12.5));
+        results.put("timeline", new ThroughputTimelineResult(100, new long[]{1, 2, 3}));
+        results.put("window", new MeasurementWindowResult(1000, 2000));
+        results.put("disabled", new DisabledResult());
+
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write(results, 1000, 2000);
+        writer.close();
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(results, reader.readAll());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testTimeWindow() throws Exception {
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write("max", new MaxLatencyResult(10), 1000, 2000);
+        writer.write("max", new MaxLatencyResult(30), 2000, 3000);
+        writer.write("max", new MaxLatencyResult(20), 3000, 4000);
+        writer.close();
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            List<ProbesResultIndexEntry> entries = reader.find("max", 3500, 5000);
+            assertEquals(1, entries.size());
+            assertEquals(new MaxLatencyResult(20), reader.read(entries.get(0)));
+            assertEquals(new MaxLatencyResult(30), reader.read("max", 0, 2500));
+            assertNull(reader.read("unknown"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write("test1.max", new MaxLatencyResult(10), 1000, 2000);
+        writer.close();
+
+        writer = new ProbesResultBinaryWriter(file);
+        writer.write("test2.max", new MaxLatencyResult(20), 3000, 4000);
+        writer.close();
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(2, reader.getIndex().size());
+            assertEquals(new MaxLatencyResult(10), reader.read("test1.max"));
+            assertEquals(new MaxLatencyResult(20), reader.read("test2.max"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testAppend_oldResultsSurviveWhenWriterIsNotClosed() throws Exception {
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write("test1.max", new MaxLatencyResult(10), 1000, 2000);
+        writer.close();
+
+        writer = new ProbesResultBinaryWriter(file);
+        assertTrue(writer.contains("test1.max"));
+        assertFalse(writer.contains("test2.max"));
+        writer.write("test2.max", new MaxLatencyResult(20), 3000, 4000);
+        writer.write("test2.max", new MaxLatencyResult(30), 4000, 5000);
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(3, reader.getIndex().size());
+            assertEquals(new MaxLatencyResult(10), reader.read("test1.max"));
+            assertEquals(new MaxLatencyResult(30), reader.read("test2.max"));
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws Exception {
+        RandomAccessFile old = new RandomAccessFile(file, "rw");
+        old.writeInt(ProbesResultBinaryWriter.MAGIC);
+        old.writeInt(ProbesResultBinaryWriter.VERSION + 1);
+        old.writeLong(16);
+        old.writeInt(0);
+        old.close();
+
+        new ProbesResultBinaryReader(file);
+    }
+
+    @Test
+    public void testIncompleteFileIsRecovered() throws Exception {
+        ProbesResultBinaryWriter writer = new ProbesResultBinaryWriter(file);
+        writer.write("max", new MaxLatencyResult(10), 1000, 2000);
+        writer.write("max", new MaxLatencyResult(20), 2000, 3000);
+        // a crash while the last chunk is written
+        RandomAccessFile incomplete = new RandomAccessFile(file, "rw");
+        incomplete.setLength(incomplete.length() - 3);
+        incomplete.close();
+
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(1, reader.getIndex().size());
+            assertEquals(new MaxLatencyResult(10), reader.read("max"));
+        } finally {
+            reader.close();
+        }
+
+        // a new writer continues after the last complete chunk
+        ProbesResultBinaryWriter appender = new ProbesResultBinaryWriter(file);
+        appender.write("max", new MaxLatencyResult(30), 3000, 4000);
+        appender.close();
+
+        reader = new ProbesResultBinaryReader(file);
+        try {
+            assertEquals(2, reader.getIndex().size());
+            assertEquals(new MaxLatencyResult(30), reader.read("max"));
+        } finally {
+            reader.close();
+        }
+    }
+}
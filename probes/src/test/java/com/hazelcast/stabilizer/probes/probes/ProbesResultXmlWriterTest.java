@@ -5,6 +5,8 @@ import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
 import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
 import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineResult;
 import org.HdrHistogram.Histogram;
 import org.junit.Test;
 
@@ -28,6 +30,23 @@ public class ProbesResultXmlWriterTest {
         assertEquals(originalResult, result.get("getLatency"));
     }
 
+    @Test
+    public void testHdrLatencyProbeResult_withCorrectedHistogram() throws Exception {
+        Map<String, Result> resultMap = new HashMap<String, Result>();
+        Histogram histogram = new Histogram(HdrLatencyDistributionProbe.MAXIMUM_LATENCY, 4);
+        histogram.recordValue(100);
+        Histogram correctedHistogram = new Histogram(HdrLatencyDistributionProbe.MAXIMUM_LATENCY, 4);
+        correctedHistogram.recordValue(1000);
+        HdrLatencyProbeResult originalResult = new HdrLatencyProbeResult(histogram, correctedHistogram);
+        resultMap.put("getLatency", originalResult);
+        resultMap.put("putLatency", new HdrLatencyProbeResult(histogram));
+
+        Map<String, Result> result = serializeAndDeserializeAgain(resultMap);
+
+        assertEquals(originalResult, result.get("getLatency"));
+        assertEquals(new HdrLatencyProbeResult(histogram), result.get("putLatency"));
+    }
+
     @Test
     public void testMaxLatencyResult() throws Exception {
         Map<String, Result> resultMap = new HashMap<String, Result>();
@@ -40,6 +59,30 @@ public class ProbesResultXmlWriterTest {
 
     }
 
+    @Test
+    public void testThroughputTimelineResult() throws Exception {
+        Map<String, Result> resultMap = new HashMap<String, Result>();
+        ThroughputTimelineResult original = new ThroughputTimelineResult(1400000000, new long[]{10, 0, 30});
+        resultMap.put("throughput", original);
+        resultMap.put("empty", new ThroughputTimelineResult(0, new long[0]));
+
+        Map<String, Result> read = serializeAndDeserializeAgain(resultMap);
+
+        assertEquals(original, read.get("throughput"));
+        assertEquals(new ThroughputTimelineResult(0, new long[0]), read.get("empty"));
+    }
+
+    @Test
+    public void testMeasurementWindowResult() throws Exception {
+        Map<String, Result> resultMap = new HashMap<String, Result>();
+        MeasurementWindowResult original = new MeasurementWindowResult(1400000000000L, 1400000060000L);
+        resultMap.put("measurementWindow", original);
+
+        Map<String, Result> read = serializeAndDeserializeAgain(resultMap);
+
+        assertEquals(original, read.get("measurementWindow"));
+    }
+
     @Test
     public void testLatencyDistributionResult() throws Exception {
         Map<String, Result> resultMap = new HashMap<String, Result>();
@@ -51,6 +94,26 @@ public class ProbesResultXmlWriterTest {
         assertEquals(original, read.get("latencyDistribution"));
     }
 
+    @Test
+    public void testLatencyDistributionResult_linearHistogram() throws Exception {
+        String xml = "<?xml version=\"1.0\" ?><probes-result>"
+                + "<probe name=\"latency\" type=\"LatencyDistributionResult\">"
+                + "<step>10</step><max-value>1000</max-value>"
+                + "<buckets><bucket upper-bound=\"10\" values=\"2\"></bucket>"
+                + "<bucket upper-bound=\"100\" values=\"3\"></bucket></buckets>"
+                + "</probe></probes-result>";
+
+        Map<String, Result> read = new ProbesResultXmlReader().read(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+        LinearHistogram linearHistogram = new LinearHistogram(1000, 10);
+        linearHistogram.addMultipleValues(9, 2);
+        linearHistogram.addMultipleValues(99, 3);
+        LatencyDistributionResult result = (LatencyDistributionResult) read.get("latency");
+        assertEquals(new LatencyDistributionResult(linearHistogram), result);
+        assertEquals(5, result.getHistogram().getTotalCount());
+        assertEquals(99, result.getHistogram().getValueAtPercentile(1));
+    }
+
     @Test
     public void testMultipleProbes() throws Exception {
         Map<String, Result> resultMap = new HashMap<String, Result>();
@@ -82,13 +145,14 @@ public class ProbesResultXmlWriterTest {
     }
 
     private LatencyDistributionResult createLatencyDistribution() {
-        LinearHistogram histogram = new LinearHistogram(100, 1);
-        histogram.addValue(0);
-        histogram.addValue(1);
-        histogram.addValue(2);
-        histogram.addValue(1);
-        histogram.addValue(5);
-        histogram.addValue(80);
+        LogLinearHistogram histogram = new LogLinearHistogram(LatencyDistributionProbe.MAXIMUM_LATENCY);
+        histogram.recordValue(0);
+        histogram.recordValue(1);
+        histogram.recordValue(2);
+        histogram.recordValue(1);
+        histogram.recordValue(5);
+        histogram.recordValue(80);
+        histogram.recordValue(100000);
 
         return new LatencyDistributionResult(histogram);
     }
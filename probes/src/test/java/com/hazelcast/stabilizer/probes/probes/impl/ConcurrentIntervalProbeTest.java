@@ -0,0 +1,127 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIntervalProbeTest {
+
+    private static final int ITERATIONS = 10000;
+
+    @Test
+    public void testProbeThreads() throws Exception {
+        ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> probe = newProbe();
+
+        ProbeThread[] threads = new ProbeThread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new ProbeThread(new RecordTask(probe), "ProbeThread-" + i);
+            threads[i].start();
+        }
+        for (ProbeThread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threads.length * ITERATIONS, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testPlainThreads() throws Exception {
+        ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> probe = newProbe();
+
+        Thread thread = new Thread(new RecordTask(probe));
+        thread.start();
+        thread.join();
+        new RecordTask(probe).run();
+
+        assertEquals(2 * ITERATIONS, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testNotRecording() throws Exception {
+        ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> probe = newProbe();
+
+        probe.setRecording(false);
+        new RecordTask(probe).run();
+        probe.setRecording(true);
+        new RecordTask(probe).run();
+
+        assertEquals(ITERATIONS, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testSlotIsReleasedAndReused() throws Exception {
+        final AtomicInteger maxSlot = new AtomicInteger(-1);
+        ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> probe = newProbe();
+
+        int threadCount = 100;
+        for (int i = 0; i < threadCount; i++) {
+            ProbeThread thread = new ProbeThread(new SlotTask(probe, maxSlot), "ProbeThread-" + i);
+            thread.start();
+            thread.join();
+            assertEquals(-1, thread.getProbeSlot());
+        }
+
+        assertTrue(maxSlot.get() >= 0);
+        assertTrue(maxSlot.get() < threadCount);
+        assertEquals(threadCount * ITERATIONS, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testSubclassRunsWithSlot() throws Exception {
+        final AtomicInteger slot = new AtomicInteger(-1);
+        ProbeThread thread = new ProbeThread("ProbeThread") {
+            @Override
+            protected void runWithSlot() {
+                slot.set(getProbeSlot());
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertTrue(slot.get() >= 0);
+        assertEquals(-1, thread.getProbeSlot());
+    }
+
+    private ConcurrentIntervalProbe<HdrLatencyProbeResult, HdrLatencyDistributionProbe> newProbe() {
+        return new ConcurrentHdrLatencyDistributionProbe();
+    }
+
+    private static class RecordTask implements Runnable {
+        private final IntervalProbe probe;
+
+        RecordTask(IntervalProbe probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < ITERATIONS; i++) {
+                probe.started();
+                probe.done();
+            }
+        }
+    }
+
+    private static class SlotTask extends RecordTask {
+        private final AtomicInteger maxSlot;
+
+        SlotTask(IntervalProbe probe, AtomicInteger maxSlot) {
+            super(probe);
+            this.maxSlot = maxSlot;
+        }
+
+        @Override
+        public void run() {
+            int slot = ((ProbeThread) Thread.currentThread()).getProbeSlot();
+            if (slot > maxSlot.get()) {
+                maxSlot.set(slot);
+            }
+            super.run();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HdrLatencyDistributionProbeTest {
+
+    @Test
+    public void testIntervalResult() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        record(probe, 10);
+        assertEquals(10, probe.getIntervalResult().getHistogram().getTotalCount());
+
+        record(probe, 5);
+        assertEquals(5, probe.getIntervalResult().getHistogram().getTotalCount());
+        assertEquals(0, probe.getIntervalResult().getHistogram().getTotalCount());
+
+        assertEquals(15, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testResultDoesNotConsumeInterval() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        record(probe, 10);
+        assertEquals(10, probe.getResult().getHistogram().getTotalCount());
+
+        record(probe, 5);
+        assertEquals(15, probe.getResult().getHistogram().getTotalCount());
+        assertEquals(15, probe.getIntervalResult().getHistogram().getTotalCount());
+        assertEquals(15, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testConcurrentIntervalResult() {
+        ConcurrentHdrLatencyDistributionProbe probe = new ConcurrentHdrLatencyDistributionProbe();
+
+        assertEquals(null, probe.getIntervalResult());
+
+        probe.started();
+        probe.done();
+        assertEquals(1, probe.getIntervalResult().getHistogram().getTotalCount());
+        assertEquals(0, probe.getIntervalResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testConcurrentIntervalsOfAllThreads() throws Exception {
+        final ConcurrentHdrLatencyDistributionProbe probe = new ConcurrentHdrLatencyDistributionProbe();
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                probe.started();
+                probe.done();
+            }
+        };
+        thread.start();
+        thread.join();
+        probe.started();
+        probe.done();
+
+        HdrLatencyProbeResult interval = probe.getIntervalResult();
+        assertEquals(2, interval.getHistogram().getTotalCount());
+        assertEquals(2, probe.getResult().getHistogram().getTotalCount());
+
+        probe.started();
+        probe.done();
+        // a handed out interval is not written to anymore
+        assertEquals(2, interval.getHistogram().getTotalCount());
+        assertEquals(1, probe.getIntervalResult().getHistogram().getTotalCount());
+        assertEquals(3, probe.getResult().getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testCorrectedForCoordinatedOmission() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        record(probe, 10);
+        assertNull(probe.getResult().getCorrectedHistogram());
+
+        long intendedStartNanos = System.nanoTime() - MILLISECONDS.toNanos(100);
+        probe.started(intendedStartNanos);
+        probe.done();
+
+        HdrLatencyProbeResult result = probe.getResult();
+        assertEquals(11, result.getHistogram().getTotalCount());
+        assertEquals(1, result.getCorrectedHistogram().getTotalCount());
+        assertTrue(result.getCorrectedHistogram().getMaxValue() >= MILLISECONDS.toMicros(100));
+        assertTrue(result.getHistogram().getMaxValue() < MILLISECONDS.toMicros(100));
+        assertTrue(result.toHumanString().contains("coordinated omission"));
+    }
+
+    @Test
+    public void testDoneWithStartTimes() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        long now = System.nanoTime();
+        probe.done(now - MILLISECONDS.toNanos(10), now - MILLISECONDS.toNanos(100));
+
+        HdrLatencyProbeResult result = probe.getResult();
+        assertEquals(1, result.getHistogram().getTotalCount());
+        assertTrue(result.getHistogram().getMaxValue() >= MILLISECONDS.toMicros(10));
+        assertTrue(result.getCorrectedHistogram().getMaxValue() >= MILLISECONDS.toMicros(100));
+    }
+
+    @Test
+    public void testLatencyAboveMaximumIsClamped() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        long now = System.nanoTime();
+        long startedNanos = now - MILLISECONDS.toNanos(HdrLatencyDistributionProbe.MAXIMUM_LATENCY);
+        probe.done(startedNanos, startedNanos);
+
+        HdrLatencyProbeResult result = probe.getResult();
+        assertEquals(1, result.getHistogram().getTotalCount());
+        assertTrue(result.getHistogram().getMaxValue() >= HdrLatencyDistributionProbe.MAXIMUM_LATENCY);
+        assertEquals(1, result.getCorrectedHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testSignificantDigits() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        probe.done(System.nanoTime(), System.nanoTime());
+
+        HdrLatencyProbeResult result = probe.getIntervalResult();
+        assertEquals(4, result.getHistogram().getNumberOfSignificantValueDigits());
+        assertEquals(4, result.getCorrectedHistogram().getNumberOfSignificantValueDigits());
+    }
+
+    @Test
+    public void testNegativeLatencyIsClamped() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        long inTheFuture = System.nanoTime() + MILLISECONDS.toNanos(100);
+        probe.started(inTheFuture);
+        probe.done();
+        probe.done(inTheFuture, inTheFuture);
+
+        HdrLatencyProbeResult result = probe.getResult();
+        assertEquals(2, result.getHistogram().getTotalCount());
+        assertEquals(0, result.getHistogram().getMinValue());
+        assertEquals(2, result.getCorrectedHistogram().getTotalCount());
+        assertEquals(0, result.getCorrectedHistogram().getMaxValue());
+    }
+
+    @Test
+    public void testNotScheduledIsNotCorrected() {
+        HdrLatencyDistributionProbe probe = new HdrLatencyDistributionProbe();
+
+        probe.started(IntervalProbe.NOT_SCHEDULED);
+        probe.done();
+        probe.done(System.nanoTime(), IntervalProbe.NOT_SCHEDULED);
+
+        HdrLatencyProbeResult result = probe.getResult();
+        assertEquals(2, result.getHistogram().getTotalCount());
+        assertNull(result.getCorrectedHistogram());
+    }
+
+    private void record(HdrLatencyDistributionProbe probe, int count) {
+        for (int i = 0; i < count; i++) {
+            probe.started();
+            probe.done();
+        }
+    }
+}
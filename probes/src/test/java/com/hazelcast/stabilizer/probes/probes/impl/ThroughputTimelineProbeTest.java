@@ -0,0 +1,75 @@
+package com.hazelcast.stabilizer.probes.probes.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ThroughputTimelineProbeTest {
+
+    @Test
+    public void testEmpty() {
+        ThroughputTimelineProbe probe = new ThroughputTimelineProbe();
+
+        ThroughputTimelineResult result = probe.getResult();
+        assertEquals(0, result.getOperations().length);
+        assertEquals(0, result.getMean(), 0);
+    }
+
+    @Test
+    public void testDone() {
+        ThroughputTimelineProbe probe = new ThroughputTimelineProbe();
+        long before = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < 1000; i++) {
+            probe.done();
+        }
+        long after = System.currentTimeMillis() / 1000;
+
+        ThroughputTimelineResult result = probe.getResult();
+        long total = 0;
+        for (long operations : result.getOperations()) {
+            total += operations;
+        }
+        assertEquals(1000, total);
+        assertEquals(after - before + 1, result.getOperations().length, 1);
+    }
+
+    @Test
+    public void testDone_keepsTheWholeRun() {
+        ThroughputTimelineProbe probe = new ThroughputTimelineProbe();
+        long startMillis = 1400000000000L;
+        int seconds = 3 * ThroughputTimelineProbe.INITIAL_CAPACITY;
+        for (int i = 0; i < seconds; i++) {
+            probe.done(startMillis + i * 1000L);
+        }
+
+        ThroughputTimelineResult result = probe.getResult();
+        assertEquals(startMillis / 1000, result.getStartSecond());
+        assertEquals(seconds, result.getOperations().length);
+        assertEquals(1, result.getMin());
+        assertEquals(1, result.getMax());
+    }
+
+    @Test
+    public void testCombine_mergesByTimestamp() {
+        ThroughputTimelineResult result1 = new ThroughputTimelineResult(100, new long[]{1, 2, 3});
+        ThroughputTimelineResult result2 = new ThroughputTimelineResult(102, new long[]{10, 20});
+
+        ThroughputTimelineResult combined = result1.combine(result2);
+
+        assertEquals(100, combined.getStartSecond());
+        assertArrayEquals(new long[]{1, 2, 13, 20}, combined.getOperations());
+        assertEquals(combined, result2.combine(result1));
+        assertEquals(result1, result1.combine(new ThroughputTimelineResult(0, new long[0])));
+    }
+
+    @Test
+    public void testStatistics_ignoreFirstAndLastSecond() {
+        ThroughputTimelineResult result = new ThroughputTimelineResult(0, new long[]{1, 10, 20, 30, 1});
+
+        assertEquals(20, result.getMean(), 0);
+        assertEquals(10, result.getMin());
+        assertEquals(30, result.getMax());
+        assertEquals(Math.sqrt(200d / 3), result.getStandardDeviation(), 0.0001);
+    }
+}
@@ -3,6 +3,7 @@ package com.hazelcast.stabilizer;
 import org.apache.log4j.Logger;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -21,6 +22,27 @@ public class NativeUtils {
         return pidFromManagementBean != null ? pidFromManagementBean : getPidViaReflection();
     }
 
+    /**
+     * Returns the Linux thread id of the calling thread, which is not the same as {@link Thread#getId()}.
+     *
+     * @return the thread id, or null if it can't be determined, e.g. on a non Linux system.
+     */
+    public static Integer getThreadIdOrNull() {
+        File threadSelf = new File("/proc/thread-self");
+        if (!threadSelf.exists()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(threadSelf.getCanonicalFile().getName());
+        } catch (IOException e) {
+            log.warn(e);
+            return null;
+        } catch (NumberFormatException e) {
+            log.warn(e);
+            return null;
+        }
+    }
+
     public static void kill(int pid) {
         log.info("Sending -9 signal to PID "+pid);
         try {
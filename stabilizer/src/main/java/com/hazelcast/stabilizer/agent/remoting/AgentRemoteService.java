@@ -25,7 +25,9 @@ public class AgentRemoteService {
         SERVICE_POKE,
         SERVICE_GET_FAILURES,
         SERVICE_GET_ALL_WORKERS,
-        SERVICE_PROCESS_MESSAGE
+        SERVICE_PROCESS_MESSAGE,
+        SERVICE_AWAIT_PHASE_COMPLETION,
+        SERVICE_POLL_METRICS
     }
 
     private final static Logger log = Logger.getLogger(AgentRemoteService.class.getName());
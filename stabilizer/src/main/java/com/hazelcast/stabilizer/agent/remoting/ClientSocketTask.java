@@ -8,13 +8,16 @@ import com.hazelcast.stabilizer.agent.workerjvm.WorkerJvmFailureMonitor;
 import com.hazelcast.stabilizer.agent.workerjvm.WorkerJvmManager;
 import com.hazelcast.stabilizer.agent.workerjvm.WorkerJvmSettings;
 import com.hazelcast.stabilizer.common.messaging.Message;
+import com.hazelcast.stabilizer.common.wire.WireFormat;
 import com.hazelcast.stabilizer.test.Failure;
 import com.hazelcast.stabilizer.test.TestSuite;
 import com.hazelcast.stabilizer.worker.commands.Command;
 import org.apache.log4j.Logger;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,30 +38,45 @@ class ClientSocketTask implements Runnable {
 
     @Override
     public void run() {
-        ObjectOutputStream out = null;
-        ObjectInputStream in = null;
+        ObjectOutput out = null;
         try {
             Object result;
             try {
-                out = new ObjectOutputStream(clientSocket.getOutputStream());
-                in = new ObjectInputStream(clientSocket.getInputStream());
+                BufferedInputStream rawIn = new BufferedInputStream(clientSocket.getInputStream());
+                BufferedOutputStream rawOut = new BufferedOutputStream(clientSocket.getOutputStream());
+
+                // a coordinator that doesn't know the binary wire format sends a plain Java serialization stream.
+                byte version = WireFormat.readHeader(rawIn);
+                if (version != WireFormat.JAVA_SERIALIZATION) {
+                    byte negotiatedVersion = WireFormat.negotiate(version);
+                    WireFormat.writeHeader(rawOut, negotiatedVersion);
+                    if (negotiatedVersion != version) {
+                        // the coordinator retries the request using the negotiated version
+                        return;
+                    }
+                }
+
+                out = WireFormat.newObjectOutput(rawOut, version);
+                ObjectInput in = WireFormat.newObjectInput(rawIn, version);
                 AgentRemoteService.Service service = (AgentRemoteService.Service) in.readObject();
                 result = execute(service, in);
             } catch (Throwable e) {
                 log.fatal(e);
                 result = e;
             }
-            out.writeObject(result);
-            out.flush();
+            if (out != null) {
+                out.writeObject(result);
+                out.flush();
+            }
         } catch (Throwable e) {
             log.fatal(e);
         } finally {
-            Utils.closeQuietly(in, out);
+            // closing the socket closes the streams as well
             Utils.closeQuietly(clientSocket);
         }
     }
 
-    private Object execute(AgentRemoteService.Service service, ObjectInputStream in) throws Exception {
+    private Object execute(AgentRemoteService.Service service, ObjectInput in) throws Exception {
         Object result = null;
         switch (service) {
             case SERVICE_POKE:
@@ -103,6 +121,17 @@ class ClientSocketTask implements Runnable {
                 Message message = (Message) in.readObject();
                 agentMessageProcessor.submit(message);
                 break;
+            case SERVICE_AWAIT_PHASE_COMPLETION:
+                String testId = (String) in.readObject();
+                String phase = (String) in.readObject();
+                Long timeoutMs = (Long) in.readObject();
+                result = agent.getWorkerJvmManager().awaitPhaseCompletion(testId, phase, timeoutMs);
+                break;
+            case SERVICE_POLL_METRICS:
+                Long afterSequence = (Long) in.readObject();
+                timeoutMs = (Long) in.readObject();
+                result = agent.getWorkerJvmManager().getMetricsAggregator().poll(afterSequence, timeoutMs);
+                break;
             default:
                 throw new RuntimeException("Unknown service:" + service);
         }
@@ -0,0 +1,104 @@
+package com.hazelcast.stabilizer.agent.workerjvm;
+
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Adds up the {@link MetricsSnapshot}s pushed by the workers of this agent into a single snapshot per interval, so
+ * the coordinator receives one compact snapshot per agent instead of one per worker.
+ *
+ * The coordinator takes the snapshots using {@link #poll(long, long)}; the last snapshots are kept for a while, so a
+ * coordinator that is a bit late doesn't miss any.
+ */
+public class MetricsAggregator {
+
+    private static final int MAX_SNAPSHOTS = 1000;
+
+    private final LinkedList<MetricsSnapshot> snapshots = new LinkedList<MetricsSnapshot>();
+    private MetricsSnapshot current;
+    private long sequence;
+
+    private volatile long intervalMillis;
+    private Thread flushThread;
+
+    public synchronized void add(MetricsSnapshot snapshot) {
+        intervalMillis = snapshot.intervalMillis;
+        if (flushThread == null) {
+            flushThread = new FlushThread();
+            flushThread.start();
+        }
+
+        if (current == null) {
+            current = new MetricsSnapshot();
+        }
+        current.add(snapshot);
+    }
+
+    synchronized void flush() {
+        if (current == null) {
+            return;
+        }
+
+        // the time and interval are those measured by the workers, see MetricsSnapshot#add
+        current.sequence = ++sequence;
+        snapshots.addLast(current);
+        if (snapshots.size() > MAX_SNAPSHOTS) {
+            snapshots.removeFirst();
+        }
+        current = null;
+        notifyAll();
+    }
+
+    /**
+     * Waits till there are snapshots after the given sequence.
+     *
+     * @param afterSequence the sequence of the last snapshot received, or a negative value to receive only the
+     *                      snapshots that are created from now on.
+     * @param timeoutMs     the maximum time to wait in milliseconds.
+     * @return the snapshots after the given sequence in order; empty if the timeout expired.
+     */
+    public synchronized List<MetricsSnapshot> poll(long afterSequence, long timeoutMs) throws InterruptedException {
+        if (afterSequence < 0) {
+            afterSequence = sequence;
+        }
+
+        long deadlineMs = System.currentTimeMillis() + timeoutMs;
+        while (sequence <= afterSequence) {
+            long remainingMs = deadlineMs - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                return Collections.emptyList();
+            }
+            wait(remainingMs);
+        }
+
+        List<MetricsSnapshot> result = new LinkedList<MetricsSnapshot>();
+        for (MetricsSnapshot snapshot : snapshots) {
+            if (snapshot.sequence > afterSequence) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    private class FlushThread extends Thread {
+        public FlushThread() {
+            super("MetricsFlushThread");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                flush();
+            }
+        }
+    }
+}
@@ -15,11 +15,12 @@
  */
 package com.hazelcast.stabilizer.agent.workerjvm;
 
+import com.hazelcast.stabilizer.common.FramedConnection;
 import com.hazelcast.stabilizer.worker.commands.CommandRequest;
 
 import java.io.File;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
 
 public class WorkerJvm {
     public Mode mode;
@@ -31,7 +32,9 @@ public class WorkerJvm {
     public volatile long lastSeen = System.currentTimeMillis();
     public volatile boolean oomeDetected = false;
 
-    public final BlockingQueue<CommandRequest> commandQueue = new LinkedBlockingQueue<CommandRequest>();
+    // a deque so requests that could not be written to a broken connection can be put back in front.
+    public final BlockingDeque<CommandRequest> commandQueue = new LinkedBlockingDeque<CommandRequest>();
+    public volatile FramedConnection connection;
 
     public WorkerJvm(String id) {
         this.id = id;
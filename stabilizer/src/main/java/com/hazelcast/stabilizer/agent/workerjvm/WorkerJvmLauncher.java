@@ -71,7 +71,7 @@ public class WorkerJvmLauncher {
         log.info(format("Starting %s %s worker Java Virtual Machines", count, mode));
 
         for (int k = 0; k < count; k++) {
-            WorkerJvm worker = startWorkerJvm(mode);
+            WorkerJvm worker = startWorkerJvm(mode, k);
             workersInProgress.add(worker);
         }
 
@@ -98,7 +98,7 @@ public class WorkerJvmLauncher {
         return javaHome;
     }
 
-    private WorkerJvm startWorkerJvm(String mode) throws IOException {
+    private WorkerJvm startWorkerJvm(String mode, int index) throws IOException {
         String workerId = "worker-" + getHostAddress() + "-" + WORKER_ID_GENERATOR.incrementAndGet() + "-" + mode;
         File workerHome = new File(testSuiteDir, workerId);
         Utils.ensureExistingDirectory(workerHome);
@@ -108,7 +108,11 @@ public class WorkerJvmLauncher {
         WorkerJvm workerJvm = new WorkerJvm(workerId);
         workerJvm.workerHome = workerHome;
 
-        generateWorkerStartScript(mode, workerJvm);
+        String cpuSet = getCpuSet(mode, index);
+        if (cpuSet != null) {
+            log.info(format("Worker %s is bound to CPU set %s", workerId, cpuSet));
+        }
+        generateWorkerStartScript(mode, workerJvm, cpuSet);
 
         ProcessBuilder processBuilder = new ProcessBuilder(new String[]{"bash", "worker.sh"})
                 .directory(workerHome)
@@ -128,8 +132,8 @@ public class WorkerJvmLauncher {
         return workerJvm;
     }
 
-    private void generateWorkerStartScript(String mode, WorkerJvm workerJvm) {
-        String[] args = buildArgs(workerJvm, mode);
+    private void generateWorkerStartScript(String mode, WorkerJvm workerJvm, String cpuSet) {
+        String[] args = buildArgs(workerJvm, mode, cpuSet);
         File startScript = new File(workerJvm.workerHome, "worker.sh");
 
         StringBuilder sb = new StringBuilder("#!/bin/bash\n");
@@ -162,9 +166,43 @@ public class WorkerJvmLauncher {
         return asList(vmOptionsArray);
     }
 
-    private String[] buildArgs(WorkerJvm workerJvm, String mode) {
+    // the CPU sets are assigned round robin to the workers of the same mode.
+    String getCpuSet(String mode, int index) {
+        String cpuSets = "client".equals(mode) ? settings.clientCpuSets : settings.memberCpuSets;
+        if (cpuSets == null || cpuSets.trim().isEmpty()) {
+            return null;
+        }
+        String[] cpuSetArray = cpuSets.trim().split("\\s+");
+        return cpuSetArray[index % cpuSetArray.length];
+    }
+
+    // the command that binds the worker JVM to the CPU set, or nothing if the worker isn't bound.
+    List<String> getCpuAffinityArgs(String cpuSet) {
+        List<String> args = new LinkedList<String>();
+        if (cpuSet == null) {
+            return args;
+        }
+
+        if ("taskset".equals(settings.cpuAffinityCommand)) {
+            args.add("taskset");
+            args.add("-c");
+            args.add(cpuSet);
+        } else if ("numactl".equals(settings.cpuAffinityCommand)) {
+            args.add("numactl");
+            args.add("--physcpubind=" + cpuSet);
+            args.add("--localalloc");
+        } else {
+            throw new SpawnWorkerFailedException("Unknown CPU affinity command: " + settings.cpuAffinityCommand);
+        }
+        return args;
+    }
+
+    private String[] buildArgs(WorkerJvm workerJvm, String mode, String cpuSet) {
         List<String> args = new LinkedList<String>();
 
+        // the affinity is inherited by the profiler and the JVM, so the affinity command goes in front of everything.
+        args.addAll(getCpuAffinityArgs(cpuSet));
+
         String profiler = settings.profiler;
         if ("perf".equals(profiler)) {
             // perf command always need to be in front of the java command.
@@ -192,6 +230,12 @@ public class WorkerJvmLauncher {
         args.add("-Dhazelcast.logging.type=log4j");
         args.add("-DworkerId=" + workerJvm.id);
         args.add("-DworkerMode=" + mode);
+        args.add("-DhistogramIntervalSeconds=" + settings.histogramIntervalSeconds);
+        args.add("-DmetricsIntervalMillis=" + settings.metricsIntervalMillis);
+        if (cpuSet != null) {
+            args.add("-DworkerCpuSet=" + cpuSet);
+        }
+        args.add("-DpinLoadThreads=" + settings.pinLoadThreads);
         args.add("-Dlog4j.configuration=file:" + log4jFile.getAbsolutePath());
         args.add("-classpath");
         args.add(getClasspath());
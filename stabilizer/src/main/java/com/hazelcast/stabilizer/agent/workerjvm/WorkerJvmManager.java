@@ -19,20 +19,25 @@ import com.hazelcast.stabilizer.NoWorkerAvailableException;
 import com.hazelcast.stabilizer.agent.Agent;
 import com.hazelcast.stabilizer.agent.CommandFuture;
 import com.hazelcast.stabilizer.agent.FailureAlreadyThrownRuntimeException;
+import com.hazelcast.stabilizer.common.FramedConnection;
 import com.hazelcast.stabilizer.common.messaging.Message;
 import com.hazelcast.stabilizer.common.messaging.MessageAddress;
+import com.hazelcast.stabilizer.probes.probes.ProbeResults;
+import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.test.Failure;
 import com.hazelcast.stabilizer.worker.TerminateWorkerException;
 import com.hazelcast.stabilizer.worker.commands.Command;
 import com.hazelcast.stabilizer.worker.commands.CommandRequest;
 import com.hazelcast.stabilizer.worker.commands.CommandResponse;
+import com.hazelcast.stabilizer.worker.commands.GetBenchmarkResultsCommand;
+import com.hazelcast.stabilizer.worker.commands.IsPhaseCompletedCommand;
 import com.hazelcast.stabilizer.worker.commands.MessageCommand;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import com.hazelcast.stabilizer.worker.commands.PhaseCompletedEvent;
 import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -41,6 +46,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -54,15 +60,16 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.stabilizer.Utils.closeQuietly;
 import static com.hazelcast.stabilizer.Utils.getHostAddress;
 import static com.hazelcast.stabilizer.Utils.getStablizerHome;
 import static com.hazelcast.stabilizer.Utils.throwableToString;
 
 public class WorkerJvmManager {
 
-    public final static String SERVICE_POLL_WORK = "poll";
-    public final static String COMMAND_PUSH_RESPONSE = "push";
     public static final int PORT = 9001;
+    public static final int HEARTBEAT_INTERVAL_MILLIS = 1000;
+    public static final int CONNECTION_READ_TIMEOUT_MILLIS = 30 * 1000;
     public final static File WORKERS_HOME = new File(getStablizerHome(), "workers");
 
     private final static Logger log = Logger.getLogger(WorkerJvmManager.class);
@@ -75,11 +82,19 @@ public class WorkerJvmManager {
     private final AtomicLong requestIdGenerator = new AtomicLong(0);
 
     private ServerSocket serverSocket;
-    private final Executor executor = Executors.newFixedThreadPool(20);
+    // every connected worker occupies a reader and a writer thread.
+    private final Executor executor = Executors.newCachedThreadPool();
     private Random random = new Random();
 
     private volatile WorkerJvmSettings lastUsedWorkerJvmSettings;
 
+    private final MetricsAggregator metricsAggregator = new MetricsAggregator();
+
+    private final Object phaseCompletedMonitor = new Object();
+    // the number of completions of a phase per worker and test, the key is the worker id, the test id and the phase.
+    // the entries of a test are removed when its worker completes the localTeardown, the last phase of a test.
+    private final Map<String, Long> completedPhaseCounts = new HashMap<String, Long>();
+
     public WorkerJvmManager(Agent agent) {
         this.agent = agent;
 
@@ -98,6 +113,10 @@ public class WorkerJvmManager {
         new AcceptorThread().start();
     }
 
+    public MetricsAggregator getMetricsAggregator() {
+        return metricsAggregator;
+    }
+
     public Collection<WorkerJvm> getWorkerJvms() {
         return workerJvms.values();
     }
@@ -182,7 +201,13 @@ public class WorkerJvmManager {
     }
 
     public List executeOnAllWorkers(Command command) throws TimeoutException, InterruptedException {
-        return executeOnWorkers(command, workerJvms.values());
+        List results = executeOnWorkers(command, workerJvms.values());
+        if (command instanceof GetBenchmarkResultsCommand) {
+            // the probe results of the workers are combined here, so only a single result per probe is sent to the
+            // coordinator instead of one per worker.
+            return Collections.singletonList(ProbeResults.combine((List<Map<String, Result>>) results));
+        }
+        return results;
     }
 
     private List executeOnWorkers(Command command, Collection<WorkerJvm> workers) throws TimeoutException, InterruptedException {
@@ -224,6 +249,110 @@ public class WorkerJvmManager {
         return results;
     }
 
+    /**
+     * Waits till a phase of the test has completed on all workers of this agent.
+     *
+     * The workers are asked once if the test has completed the phase; the workers that haven't are waited for till
+     * they push a {@link PhaseCompletedEvent} for the phase. Since the events are counted before the workers are asked,
+     * a phase that completes in between is not missed. The events are matched on the phase, because the event of a
+     * phase can arrive after the worker already answered that the phase has completed; such a late event must not
+     * complete the wait for the next phase. A worker that is removed or ran out of memory is not waited for.
+     *
+     * @param testId    the id of the test.
+     * @param phase     the phase as named by the worker; the name of the test method, or run for the run phase.
+     * @param timeoutMs the maximum time to wait in milliseconds.
+     * @return true if the phase has completed, false if the timeout expired.
+     */
+    public boolean awaitPhaseCompletion(String testId, String phase, long timeoutMs)
+            throws TimeoutException, InterruptedException {
+        long deadlineMs = System.currentTimeMillis() + timeoutMs;
+
+        Map<WorkerJvm, Long> pending = new HashMap<WorkerJvm, Long>();
+        synchronized (phaseCompletedMonitor) {
+            for (WorkerJvm workerJvm : workerJvms.values()) {
+                pending.put(workerJvm, getCompletedPhaseCount(getPhaseKey(workerJvm, testId, phase)));
+            }
+        }
+
+        Iterator<WorkerJvm> workerIterator = pending.keySet().iterator();
+        while (workerIterator.hasNext()) {
+            if (isPhaseCompleted(workerIterator.next(), testId)) {
+                workerIterator.remove();
+            }
+        }
+
+        synchronized (phaseCompletedMonitor) {
+            for (; ; ) {
+                Iterator<Map.Entry<WorkerJvm, Long>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<WorkerJvm, Long> entry = iterator.next();
+                    WorkerJvm workerJvm = entry.getKey();
+                    if (getCompletedPhaseCount(getPhaseKey(workerJvm, testId, phase)) > entry.getValue()
+                            || workerJvm.oomeDetected
+                            || !workerJvms.containsValue(workerJvm)) {
+                        iterator.remove();
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return true;
+                }
+
+                long remainingMs = deadlineMs - System.currentTimeMillis();
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                phaseCompletedMonitor.wait(remainingMs);
+            }
+        }
+    }
+
+    private boolean isPhaseCompleted(WorkerJvm workerJvm, String testId) throws TimeoutException, InterruptedException {
+        List results = executeOnWorkers(new IsPhaseCompletedCommand(testId), Collections.singletonList(workerJvm));
+        for (Object result : results) {
+            if (!Boolean.TRUE.equals(result)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getTestKey(WorkerJvm workerJvm, String testId) {
+        return workerJvm.id + "/" + testId + "/";
+    }
+
+    private static String getPhaseKey(WorkerJvm workerJvm, String testId, String phase) {
+        return getTestKey(workerJvm, testId) + phase;
+    }
+
+    // guarded by phaseCompletedMonitor
+    private long getCompletedPhaseCount(String phaseKey) {
+        Long count = completedPhaseCounts.get(phaseKey);
+        return count == null ? 0 : count;
+    }
+
+    private void phaseCompleted(WorkerJvm workerJvm, PhaseCompletedEvent event) {
+        if (log.isDebugEnabled()) {
+            log.debug("Worker " + workerJvm.id + " completed phase " + event.phase + " of test " + event.testId);
+        }
+
+        synchronized (phaseCompletedMonitor) {
+            if ("localTeardown".equals(event.phase)) {
+                // the test has ended on this worker, nobody waits for its phases anymore
+                String testKey = getTestKey(workerJvm, event.testId);
+                Iterator<String> iterator = completedPhaseCounts.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().startsWith(testKey)) {
+                        iterator.remove();
+                    }
+                }
+            } else {
+                String phaseKey = getPhaseKey(workerJvm, event.testId, event.phase);
+                completedPhaseCounts.put(phaseKey, getCompletedPhaseCount(phaseKey) + 1);
+            }
+            phaseCompletedMonitor.notifyAll();
+        }
+    }
+
     private void registerWorkerFailure(WorkerJvm workerJvm, Exception e) {
         Failure failure = new Failure();
         failure.type = Failure.Type.WORKER_EXCEPTION;
@@ -263,6 +392,7 @@ public class WorkerJvmManager {
 
     public void terminateWorker(final WorkerJvm jvm) {
         workerJvms.remove(jvm.id);
+        closeQuietly(jvm.connection);
 
         Thread t = new Thread() {
             public void run() {
@@ -335,6 +465,12 @@ public class WorkerJvmManager {
         launcher.launch();
     }
 
+    /**
+     * Handles the long lived connection of a single worker.
+     *
+     * The first frame of the worker is its id. After that the worker sends batches of responses, phase completed
+     * events and metrics snapshots; an empty batch is a heartbeat. The requests queued for the worker are pushed by a {@link CommandWriterTask}.
+     */
     private class ClientSocketTask implements Runnable {
         private final Socket clientSocket;
 
@@ -344,51 +480,113 @@ public class WorkerJvmManager {
 
         @Override
         public void run() {
+            FramedConnection connection = null;
             try {
-                ObjectOutputStream out = new ObjectOutputStream(clientSocket.getOutputStream());
-                out.flush();
+                clientSocket.setSoTimeout(CONNECTION_READ_TIMEOUT_MILLIS);
+                connection = FramedConnection.accept(clientSocket);
 
-                ObjectInputStream in = new ObjectInputStream(clientSocket.getInputStream());
-                String service = (String) in.readObject();
-                String workerId = (String) in.readObject();
+                String workerId = (String) connection.readFrame();
                 WorkerJvm workerJvm = workerJvms.get(workerId);
+                if (workerJvm == null) {
+                    log.warn("No worker JVM found for id: " + workerId);
+                    connection.writeFrame(new TerminateWorkerException());
+                    return;
+                }
 
-                Object result = null;
-                try {
-                    if (workerJvm == null) {
-                        log.warn("No worker JVM found for id: " + workerId);
-                        result = new TerminateWorkerException();
-                    } else {
-                        workerJvm.lastSeen = System.currentTimeMillis();
-                        if (SERVICE_POLL_WORK.equals(service)) {
-                            List<CommandRequest> commands = new LinkedList<CommandRequest>();
-                            workerJvm.commandQueue.drainTo(commands);
-                            result = commands;
-                        } else if (COMMAND_PUSH_RESPONSE.equals(service)) {
-                            CommandResponse response = (CommandResponse) in.readObject();
-                            //log.info("Received response: " + response.commandId);
-                            CommandFuture f = futureMap.remove(response.commandId);
-                            if (f != null) {
-                                f.set(response.result);
-                            } else {
-                                log.fatal("No future found for commandId: " + response.commandId);
-                            }
+                FramedConnection oldConnection = workerJvm.connection;
+                if (oldConnection != null) {
+                    log.info("Worker " + workerId + " reconnected, closing old connection " + oldConnection);
+                    closeQuietly(oldConnection);
+                }
+                workerJvm.connection = connection;
+                workerJvm.lastSeen = System.currentTimeMillis();
+
+                executor.execute(new CommandWriterTask(workerJvm, connection));
+
+                readResponses(workerJvm, connection);
+            } catch (Exception e) {
+                if (connection == null || !connection.isClosed()) {
+                    log.warn("Connection with worker failed: " + e);
+                }
+            } finally {
+                if (connection != null) {
+                    closeQuietly(connection);
+                } else {
+                    closeQuietly(clientSocket);
+                }
+            }
+        }
+
+        private void readResponses(WorkerJvm workerJvm, FramedConnection connection) throws IOException {
+            for (; ; ) {
+                List<Object> items = (List<Object>) connection.readFrame();
+                workerJvm.lastSeen = System.currentTimeMillis();
+
+                for (Object item : items) {
+                    if (item instanceof CommandResponse) {
+                        CommandResponse response = (CommandResponse) item;
+                        CommandFuture f = futureMap.remove(response.commandId);
+                        if (f != null) {
+                            f.set(response.result);
                         } else {
-                            throw new RuntimeException("Unknown service:" + service);
+                            log.fatal("No future found for commandId: " + response.commandId);
                         }
+                    } else if (item instanceof PhaseCompletedEvent) {
+                        phaseCompleted(workerJvm, (PhaseCompletedEvent) item);
+                    } else if (item instanceof MetricsSnapshot) {
+                        metricsAggregator.add((MetricsSnapshot) item);
+                    } else {
+                        log.fatal("Unknown item received from worker " + workerJvm.id + ": " + item);
                     }
-                } catch (IOException e) {
-                    throw e;
-                } catch (Exception e) {
-                    log.fatal("Failed to process serviceId:" + service, e);
-                    result = e;
                 }
+            }
+        }
+    }
 
-                out.writeObject(result);
-                out.flush();
-                clientSocket.close();
+    /**
+     * Pushes the requests queued for a worker over its connection as soon as they are queued. When nothing is queued
+     * an empty batch is sent as heartbeat, so the worker can detect a broken connection.
+     */
+    private class CommandWriterTask implements Runnable {
+        private final WorkerJvm workerJvm;
+        private final FramedConnection connection;
+
+        private CommandWriterTask(WorkerJvm workerJvm, FramedConnection connection) {
+            this.workerJvm = workerJvm;
+            this.connection = connection;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!connection.isClosed()) {
+                    List<CommandRequest> requests = new ArrayList<CommandRequest>();
+                    CommandRequest request = workerJvm.commandQueue.poll(HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (request != null) {
+                        requests.add(request);
+                        workerJvm.commandQueue.drainTo(requests);
+                    }
+
+                    try {
+                        connection.writeFrame(requests);
+                    } catch (IOException e) {
+                        requeue(requests);
+                        throw e;
+                    }
+                }
             } catch (Exception e) {
-                log.fatal(e);
+                if (!connection.isClosed()) {
+                    log.warn("Failed to write requests to worker " + workerJvm.id + ": " + e);
+                }
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+
+        // the requests are put back in front of the queue, so they are pushed in order once the worker reconnects.
+        private void requeue(List<CommandRequest> requests) {
+            for (int k = requests.size() - 1; k >= 0; k--) {
+                workerJvm.commandQueue.addFirst(requests.get(k));
             }
         }
     }
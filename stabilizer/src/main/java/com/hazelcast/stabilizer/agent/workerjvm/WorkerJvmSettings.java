@@ -36,6 +36,13 @@ public class WorkerJvmSettings implements Serializable {
     public String hprofSettings = "";
     public String perfSettings = "";
     public String vtuneSettings = "";
+    public int histogramIntervalSeconds;
+    public int metricsIntervalMillis;
+    // the CPU sets of the workers in taskset format separated by spaces, e.g. "0-7 8-15"; assigned round robin.
+    public String memberCpuSets = "";
+    public String clientCpuSets = "";
+    public String cpuAffinityCommand = "taskset";
+    public boolean pinLoadThreads;
 
     public WorkerJvmSettings() {
     }
@@ -57,6 +64,12 @@ public class WorkerJvmSettings implements Serializable {
         this.hprofSettings = settings.hprofSettings;
         this.perfSettings = settings.perfSettings;
         this.vtuneSettings = settings.vtuneSettings;
+        this.histogramIntervalSeconds = settings.histogramIntervalSeconds;
+        this.metricsIntervalMillis = settings.metricsIntervalMillis;
+        this.memberCpuSets = settings.memberCpuSets;
+        this.clientCpuSets = settings.clientCpuSets;
+        this.cpuAffinityCommand = settings.cpuAffinityCommand;
+        this.pinLoadThreads = settings.pinLoadThreads;
     }
 
     public int totalWorkerCount() {
@@ -82,6 +95,12 @@ public class WorkerJvmSettings implements Serializable {
                 "\n, hprofSettings='" + hprofSettings + '\'' +
                 "\n, perfSettings='" + perfSettings + '\'' +
                 "\n, vtuneSettings='" + vtuneSettings + '\'' +
+                "\n, histogramIntervalSeconds=" + histogramIntervalSeconds +
+                "\n, metricsIntervalMillis=" + metricsIntervalMillis +
+                "\n, memberCpuSets='" + memberCpuSets + '\'' +
+                "\n, clientCpuSets='" + clientCpuSets + '\'' +
+                "\n, cpuAffinityCommand='" + cpuAffinityCommand + '\'' +
+                "\n, pinLoadThreads=" + pinLoadThreads +
                 "\n}";
     }
 }
@@ -0,0 +1,124 @@
+package com.hazelcast.stabilizer.common;
+
+import com.hazelcast.stabilizer.common.wire.WireFormat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.net.Socket;
+
+/**
+ * A long lived, bidirectional connection that exchanges length prefixed frames. Every frame contains a single
+ * serialized object.
+ *
+ * When the connection is created, the connecting side sends the {@link WireFormat} header with the highest version it
+ * supports and the accepting side answers with the version both ends support. The frames are serialized using that
+ * version.
+ *
+ * Writing a frame is thread-safe, so one thread can push frames while another thread is blocked reading. Once an
+ * exception is thrown the connection is unusable and should be closed; the owner is responsible for reconnecting.
+ */
+public class FramedConnection implements Closeable {
+
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private byte version;
+    private volatile boolean closed;
+
+    private FramedConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Creates the connection on the connecting side of the socket.
+     *
+     * The read timeout of the socket applies to the handshake and to {@link #readFrame()}.
+     */
+    public static FramedConnection connect(Socket socket) throws IOException {
+        FramedConnection connection = new FramedConnection(socket);
+        WireFormat.writeHeader(connection.out, WireFormat.VERSION);
+        connection.version = WireFormat.readHeader(connection.in);
+        return connection;
+    }
+
+    /**
+     * Creates the connection on the accepting side of the socket.
+     */
+    public static FramedConnection accept(Socket socket) throws IOException {
+        FramedConnection connection = new FramedConnection(socket);
+        connection.version = WireFormat.negotiate(WireFormat.readHeader(connection.in));
+        WireFormat.writeHeader(connection.out, connection.version);
+        return connection;
+    }
+
+    public byte getVersion() {
+        return version;
+    }
+
+    public void writeFrame(Object object) throws IOException {
+        byte[] bytes = serialize(object);
+        synchronized (out) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+        }
+    }
+
+    public Object readFrame() throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return deserialize(bytes);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FramedConnection{" + socket.getRemoteSocketAddress() + '}';
+    }
+
+    private byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutput objectOut = WireFormat.newObjectOutput(bytes, version);
+        objectOut.writeObject(object);
+        objectOut.close();
+        return bytes.toByteArray();
+    }
+
+    private Object deserialize(byte[] bytes) throws IOException {
+        ObjectInput objectIn = WireFormat.newObjectInput(new ByteArrayInputStream(bytes), version);
+        try {
+            return objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to deserialize frame", e);
+        } finally {
+            objectIn.close();
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package com.hazelcast.stabilizer.common.wire;
+
+import com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryCodec;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.test.Failure;
+import com.hazelcast.stabilizer.test.TestCase;
+import com.hazelcast.stabilizer.test.TestSuite;
+import com.hazelcast.stabilizer.worker.commands.Command;
+import com.hazelcast.stabilizer.worker.commands.CommandRequest;
+import com.hazelcast.stabilizer.worker.commands.CommandResponse;
+import com.hazelcast.stabilizer.worker.commands.GenericCommand;
+import com.hazelcast.stabilizer.worker.commands.GetBenchmarkResultsCommand;
+import com.hazelcast.stabilizer.worker.commands.GetOperationCountCommand;
+import com.hazelcast.stabilizer.worker.commands.InitCommand;
+import com.hazelcast.stabilizer.worker.commands.IsLoadGeneratorCommand;
+import com.hazelcast.stabilizer.worker.commands.IsPhaseCompletedCommand;
+import com.hazelcast.stabilizer.worker.commands.JvmMetrics;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import com.hazelcast.stabilizer.worker.commands.PhaseCompletedEvent;
+import com.hazelcast.stabilizer.worker.commands.RunCommand;
+import com.hazelcast.stabilizer.worker.commands.SetTargetThroughputCommand;
+import com.hazelcast.stabilizer.worker.commands.StopCommand;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Version {@link WireFormat#VERSION} of the binary codec of the control plane.
+ *
+ * Every value starts with a type tag. The commands and the other types that are sent on every run have a hand-written
+ * encoding without class descriptors; probe results are written as their type followed by the encoding of the
+ * {@link ProbesResultBinaryCodec}, the same encoding as in the binary probes result file. Any other value falls back to
+ * Java serialization, so new types can be sent before they get their own encoding.
+ *
+ * Lists are decoded as {@link ArrayList} and maps as {@link LinkedHashMap}.
+ */
+public final class BinaryCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte ENUM = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private static final byte COMMAND_REQUEST = 10;
+    private static final byte COMMAND_RESPONSE = 11;
+    private static final byte TEST_CASE = 12;
+    private static final byte FAILURE = 13;
+    private static final byte PHASE_COMPLETED_EVENT = 14;
+    private static final byte METRICS_SNAPSHOT = 15;
+
+    private static final byte GENERIC_COMMAND = 20;
+    private static final byte GET_BENCHMARK_RESULTS_COMMAND = 21;
+    private static final byte GET_OPERATION_COUNT_COMMAND = 22;
+    private static final byte INIT_COMMAND = 23;
+    private static final byte IS_LOAD_GENERATOR_COMMAND = 24;
+    private static final byte IS_PHASE_COMPLETED_COMMAND = 25;
+    private static final byte RUN_COMMAND = 26;
+    private static final byte SET_TARGET_THROUGHPUT_COMMAND = 27;
+    private static final byte STOP_COMMAND = 28;
+
+    private static final byte PROBE_RESULT = 40;
+
+    private static final byte JAVA_SERIALIZED = 127;
+
+    private BinaryCodec() {
+    }
+
+    public static void writeObject(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        if (writeBasic(out, value) || writeControl(out, value) || writeCommand(out, value) || writeResult(out, value)) {
+            return;
+        }
+
+        if (value instanceof List) {
+            List list = (List) value;
+            out.writeByte(LIST);
+            writeVarInt(out, list.size());
+            for (Object item : list) {
+                writeObject(out, item);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            writeVarInt(out, map.size());
+            for (Map.Entry entry : map.entrySet()) {
+                writeObject(out, entry.getKey());
+                writeObject(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(JAVA_SERIALIZED);
+            writeBytes(out, serialize(value));
+        }
+    }
+
+    public static Object readObject(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case ENUM:
+                return readEnum(in);
+            case LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<Object>(size);
+                for (int k = 0; k < size; k++) {
+                    list.add(readObject(in));
+                }
+                return list;
+            case MAP:
+                size = readVarInt(in);
+                Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+                for (int k = 0; k < size; k++) {
+                    Object key = readObject(in);
+                    map.put(key, readObject(in));
+                }
+                return map;
+            case COMMAND_REQUEST:
+                CommandRequest request = new CommandRequest();
+                request.id = readVarLong(in);
+                request.task = (Command) readObject(in);
+                return request;
+            case COMMAND_RESPONSE:
+                CommandResponse response = new CommandResponse();
+                response.commandId = readVarLong(in);
+                response.result = readObject(in);
+                return response;
+            case TEST_CASE:
+                return readTestCase(in);
+            case FAILURE:
+                return readFailure(in);
+            case PHASE_COMPLETED_EVENT:
+                return new PhaseCompletedEvent(readString(in), readString(in));
+            case METRICS_SNAPSHOT:
+                return readMetricsSnapshot(in);
+            case GENERIC_COMMAND:
+                return new GenericCommand(readString(in), readString(in));
+            case GET_BENCHMARK_RESULTS_COMMAND:
+                return new GetBenchmarkResultsCommand(readString(in));
+            case GET_OPERATION_COUNT_COMMAND:
+                return new GetOperationCountCommand();
+            case INIT_COMMAND:
+                return new InitCommand((TestCase) readObject(in));
+            case IS_LOAD_GENERATOR_COMMAND:
+                return new IsLoadGeneratorCommand(readString(in), in.readBoolean());
+            case IS_PHASE_COMPLETED_COMMAND:
+                return new IsPhaseCompletedCommand(readString(in));
+            case RUN_COMMAND:
+                RunCommand runCommand = new RunCommand(readString(in));
+                runCommand.clientOnly = in.readBoolean();
+                return runCommand;
+            case SET_TARGET_THROUGHPUT_COMMAND:
+                return new SetTargetThroughputCommand(readString(in), in.readDouble(), in.readBoolean());
+            case STOP_COMMAND:
+                StopCommand stopCommand = new StopCommand(readString(in));
+                stopCommand.timeoutMs = in.readLong();
+                return stopCommand;
+            case PROBE_RESULT:
+                return ProbesResultBinaryCodec.read(in, readString(in));
+            case JAVA_SERIALIZED:
+                return deserialize(readBytes(in));
+            default:
+                throw new StreamCorruptedException("Unknown type: " + type);
+        }
+    }
+
+    private static boolean writeBasic(DataOutput out, Object value) throws IOException {
+        Class type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Enum) {
+            Enum e = (Enum) value;
+            out.writeByte(ENUM);
+            writeString(out, e.getDeclaringClass().getName());
+            writeString(out, e.name());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean writeControl(DataOutput out, Object value) throws IOException {
+        Class type = value.getClass();
+        if (type == CommandRequest.class) {
+            CommandRequest request = (CommandRequest) value;
+            out.writeByte(COMMAND_REQUEST);
+            writeVarLong(out, request.id);
+            writeObject(out, request.task);
+        } else if (type == CommandResponse.class) {
+            CommandResponse response = (CommandResponse) value;
+            out.writeByte(COMMAND_RESPONSE);
+            writeVarLong(out, response.commandId);
+            writeObject(out, response.result);
+        } else if (type == TestCase.class) {
+            TestCase testCase = (TestCase) value;
+            out.writeByte(TEST_CASE);
+            writeString(out, testCase.id);
+            writeVarInt(out, testCase.properties.size());
+            for (Map.Entry<String, String> entry : testCase.properties.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        } else if (type == Failure.class) {
+            Failure failure = (Failure) value;
+            out.writeByte(FAILURE);
+            writeString(out, failure.message);
+            writeString(out, failure.type == null ? null : failure.type.name());
+            writeString(out, failure.agentAddress);
+            writeString(out, failure.workerAddress);
+            writeString(out, failure.workerId);
+            out.writeLong(failure.time == null ? -1 : failure.time.getTime());
+            writeString(out, failure.testId);
+            writeObject(out, failure.testSuite);
+            writeString(out, failure.cause);
+        } else if (type == PhaseCompletedEvent.class) {
+            PhaseCompletedEvent event = (PhaseCompletedEvent) value;
+            out.writeByte(PHASE_COMPLETED_EVENT);
+            writeString(out, event.testId);
+            writeString(out, event.phase);
+        } else if (type == MetricsSnapshot.class) {
+            out.writeByte(METRICS_SNAPSHOT);
+            writeMetricsSnapshot(out, (MetricsSnapshot) value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean writeCommand(DataOutput out, Object value) throws IOException {
+        Class type = value.getClass();
+        if (type == GenericCommand.class) {
+            GenericCommand command = (GenericCommand) value;
+            out.writeByte(GENERIC_COMMAND);
+            writeString(out, command.testId);
+            writeString(out, command.methodName);
+        } else if (type == GetBenchmarkResultsCommand.class) {
+            out.writeByte(GET_BENCHMARK_RESULTS_COMMAND);
+            writeString(out, ((GetBenchmarkResultsCommand) value).getTestId());
+        } else if (type == GetOperationCountCommand.class) {
+            out.writeByte(GET_OPERATION_COUNT_COMMAND);
+        } else if (type == InitCommand.class) {
+            out.writeByte(INIT_COMMAND);
+            writeObject(out, ((InitCommand) value).testCase);
+        } else if (type == IsLoadGeneratorCommand.class) {
+            IsLoadGeneratorCommand command = (IsLoadGeneratorCommand) value;
+            out.writeByte(IS_LOAD_GENERATOR_COMMAND);
+            writeString(out, command.testId);
+            out.writeBoolean(command.clientOnly);
+        } else if (type == IsPhaseCompletedCommand.class) {
+            out.writeByte(IS_PHASE_COMPLETED_COMMAND);
+            writeString(out, ((IsPhaseCompletedCommand) value).testId);
+        } else if (type == RunCommand.class) {
+            RunCommand command = (RunCommand) value;
+            out.writeByte(RUN_COMMAND);
+            writeString(out, command.testId);
+            out.writeBoolean(command.clientOnly);
+        } else if (type == SetTargetThroughputCommand.class) {
+            SetTargetThroughputCommand command = (SetTargetThroughputCommand) value;
+            out.writeByte(SET_TARGET_THROUGHPUT_COMMAND);
+            writeString(out, command.testId);
+            out.writeDouble(command.opsPerSecond);
+            out.writeBoolean(command.clientOnly);
+        } else if (type == StopCommand.class) {
+            StopCommand command = (StopCommand) value;
+            out.writeByte(STOP_COMMAND);
+            writeString(out, command.testId);
+            out.writeLong(command.timeoutMs);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean writeResult(DataOutput out, Object value) throws IOException {
+        if (!(value instanceof Result)) {
+            return false;
+        }
+        Result result = (Result) value;
+        out.writeByte(PROBE_RESULT);
+        writeString(out, ProbesResultBinaryCodec.getType(result));
+        ProbesResultBinaryCodec.write(out, result);
+        return true;
+    }
+
+    private static Object readEnum(DataInput in) throws IOException {
+        String className = readString(in);
+        String name = readString(in);
+        try {
+            Class enumClass = Class.forName(className);
+            return Enum.valueOf(enumClass, name);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown enum class: " + className, e);
+        }
+    }
+
+    private static TestCase readTestCase(DataInput in) throws IOException {
+        TestCase testCase = new TestCase();
+        testCase.id = readString(in);
+        int size = readVarInt(in);
+        for (int k = 0; k < size; k++) {
+            String key = readString(in);
+            testCase.properties.put(key, readString(in));
+        }
+        return testCase;
+    }
+
+    private static Failure readFailure(DataInput in) throws IOException {
+        Failure failure = new Failure();
+        failure.message = readString(in);
+        String type = readString(in);
+        failure.type = type == null ? null : Failure.Type.valueOf(type);
+        failure.agentAddress = readString(in);
+        failure.workerAddress = readString(in);
+        failure.workerId = readString(in);
+        long time = in.readLong();
+        failure.time = time == -1 ? null : new Date(time);
+        failure.testId = readString(in);
+        failure.testSuite = (TestSuite) readObject(in);
+        failure.cause = readString(in);
+        return failure;
+    }
+
+    private static void writeMetricsSnapshot(DataOutput out, MetricsSnapshot snapshot) throws IOException {
+        writeVarLong(out, snapshot.sequence);
+        out.writeLong(snapshot.timeMillis);
+        writeVarLong(out, snapshot.intervalMillis);
+        writeVarInt(out, snapshot.operationCounts.size());
+        for (Map.Entry<String, Long> entry : snapshot.operationCounts.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        writeVarInt(out, snapshot.latencies.size());
+        for (Map.Entry<String, HdrLatencyProbeResult> entry : snapshot.latencies.entrySet()) {
+            writeString(out, entry.getKey());
+            writeObject(out, entry.getValue());
+        }
+        writeVarInt(out, snapshot.jvmMetrics.size());
+        for (Map.Entry<String, JvmMetrics> entry : snapshot.jvmMetrics.entrySet()) {
+            writeString(out, entry.getKey());
+            writeJvmMetrics(out, entry.getValue());
+        }
+    }
+
+    private static MetricsSnapshot readMetricsSnapshot(DataInput in) throws IOException {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.sequence = readVarLong(in);
+        snapshot.timeMillis = in.readLong();
+        snapshot.intervalMillis = readVarLong(in);
+        int size = readVarInt(in);
+        for (int k = 0; k < size; k++) {
+            String testId = readString(in);
+            snapshot.operationCounts.put(testId, in.readLong());
+        }
+        size = readVarInt(in);
+        for (int k = 0; k < size; k++) {
+            String probeName = readString(in);
+            snapshot.latencies.put(probeName, (HdrLatencyProbeResult) readObject(in));
+        }
+        size = readVarInt(in);
+        for (int k = 0; k < size; k++) {
+            String workerId = readString(in);
+            snapshot.jvmMetrics.put(workerId, readJvmMetrics(in));
+        }
+        return snapshot;
+    }
+
+    private static void writeJvmMetrics(DataOutput out, JvmMetrics metrics) throws IOException {
+        writeVarLong(out, metrics.gcCount);
+        writeVarLong(out, metrics.gcTimeMillis);
+        out.writeLong(metrics.safepointTimeMillis);
+        out.writeLong(metrics.allocatedBytes);
+        writeVarLong(out, metrics.heapUsedBytes);
+        writeVarLong(out, metrics.heapCommittedBytes);
+        writeVarInt(out, metrics.threadCount);
+        writeVarInt(out, metrics.daemonThreadCount);
+    }
+
+    private static JvmMetrics readJvmMetrics(DataInput in) throws IOException {
+        JvmMetrics metrics = new JvmMetrics();
+        metrics.gcCount = readVarLong(in);
+        metrics.gcTimeMillis = readVarLong(in);
+        metrics.safepointTimeMillis = in.readLong();
+        metrics.allocatedBytes = in.readLong();
+        metrics.heapUsedBytes = readVarLong(in);
+        metrics.heapCommittedBytes = readVarLong(in);
+        metrics.threadCount = readVarInt(in);
+        metrics.daemonThreadCount = readVarInt(in);
+        return metrics;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, -1);
+            return;
+        }
+        writeBytes(out, value.getBytes("UTF-8"));
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // the lengths and ids are small most of the time, so they are written in as few bytes as possible. Negative values
+    // take 5 bytes.
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed var int");
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed var long");
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(value);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to deserialize value", e);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.hazelcast.stabilizer.common.wire;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+
+/**
+ * An {@link ObjectInput} that reads the objects with the {@link BinaryCodec}, so it can be used in place of an
+ * {@link java.io.ObjectInputStream}.
+ */
+public class BinaryObjectInput extends DataInputStream implements ObjectInput {
+
+    public BinaryObjectInput(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public Object readObject() throws IOException {
+        return BinaryCodec.readObject(this);
+    }
+}
@@ -0,0 +1,22 @@
+package com.hazelcast.stabilizer.common.wire;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+
+/**
+ * An {@link ObjectOutput} that writes the objects with the {@link BinaryCodec}, so it can be used in place of an
+ * {@link java.io.ObjectOutputStream}.
+ */
+public class BinaryObjectOutput extends DataOutputStream implements ObjectOutput {
+
+    public BinaryObjectOutput(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void writeObject(Object object) throws IOException {
+        BinaryCodec.writeObject(this, object);
+    }
+}
@@ -0,0 +1,103 @@
+package com.hazelcast.stabilizer.common.wire;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * The versioned wire format of the control plane between coordinator, agent and worker.
+ *
+ * A binary message starts with a header containing {@link #MAGIC} and the version of the {@link BinaryCodec} used
+ * for the rest of the message. The receiver answers with the highest version it supports; if that isn't the requested
+ * version, the sender retries with the answered version.
+ *
+ * Version {@link #JAVA_SERIALIZATION} is plain Java serialization without a header. A peer that doesn't know the
+ * binary format answers with a Java serialization stream, and a Java serialization stream from such a peer is
+ * detected by its stream magic, so both ends can fall back to Java serialization.
+ *
+ * Only the current version of the binary codec is implemented, so a peer with an older binary version falls back to
+ * Java serialization as well. Every change of the encoding, including the encoding of the probe results, bumps the
+ * version.
+ */
+public final class WireFormat {
+
+    public static final int MAGIC = 0x5354424C;
+    public static final byte JAVA_SERIALIZATION = 0;
+    public static final byte VERSION = 1;
+
+    private WireFormat() {
+    }
+
+    public static void writeHeader(OutputStream out, byte version) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeByte(version);
+        dataOut.flush();
+    }
+
+    /**
+     * Reads the header of a message.
+     *
+     * If the message is a Java serialization stream, nothing is consumed and {@link #JAVA_SERIALIZATION} is returned.
+     *
+     * @param in the stream to read from, must support mark and reset.
+     * @return the version of the message.
+     * @throws IOException if the stream doesn't start with a header or a Java serialization stream.
+     */
+    public static byte readHeader(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("InputStream should support mark and reset");
+        }
+
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == -1 || second == -1) {
+            throw new StreamCorruptedException("Stream ended before the header was read");
+        }
+        if (((first << 8) | second) == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF)) {
+            return JAVA_SERIALIZATION;
+        }
+
+        DataInputStream dataIn = new DataInputStream(in);
+        int magic = dataIn.readInt();
+        if (magic != MAGIC) {
+            throw new StreamCorruptedException("Invalid magic: " + Integer.toHexString(magic));
+        }
+        return dataIn.readByte();
+    }
+
+    /**
+     * Returns the version to use for a message of the given version, that is the highest version supported by both
+     * ends: {@link #VERSION} if the requested version is at least as high, Java serialization otherwise.
+     */
+    public static byte negotiate(byte requestedVersion) {
+        if (requestedVersion < VERSION) {
+            return JAVA_SERIALIZATION;
+        }
+        return VERSION;
+    }
+
+    public static ObjectOutput newObjectOutput(OutputStream out, byte version) throws IOException {
+        if (version == JAVA_SERIALIZATION) {
+            return new ObjectOutputStream(out);
+        }
+        return new BinaryObjectOutput(out);
+    }
+
+    public static ObjectInput newObjectInput(InputStream in, byte version) throws IOException {
+        if (version == JAVA_SERIALIZATION) {
+            return new ObjectInputStream(in);
+        }
+        return new BinaryObjectInput(in);
+    }
+}
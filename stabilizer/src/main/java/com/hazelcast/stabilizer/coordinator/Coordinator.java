@@ -28,6 +28,7 @@ import com.hazelcast.stabilizer.common.AgentsFile;
 import com.hazelcast.stabilizer.common.GitInfo;
 import com.hazelcast.stabilizer.common.StabilizerProperties;
 import com.hazelcast.stabilizer.coordinator.remoting.AgentsClient;
+import com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter;
 import com.hazelcast.stabilizer.provisioner.Bash;
 import com.hazelcast.stabilizer.test.Failure;
 import com.hazelcast.stabilizer.test.TestSuite;
@@ -74,6 +75,8 @@ public class Coordinator {
     public volatile long operationCount;
     private Bash bash;
     public PerformanceMonitor performanceMonitor;
+    // the interval and total probe results of all tests; null if the file could not be created
+    volatile ProbesResultBinaryWriter probesResultWriter;
 
     private void run() throws Exception {
         bash = new Bash(props);
@@ -84,15 +87,53 @@ public class Coordinator {
 
         new FailureMonitorThread(this).start();
 
+        openProbesResultWriter();
+
+        MetricsMonitor metricsMonitor = null;
+        if (workerJvmSettings.metricsIntervalMillis > 0) {
+            metricsMonitor = new MetricsMonitor(this);
+            metricsMonitor.start();
+        }
+
         if (monitorPerformance) {
             performanceMonitor = new PerformanceMonitor(this);
         }
 
-        runTestSuite();
+        try {
+            runTestSuite();
+        } finally {
+            closeProbesResultWriter();
+        }
+
+        if (metricsMonitor != null) {
+            metricsMonitor.logGcOverlap();
+        }
 
         logFailureInfo();
     }
 
+    private void openProbesResultWriter() {
+        File file = new File("results-" + testSuite.id + ".bin");
+        try {
+            probesResultWriter = new ProbesResultBinaryWriter(file);
+        } catch (IOException e) {
+            log.severe("Failed to create the binary probe results file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void closeProbesResultWriter() {
+        ProbesResultBinaryWriter writer = probesResultWriter;
+        if (writer == null) {
+            return;
+        }
+        probesResultWriter = null;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.severe("Failed to complete the binary probe results file", e);
+        }
+    }
+
     private void logFailureInfo() {
         if (failureList.isEmpty()) {
             log.info("-----------------------------------------------------------------------------");
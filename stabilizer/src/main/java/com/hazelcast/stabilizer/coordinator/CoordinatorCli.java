@@ -117,6 +117,24 @@ public class CoordinatorCli {
             "The startup timeout in seconds for a worker")
             .withRequiredArg().ofType(Integer.class).defaultsTo(60);
 
+    private final OptionSpec<Double> targetThroughputSpec = parser.accepts("targetThroughput",
+            "The number of operations per second the whole cluster should generate for every test. It is divided " +
+                    "over the workers generating load and is rebalanced when workers are added or removed. A test " +
+                    "can override it with the targetThroughput property. 0 means no target.")
+            .withRequiredArg().ofType(Double.class).defaultsTo(0d);
+
+    private final OptionSpec<Integer> histogramIntervalSecondsSpec = parser.accepts("histogramIntervalSeconds",
+            "The interval in seconds at which the workers write the interval histograms of the hdr probes to a " +
+                    "HdrHistogram log file. 0 disables the histogram logs. The histograms are taken at the " +
+                    "metricsIntervalMillis, so a shorter histogram interval is rounded up to it.")
+            .withRequiredArg().ofType(Integer.class).defaultsTo(5);
+
+    private final OptionSpec<Integer> metricsIntervalMillisSpec = parser.accepts("metricsIntervalMillis",
+            "The interval in milliseconds at which the workers stream their operation count and latency histograms " +
+                    "through the agents to the coordinator, which shows the live throughput and latency of the " +
+                    "cluster. 0 disables the live metrics.")
+            .withRequiredArg().ofType(Integer.class).defaultsTo(1000);
+
     private final OptionSpec<Integer> testStopTimeoutMsSpec = parser.accepts("testStopTimeoutMs",
             "Maximum amount of time waiting for the Test to stop")
             .withRequiredArg().ofType(Integer.class).defaultsTo(60000);
@@ -176,6 +194,7 @@ public class CoordinatorCli {
         TestSuite testSuite = loadTestSuite(getTestSuiteFile(), options.valueOf(overridesSpec));
         testSuite.duration = getDuration();
         testSuite.failFast = options.valueOf(failFastSpec);
+        testSuite.targetThroughput = options.valueOf(targetThroughputSpec);
         testSuite.tolerableFailures = Failure.Type.fromPropertyValue(options.valueOf(tolerableFailureSpec));
         coordinator.testSuite = testSuite;
 
@@ -185,6 +204,8 @@ public class CoordinatorCli {
         workerJvmSettings.memberWorkerCount = options.valueOf(memberWorkerCountSpec);
         workerJvmSettings.clientWorkerCount = options.valueOf(clientWorkerCountSpec);
         workerJvmSettings.workerStartupTimeout = options.valueOf(workerStartupTimeoutSpec);
+        workerJvmSettings.histogramIntervalSeconds = options.valueOf(histogramIntervalSecondsSpec);
+        workerJvmSettings.metricsIntervalMillis = options.valueOf(metricsIntervalMillisSpec);
         workerJvmSettings.hzConfig = loadHzConfig();
         workerJvmSettings.clientHzConfig = loadClientHzConfig();
         workerJvmSettings.log4jConfig = getFileAsTextFromWorkingDirOrStabilizerHome(
@@ -196,6 +217,10 @@ public class CoordinatorCli {
         workerJvmSettings.hprofSettings = coordinator.props.get("HPROF_SETTINGS", "");
         workerJvmSettings.perfSettings = coordinator.props.get("PERF_SETTINGS", "");
         workerJvmSettings.vtuneSettings = coordinator.props.get("VTUNE_SETTINGS", "");
+        workerJvmSettings.memberCpuSets = coordinator.props.get("MEMBER_WORKER_CPUSETS", "");
+        workerJvmSettings.clientCpuSets = coordinator.props.get("CLIENT_WORKER_CPUSETS", "");
+        workerJvmSettings.cpuAffinityCommand = coordinator.props.get("CPU_AFFINITY_COMMAND", "taskset");
+        workerJvmSettings.pinLoadThreads = Boolean.parseBoolean(coordinator.props.get("PIN_LOAD_THREADS", "false"));
 
         if (options.has(dedicatedMemberMachinesSpec)) {
             int dedicatedMemberCount = dedicatedMemberMachinesSpec.value(options);
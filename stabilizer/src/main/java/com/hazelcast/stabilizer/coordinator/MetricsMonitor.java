@@ -0,0 +1,255 @@
+package com.hazelcast.stabilizer.coordinator;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.Utils;
+import com.hazelcast.stabilizer.coordinator.remoting.AgentClient;
+import com.hazelcast.stabilizer.coordinator.remoting.AgentsClient;
+import com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Receives the live metrics streamed by the agents and logs/stores the cluster wide throughput and latency
+ * percentiles of every interval, next to the gc, safepoint, allocation, heap and thread metrics of the workers.
+ *
+ * At the end of the run {@link #logGcOverlap()} reports how many of the intervals with the worst p99 latency had gc
+ * time, so a latency spike can be attributed to gc without going through the gc logs of the workers. The gc time is
+ * the collection time reported by the garbage collectors, which includes the concurrent phases of collectors like CMS
+ * and G1; it is not the time the application was paused. The safepoint time is the stop the world measure.
+ *
+ * The latency histograms of every interval are also written to the binary probe results file as they arrive, so the
+ * latencies of a time window of a test can be read back without keeping the intervals in memory.
+ */
+public class MetricsMonitor implements AgentsClient.MetricsListener {
+    private static final ILogger log = Logger.getLogger(MetricsMonitor.class);
+    private static final long LOG_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    static final int WORST_INTERVAL_COUNT = 10;
+
+    private final Coordinator coordinator;
+    private final AgentsClient client;
+    private final File file;
+    private final int intervalMillis;
+    // the snapshots are kept per agent, since the agents measure their intervals with their own clocks
+    private Map<AgentClient, MetricsSnapshot> current = new HashMap<AgentClient, MetricsSnapshot>();
+    // guarded by itself
+    private final List<IntervalRecord> intervals = new ArrayList<IntervalRecord>();
+
+    public MetricsMonitor(Coordinator coordinator) {
+        this.coordinator = coordinator;
+        this.client = coordinator.agentsClient;
+        this.file = new File("metrics-" + coordinator.testSuite.id + ".txt");
+        this.intervalMillis = coordinator.workerJvmSettings.metricsIntervalMillis;
+    }
+
+    public void start() {
+        Utils.appendText("# time(ms) ops/s p50(us) p99(us) p99.9(us) max(us) gc(ms) safepoint(ms) alloc(MB/s) heap(MB)"
+                + " threads\n", file);
+        client.streamMetrics(this);
+        new MetricsThread().start();
+    }
+
+    @Override
+    public synchronized void onMetrics(AgentClient agentClient, MetricsSnapshot snapshot) {
+        MetricsSnapshot agentSnapshot = current.get(agentClient);
+        if (agentSnapshot == null) {
+            agentSnapshot = new MetricsSnapshot();
+            current.put(agentClient, agentSnapshot);
+        }
+        agentSnapshot.add(snapshot);
+    }
+
+    private synchronized Collection<MetricsSnapshot> takeSnapshots() {
+        Collection<MetricsSnapshot> snapshots = current.values();
+        current = new HashMap<AgentClient, MetricsSnapshot>();
+        return snapshots;
+    }
+
+    /**
+     * Logs how many of the intervals with the worst p99 latency overlap with gc time.
+     */
+    public void logGcOverlap() {
+        List<IntervalRecord> copy;
+        synchronized (intervals) {
+            copy = new ArrayList<IntervalRecord>(intervals);
+        }
+        for (String line : gcOverlapReport(copy, WORST_INTERVAL_COUNT)) {
+            log.info(line);
+        }
+    }
+
+    static List<String> gcOverlapReport(List<IntervalRecord> intervals, int worstCount) {
+        List<String> lines = new ArrayList<String>();
+        if (intervals.isEmpty()) {
+            lines.add("No latency intervals were recorded, so there is no gc overlap to report");
+            return lines;
+        }
+
+        int gcIntervalCount = 0;
+        for (IntervalRecord interval : intervals) {
+            if (interval.gcTimeMillis > 0) {
+                gcIntervalCount++;
+            }
+        }
+
+        List<IntervalRecord> worst = new ArrayList<IntervalRecord>(intervals);
+        Collections.sort(worst, new Comparator<IntervalRecord>() {
+            @Override
+            public int compare(IntervalRecord o1, IntervalRecord o2) {
+                return o1.p99 > o2.p99 ? -1 : (o1.p99 == o2.p99 ? 0 : 1);
+            }
+        });
+        worst = worst.subList(0, Math.min(worstCount, worst.size()));
+
+        int worstGcIntervalCount = 0;
+        long worstGcTimeMillis = 0;
+        for (IntervalRecord interval : worst) {
+            if (interval.gcTimeMillis > 0) {
+                worstGcIntervalCount++;
+                worstGcTimeMillis += interval.gcTimeMillis;
+            }
+        }
+
+        lines.add(format("GC overlap: %d of the %d worst p99 intervals had gc time (%d ms gc in total), against %d of"
+                + " all %d intervals", worstGcIntervalCount, worst.size(), worstGcTimeMillis, gcIntervalCount,
+                intervals.size()));
+        for (IntervalRecord interval : worst) {
+            lines.add(format("    time %d ms p99 %d us max %d us gc %d ms safepoint %s", interval.timeMillis,
+                    interval.p99, interval.max, interval.gcTimeMillis,
+                    interval.safepointTimeMillis < 0 ? "n/a" : interval.safepointTimeMillis + " ms"));
+        }
+        return lines;
+    }
+
+    static class IntervalRecord {
+        final long timeMillis;
+        final long p99;
+        final long max;
+        final long gcTimeMillis;
+        final long safepointTimeMillis;
+
+        IntervalRecord(long timeMillis, long p99, long max, long gcTimeMillis, long safepointTimeMillis) {
+            this.timeMillis = timeMillis;
+            this.p99 = p99;
+            this.max = max;
+            this.gcTimeMillis = gcTimeMillis;
+            this.safepointTimeMillis = safepointTimeMillis;
+        }
+    }
+
+    class MetricsThread extends Thread {
+        private long lastLogMs;
+
+        public MetricsThread() {
+            super("MetricsThread");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                Utils.sleepMillis(intervalMillis);
+
+                try {
+                    process(takeSnapshots(), System.currentTimeMillis());
+                } catch (Throwable cause) {
+                    log.severe(cause);
+                }
+            }
+        }
+
+        // the rates are calculated per agent over the interval its workers measured, and then added up.
+        private void process(Collection<MetricsSnapshot> agentSnapshots, long currentMs) {
+            MetricsSnapshot snapshot = new MetricsSnapshot();
+            double performance = 0;
+            double allocatedBytesPerSecond = -1;
+            for (MetricsSnapshot agentSnapshot : agentSnapshots) {
+                snapshot.add(agentSnapshot);
+                performance += agentSnapshot.getOperationsPerSecond();
+                long allocatedBytes = agentSnapshot.getTotalAllocatedBytes();
+                if (allocatedBytes >= 0 && agentSnapshot.intervalMillis > 0) {
+                    allocatedBytesPerSecond = Math.max(allocatedBytesPerSecond, 0)
+                            + (allocatedBytes * 1000d) / agentSnapshot.intervalMillis;
+                }
+            }
+            if (snapshot.isEmpty()) {
+                return;
+            }
+            writeLatencies(snapshot);
+
+            StringBuilder line = new StringBuilder();
+            line.append(currentMs).append(' ').append(Utils.formatDouble(performance, 0).trim());
+
+            String latencyInfo = "";
+            long gcTimeMillis = snapshot.getMaxGcTimeMillis();
+            long safepointTimeMillis = snapshot.getMaxSafepointTimeMillis();
+            HdrLatencyProbeResult latency = snapshot.getCombinedLatency();
+            if (latency == null) {
+                line.append(" - - - -");
+            } else {
+                Histogram histogram = latency.getCorrectedHistogram() != null
+                        ? latency.getCorrectedHistogram()
+                        : latency.getHistogram();
+                long p50 = histogram.getValueAtPercentile(50);
+                long p99 = histogram.getValueAtPercentile(99);
+                long p999 = histogram.getValueAtPercentile(99.9);
+                long max = histogram.getMaxValue();
+                line.append(' ').append(p50).append(' ').append(p99).append(' ').append(p999).append(' ').append(max);
+                latencyInfo = " p50 " + p50 + " us, p99 " + p99 + " us, p99.9 " + p999 + " us";
+                synchronized (intervals) {
+                    intervals.add(new IntervalRecord(currentMs, p99, max, gcTimeMillis, safepointTimeMillis));
+                }
+            }
+            appendJvmMetrics(line, snapshot, allocatedBytesPerSecond, gcTimeMillis, safepointTimeMillis);
+            Utils.appendText(line.append('\n').toString(), file);
+
+            if (currentMs - lastLogMs >= LOG_INTERVAL_MILLIS) {
+                log.info("Live performance: " + Utils.formatDouble(performance, 0).trim() + " ops/s" + latencyInfo);
+                lastLogMs = currentMs;
+            }
+        }
+
+        private void writeLatencies(MetricsSnapshot snapshot) {
+            ProbesResultBinaryWriter writer = coordinator.probesResultWriter;
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.write(snapshot.latencies, snapshot.getStartMillis(), snapshot.timeMillis);
+            } catch (IOException e) {
+                log.severe("Failed to write the latency intervals to the binary probe results", e);
+            }
+        }
+
+        private void appendJvmMetrics(StringBuilder line, MetricsSnapshot snapshot, double allocatedBytesPerSecond,
+                                      long gcTimeMillis, long safepointTimeMillis) {
+            if (snapshot.jvmMetrics.isEmpty()) {
+                line.append(" - - - - -");
+                return;
+            }
+
+            line.append(' ').append(gcTimeMillis);
+            line.append(' ').append(safepointTimeMillis < 0 ? "-" : Long.toString(safepointTimeMillis));
+            line.append(' ').append(allocatedBytesPerSecond < 0
+                    ? "-"
+                    : Utils.formatDouble(allocatedBytesPerSecond / BYTES_PER_MB, 1).trim());
+            line.append(' ').append(snapshot.getTotalHeapUsedBytes() / BYTES_PER_MB);
+            line.append(' ').append(snapshot.getTotalThreadCount());
+        }
+    }
+}
@@ -94,7 +94,7 @@ public class PerformanceMonitor {
         previousCount = totalCount;
     }
 
-    public void logDetailedPerformanceInfo(int duration) {
+    public void logDetailedPerformanceInfo(int duration, double targetThroughput) {
         long operationCount = coordinator.operationCount;
         if (operationCount < 0) {
             log.info("Operation-count: not available");
@@ -103,6 +103,11 @@ public class PerformanceMonitor {
             log.info("Operation-count: " + Utils.formatLong(operationCount, 0));
             double performance = (operationCount * 1.0d) / duration;
             log.info("Performance: " + Utils.formatDouble(performance, 0) + " ops/s");
+            if (targetThroughput > 0) {
+                double percentage = 100 * performance / targetThroughput;
+                log.info("Target performance: " + Utils.formatDouble(targetThroughput, 0) + " ops/s, achieved "
+                        + Utils.formatDouble(percentage, 0) + "%");
+            }
         }
 
         if (performanceWritten.compareAndSet(false, true)) {
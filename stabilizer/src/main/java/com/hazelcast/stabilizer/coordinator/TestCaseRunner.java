@@ -6,6 +6,8 @@ import com.hazelcast.stabilizer.test.TestCase;
 import com.hazelcast.stabilizer.Utils;
 import com.hazelcast.stabilizer.agent.workerjvm.WorkerJvmSettings;
 import com.hazelcast.stabilizer.coordinator.remoting.AgentsClient;
+import com.hazelcast.stabilizer.probes.probes.ProbeResults;
+import com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryWriter;
 import com.hazelcast.stabilizer.probes.probes.ProbesResultXmlWriter;
 import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.test.Failure;
@@ -17,10 +19,17 @@ import com.hazelcast.stabilizer.worker.commands.RunCommand;
 import com.hazelcast.stabilizer.worker.commands.StopCommand;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import static com.hazelcast.stabilizer.Utils.secondsToHuman;
@@ -39,6 +48,9 @@ public class TestCaseRunner {
     private final TestSuite testSuite;
     private final String prefix;
     private final Set<Failure.Type> nonCriticalFailures;
+    private ThroughputBalancer throughputBalancer;
+    private long startTimeMillis;
+    private long stopTimeMillis;
     //private final NumberFormat performanceFormat = NumberFormat.getInstance(Locale.US);
 
     public TestCaseRunner(TestCase testCase, TestSuite testSuite, Coordinator coordinator, int maxTextCaseIdLength) {
@@ -78,6 +90,7 @@ public class TestCaseRunner {
 
             echo("Starting Test start");
             startTestCase();
+            startTimeMillis = System.currentTimeMillis();
             echo("Completed Test start");
 
             echo(format("Test will run for %s", secondsToHuman(testSuite.duration)));
@@ -85,8 +98,11 @@ public class TestCaseRunner {
             echo("Test finished running");
 
             echo("Starting Test stop");
+            stopThroughputBalancer();
             agentsClient.executeOnAllWorkers(new StopCommand(testCase.id));
-            agentsClient.waitForPhaseCompletion(prefix, testCase.id, "stop");
+            // the stop ends the run phase
+            agentsClient.waitForPhaseCompletion(prefix, testCase.id, "run");
+            stopTimeMillis = System.currentTimeMillis();
             echo("Completed Test stop");
 
             logPerformance();
@@ -120,18 +136,41 @@ public class TestCaseRunner {
         } catch (Exception e) {
             log.severe("Failed", e);
             return false;
+        } finally {
+            stopThroughputBalancer();
         }
     }
 
-    private void processProbeResults() {
+    private void processProbeResults() throws InterruptedException, ExecutionException {
         Map<String, ? extends Result> probesResult = getProbesResult();
         if (!probesResult.isEmpty()) {
             ProbesResultXmlWriter xmlWriter = new ProbesResultXmlWriter();
             xmlWriter.write(probesResult, new File("results-" + coordinator.testSuite.id + ".xml"));
+            writeBinaryProbesResult(probesResult);
             logProbesResultInHumanReadableFormat(probesResult);
         }
     }
 
+    // the results of all tests are written to the same file, so the probe names are prefixed with the test id. The
+    // MetricsMonitor writes the latency intervals of a probe while the test runs; the total of such a probe is skipped,
+    // since it is the combination of its intervals and reading the probe would count it twice.
+    private void writeBinaryProbesResult(Map<String, ? extends Result> probesResult) {
+        ProbesResultBinaryWriter binaryWriter = coordinator.probesResultWriter;
+        if (binaryWriter == null) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, ? extends Result> entry : probesResult.entrySet()) {
+                String probeName = testCase.id.isEmpty() ? entry.getKey() : testCase.id + "." + entry.getKey();
+                if (!binaryWriter.contains(probeName)) {
+                    binaryWriter.write(probeName, entry.getValue(), startTimeMillis, stopTimeMillis);
+                }
+            }
+        } catch (IOException e) {
+            log.severe("Failed to write the binary probe results", e);
+        }
+    }
+
     private <R extends Result<R>> void logProbesResultInHumanReadableFormat(Map<String, R> combinedResults) {
         for (Map.Entry<String, R> entry : combinedResults.entrySet()) {
             String probeName = entry.getKey();
@@ -140,38 +179,58 @@ public class TestCaseRunner {
         }
     }
 
-    private <R extends Result<R>> Map<String, R> getProbesResult() {
-        Map<String, R> combinedResults = new HashMap<String, R>();
+    private <R extends Result<R>> Map<String, R> getProbesResult() throws InterruptedException, ExecutionException {
         List<List<Map<String, R>>> agentsProbeResults;
         try {
             agentsProbeResults = agentsClient.executeOnAllWorkers(new GetBenchmarkResultsCommand(testCase.id));
         } catch (TimeoutException e) {
             log.severe("A timeout happened while retrieving the benchmark results");
-            return combinedResults;
+            return new HashMap<String, R>();
         }
+
+        // every agent has already combined the results of its workers.
+        List<Map<String, R>> probeResults = new ArrayList<Map<String, R>>();
         for (List<Map<String, R>> agentProbeResults : agentsProbeResults) {
-            for (Map<String, R> workerProbeResult : agentProbeResults) {
-                if (workerProbeResult != null) {
-                    for (Map.Entry<String, R> probe : workerProbeResult.entrySet()) {
-                        String probeName = probe.getKey();
-                        R currentResult = probe.getValue();
-                        if (currentResult != null) {
-                            R combinedValue = combinedResults.get(probeName);
-                            combinedValue = currentResult.combine(combinedValue);
-                            combinedResults.put(probeName, combinedValue);
-                        } else {
-                            log.warning("Probe " + probeName + " has null value for some member. This should not happen.");
-                        }
+            probeResults.addAll(agentProbeResults);
+        }
+        return combineInParallel(probeResults);
+    }
+
+    private static <R extends Result<R>> Map<String, R> combineInParallel(List<Map<String, R>> probeResults)
+            throws InterruptedException, ExecutionException {
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), probeResults.size() / 2);
+        if (threadCount <= 1) {
+            return ProbeResults.combine(probeResults);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Map<String, R>>> futures = new ArrayList<Future<Map<String, R>>>(threadCount);
+            int chunkSize = (probeResults.size() + threadCount - 1) / threadCount;
+            for (int from = 0; from < probeResults.size(); from += chunkSize) {
+                final List<Map<String, R>> chunk
+                        = probeResults.subList(from, Math.min(from + chunkSize, probeResults.size()));
+                futures.add(executor.submit(new Callable<Map<String, R>>() {
+                    @Override
+                    public Map<String, R> call() {
+                        return ProbeResults.combine(chunk);
                     }
-                }
+                }));
+            }
+
+            Map<String, R> combinedResults = new HashMap<String, R>();
+            for (Future<Map<String, R>> future : futures) {
+                ProbeResults.combine(combinedResults, future.get());
             }
+            return combinedResults;
+        } finally {
+            executor.shutdown();
         }
-        return combinedResults;
     }
 
     private void logPerformance() {
         if (coordinator.monitorPerformance) {
-            coordinator.performanceMonitor.logDetailedPerformanceInfo(testSuite.duration);
+            coordinator.performanceMonitor.logDetailedPerformanceInfo(testSuite.duration, getTargetThroughput());
         }
     }
 
@@ -183,9 +242,26 @@ public class TestCaseRunner {
         WorkerJvmSettings workerJvmSettings = coordinator.workerJvmSettings;
         RunCommand runCommand = new RunCommand(testCase.id);
         runCommand.clientOnly = workerJvmSettings.clientWorkerCount > 0;
+
+        double targetThroughput = testSuite.getTargetThroughput(testCase);
+        if (targetThroughput > 0) {
+            throughputBalancer = new ThroughputBalancer(agentsClient, testCase.id, targetThroughput, runCommand.clientOnly);
+            throughputBalancer.start();
+        }
+
         agentsClient.executeOnAllWorkers(runCommand);
     }
 
+    private void stopThroughputBalancer() {
+        if (throughputBalancer != null) {
+            throughputBalancer.stop();
+        }
+    }
+
+    private double getTargetThroughput() {
+        return throughputBalancer == null ? 0 : throughputBalancer.getTargetThroughput();
+    }
+
     public void sleepSeconds(int seconds) {
         int period = 30;
         int big = seconds / period;
@@ -210,6 +286,10 @@ public class TestCaseRunner {
                             Utils.formatDouble(coordinator.performance, 18),
                             Utils.formatLong(coordinator.operationCount, 18)
                     );
+                    double targetThroughput = getTargetThroughput();
+                    if (targetThroughput > 0) {
+                        msg += String.format(" (target %s ops/s)", Utils.formatDouble(targetThroughput, 0));
+                    }
                 }
             }
 
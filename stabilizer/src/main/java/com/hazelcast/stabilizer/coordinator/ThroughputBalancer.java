@@ -0,0 +1,118 @@
+package com.hazelcast.stabilizer.coordinator;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.Utils;
+import com.hazelcast.stabilizer.coordinator.remoting.AgentsClient;
+import com.hazelcast.stabilizer.worker.commands.IsLoadGeneratorCommand;
+import com.hazelcast.stabilizer.worker.commands.SetTargetThroughputCommand;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static java.lang.String.format;
+
+/**
+ * Divides the target throughput of a test over the workers that generate load for the test.
+ *
+ * The workers are counted periodically, so the target is rebalanced when workers are added or removed, e.g. by a
+ * NewMemberMessage or a KillWorkerMessage. The per worker target is sent again on every check, even if the number of
+ * workers didn't change, so a worker that missed the target, e.g. because the command failed or the worker was replaced,
+ * gets it on the next check. Applying the same target again doesn't change anything on a worker.
+ */
+public class ThroughputBalancer {
+    private static final ILogger log = Logger.getLogger(ThroughputBalancer.class);
+
+    private static final int CHECK_INTERVAL_SECONDS = 5;
+
+    private final AgentsClient agentsClient;
+    private final String testId;
+    private final double targetThroughput;
+    private final boolean clientOnly;
+
+    private volatile boolean stopped;
+    private int loadGeneratorCount;
+
+    public ThroughputBalancer(AgentsClient agentsClient, String testId, double targetThroughput, boolean clientOnly) {
+        this.agentsClient = agentsClient;
+        this.testId = testId;
+        this.targetThroughput = targetThroughput;
+        this.clientOnly = clientOnly;
+    }
+
+    public double getTargetThroughput() {
+        return targetThroughput;
+    }
+
+    /**
+     * Divides the target throughput for the first time and starts rebalancing in the background.
+     *
+     * @throws TimeoutException if the workers didn't respond in time.
+     */
+    public void start() throws TimeoutException {
+        rebalance();
+
+        Thread thread = new Thread("ThroughputBalancerThread-" + testId) {
+            @Override
+            public void run() {
+                while (!stopped) {
+                    Utils.sleepSeconds(CHECK_INTERVAL_SECONDS);
+                    if (stopped) {
+                        return;
+                    }
+
+                    try {
+                        rebalance();
+                    } catch (TimeoutException e) {
+                        log.warning("There was a timeout while rebalancing the target throughput of test " + testId);
+                    } catch (Throwable cause) {
+                        log.severe(cause);
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    private synchronized void rebalance() throws TimeoutException {
+        int count = countLoadGenerators();
+        boolean changed = count != loadGeneratorCount;
+        loadGeneratorCount = count;
+
+        if (count == 0) {
+            if (changed) {
+                log.warning(format("There are no workers generating load for test %s", testId));
+            }
+            return;
+        }
+
+        double opsPerSecond = targetThroughput / count;
+        if (changed) {
+            log.info(format("Dividing target throughput of %s ops/s for test %s over %s workers: %s ops/s per worker",
+                    Utils.formatDouble(targetThroughput, 0), testId, count, Utils.formatDouble(opsPerSecond, 0)));
+        }
+        agentsClient.executeOnAllWorkers(new SetTargetThroughputCommand(testId, opsPerSecond, clientOnly));
+    }
+
+    private int countLoadGenerators() throws TimeoutException {
+        List<List<Boolean>> result = agentsClient.executeOnAllWorkers(new IsLoadGeneratorCommand(testId, clientOnly));
+        int count = 0;
+        for (List<Boolean> agentResult : result) {
+            if (agentResult == null) {
+                continue;
+            }
+
+            for (Boolean loadGenerator : agentResult) {
+                if (Boolean.TRUE.equals(loadGenerator)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
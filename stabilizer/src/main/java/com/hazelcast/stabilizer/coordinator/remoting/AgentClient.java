@@ -5,10 +5,13 @@ import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.Utils;
 import com.hazelcast.stabilizer.agent.remoting.AgentRemoteService;
 import com.hazelcast.stabilizer.common.AgentAddress;
+import com.hazelcast.stabilizer.common.wire.WireFormat;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -23,6 +26,9 @@ public class AgentClient {
     final String publicAddress;
     final String privateIp;
 
+    // is lowered when the agent doesn't support the binary wire format.
+    private volatile byte wireVersion = WireFormat.VERSION;
+
     public AgentClient(AgentAddress address) {
         this.publicAddress = address.publicAddress;
         this.privateIp = address.privateAddress;
@@ -37,17 +43,40 @@ public class AgentClient {
     }
 
     Object execute(AgentRemoteService.Service service, Object... args) throws Exception {
+        byte version = wireVersion;
         Socket socket = newSocket();
 
         try {
-            ObjectOutputStream oos = new ObjectOutputStream(socket.getOutputStream());
-            oos.writeObject(service);
+            BufferedOutputStream rawOut = new BufferedOutputStream(socket.getOutputStream());
+            if (version != WireFormat.JAVA_SERIALIZATION) {
+                WireFormat.writeHeader(rawOut, version);
+            }
+            ObjectOutput out = WireFormat.newObjectOutput(rawOut, version);
+            out.writeObject(service);
             for (Object arg : args) {
-                oos.writeObject(arg);
+                out.writeObject(arg);
+            }
+            out.flush();
+
+            BufferedInputStream rawIn = new BufferedInputStream(socket.getInputStream());
+            if (version != WireFormat.JAVA_SERIALIZATION) {
+                // an agent that doesn't know the binary wire format answers with a Java serialization stream.
+                byte negotiatedVersion = WireFormat.readHeader(rawIn);
+                if (negotiatedVersion != version) {
+                    if (negotiatedVersion > version) {
+                        throw new IOException("Agent " + publicAddress + " answered with unrequested wire format version "
+                                + negotiatedVersion);
+                    }
+                    log.info("Agent " + publicAddress + " uses wire format version " + negotiatedVersion
+                            + ", retrying request " + service);
+                    // an older binary version isn't implemented, so that falls back to Java serialization
+                    wireVersion = WireFormat.negotiate(negotiatedVersion);
+                    closeQuietly(socket);
+                    return execute(service, args);
+                }
             }
-            oos.flush();
 
-            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            ObjectInput in = WireFormat.newObjectInput(rawIn, version);
             Object response = in.readObject();
 
             if (response instanceof Exception) {
@@ -14,6 +14,7 @@ import com.hazelcast.stabilizer.test.Failure;
 import com.hazelcast.stabilizer.test.TestSuite;
 import com.hazelcast.stabilizer.worker.commands.Command;
 import com.hazelcast.stabilizer.worker.commands.IsPhaseCompletedCommand;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -24,20 +25,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.hazelcast.stabilizer.Utils.sleepSeconds;
+import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_AWAIT_PHASE_COMPLETION;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_ECHO;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_EXECUTE_ALL_WORKERS;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_EXECUTE_SINGLE_WORKER;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_GET_FAILURES;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_INIT_TESTSUITE;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_POKE;
+import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_POLL_METRICS;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_PROCESS_MESSAGE;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_SPAWN_WORKERS;
 import static com.hazelcast.stabilizer.agent.remoting.AgentRemoteService.Service.SERVICE_TERMINATE_WORKERS;
@@ -47,6 +52,11 @@ public class AgentsClient {
 
     private final static ILogger log = com.hazelcast.logging.Logger.getLogger(AgentsClient.class);
 
+    private static final int PHASE_COMPLETION_LOG_INTERVAL_SECONDS = 5;
+    private static final int AWAIT_PHASE_COMPLETION_SECONDS = 30;
+    private static final int POLL_METRICS_SECONDS = 30;
+    private static final int POLL_METRICS_RETRY_SECONDS = 5;
+
     private final List<AgentClient> agents = new LinkedList<AgentClient>();
 
     private final ExecutorService agentExecutor = Executors.newFixedThreadPool(100);
@@ -177,8 +187,97 @@ public class AgentsClient {
         return result;
     }
 
+    /**
+     * Waits till a phase of the test has completed on all workers.
+     *
+     * Every agent is asked to wait till the phase has completed on its workers; the agents are notified by their
+     * workers as soon as a phase completes, so there is no polling delay. If an agent fails to do so, e.g. because it
+     * is an older agent, the workers are polled instead.
+     *
+     * There is no limit on how long a phase takes, e.g. a warmup may load many millions of keys, unless a timeout in
+     * seconds is set with the worker.phase.timeout system property.
+     *
+     * @param phaseName the phase as named by the workers; the name of the test method, or run for the run phase.
+     * @throws TimeoutException if the worker.phase.timeout is set and the phase didn't complete within it.
+     */
     public void waitForPhaseCompletion(String prefix, String testId, String phaseName) throws TimeoutException {
         long startTimeMs = System.currentTimeMillis();
+        Long timeoutSeconds = Long.getLong("worker.phase.timeout");
+        long deadlineMs = timeoutSeconds == null
+                ? Long.MAX_VALUE
+                : startTimeMs + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        if (awaitPhaseCompletion(prefix, testId, phaseName, startTimeMs, deadlineMs)) {
+            return;
+        }
+
+        log.warning(prefix + "Failed to await " + phaseName + " completion, falling back to polling the workers");
+        pollPhaseCompletion(prefix, testId, phaseName, startTimeMs, deadlineMs);
+    }
+
+    private boolean awaitPhaseCompletion(String prefix, final String testId, final String phaseName, long startTimeMs,
+                                         final long deadlineMs) throws TimeoutException {
+        final CountDownLatch completedLatch = new CountDownLatch(agents.size());
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+
+        List<Future> futures = new LinkedList<Future>();
+        for (final AgentClient agentClient : agents) {
+            futures.add(agentExecutor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    try {
+                        while (!done.get()) {
+                            long timeoutMs = Math.min(TimeUnit.SECONDS.toMillis(AWAIT_PHASE_COMPLETION_SECONDS),
+                                    deadlineMs - System.currentTimeMillis());
+                            if (timeoutMs <= 0) {
+                                return null;
+                            }
+                            Object completed = agentClient.execute(SERVICE_AWAIT_PHASE_COMPLETION, testId, phaseName,
+                                    timeoutMs);
+                            if (Boolean.TRUE.equals(completed)) {
+                                completedLatch.countDown();
+                                return null;
+                            }
+                        }
+                    } catch (Exception e) {
+                        if (!done.get()) {
+                            log.warning("Failed to await phase completion on agent " + agentClient.publicAddress, e);
+                            failed.set(true);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            for (; ; ) {
+                long remainingMs = deadlineMs - System.currentTimeMillis();
+                long waitMs = Math.min(TimeUnit.SECONDS.toMillis(PHASE_COMPLETION_LOG_INTERVAL_SECONDS), remainingMs);
+                if (completedLatch.await(Math.max(waitMs, 0), TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                if (failed.get()) {
+                    return false;
+                }
+                checkPhaseTimeout(prefix, phaseName, startTimeMs, deadlineMs);
+
+                long durationMs = System.currentTimeMillis() - startTimeMs;
+                log.info(prefix + "Waiting for " + phaseName + " completion: " + Utils.secondsToHuman(durationMs / 1000));
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // the long polls of the agents that haven't completed are no longer needed
+            done.set(true);
+            for (Future future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void pollPhaseCompletion(String prefix, String testId, String phaseName, long startTimeMs, long deadlineMs)
+            throws TimeoutException {
         IsPhaseCompletedCommand command = new IsPhaseCompletedCommand(testId);
         for (; ; ) {
             List<List<Boolean>> allResults = executeOnAllWorkers(command);
@@ -199,10 +298,56 @@ public class AgentsClient {
             if (complete) {
                 return;
             }
+            checkPhaseTimeout(prefix, phaseName, startTimeMs, deadlineMs);
 
             long durationMs = System.currentTimeMillis() - startTimeMs;
             log.info(prefix + "Waiting for " + phaseName + " completion: " + Utils.secondsToHuman(durationMs / 1000));
-            Utils.sleepSeconds(5);
+            Utils.sleepSeconds(PHASE_COMPLETION_LOG_INTERVAL_SECONDS);
+        }
+    }
+
+    private static void checkPhaseTimeout(String prefix, String phaseName, long startTimeMs, long deadlineMs)
+            throws TimeoutException {
+        long nowMs = System.currentTimeMillis();
+        if (nowMs >= deadlineMs) {
+            throw new TimeoutException(prefix + phaseName + " didn't complete within "
+                    + Utils.secondsToHuman((nowMs - startTimeMs) / 1000));
+        }
+    }
+
+    /**
+     * Streams the live metrics of every agent to the listener.
+     *
+     * Every agent is polled by its own thread; a poll returns as soon as the agent has new snapshots.
+     */
+    public void streamMetrics(final MetricsListener listener) {
+        for (final AgentClient agentClient : agents) {
+            Thread thread = new Thread("MetricsStreamThread-" + agentClient.publicAddress) {
+                @Override
+                public void run() {
+                    long sequence = -1;
+                    boolean failed = false;
+                    for (; ; ) {
+                        try {
+                            List<MetricsSnapshot> snapshots = (List<MetricsSnapshot>) agentClient.execute(
+                                    SERVICE_POLL_METRICS, sequence, TimeUnit.SECONDS.toMillis(POLL_METRICS_SECONDS));
+                            for (MetricsSnapshot snapshot : snapshots) {
+                                listener.onMetrics(agentClient, snapshot);
+                                sequence = snapshot.sequence;
+                            }
+                            failed = false;
+                        } catch (Exception e) {
+                            if (!failed) {
+                                log.warning("Failed to poll metrics from agent " + agentClient.publicAddress, e);
+                                failed = true;
+                            }
+                            sleepSeconds(POLL_METRICS_RETRY_SECONDS);
+                        }
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
         }
     }
 
@@ -484,4 +629,9 @@ public class AgentsClient {
 
         getAllFutures(futures);
     }
+
+    public interface MetricsListener {
+
+        void onMetrics(AgentClient agentClient, MetricsSnapshot snapshot);
+    }
 }
@@ -34,6 +34,68 @@ public class TestCase implements Serializable {
         return id;
     }
 
+    /**
+     * Returns the number of operations per second the whole cluster should generate for this test.
+     *
+     * @return the target throughput or 0 if the test has no target throughput.
+     */
+    public double getTargetThroughput() {
+        String value = properties.get("targetThroughput");
+        return value == null ? 0 : Double.parseDouble(value);
+    }
+
+    /**
+     * Returns the number of seconds at the start of the test that are left out of the probe results.
+     *
+     * @return the measurement delay in seconds, 0 if there is none.
+     */
+    public int getMeasurementDelaySeconds() {
+        String value = properties.get("measurementDelaySeconds");
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Checks if the probe results should only start once the throughput of the test is stable.
+     *
+     * @return true if the measurement window is started automatically.
+     */
+    public boolean isMeasurementAutoStart() {
+        return Boolean.parseBoolean(properties.get("measurementAutoStart"));
+    }
+
+    /**
+     * Returns the number of load threads the worker starts for a test with a
+     * {@link com.hazelcast.stabilizer.test.annotations.TimeStep} method.
+     *
+     * @return the thread count, or 0 if the test case doesn't set it.
+     */
+    public int getThreadCount() {
+        String value = properties.get("threadCount");
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Returns the number of outstanding operations per load thread of a test with an asynchronous
+     * {@link com.hazelcast.stabilizer.test.annotations.TimeStep} method.
+     *
+     * @return the maximum number of operations in flight, or 0 if the test case doesn't set it.
+     */
+    public int getMaxInFlight() {
+        String value = properties.get("maxInFlight");
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Returns the seed of the {@link com.hazelcast.stabilizer.worker.OperationSelector}s of the test. Every worker
+     * derives its own seed from it, so a run with the same seed and workers replays the same operations.
+     *
+     * @return the seed, or null if the test case doesn't set it.
+     */
+    public Long getOperationSeed() {
+        String value = properties.get("operationSeed");
+        return value == null ? null : Long.parseLong(value);
+    }
+
     public String getProperty(String name) {
         return properties.get(name);
     }
@@ -119,6 +119,7 @@ public class TestSuite implements Serializable {
     public List<TestCase> testCaseList = new LinkedList<TestCase>();
     public int duration;
     public boolean failFast;
+    public double targetThroughput;
     public Set<Failure.Type> tolerableFailures = Collections.EMPTY_SET;
 
     public TestCase getTestCase(String testCaseId) {
@@ -135,6 +136,17 @@ public class TestSuite implements Serializable {
         return null;
     }
 
+    /**
+     * Returns the number of operations per second the whole cluster should generate for the given test.
+     *
+     * @param testCase the test case.
+     * @return the target throughput of the test case, or else the one of the test suite; 0 means no target.
+     */
+    public double getTargetThroughput(TestCase testCase) {
+        double testCaseTargetThroughput = testCase.getTargetThroughput();
+        return testCaseTargetThroughput > 0 ? testCaseTargetThroughput : targetThroughput;
+    }
+
     public void addTest(TestCase testCase) {
         testCaseList.add(testCase);
     }
@@ -150,6 +162,7 @@ public class TestSuite implements Serializable {
                 ", id='" + id + '\'' +
                 ", testRecipeList=" + testCaseList +
                 ", failFast=" + failFast +
+                ", targetThroughput=" + targetThroughput +
                 '}';
     }
 }
@@ -6,9 +6,10 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * This annotation is here temporary to let a test expose a method to indicate performance
- * In the future we'll get a much better system that probably will be accessible through
- * the TestContext to setup all kinds of performance metrics.
+ * Lets a test expose a method that returns its operation count.
+ *
+ * This annotation is optional: a test can declare a {@link com.hazelcast.stabilizer.worker.OperationCounter} field
+ * instead, which is injected by the worker and read directly. If a test has both, the counter is used.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -0,0 +1,39 @@
+package com.hazelcast.stabilizer.test.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that executes a single iteration of the test. It replaces the {@link Run} method: the worker drives the
+ * load loop itself, so every test is measured in the same way.
+ *
+ * The worker starts threadCount threads that call the method until the test is stopped. Every call is rate limited by
+ * the {@link com.hazelcast.stabilizer.worker.MetronomeSettings} of the test, counted by its operation counter and, if a
+ * probe with the name of the method is configured, timed from its intended start.
+ *
+ * If the method returns a {@link com.hazelcast.core.ICompletableFuture}, the operations are pipelined instead: every
+ * thread keeps up to maxInFlight operations outstanding, and the latency and operation count are recorded when the
+ * future completes.
+ *
+ * The threadCount and maxInFlight properties of the test case configure the loop; they are handled by the worker and
+ * not bound to fields of the test. Without them the annotation values are used.
+ *
+ * The method can't be static, must return void or an ICompletableFuture and can't have arguments. A test has either a
+ * Run or a TimeStep method.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TimeStep {
+
+    /**
+     * The number of load threads if the test case has no threadCount property.
+     */
+    int threadCount() default 10;
+
+    /**
+     * The number of outstanding operations per load thread if the test case has no maxInFlight property.
+     */
+    int maxInFlight() default 1;
+}
@@ -3,6 +3,7 @@ package com.hazelcast.stabilizer.test.utils;
 import com.hazelcast.stabilizer.test.TestCase;
 import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
 import com.hazelcast.stabilizer.test.exceptions.BindException;
+import com.hazelcast.stabilizer.worker.TestContainer;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -56,6 +57,27 @@ public final class PropertyBindingSupport {
                 continue;
             }
 
+            //the target throughput is handled by the coordinator
+            if ("targetThroughput".equals(property)) {
+                continue;
+            }
+
+            //the measurement window is handled by the worker
+            if ("measurementDelaySeconds".equals(property) || "measurementAutoStart".equals(property)) {
+                continue;
+            }
+
+            //the seed of the operation selectors is handled by the worker
+            if ("operationSeed".equals(property)) {
+                continue;
+            }
+
+            //the load loop of a TimeStep method is handled by the worker
+            if (("threadCount".equals(property) || "maxInFlight".equals(property))
+                    && TestContainer.hasTimeStepMethod(test.getClass())) {
+                continue;
+            }
+
             bindProperty(test, property, value);
         }
     }
@@ -0,0 +1,143 @@
+package com.hazelcast.stabilizer.test.utils;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.NativeUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * Pins the threads spawned by the {@link ThreadSpawner} round robin to the CPUs of the worker, so the load threads of
+ * different workers on the same machine don't compete for the same cores.
+ *
+ * Java has no API for thread affinity, so the calling thread looks up its Linux thread id and applies the affinity with
+ * 'taskset -p'. If that isn't possible, e.g. on a non Linux system, a warning is logged once and the threads are not
+ * pinned.
+ */
+public final class ThreadAffinity {
+
+    private static final ILogger log = Logger.getLogger(ThreadAffinity.class);
+    private static final int[] NO_CPUS = new int[0];
+
+    private static final AtomicInteger NEXT_CPU = new AtomicInteger();
+    private static final AtomicBoolean FAILURE_LOGGED = new AtomicBoolean();
+    private static volatile int[] cpus = NO_CPUS;
+
+    private ThreadAffinity() {
+    }
+
+    /**
+     * Sets the CPUs the spawned threads are pinned to.
+     *
+     * @param cpuSet the CPU list in taskset format, e.g. "0-3,8", or null to disable the pinning.
+     * @return the CPUs the threads are pinned to, in the order they are assigned.
+     */
+    public static int[] configure(String cpuSet) {
+        cpus = cpuSet == null ? NO_CPUS : parseCpuSet(cpuSet);
+        NEXT_CPU.set(0);
+        return cpus.clone();
+    }
+
+    /**
+     * Pins the calling thread to the next CPU. Does nothing if the pinning isn't enabled.
+     */
+    public static void pinCurrentThread() {
+        int[] cpus = ThreadAffinity.cpus;
+        if (cpus.length == 0) {
+            return;
+        }
+
+        int cpu = cpus[(NEXT_CPU.getAndIncrement() & Integer.MAX_VALUE) % cpus.length];
+        Integer threadId = NativeUtils.getThreadIdOrNull();
+        if (threadId == null) {
+            logFailure("the Linux thread id of the thread can't be determined");
+            return;
+        }
+
+        try {
+            Process process = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(cpu), threadId.toString())
+                    .redirectErrorStream(true)
+                    .start();
+            // taskset is killed by SIGPIPE if its output is closed before it has written it, so it is drained
+            drain(process.getInputStream());
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                logFailure("taskset failed with exit code " + exitCode);
+                return;
+            }
+        } catch (IOException e) {
+            logFailure(e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (log.isFinestEnabled()) {
+            log.finest(format("Pinned thread %s to CPU %d", Thread.currentThread().getName(), cpu));
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        try {
+            byte[] buffer = new byte[256];
+            while (in.read(buffer) != -1) {
+                // the output isn't needed
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void logFailure(String reason) {
+        if (FAILURE_LOGGED.compareAndSet(false, true)) {
+            log.warning("Failed to pin the load threads to their CPUs, " + reason);
+        }
+    }
+
+    /**
+     * Parses a CPU list like "0-3,8,10-11".
+     *
+     * @param cpuSet the CPU list.
+     * @return the CPUs in the list, in the order they are listed.
+     * @throws IllegalArgumentException if the CPU list is not valid.
+     */
+    public static int[] parseCpuSet(String cpuSet) {
+        List<Integer> cpus = new ArrayList<Integer>();
+        try {
+            for (String range : cpuSet.trim().split(",")) {
+                int separator = range.indexOf('-');
+                int first;
+                int last;
+                if (separator < 0) {
+                    first = Integer.parseInt(range.trim());
+                    last = first;
+                } else {
+                    first = Integer.parseInt(range.substring(0, separator).trim());
+                    last = Integer.parseInt(range.substring(separator + 1).trim());
+                }
+                if (first < 0 || last < first) {
+                    throw new IllegalArgumentException("Invalid CPU range '" + range + "' in CPU set '" + cpuSet + "'");
+                }
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CPU set '" + cpuSet + "'", e);
+        }
+
+        int[] result = new int[cpus.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cpus.get(i);
+        }
+        return result;
+    }
+}
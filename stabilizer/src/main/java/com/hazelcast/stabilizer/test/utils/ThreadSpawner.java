@@ -1,5 +1,7 @@
 package com.hazelcast.stabilizer.test.utils;
 
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -10,11 +12,18 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Responsible for spawning threads. You can use your own threads, but make sure that you detect exceptions thrown
  * and report them to the {@link com.hazelcast.stabilizer.test.utils.ExceptionReporter}.
+ *
+ * The spawned threads are {@link ProbeThread}s, so they get the fast path when recording to a probe. If the worker
+ * pins its load threads, see {@link ThreadAffinity}, the spawned threads are pinned to a CPU when they start.
+ *
+ * Every spawned thread gets the index in which it was spawned by its spawner, see {@link #getThreadIndex()}, so a
+ * thread can derive per thread state that is the same on every run, like the seed of a random generator.
  */
 public class ThreadSpawner {
 
     private final List<Thread> threads = Collections.synchronizedList(new LinkedList<Thread>());
     private final ConcurrentMap<String, AtomicInteger> idMap = new ConcurrentHashMap<String, AtomicInteger>();
+    private final AtomicInteger threadIndexGenerator = new AtomicInteger();
     private final String testId;
 
     /**
@@ -49,12 +58,26 @@ public class ThreadSpawner {
             throw new NullPointerException("runnable can't be null");
         }
 
-        DefaultThread t = new DefaultThread(getName(namePrefix), runnable);
+        DefaultThread t = new DefaultThread(getName(namePrefix), runnable, threadIndexGenerator.getAndIncrement());
         threads.add(t);
         t.start();
         return t;
     }
 
+    /**
+     * Returns the index of the calling thread in the order in which its spawner spawned it: 0 for the first thread,
+     * 1 for the second, etc.
+     *
+     * @return the index, or -1 if the calling thread wasn't spawned by a ThreadSpawner.
+     */
+    public static int getThreadIndex() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof DefaultThread) {
+            return ((DefaultThread) thread).threadIndex;
+        }
+        return -1;
+    }
+
     private String getName(String prefix) {
         AtomicInteger idGenerator = idMap.get(prefix);
         if (idGenerator == null) {
@@ -76,16 +99,20 @@ public class ThreadSpawner {
         }
     }
 
-    private class DefaultThread extends Thread {
-        public DefaultThread(String name, Runnable task) {
+    private class DefaultThread extends ProbeThread {
+        private final int threadIndex;
+
+        public DefaultThread(String name, Runnable task, int threadIndex) {
             super(task, name);
+            this.threadIndex = threadIndex;
             setDaemon(true);
         }
 
         @Override
-        public void run() {
+        protected void runWithSlot() {
             try {
-                super.run();
+                ThreadAffinity.pinCurrentThread();
+                super.runWithSlot();
             } catch (Throwable t) {
                 ExceptionReporter.report(testId, t);
             }
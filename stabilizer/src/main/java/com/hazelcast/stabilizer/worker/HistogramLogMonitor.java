@@ -0,0 +1,146 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.test.TestContext;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes the interval histograms of the hdr probes to a HdrHistogram log file per test and probe, so the latency
+ * distribution can be followed over time.
+ *
+ * The interval histograms are taken by the {@link IntervalSampler}; when the sampler interval is shorter than the
+ * histogram interval, the sampled intervals are added up till the histogram interval has passed.
+ *
+ * If a probe also records latencies corrected for coordinated omission, they are written to a separate log file with
+ * the suffix -corrected, since the log format of this HdrHistogram version can't tag the histograms in one file.
+ *
+ * When a test is removed from the worker, its last interval is written and the log files are closed.
+ */
+class HistogramLogMonitor implements IntervalSampler.Listener {
+    private static final ILogger log = Logger.getLogger(HistogramLogMonitor.class);
+
+    private final Map<TestContainer<TestContext>, TestLogs> testLogs
+            = new IdentityHashMap<TestContainer<TestContext>, TestLogs>();
+
+    private final long intervalMillis;
+    private final long startTimeMillis = System.currentTimeMillis();
+
+    public HistogramLogMonitor(int intervalSeconds) {
+        this.intervalMillis = intervalSeconds * 1000L;
+    }
+
+    @Override
+    public void onInterval(long startMillis, long endMillis, Map<TestContainer<TestContext>, Map<String, Result<?>>> results,
+                           Collection<TestContainer<TestContext>> removed) {
+        for (Map.Entry<TestContainer<TestContext>, Map<String, Result<?>>> entry : results.entrySet()) {
+            TestContainer<TestContext> testContainer = entry.getKey();
+            TestLogs logs = testLogs.get(testContainer);
+            if (logs == null) {
+                logs = new TestLogs(testContainer.getTestContext().getTestId(), startMillis);
+                testLogs.put(testContainer, logs);
+            }
+            logs.add(entry.getValue());
+
+            boolean isRemoved = removed.contains(testContainer);
+            if (isRemoved || endMillis - logs.intervalStartMillis >= intervalMillis) {
+                logs.write(endMillis);
+            }
+            if (isRemoved) {
+                logs.close();
+                testLogs.remove(testContainer);
+            }
+        }
+    }
+
+    private class TestLogs {
+        private final String testId;
+        private final Map<String, PrintStream> streams = new HashMap<String, PrintStream>();
+        private final Map<String, HistogramLogWriter> writers = new HashMap<String, HistogramLogWriter>();
+        // the histograms of the interval that hasn't been written yet, by log name
+        private final Map<String, Histogram> histograms = new HashMap<String, Histogram>();
+        private long intervalStartMillis;
+
+        public TestLogs(String testId, long intervalStartMillis) {
+            this.testId = testId.isEmpty() ? "default" : testId;
+            this.intervalStartMillis = intervalStartMillis;
+        }
+
+        public void add(Map<String, Result<?>> results) {
+            for (Map.Entry<String, Result<?>> entry : results.entrySet()) {
+                if (!(entry.getValue() instanceof HdrLatencyProbeResult)) {
+                    continue;
+                }
+
+                HdrLatencyProbeResult result = (HdrLatencyProbeResult) entry.getValue();
+                add(entry.getKey(), result.getHistogram());
+                if (result.getCorrectedHistogram() != null) {
+                    add(entry.getKey() + "-corrected", result.getCorrectedHistogram());
+                }
+            }
+        }
+
+        private void add(String logName, Histogram interval) {
+            Histogram histogram = histograms.get(logName);
+            if (histogram == null) {
+                histograms.put(logName, interval.copy());
+            } else {
+                histogram.add(interval);
+            }
+        }
+
+        public void write(long intervalEndMillis) {
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                String logName = entry.getKey();
+                Histogram histogram = entry.getValue();
+                try {
+                    HistogramLogWriter writer = getWriter(logName);
+                    writer.outputIntervalHistogram(
+                            (intervalStartMillis - startTimeMillis) / 1000d,
+                            (intervalEndMillis - startTimeMillis) / 1000d,
+                            histogram);
+                    streams.get(logName).flush();
+                } catch (FileNotFoundException e) {
+                    log.severe("Failed to write interval histogram for probe " + logName + " of test " + testId, e);
+                }
+                histogram.reset();
+            }
+            intervalStartMillis = intervalEndMillis;
+        }
+
+        private HistogramLogWriter getWriter(String logName) throws FileNotFoundException {
+            HistogramLogWriter writer = writers.get(logName);
+            if (writer == null) {
+                File file = new File("latency-" + testId + "-" + logName + ".hlog");
+                PrintStream stream = new PrintStream(new FileOutputStream(file));
+                writer = new HistogramLogWriter(stream);
+                writer.outputComment("Interval histograms of probe " + logName + " of test " + testId);
+                writer.outputLogFormatVersion();
+                writer.outputStartTime(startTimeMillis);
+                writer.outputLegend();
+
+                streams.put(logName, stream);
+                writers.put(logName, writer);
+            }
+            return writer;
+        }
+
+        public void close() {
+            for (PrintStream stream : streams.values()) {
+                stream.close();
+            }
+        }
+    }
+}
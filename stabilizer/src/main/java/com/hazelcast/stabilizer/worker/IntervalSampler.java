@@ -0,0 +1,112 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.test.TestContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Periodically takes the interval results of the probes of every test and hands them to the {@link Listener}s.
+ *
+ * An {@link com.hazelcast.stabilizer.probes.probes.IntervalResultProbe} hands out what has been recorded since the
+ * previous call, so it can only have a single reader. This sampler is that reader: the probes are swapped once per
+ * interval, and the {@link HistogramLogMonitor} and the {@link MetricsPublisher} both get the same interval results.
+ *
+ * A test that is removed from the worker is sampled one last time, so its last interval isn't lost.
+ */
+class IntervalSampler extends Thread {
+    private static final ILogger log = Logger.getLogger(IntervalSampler.class);
+
+    /**
+     * Receives the interval results of every sample. Called by the sampler thread only.
+     */
+    interface Listener {
+
+        /**
+         * @param startMillis the start of the interval.
+         * @param endMillis   the end of the interval.
+         * @param results     the interval results of the probes by test, including the removed tests.
+         * @param removed     the tests that are removed since the previous interval; this is their last interval.
+         */
+        void onInterval(long startMillis, long endMillis, Map<TestContainer<TestContext>, Map<String, Result<?>>> results,
+                        Collection<TestContainer<TestContext>> removed);
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final Map<TestContainer<TestContext>, Boolean> knownTests
+            = new IdentityHashMap<TestContainer<TestContext>, Boolean>();
+
+    private final Collection<TestContainer<TestContext>> testContainers;
+    private final int intervalMillis;
+
+    private long lastTimeMillis = System.currentTimeMillis();
+
+    public IntervalSampler(Collection<TestContainer<TestContext>> testContainers, int intervalMillis) {
+        super("IntervalSamplerThread");
+        setDaemon(true);
+
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be larger than 0, but was " + intervalMillis);
+        }
+        this.testContainers = testContainers;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    int getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Thread.sleep(intervalMillis);
+                sample();
+            } catch (Throwable t) {
+                log.severe("Failed to sample the probe intervals", t);
+            }
+        }
+    }
+
+    void sample() {
+        long currentTimeMillis = System.currentTimeMillis();
+
+        for (TestContainer<TestContext> testContainer : testContainers) {
+            knownTests.put(testContainer, Boolean.TRUE);
+        }
+
+        Map<TestContainer<TestContext>, Map<String, Result<?>>> results
+                = new IdentityHashMap<TestContainer<TestContext>, Map<String, Result<?>>>();
+        List<TestContainer<TestContext>> removed = new ArrayList<TestContainer<TestContext>>();
+        for (TestContainer<TestContext> testContainer : knownTests.keySet()) {
+            results.put(testContainer, testContainer.getIntervalProbeResults());
+            if (!testContainers.contains(testContainer)) {
+                removed.add(testContainer);
+            }
+        }
+        knownTests.keySet().removeAll(removed);
+
+        results = Collections.unmodifiableMap(results);
+        Collection<TestContainer<TestContext>> unmodifiableRemoved = Collections.unmodifiableList(removed);
+        for (Listener listener : listeners) {
+            try {
+                listener.onInterval(lastTimeMillis, currentTimeMillis, results, unmodifiableRemoved);
+            } catch (Throwable t) {
+                log.severe("Failed to process the probe intervals in " + listener, t);
+            }
+        }
+        lastTimeMillis = currentTimeMillis;
+    }
+}
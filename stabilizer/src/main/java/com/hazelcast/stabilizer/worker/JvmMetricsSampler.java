@@ -0,0 +1,142 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.worker.commands.JvmMetrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples the {@link JvmMetrics} of the worker; every sample covers the interval since the previous one.
+ *
+ * The gc time is the increase of the collection time of the garbage collectors, since the gc notifications need
+ * Java 7. The allocated bytes are the increase of the allocated bytes of the live threads; the allocations of a thread
+ * that ended during the interval are lost. The safepoint time is read from the internal HotSpot runtime MBean, so it
+ * is only available on HotSpot.
+ */
+class JvmMetricsSampler {
+    private static final ILogger log = Logger.getLogger(JvmMetricsSampler.class);
+
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocationBean = getAllocationBean(threadBean);
+    private final Object safepointBean;
+    private final Method safepointTimeMethod;
+
+    private long previousGcCount;
+    private long previousGcTimeMillis;
+    private long previousSafepointTimeMillis;
+    private Map<Long, Long> previousAllocatedBytes = new HashMap<Long, Long>();
+
+    JvmMetricsSampler() {
+        Object bean = null;
+        Method method = null;
+        try {
+            bean = Class.forName("sun.management.ManagementFactoryHelper")
+                    .getMethod("getHotspotRuntimeMBean").invoke(null);
+            method = Class.forName("sun.management.HotspotRuntimeMBean").getMethod("getTotalSafepointTime");
+        } catch (Throwable t) {
+            log.info("Safepoint time is not available: " + t);
+        }
+        this.safepointBean = bean;
+        this.safepointTimeMethod = method;
+
+        if (allocationBean == null) {
+            log.info("Thread allocated bytes are not available");
+        }
+
+        // the first sample covers the interval since the sampler was created
+        sample();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean(ThreadMXBean threadBean) {
+        try {
+            if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (!allocationBean.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return allocationBean;
+        } catch (Throwable t) {
+            // e.g. a JVM without the com.sun.management extensions
+            return null;
+        }
+    }
+
+    JvmMetrics sample() {
+        JvmMetrics metrics = new JvmMetrics();
+
+        long gcCount = 0;
+        long gcTimeMillis = 0;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            // a collector that doesn't provide the count or time returns -1
+            gcCount += Math.max(garbageCollector.getCollectionCount(), 0);
+            gcTimeMillis += Math.max(garbageCollector.getCollectionTime(), 0);
+        }
+        metrics.gcCount = gcCount - previousGcCount;
+        metrics.gcTimeMillis = gcTimeMillis - previousGcTimeMillis;
+        previousGcCount = gcCount;
+        previousGcTimeMillis = gcTimeMillis;
+
+        long safepointTimeMillis = getSafepointTimeMillis();
+        if (safepointTimeMillis >= 0) {
+            metrics.safepointTimeMillis = safepointTimeMillis - previousSafepointTimeMillis;
+            previousSafepointTimeMillis = safepointTimeMillis;
+        }
+
+        if (allocationBean != null) {
+            metrics.allocatedBytes = sampleAllocatedBytes();
+        }
+
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        metrics.heapUsedBytes = heap.getUsed();
+        metrics.heapCommittedBytes = heap.getCommitted();
+        metrics.threadCount = threadBean.getThreadCount();
+        metrics.daemonThreadCount = threadBean.getDaemonThreadCount();
+        return metrics;
+    }
+
+    private long getSafepointTimeMillis() {
+        if (safepointTimeMethod == null) {
+            return -1;
+        }
+        try {
+            return (Long) safepointTimeMethod.invoke(safepointBean);
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+
+    private long sampleAllocatedBytes() {
+        long[] threadIds = threadBean.getAllThreadIds();
+        long[] allocatedBytes = allocationBean.getThreadAllocatedBytes(threadIds);
+
+        long total = 0;
+        Map<Long, Long> currentAllocatedBytes = new HashMap<Long, Long>();
+        for (int k = 0; k < threadIds.length; k++) {
+            // -1 if the thread has ended in the meantime
+            if (allocatedBytes[k] < 0) {
+                continue;
+            }
+            Long previous = previousAllocatedBytes.get(threadIds[k]);
+            total += allocatedBytes[k] - (previous == null ? 0 : previous);
+            currentAllocatedBytes.put(threadIds[k], allocatedBytes[k]);
+        }
+        previousAllocatedBytes = currentAllocatedBytes;
+        return total;
+    }
+}
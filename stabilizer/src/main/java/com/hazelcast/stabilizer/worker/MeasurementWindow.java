@@ -0,0 +1,181 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.AbstractConcurrentProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.DisabledProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
+import com.hazelcast.util.Clock;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * The part of the run of a test that ends up in the probe results.
+ *
+ * The probes don't record while the window is closed. The window is opened after a fixed delay, or, with auto start,
+ * once the throughput of the test has settled: the variation of the operations per second over the last
+ * {@link #AUTO_START_SAMPLES} seconds is at most {@link #AUTO_START_MAX_VARIATION}. It is closed when the test is
+ * asked to stop, so the ramp-down of the load threads isn't recorded either.
+ *
+ * Only an {@link AbstractConcurrentProbe} can be paused. That covers every probe that records something, since
+ * {@link com.hazelcast.stabilizer.probes.probes.Probes} wraps all of them in one; any other probe records for the whole
+ * run, which is logged as a warning.
+ */
+class MeasurementWindow {
+    static final int AUTO_START_SAMPLES = 5;
+    static final double AUTO_START_MAX_VARIATION = 0.1;
+    static final int AUTO_START_TIMEOUT_SECONDS = 300;
+
+    private static final ILogger log = Logger.getLogger(MeasurementWindow.class);
+
+    private final TestContainer<?> testContainer;
+    private final Collection<SimpleProbe<?, ?>> probes;
+    private final int delaySeconds;
+    private final boolean autoStart;
+    private final Thread opener;
+
+    // guarded by this
+    private long startMillis = -1;
+    private long endMillis = -1;
+
+    MeasurementWindow(TestContainer<?> testContainer, Collection<SimpleProbe<?, ?>> probes, int delaySeconds,
+                      boolean autoStart) {
+        this.testContainer = testContainer;
+        this.probes = probes;
+        this.delaySeconds = delaySeconds;
+        this.autoStart = autoStart;
+        this.opener = new Thread(new Opener(), "MeasurementWindow-" + getTestId());
+        this.opener.setDaemon(true);
+
+        for (SimpleProbe probe : probes) {
+            if (!(probe instanceof AbstractConcurrentProbe) && !(probe instanceof DisabledProbe)) {
+                log.warning(format("Probe %s of test %s can't be paused, so it also records outside of the "
+                        + "measurement window", probe.getClass().getName(), getTestId()));
+            }
+        }
+    }
+
+    void start() {
+        setRecording(false);
+        opener.start();
+    }
+
+    synchronized void open() {
+        if (startMillis >= 0 || endMillis >= 0) {
+            return;
+        }
+
+        startMillis = Clock.currentTimeMillis();
+        for (SimpleProbe probe : probes) {
+            probe.startProbing(startMillis);
+        }
+        setRecording(true);
+        log.info(format("Opened the measurement window of test %s", getTestId()));
+    }
+
+    synchronized void close() {
+        if (endMillis >= 0) {
+            return;
+        }
+
+        endMillis = Clock.currentTimeMillis();
+        opener.interrupt();
+        setRecording(false);
+        if (startMillis < 0) {
+            log.warning(format("Test %s stopped before its measurement window opened, so there are no probe results",
+                    getTestId()));
+            return;
+        }
+
+        for (SimpleProbe probe : probes) {
+            probe.stopProbing(endMillis);
+        }
+        log.info(format("Closed the measurement window of test %s after %d ms", getTestId(), endMillis - startMillis));
+    }
+
+    /**
+     * Returns the boundaries of the window.
+     *
+     * @return the window till now if it isn't closed yet, or null if it hasn't been opened.
+     */
+    synchronized MeasurementWindowResult getResult() {
+        if (startMillis < 0) {
+            return null;
+        }
+        return new MeasurementWindowResult(startMillis, endMillis < 0 ? Clock.currentTimeMillis() : endMillis);
+    }
+
+    private void setRecording(boolean recording) {
+        for (SimpleProbe probe : probes) {
+            if (probe instanceof AbstractConcurrentProbe) {
+                ((AbstractConcurrentProbe) probe).setRecording(recording);
+            }
+        }
+    }
+
+    private String getTestId() {
+        return testContainer.getTestContext().getTestId();
+    }
+
+    static boolean isStable(long[] operationsPerSecond) {
+        double sum = 0;
+        for (long operations : operationsPerSecond) {
+            sum += operations;
+        }
+        double mean = sum / operationsPerSecond.length;
+        if (mean <= 0) {
+            return false;
+        }
+
+        double squaredDeviations = 0;
+        for (long operations : operationsPerSecond) {
+            squaredDeviations += (operations - mean) * (operations - mean);
+        }
+        double standardDeviation = Math.sqrt(squaredDeviations / operationsPerSecond.length);
+        return standardDeviation / mean <= AUTO_START_MAX_VARIATION;
+    }
+
+    private class Opener implements Runnable {
+        @Override
+        public void run() {
+            try {
+                TimeUnit.SECONDS.sleep(delaySeconds);
+                if (autoStart) {
+                    awaitStableThroughput();
+                }
+                open();
+            } catch (InterruptedException e) {
+                // the window was closed before it opened
+            } catch (Throwable t) {
+                log.severe(format("Failed to open the measurement window of test %s", getTestId()), t);
+            }
+        }
+
+        private void awaitStableThroughput() throws Throwable {
+            long previousCount = testContainer.getOperationCount();
+            if (previousCount < 0) {
+                log.warning(format("Test %s doesn't count its operations, so the measurement window can't be "
+                        + "started automatically", getTestId()));
+                return;
+            }
+
+            long[] samples = new long[AUTO_START_SAMPLES];
+            for (int second = 0; second < AUTO_START_TIMEOUT_SECONDS; second++) {
+                TimeUnit.SECONDS.sleep(1);
+                long count = testContainer.getOperationCount();
+                samples[second % samples.length] = count - previousCount;
+                previousCount = count;
+
+                if (second >= samples.length - 1 && isStable(samples)) {
+                    return;
+                }
+            }
+            log.warning(format("The throughput of test %s didn't settle in %d seconds, opening the measurement "
+                    + "window anyway", getTestId(), AUTO_START_TIMEOUT_SECONDS));
+        }
+    }
+}
@@ -27,12 +27,15 @@ import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.test.TestCase;
 import com.hazelcast.stabilizer.Utils;
 import com.hazelcast.stabilizer.agent.workerjvm.WorkerJvmManager;
+import com.hazelcast.stabilizer.common.FramedConnection;
 import com.hazelcast.stabilizer.common.messaging.Message;
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
 import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
 import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.utils.ExceptionReporter;
 import com.hazelcast.stabilizer.test.utils.TestUtils;
+import com.hazelcast.stabilizer.test.utils.ThreadAffinity;
 import com.hazelcast.stabilizer.worker.commands.Command;
 import com.hazelcast.stabilizer.worker.commands.CommandRequest;
 import com.hazelcast.stabilizer.worker.commands.CommandResponse;
@@ -40,41 +43,47 @@ import com.hazelcast.stabilizer.worker.commands.GenericCommand;
 import com.hazelcast.stabilizer.worker.commands.GetBenchmarkResultsCommand;
 import com.hazelcast.stabilizer.worker.commands.GetOperationCountCommand;
 import com.hazelcast.stabilizer.worker.commands.InitCommand;
+import com.hazelcast.stabilizer.worker.commands.IsLoadGeneratorCommand;
 import com.hazelcast.stabilizer.worker.commands.IsPhaseCompletedCommand;
 import com.hazelcast.stabilizer.worker.commands.MessageCommand;
+import com.hazelcast.stabilizer.worker.commands.PhaseCompletedEvent;
 import com.hazelcast.stabilizer.worker.commands.RunCommand;
+import com.hazelcast.stabilizer.worker.commands.SetTargetThroughputCommand;
 import com.hazelcast.stabilizer.worker.commands.StopCommand;
 import org.apache.log4j.LogManager;
 
 import java.io.File;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.stabilizer.Utils.closeQuietly;
 import static com.hazelcast.stabilizer.Utils.fileAsText;
 import static com.hazelcast.stabilizer.Utils.getHostAddress;
 import static com.hazelcast.stabilizer.Utils.writeObject;
 import static com.hazelcast.stabilizer.test.utils.PropertyBindingSupport.bindProperties;
 import static com.hazelcast.stabilizer.test.utils.PropertyBindingSupport.parseProbeConfiguration;
 import static java.lang.String.format;
-import static java.util.Arrays.asList;
 
 public class MemberWorker {
 
     private static final String DASHES = "---------------------------";
+    private static final int RECONNECT_DELAY_MILLIS = 1000;
     private static final ILogger log = Logger.getLogger(MemberWorker.class);
 
     private final ConcurrentMap<String, Command> commands = new ConcurrentHashMap<String, Command>();
@@ -84,7 +93,8 @@ public class MemberWorker {
     private final WorkerMessageProcessor workerMessageProcessor = new WorkerMessageProcessor(tests);
 
     private final BlockingQueue<CommandRequest> requestQueue = new LinkedBlockingQueue<CommandRequest>();
-    private final BlockingQueue<CommandResponse> responseQueue = new LinkedBlockingQueue<CommandResponse>();
+    // contains the CommandResponses, PhaseCompletedEvents and MetricsSnapshots to send to the agent.
+    private final BlockingDeque<Object> responseQueue = new LinkedBlockingDeque<Object>();
 
     private HazelcastInstance serverInstance;
     private HazelcastInstance clientInstance;
@@ -94,6 +104,8 @@ public class MemberWorker {
 
     private String workerMode;
     private String workerId;
+    private int histogramIntervalSeconds;
+    private int metricsIntervalMillis;
 
     public void start() throws Exception {
         if ("server".equals(workerMode)) {
@@ -117,13 +129,31 @@ public class MemberWorker {
         workerMessageProcessor.setHazelcastClientInstance(clientInstance);
 
         new CommandRequestProcessingThread().start();
-        new SocketThread().start();
+        new AgentConnectionThread().start();
         new PerformanceMonitor(tests.values()).start();
+        startIntervalSampler();
 
         // the last thing we do is to signal to the agent we have started.
         signalStartToAgent();
     }
 
+    // the histogram log and the metrics share a single reader of the interval results of the probes.
+    private void startIntervalSampler() {
+        if (histogramIntervalSeconds <= 0 && metricsIntervalMillis <= 0) {
+            return;
+        }
+
+        int intervalMillis = metricsIntervalMillis > 0 ? metricsIntervalMillis : histogramIntervalSeconds * 1000;
+        IntervalSampler intervalSampler = new IntervalSampler(tests.values(), intervalMillis);
+        if (histogramIntervalSeconds > 0) {
+            intervalSampler.addListener(new HistogramLogMonitor(histogramIntervalSeconds));
+        }
+        if (metricsIntervalMillis > 0) {
+            intervalSampler.addListener(new MetricsPublisher(responseQueue, workerId));
+        }
+        intervalSampler.start();
+    }
+
     private void signalStartToAgent() {
         String address;
         if (serverInstance == null) {
@@ -203,11 +233,21 @@ public class MemberWorker {
             String workerMode = System.getProperty("workerMode");
             log.info("Worker mode:" + workerMode);
 
+            int histogramIntervalSeconds = Integer.parseInt(System.getProperty("histogramIntervalSeconds", "0"));
+            log.info("Histogram interval seconds:" + histogramIntervalSeconds);
+
+            int metricsIntervalMillis = Integer.parseInt(System.getProperty("metricsIntervalMillis", "0"));
+            log.info("Metrics interval millis:" + metricsIntervalMillis);
+
+            logCpuLayout(System.getProperty("workerCpuSet"), Boolean.getBoolean("pinLoadThreads"));
+
             MemberWorker worker = new MemberWorker();
             worker.workerId = workerId;
             worker.hzFile = workerHzFile;
             worker.clientHzFile = clientHzFile;
             worker.workerMode = workerMode;
+            worker.histogramIntervalSeconds = histogramIntervalSeconds;
+            worker.metricsIntervalMillis = metricsIntervalMillis;
             worker.start();
 
             log.info("Successfully started Hazelcast Stabilizer Worker:" + workerId);
@@ -217,6 +257,28 @@ public class MemberWorker {
         }
     }
 
+    private static void logCpuLayout(String cpuSet, boolean pinLoadThreads) {
+        int availableProcessors = Runtime.getRuntime().availableProcessors();
+        if (cpuSet == null) {
+            log.info("Worker CPU set: not bound, " + availableProcessors + " available processors");
+        } else {
+            log.info("Worker CPU set: " + cpuSet + ", " + availableProcessors + " available processors");
+        }
+
+        if (!pinLoadThreads) {
+            log.info("Load threads: not pinned");
+            return;
+        }
+
+        if (cpuSet == null) {
+            log.warning("Load threads: not pinned, pinning the load threads requires a worker CPU set");
+            return;
+        }
+
+        int[] cpus = ThreadAffinity.configure(cpuSet);
+        log.info("Load threads: pinned round robin to CPUs " + Arrays.toString(cpus));
+    }
+
     private static void registerLog4jShutdownHandler() {
         // makes sure that log4j will always flush log-buffers
         Runtime.getRuntime().addShutdownHook(new Thread() {
@@ -232,69 +294,104 @@ public class MemberWorker {
         log.info("jvm input arguments = " + inputArguments);
     }
 
-    private class SocketThread extends Thread {
+    /**
+     * Keeps a single connection to the agent. The agent pushes the requests as soon as they are queued and the responses
+     * are sent back in batches; when there is nothing to send an empty batch is sent as heartbeat.
+     *
+     * Since we are going to do nasty stuff like blocking traffic, we don't depend on the connection staying healthy: if
+     * it breaks a new connection is created and the unsent responses are sent over the new connection.
+     */
+    private class AgentConnectionThread extends Thread {
+
+        public AgentConnectionThread() {
+            super("AgentConnectionThread");
+        }
 
         @Override
         public void run() {
             for (; ; ) {
+                FramedConnection connection = null;
                 try {
-                    List<CommandRequest> requests = execute(WorkerJvmManager.SERVICE_POLL_WORK, workerId);
-                    for (CommandRequest request : requests) {
-                        requestQueue.add(request);
-                    }
-
-                    CommandResponse response = responseQueue.poll(1, TimeUnit.SECONDS);
-                    if (response == null) {
-                        continue;
-                    }
+                    connection = connect();
+                    writeResponses(connection);
+                } catch (Throwable e) {
+                    log.warning("Connection to agent failed: " + e);
+                } finally {
+                    closeQuietly(connection);
+                }
+                Utils.sleepMillis(RECONNECT_DELAY_MILLIS);
+            }
+        }
 
-                    sendResponse(asList(response));
+        private FramedConnection connect() throws IOException {
+            Socket socket = new Socket(InetAddress.getByName(null), WorkerJvmManager.PORT);
+            FramedConnection connection;
+            try {
+                socket.setSoTimeout(WorkerJvmManager.CONNECTION_READ_TIMEOUT_MILLIS);
+                connection = FramedConnection.connect(socket);
+            } catch (IOException e) {
+                closeQuietly(socket);
+                throw e;
+            }
+            connection.writeFrame(workerId);
+            new RequestReaderThread(connection).start();
+            return connection;
+        }
 
-                    List<CommandResponse> responses = new LinkedList<CommandResponse>();
+        private void writeResponses(FramedConnection connection) throws Exception {
+            while (!connection.isClosed()) {
+                List<Object> responses = new ArrayList<Object>();
+                Object response = responseQueue.poll(
+                        WorkerJvmManager.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (response != null) {
+                    responses.add(response);
                     responseQueue.drainTo(responses);
+                }
 
-                    sendResponse(responses);
-                } catch (Throwable e) {
-                    ExceptionReporter.report(null, e);
+                try {
+                    connection.writeFrame(responses);
+                } catch (IOException e) {
+                    requeue(responses);
+                    throw e;
                 }
             }
         }
 
-        private void sendResponse(List<CommandResponse> responses) throws Exception {
-            for (CommandResponse response : responses) {
-                execute(WorkerJvmManager.COMMAND_PUSH_RESPONSE, workerId, response);
+        // the responses are put back in front of the queue, so they are sent in order once the worker reconnects.
+        private void requeue(List<Object> responses) {
+            for (int k = responses.size() - 1; k >= 0; k--) {
+                responseQueue.addFirst(responses.get(k));
             }
         }
+    }
 
-        // we create a new socket for every request because don't want to depend on the state of a socket
-        // since we are going to do nasty stuff.
-        private <E> E execute(String service, Object... args) throws Exception {
-            Socket socket = new Socket(InetAddress.getByName(null), WorkerJvmManager.PORT);
+    private class RequestReaderThread extends Thread {
+        private final FramedConnection connection;
 
-            try {
-                ObjectOutputStream oos = new ObjectOutputStream(socket.getOutputStream());
-                oos.writeObject(service);
-                for (Object arg : args) {
-                    oos.writeObject(arg);
-                }
-                oos.flush();
+        public RequestReaderThread(FramedConnection connection) {
+            super("RequestReaderThread");
+            setDaemon(true);
+            this.connection = connection;
+        }
 
-                ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
-                Object response = in.readObject();
+        @Override
+        public void run() {
+            try {
+                for (; ; ) {
+                    Object frame = connection.readFrame();
+                    if (frame instanceof TerminateWorkerException) {
+                        System.exit(0);
+                    }
 
-                if (response instanceof TerminateWorkerException) {
-                    System.exit(0);
+                    List<CommandRequest> requests = (List<CommandRequest>) frame;
+                    requestQueue.addAll(requests);
                 }
-
-                if (response instanceof Exception) {
-                    Exception exception = (Exception) response;
-                    Utils.fixRemoteStackTrace(exception, Thread.currentThread().getStackTrace());
-                    throw exception;
+            } catch (Throwable e) {
+                if (!connection.isClosed()) {
+                    log.warning("Failed to read requests from agent: " + e);
                 }
-
-                return (E) response;
             } finally {
-                Utils.closeQuietly(socket);
+                closeQuietly(connection);
             }
         }
     }
@@ -335,6 +432,10 @@ public class MemberWorker {
                     result = process((GetBenchmarkResultsCommand) command);
                 } else if (command instanceof MessageCommand) {
                     process((MessageCommand) command);
+                } else if (command instanceof IsLoadGeneratorCommand) {
+                    result = process((IsLoadGeneratorCommand) command);
+                } else if (command instanceof SetTargetThroughputCommand) {
+                    process((SetTargetThroughputCommand) command);
                 } else {
                     throw new RuntimeException("Unhandled task:" + command.getClass());
                 }
@@ -358,6 +459,24 @@ public class MemberWorker {
             workerMessageProcessor.submit(message);
         }
 
+        private Boolean process(IsLoadGeneratorCommand command) {
+            return tests.containsKey(command.testId) && !isPassive(command.clientOnly);
+        }
+
+        private void process(SetTargetThroughputCommand command) {
+            TestContainer<TestContext> test = tests.get(command.testId);
+            if (test == null || isPassive(command.clientOnly)) {
+                return;
+            }
+
+            // the coordinator sends the target again on every check, so only a change is logged
+            if (test.getTargetThroughput() != command.opsPerSecond) {
+                log.info(format("Setting target throughput of test %s to %s ops/s", command.testId,
+                        command.opsPerSecond));
+            }
+            test.setTargetThroughput(command.opsPerSecond);
+        }
+
         private Long process(GetOperationCountCommand command) throws Throwable {
             long result = 0;
 
@@ -385,7 +504,7 @@ public class MemberWorker {
                 CommandThread commandThread = new CommandThread(command, testId) {
                     @Override
                     public void doRun() throws Throwable {
-                        boolean passive = command.clientOnly && clientInstance == null;
+                        boolean passive = isPassive(command.clientOnly);
 
                         if (passive) {
                             log.info(format("%s Skipping %s.run() (member is passive) %s", DASHES, testName, DASHES));
@@ -473,6 +592,13 @@ public class MemberWorker {
 
                 TestContextImpl testContext = new TestContextImpl(testCase.id);
                 TestContainer<TestContext> testContainer = new TestContainer<TestContext>(testObject, testContext, probesConfiguration);
+                testContainer.setMeasurementWindow(testCase.getMeasurementDelaySeconds(), testCase.isMeasurementAutoStart());
+                testContainer.setTimeStepSettings(testCase.getThreadCount(), testCase.getMaxInFlight());
+                Long operationSeed = testCase.getOperationSeed();
+                if (operationSeed != null) {
+                    // every worker selects its own sequence, which is the same on every run with the same workers
+                    testContainer.setOperationSeed(operationSeed * 31 + workerId.hashCode());
+                }
                 tests.put(testContext.getTestId(), testContainer);
 
                 if (serverInstance != null) {
@@ -495,6 +621,8 @@ public class MemberWorker {
                 }
 
                 log.info(format("%s %s.stop() %s", DASHES, testName, DASHES));
+                // the ramp-down of the load threads is left out of the probe results
+                test.closeMeasurementWindow();
                 test.getTestContext().stop();
             } catch (Exception e) {
                 log.severe("Failed to execute test.stop", e);
@@ -507,20 +635,32 @@ public class MemberWorker {
         }
     }
 
-    abstract class CommandThread extends Thread {
+    private boolean isPassive(boolean clientOnly) {
+        return clientOnly && clientInstance == null;
+    }
+
+    abstract class CommandThread extends ProbeThread {
 
         private final Command command;
         private final String testId;
 
         public CommandThread(Command command, String testId) {
+            super("CommandThread-" + testId);
             this.command = command;
             this.testId = testId;
         }
 
         public abstract void doRun() throws Throwable;
 
+        private String getPhase() {
+            if (command instanceof GenericCommand) {
+                return ((GenericCommand) command).methodName;
+            }
+            return "run";
+        }
+
         @Override
-        public final void run() {
+        protected final void runWithSlot() {
             try {
                 commands.put(testId, command);
                 doRun();
@@ -528,6 +668,7 @@ public class MemberWorker {
                 ExceptionReporter.report(testId, t);
             } finally {
                 commands.remove(testId);
+                responseQueue.add(new PhaseCompletedEvent(testId, getPhase()));
             }
         }
     }
@@ -0,0 +1,115 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.test.TestContext;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Publishes a {@link MetricsSnapshot} with the operation count and the latency histograms of every interval of the
+ * {@link IntervalSampler} to the agent, together with the {@link com.hazelcast.stabilizer.worker.commands.JvmMetrics}
+ * of the worker, so the gc activity ends up in the same timeline as the latencies.
+ *
+ * The snapshot carries the start and end of the interval as measured by this worker, so the rates are calculated over
+ * the interval the operations were counted in.
+ *
+ * While the worker is disconnected from the agent the snapshots aren't sent, so only the last
+ * {@link #MAX_QUEUED_SNAPSHOTS} are kept in the queue; the older ones are stale for a live view and are dropped.
+ */
+class MetricsPublisher implements IntervalSampler.Listener {
+    static final int MAX_QUEUED_SNAPSHOTS = 10;
+
+    private static final ILogger log = Logger.getLogger(MetricsPublisher.class);
+
+    private final Map<TestContainer<TestContext>, Long> previousOperationCounts
+            = new IdentityHashMap<TestContainer<TestContext>, Long>();
+
+    private final Queue<Object> responseQueue;
+    private final String workerId;
+    private final JvmMetricsSampler jvmMetricsSampler = new JvmMetricsSampler();
+
+    public MetricsPublisher(Queue<Object> responseQueue, String workerId) {
+        this.responseQueue = responseQueue;
+        this.workerId = workerId;
+    }
+
+    @Override
+    public void onInterval(long startMillis, long endMillis, Map<TestContainer<TestContext>, Map<String, Result<?>>> results,
+                           Collection<TestContainer<TestContext>> removed) {
+        MetricsSnapshot snapshot = createSnapshot(startMillis, endMillis, results);
+        previousOperationCounts.keySet().removeAll(removed);
+        if (!snapshot.isEmpty()) {
+            dropStaleSnapshots();
+            responseQueue.add(snapshot);
+        }
+    }
+
+    // makes room for a new snapshot by removing the oldest queued snapshots
+    private void dropStaleSnapshots() {
+        int queued = 0;
+        for (Object response : responseQueue) {
+            if (response instanceof MetricsSnapshot) {
+                queued++;
+            }
+        }
+
+        int dropped = 0;
+        for (Iterator<Object> iterator = responseQueue.iterator(); queued - dropped >= MAX_QUEUED_SNAPSHOTS
+                && iterator.hasNext(); ) {
+            if (iterator.next() instanceof MetricsSnapshot) {
+                iterator.remove();
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            log.warning("Dropped " + dropped + " stale metrics snapshots, since they couldn't be sent to the agent");
+        }
+    }
+
+    MetricsSnapshot createSnapshot(long startMillis, long endMillis,
+                                   Map<TestContainer<TestContext>, Map<String, Result<?>>> results) {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.timeMillis = endMillis;
+        snapshot.intervalMillis = endMillis - startMillis;
+
+        for (Map.Entry<TestContainer<TestContext>, Map<String, Result<?>>> entry : results.entrySet()) {
+            TestContainer<TestContext> testContainer = entry.getKey();
+            String testId = testContainer.getTestContext().getTestId();
+            addOperationCount(snapshot, testContainer, testId);
+
+            for (Map.Entry<String, Result<?>> resultEntry : entry.getValue().entrySet()) {
+                if (resultEntry.getValue() instanceof HdrLatencyProbeResult) {
+                    String probeName = resultEntry.getKey();
+                    String key = testId.isEmpty() ? probeName : testId + "." + probeName;
+                    snapshot.latencies.put(key, (HdrLatencyProbeResult) resultEntry.getValue());
+                }
+            }
+        }
+        snapshot.jvmMetrics.put(workerId, jvmMetricsSampler.sample());
+        return snapshot;
+    }
+
+    private void addOperationCount(MetricsSnapshot snapshot, TestContainer<TestContext> testContainer, String testId) {
+        long operationCount;
+        try {
+            operationCount = testContainer.getOperationCount();
+        } catch (Throwable t) {
+            log.severe("Failed to get the operation count of test " + testId, t);
+            return;
+        }
+        if (operationCount < 0) {
+            return;
+        }
+
+        Long previous = previousOperationCounts.put(testContainer, operationCount);
+        snapshot.operationCounts.put(testId, operationCount - (previous == null ? 0 : previous));
+    }
+}
@@ -2,4 +2,15 @@ package com.hazelcast.stabilizer.worker;
 
 public interface Metronome {
     void waitForNext();
+
+    /**
+     * Returns the time at which the operation released by the last {@link #waitForNext()} was scheduled to start.
+     *
+     * Pass it to {@link com.hazelcast.stabilizer.probes.probes.IntervalProbe#started(long)} to get the latency
+     * corrected for coordinated omission.
+     *
+     * @return the intended start time in {@link System#nanoTime()}, or
+     * {@link com.hazelcast.stabilizer.probes.probes.IntervalProbe#NOT_SCHEDULED} if the operations are not rate limited.
+     */
+    long getIntendedStartNanos();
 }
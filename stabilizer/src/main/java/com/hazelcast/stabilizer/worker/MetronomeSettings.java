@@ -0,0 +1,44 @@
+package com.hazelcast.stabilizer.worker;
+
+/**
+ * The rate limit settings of a test.
+ *
+ * A test can expose it as a public field, so it can be configured from the test properties, e.g.
+ * <pre>
+ * StringMapTest@metronomeSettings.opsPerSecond=50000
+ * StringMapTest@metronomeSettings.waitStrategy=PARK
+ * </pre>
+ */
+public class MetronomeSettings {
+
+    /**
+     * The number of operations per second of the test on a single worker. 0 means no rate limit.
+     *
+     * It is overwritten with the share of the worker when the coordinator has a target throughput for the test. The
+     * metronomes created by {@link #newMetronome(int)} pick up a change while they are running.
+     */
+    public volatile double opsPerSecond;
+
+    public WaitStrategy waitStrategy = WaitStrategy.HYBRID;
+
+    /**
+     * Creates the metronome for a single load thread.
+     *
+     * @param threadCount the number of load threads the rate is divided over.
+     * @return the created metronome.
+     */
+    public Metronome newMetronome(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount can't be smaller than 1, but was: " + threadCount);
+        }
+        return SimpleMetronome.withSettings(this, threadCount);
+    }
+
+    @Override
+    public String toString() {
+        return "MetronomeSettings{"
+                + "opsPerSecond=" + opsPerSecond
+                + ", waitStrategy=" + waitStrategy
+                + '}';
+    }
+}
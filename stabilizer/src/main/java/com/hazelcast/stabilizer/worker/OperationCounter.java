@@ -0,0 +1,192 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Counts the operations of a test. A field of this type is injected into the test like a probe, and replaces the
+ * AtomicLong plus {@link com.hazelcast.stabilizer.test.annotations.Performance} method of the test: the worker and
+ * coordinator performance monitors read the counter directly.
+ *
+ * Every thread counts in its own cell, padded to a cache line, which only it writes to; so counting never contends.
+ * Reading sums the cells without locking. Like the probes, a {@link ProbeThread} finds its cell by its probe slot and
+ * all other threads use a ThreadLocal.
+ *
+ * The operations can optionally be counted per type with {@link #increment(Enum)} or {@link #countType(Enum)}; the types
+ * of a counter must all be constants of the same enum.
+ */
+public final class OperationCounter {
+    private static final Cell[] NO_SLOTS = new Cell[0];
+
+    private final ThreadLocal<Cell> threadLocalCell = new ThreadLocal<Cell>();
+    private final List<Cell> cells = new CopyOnWriteArrayList<Cell>();
+    private volatile Cell[] slots = NO_SLOTS;
+    private volatile Enum<?>[] operations;
+
+    /**
+     * Counts a single operation.
+     */
+    public void increment() {
+        getCell().add(1);
+    }
+
+    /**
+     * Counts a number of operations.
+     */
+    public void add(long operationCount) {
+        getCell().add(operationCount);
+    }
+
+    /**
+     * Counts a single operation of the given type.
+     */
+    public void increment(Enum<?> operation) {
+        Cell cell = getCell();
+        countType(cell, operation);
+        cell.add(1);
+    }
+
+    /**
+     * Counts the type of an operation without counting the operation itself, for an operation that is already counted
+     * by the worker, like a call of a {@link com.hazelcast.stabilizer.test.annotations.TimeStep} method.
+     */
+    public void countType(Enum<?> operation) {
+        countType(getCell(), operation);
+    }
+
+    private void countType(Cell cell, Enum<?> operation) {
+        AtomicLongArray operationCounts = cell.operationCounts;
+        if (operation.getDeclaringClass() != cell.operationType) {
+            operationCounts = initOperationCounts(cell, operation);
+        }
+        int ordinal = operation.ordinal();
+        operationCounts.lazySet(ordinal, operationCounts.get(ordinal) + 1);
+    }
+
+    /**
+     * Returns the total number of operations of all threads.
+     */
+    public long get() {
+        long count = 0;
+        for (Cell cell : cells) {
+            count += cell.value;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of operations per type, counted with {@link #increment(Enum)} or {@link #countType(Enum)}, in
+     * the order of the enum.
+     *
+     * @return the counts by operation name; empty if no operation has been counted by type.
+     */
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        Enum<?>[] operations = this.operations;
+        if (operations == null) {
+            return result;
+        }
+
+        long[] counts = new long[operations.length];
+        for (Cell cell : cells) {
+            AtomicLongArray operationCounts = cell.operationCounts;
+            if (operationCounts != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += operationCounts.get(i);
+                }
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            result.put(operations[i].name(), counts[i]);
+        }
+        return result;
+    }
+
+    private AtomicLongArray initOperationCounts(Cell cell, Enum<?> operation) {
+        Enum<?>[] constants = operation.getDeclaringClass().getEnumConstants();
+        synchronized (this) {
+            if (operations == null) {
+                operations = constants;
+            } else if (operations[0].getDeclaringClass() != operation.getDeclaringClass()) {
+                throw new IllegalArgumentException("Operation " + operation + " is not of type "
+                        + operations[0].getDeclaringClass().getName());
+            }
+        }
+        if (cell.operationCounts == null) {
+            cell.operationCounts = new AtomicLongArray(constants.length);
+            cell.operationType = operation.getDeclaringClass();
+        }
+        return cell.operationCounts;
+    }
+
+    private Cell getCell() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ProbeThread) {
+            int slot = ((ProbeThread) thread).getProbeSlot();
+            if (slot >= 0) {
+                Cell[] slots = this.slots;
+                if (slot < slots.length && slots[slot] != null) {
+                    return slots[slot];
+                }
+                return registerSlot(slot);
+            }
+        }
+
+        Cell cell = threadLocalCell.get();
+        if (cell == null) {
+            cell = new Cell();
+            cells.add(cell);
+            threadLocalCell.set(cell);
+        }
+        return cell;
+    }
+
+    // the slot is reused by the next thread that gets the same probe slot; only one thread at a time writes to it.
+    private synchronized Cell registerSlot(int slot) {
+        Cell[] slots = this.slots;
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slot + 1, slots.length * 2));
+        }
+
+        Cell cell = slots[slot];
+        if (cell == null) {
+            cell = new Cell();
+            cells.add(cell);
+            slots[slot] = cell;
+        }
+
+        this.slots = slots;
+        return cell;
+    }
+
+    @SuppressWarnings("unused")
+    private static class LhsPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class Value extends LhsPadding {
+        protected volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Cell extends Value {
+        private static final AtomicLongFieldUpdater<Value> VALUE = AtomicLongFieldUpdater.newUpdater(Value.class, "value");
+
+        protected long q1, q2, q3, q4, q5, q6, q7;
+        private volatile AtomicLongArray operationCounts;
+        // only used by the owning thread
+        private Class<?> operationType;
+
+        // only the owning thread writes, so an ordered write is enough; no CAS needed.
+        private void add(long delta) {
+            VALUE.lazySet(this, value + delta);
+        }
+    }
+}
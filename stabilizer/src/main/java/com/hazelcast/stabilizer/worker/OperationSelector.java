@@ -1,8 +1,11 @@
 package com.hazelcast.stabilizer.worker;
 
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Facility to select different operations based on probabilities. Each operations is
@@ -11,18 +14,56 @@ import java.util.concurrent.ConcurrentHashMap;
  * Calling {@link #select()} method will select an operation according configured probabilities. It can return null
  * if sum of configured probabilities if lower than 1. You can change this behaviour by {@link #empty(Enum)} method.
  *
+ * The operations are registered during the setup of a test. On the first call to {@link #select()} an immutable alias
+ * table (Walker's alias method) is built, so a selection takes constant time, doesn't allocate and doesn't touch any
+ * shared mutable state. Every thread draws from its own random generator, derived from the seed of the selector and the
+ * index of the thread in its {@link ThreadSpawner}; so a selector created with {@link #OperationSelector(long)} replays
+ * the same sequence of operations per load thread, independent of the order in which the threads start selecting.
+ * Threads that are not spawned by a ThreadSpawner are numbered in the order of their first selection. The worker can
+ * override the seed with the test property operationSeed.
+ *
+ * If the selector is a field of the test, the worker gives it a latency probe per operation, named
+ * {@code <test>.<operation>}. In a {@link com.hazelcast.stabilizer.test.annotations.TimeStep} test the worker records
+ * the latency of every time step in the probe of the operation the step selected, so the test doesn't have to do
+ * anything. Other tests measure an operation by wrapping it in {@link #started(Enum)} and {@link #done(Enum)}; without
+ * probes these calls do nothing.
+ *
  * @param <T>
  */
 public class OperationSelector<T extends Enum<T>> {
-    private final Random r;
-    private final Map<T, Double> ops;
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    private final Map<T, Double> ops = new LinkedHashMap<T, Double>();
+    private final AtomicInteger unspawnedThreadCount = new AtomicInteger();
+    private final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            long threadIndex = ThreadSpawner.getThreadIndex();
+            if (threadIndex < 0) {
+                // negative, so these threads don't get the generator of a spawned thread
+                threadIndex = -1 - unspawnedThreadCount.getAndIncrement();
+            }
+            return new ThreadState(new XorShiftRandom(seed + threadIndex * SEED_INCREMENT));
+        }
+    };
+    private long seed;
+    private volatile AliasTable aliasTable;
+    private OperationProbeFactory probeFactory;
     private T emptyOperation;
     private double remaining;
 
     public OperationSelector() {
-        r = new Random();
-        ops = new ConcurrentHashMap<T, Double>();
-        remaining = 1;
+        this(System.nanoTime());
+    }
+
+    /**
+     * Creates a selector with a fixed seed, so every thread selects the same sequence of operations on every run.
+     *
+     * @param seed the seed of the random generators.
+     */
+    public OperationSelector(long seed) {
+        this.seed = seed;
+        this.remaining = 1;
     }
 
     /**
@@ -33,6 +74,10 @@ public class OperationSelector<T extends Enum<T>> {
      * @return this instance to allow method-chaining
      */
     public OperationSelector<T> addOperation(T operation, double probability) {
+        checkNotBuilt();
+        if (probability < 0) {
+            throw new IllegalArgumentException("Probability of operation " + operation + " can't be negative: " + probability);
+        }
         if (ops.put(operation, probability) != null) {
             throw new IllegalStateException("Operations " + operation + " has been already added to this selector.");
         }
@@ -50,7 +95,8 @@ public class OperationSelector<T extends Enum<T>> {
      * @return this instance to allow method-chaining
      */
     public OperationSelector<T> addOperationRemainingProbability(T operation) {
-        if (ops.put(operation, remaining) != null) {
+        checkNotBuilt();
+        if (ops.put(operation, Math.max(0, remaining)) != null) {
             throw new IllegalStateException("Operations " + operation + " has been already added to this selector.");
         }
         remaining = -1;
@@ -65,6 +111,7 @@ public class OperationSelector<T extends Enum<T>> {
      * @return
      */
     public OperationSelector<T> empty(T operation) {
+        checkNotBuilt();
         this.emptyOperation = operation;
         return this;
     }
@@ -75,14 +122,121 @@ public class OperationSelector<T extends Enum<T>> {
      * @return selected operation or null if no operation has been selected
      */
     public T select() {
-        double chance = r.nextDouble();
-        for (Map.Entry<T, Double> entry : ops.entrySet()) {
-            Double probability = entry.getValue();
-            if ((chance -= probability) < 0) {
-                return entry.getKey();
-            }
+        AliasTable table = aliasTable;
+        if (table == null) {
+            table = build();
+        }
+        ThreadState state = threadState.get();
+        T operation = table.select(state.random.nextLong());
+        state.selected = operation;
+        return operation;
+    }
+
+    /**
+     * Starts measuring the latency of the operation by the calling thread. Don't call this in a time step; the worker
+     * already measures the operation selected by the time step.
+     *
+     * @param operation the selected operation
+     */
+    public void started(T operation) {
+        IntervalProbe probe = getProbe(operation);
+        if (probe != null) {
+            probe.started();
+        }
+    }
+
+    /**
+     * Records the latency of the operation since {@link #started(Enum)} was called by the calling thread.
+     *
+     * @param operation the selected operation
+     */
+    public void done(T operation) {
+        IntervalProbe probe = getProbe(operation);
+        if (probe != null) {
+            probe.done();
+        }
+    }
+
+    /**
+     * Returns the latency probe of the operation that was last selected by the calling thread and forgets the
+     * selection, so a time step that doesn't select an operation isn't recorded for the operation of a previous step.
+     *
+     * @return the probe or null if no operation has been selected or its latency isn't measured.
+     */
+    IntervalProbe takeSelectedProbe() {
+        ThreadState state = threadState.get();
+        Object operation = state.selected;
+        if (operation == null) {
+            return null;
+        }
+        state.selected = null;
+        IntervalProbe[] probes = aliasTable.probes;
+        return probes == null ? null : probes[((Enum<?>) operation).ordinal()];
+    }
+
+    private IntervalProbe getProbe(T operation) {
+        AliasTable table = aliasTable;
+        if (table == null) {
+            table = build();
+        }
+        IntervalProbe[] probes = table.probes;
+        return probes == null || operation == null ? null : probes[operation.ordinal()];
+    }
+
+    /**
+     * Sets the seed of the random generators; must be called before the selection starts.
+     */
+    void setSeed(long seed) {
+        checkNotBuilt();
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the factory of the latency probes; must be called before the selection starts.
+     */
+    void setProbeFactory(OperationProbeFactory probeFactory) {
+        checkNotBuilt();
+        this.probeFactory = probeFactory;
+    }
+
+    /**
+     * Creates the latency probes, so they exist before the test starts running. Does nothing if no operations have
+     * been registered yet.
+     */
+    synchronized void initProbes() {
+        if (aliasTable == null && (!ops.isEmpty() || emptyOperation != null)) {
+            build();
+        }
+    }
+
+    private synchronized AliasTable build() {
+        if (aliasTable == null) {
+            aliasTable = new AliasTable(ops, emptyOperation, createProbes());
+        }
+        return aliasTable;
+    }
+
+    private IntervalProbe[] createProbes() {
+        T operation = emptyOperation;
+        if (!ops.isEmpty()) {
+            operation = ops.keySet().iterator().next();
+        }
+        if (probeFactory == null || operation == null) {
+            return null;
+        }
+
+        T[] constants = operation.getDeclaringClass().getEnumConstants();
+        IntervalProbe[] probes = new IntervalProbe[constants.length];
+        for (T constant : constants) {
+            probes[constant.ordinal()] = probeFactory.createProbe(constant.name());
+        }
+        return probes;
+    }
+
+    private void checkNotBuilt() {
+        if (aliasTable != null) {
+            throw new IllegalStateException("Operations can't be changed once the selection has started.");
         }
-        return emptyOperation;
     }
 
     private OperationSelector<T> onProbabilityExceeded() {
@@ -98,4 +252,137 @@ public class OperationSelector<T extends Enum<T>> {
         throw new IllegalStateException(builder.toString());
     }
 
+    /**
+     * The immutable alias table. Every column has the same probability of being picked; a column holds its own
+     * operation with the probability of the column and its alias operation otherwise.
+     *
+     * If the sum of the probabilities is lower than 1, the remainder goes to the empty operation; if it is a bit higher
+     * than 1 (rounding), the probabilities are scaled down.
+     */
+    private static final class AliasTable {
+        private static final double TWO_POWER_32 = 4294967296d;
+
+        private final Object[] operations;
+        private final Object[] aliases;
+        private final long[] thresholds;
+        // the latency probes by operation ordinal; null if the latency isn't measured.
+        private final IntervalProbe[] probes;
+
+        private AliasTable(Map<?, Double> ops, Object emptyOperation, IntervalProbe[] probes) {
+            this.probes = probes;
+
+            double total = 0;
+            for (Double probability : ops.values()) {
+                total += probability;
+            }
+            double empty = Math.max(0, 1 - total);
+            int columns = ops.size() + (empty > 0 || ops.isEmpty() ? 1 : 0);
+
+            Object[] columnOperations = new Object[columns];
+            double[] weights = new double[columns];
+            int column = 0;
+            for (Map.Entry<?, Double> entry : ops.entrySet()) {
+                columnOperations[column] = entry.getKey();
+                weights[column] = entry.getValue() * columns / Math.max(total, 1);
+                column++;
+            }
+            if (column < columns) {
+                columnOperations[column] = emptyOperation;
+                weights[column] = ops.isEmpty() ? 1 : empty * columns;
+            }
+
+            operations = columnOperations;
+            aliases = columnOperations.clone();
+            thresholds = new long[columns];
+
+            int[] small = new int[columns];
+            int[] large = new int[columns];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < columns; i++) {
+                if (weights[i] < 1) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                thresholds[less] = (long) (weights[less] * TWO_POWER_32);
+                aliases[less] = operations[more];
+                weights[more] = (weights[more] + weights[less]) - 1;
+                if (weights[more] < 1) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            // whatever is left over is 1 up to rounding errors
+            while (largeCount > 0) {
+                thresholds[large[--largeCount]] = (long) TWO_POWER_32;
+            }
+            while (smallCount > 0) {
+                thresholds[small[--smallCount]] = (long) TWO_POWER_32;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T select(long random) {
+            // the high 32 bits pick the column, the low 32 bits decide between the column and its alias
+            int column = (int) (((random >>> 32) * thresholds.length) >>> 32);
+            if ((random & 0xFFFFFFFFL) < thresholds[column]) {
+                return (T) operations[column];
+            }
+            return (T) aliases[column];
+        }
+    }
+
+    /**
+     * Creates the latency probe of an operation.
+     */
+    interface OperationProbeFactory {
+        /**
+         * @param operationName the name of the operation
+         * @return the probe or null if the latency of the operation isn't measured.
+         */
+        IntervalProbe createProbe(String operationName);
+    }
+
+    /**
+     * The random generator and the last selected operation of a thread.
+     */
+    private static final class ThreadState {
+        private final XorShiftRandom random;
+        private Object selected;
+
+        private ThreadState(XorShiftRandom random) {
+            this.random = random;
+        }
+    }
+
+    /**
+     * A xorshift64* generator. Not thread-safe; every thread has its own instance.
+     */
+    private static final class XorShiftRandom {
+        private long state;
+
+        private XorShiftRandom(long seed) {
+            // scramble the seed (splitmix64 finalizer), so similar seeds give unrelated sequences; the state must never be 0
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z ^= z >>> 31;
+            state = z == 0 ? SEED_INCREMENT : z;
+        }
+
+        private long nextLong() {
+            long x = state;
+            x ^= x >>> 12;
+            x ^= x << 25;
+            x ^= x >>> 27;
+            state = x;
+            return x * 0x2545F4914F6CDD1DL;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
 
 import static java.lang.String.format;
 
@@ -54,27 +55,19 @@ class PerformanceMonitor extends Thread {
         long globalDeltaOps = 0;
         long deltaTimeMillis = currentTimeMillis - globalLastTimeMillis;
 
-        for (TestContainer testContainer : testContainers) {
+        for (TestContainer<TestContext> testContainer : testContainers) {
             String testId = testContainer.getTestContext().getTestId();
 
-            TestStats stats = testStats.get(testId);
-            if (stats == null) {
-                File testFile = new File("performance-" + (testId.isEmpty() ? "default" : testId) + ".txt");
-                writeHeaderToFile(false, testFile);
-
-                stats = new TestStats(testFile);
-                testStats.put(testId, stats);
-            }
+            String fileName = "performance-" + (testId.isEmpty() ? "default" : testId);
 
             long currentOpsCount = getOpsCount(testContainer);
-            long deltaOps = currentOpsCount - stats.lastOpsCount;
-            double opsPerSecond = (deltaOps * 1000d) / deltaTimeMillis;
-
-            stats.lastOpsCount = currentOpsCount;
-            globalDeltaOps += deltaOps;
+            globalDeltaOps += writeTestStats(timestamp, deltaTimeMillis, fileName, currentOpsCount);
             numberOfTests++;
 
-            writeStatsToFile(timestamp, currentOpsCount, deltaOps, opsPerSecond, -1, stats.performanceFile);
+            Map<String, Long> operationCounts = testContainer.getOperationCounts();
+            for (Map.Entry<String, Long> entry : operationCounts.entrySet()) {
+                writeTestStats(timestamp, deltaTimeMillis, fileName + "-" + entry.getKey(), entry.getValue());
+            }
         }
 
         double globalOpsPerSecond = (globalDeltaOps * 1000d) / deltaTimeMillis;
@@ -87,6 +80,24 @@ class PerformanceMonitor extends Thread {
         );
     }
 
+    private long writeTestStats(String timestamp, long deltaTimeMillis, String fileName, long currentOpsCount) {
+        TestStats stats = testStats.get(fileName);
+        if (stats == null) {
+            File testFile = new File(fileName + ".txt");
+            writeHeaderToFile(false, testFile);
+
+            stats = new TestStats(testFile);
+            testStats.put(fileName, stats);
+        }
+
+        long deltaOps = currentOpsCount - stats.lastOpsCount;
+        double opsPerSecond = (deltaOps * 1000d) / deltaTimeMillis;
+        stats.lastOpsCount = currentOpsCount;
+
+        writeStatsToFile(timestamp, currentOpsCount, deltaOps, opsPerSecond, -1, stats.performanceFile);
+        return deltaOps;
+    }
+
     private long getOpsCount(TestContainer container) {
         try {
             long operationCount = container.getOperationCount();
@@ -2,31 +2,130 @@ package com.hazelcast.stabilizer.worker;
 
 import org.apache.commons.lang3.RandomUtils;
 
+import static com.hazelcast.stabilizer.probes.probes.IntervalProbe.NOT_SCHEDULED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Releases an operation every interval on a fixed schedule.
+ *
+ * The schedule doesn't move when an operation takes longer than the interval; the operations that should have
+ * been started in the meantime are released immediately, so their intended start time can be used to correct the
+ * latency for coordinated omission.
+ *
+ * A metronome should only be used by a single thread.
+ */
 public class SimpleMetronome implements Metronome {
-    private final int intervalMs;
-    private long nextNotBefore;
+    private final WaitStrategy waitStrategy;
+    private final MetronomeSettings settings;
+    private final int threadCount;
+    private long intervalNanos;
+    private double opsPerSecond;
+    private boolean scheduled;
+    private long nextNanos;
+    private long intendedStartNanos;
+
+    private SimpleMetronome(long intervalNanos, WaitStrategy waitStrategy) {
+        this.intervalNanos = intervalNanos;
+        this.waitStrategy = waitStrategy;
+        this.settings = null;
+        this.threadCount = 1;
+    }
 
-    private SimpleMetronome(int intervalMs) {
-        this.intervalMs = intervalMs;
+    private SimpleMetronome(MetronomeSettings settings, int threadCount) {
+        this.waitStrategy = settings.waitStrategy;
+        this.settings = settings;
+        this.threadCount = threadCount;
+        updateRate(settings.opsPerSecond);
     }
 
     public static Metronome withFixedIntervalMs(int intervalMs) {
-        if (intervalMs == 0) {
+        return withFixedIntervalNanos(MILLISECONDS.toNanos(intervalMs), WaitStrategy.BUSY_SPIN);
+    }
+
+    public static Metronome withFixedIntervalNanos(long intervalNanos, WaitStrategy waitStrategy) {
+        if (intervalNanos < 0) {
+            throw new IllegalArgumentException("intervalNanos can't be smaller than 0, but was: " + intervalNanos);
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy can't be null");
+        }
+        if (intervalNanos == 0) {
             return new EmptyMetronome();
         }
-        return new SimpleMetronome(intervalMs);
+        return new SimpleMetronome(intervalNanos, waitStrategy);
+    }
+
+    /**
+     * Creates a metronome that releases the given number of operations per second.
+     *
+     * @param opsPerSecond the rate; 0 means no rate limit.
+     * @param waitStrategy the way to wait for the next operation.
+     * @return the created metronome.
+     */
+    public static Metronome withRate(double opsPerSecond, WaitStrategy waitStrategy) {
+        if (opsPerSecond < 0) {
+            throw new IllegalArgumentException("opsPerSecond can't be smaller than 0, but was: " + opsPerSecond);
+        }
+        return withFixedIntervalNanos(toIntervalNanos(opsPerSecond), waitStrategy);
+    }
+
+    /**
+     * Creates a metronome for one of the given number of load threads that share the rate of the settings.
+     *
+     * The metronome follows changes to {@link MetronomeSettings#opsPerSecond} while it is running.
+     *
+     * @param settings    the metronome settings.
+     * @param threadCount the number of load threads.
+     * @return the created metronome.
+     */
+    static Metronome withSettings(MetronomeSettings settings, int threadCount) {
+        if (settings.waitStrategy == null) {
+            throw new NullPointerException("waitStrategy can't be null");
+        }
+        return new SimpleMetronome(settings, threadCount);
+    }
+
+    private static long toIntervalNanos(double opsPerSecond) {
+        if (opsPerSecond <= 0) {
+            return 0;
+        }
+        return Math.max(1, Math.round(SECONDS.toNanos(1) / opsPerSecond));
+    }
+
+    private void updateRate(double opsPerSecond) {
+        this.opsPerSecond = opsPerSecond;
+        this.intervalNanos = toIntervalNanos(opsPerSecond / threadCount);
+        if (scheduled) {
+            // the new rate starts now; operations owed under the old rate are not released.
+            nextNanos = System.nanoTime();
+        }
     }
 
     @Override
     public void waitForNext() {
-        if (nextNotBefore == 0) {
-            nextNotBefore = System.currentTimeMillis() + RandomUtils.nextInt(0, intervalMs);
+        if (settings != null && settings.opsPerSecond != opsPerSecond) {
+            updateRate(settings.opsPerSecond);
         }
-        long timestamp;
-        while ((timestamp = System.currentTimeMillis()) < nextNotBefore) {
-            //noop
+        if (intervalNanos == 0) {
+            // without a rate limit there is no schedule to fall behind on
+            intendedStartNanos = NOT_SCHEDULED;
+            return;
+        }
+
+        if (!scheduled) {
+            // spreads the load threads over the first interval.
+            nextNanos = System.nanoTime() + RandomUtils.nextLong(0, intervalNanos);
+            scheduled = true;
         }
-        nextNotBefore = timestamp + intervalMs;
+        waitStrategy.waitUntil(nextNanos);
+        intendedStartNanos = nextNanos;
+        nextNanos += intervalNanos;
+    }
+
+    @Override
+    public long getIntendedStartNanos() {
+        return intendedStartNanos;
     }
 
     private static class EmptyMetronome implements Metronome {
@@ -34,5 +133,10 @@ public class SimpleMetronome implements Metronome {
         public void waitForNext() {
             //noop
         }
+
+        @Override
+        public long getIntendedStartNanos() {
+            return NOT_SCHEDULED;
+        }
     }
 }
@@ -1,13 +1,16 @@
 package com.hazelcast.stabilizer.worker;
 
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.common.messaging.Message;
 import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.IntervalResultProbe;
 import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
 import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.DisabledResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
 import com.hazelcast.stabilizer.test.exceptions.IllegalTestException;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.annotations.Name;
@@ -16,6 +19,7 @@ import com.hazelcast.stabilizer.test.annotations.Receive;
 import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
 import com.hazelcast.stabilizer.test.annotations.Teardown;
+import com.hazelcast.stabilizer.test.annotations.TimeStep;
 import com.hazelcast.stabilizer.test.annotations.Verify;
 import com.hazelcast.stabilizer.test.annotations.Warmup;
 import com.hazelcast.util.Clock;
@@ -25,11 +29,16 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import com.hazelcast.stabilizer.probes.probes.Probes;
 
 import static java.lang.String.format;
@@ -42,6 +51,11 @@ import static java.lang.String.format;
  */
 public class TestContainer<T extends TestContext> {
 
+    /**
+     * The name under which the boundaries of the measurement window are added to the probe results.
+     */
+    public final static String MEASUREMENT_WINDOW_RESULT = "measurementWindow";
+
     private final static ILogger log = Logger.getLogger(TestContainer.class);
 
     private final Object testObject;
@@ -50,6 +64,16 @@ public class TestContainer<T extends TestContext> {
     private final ProbesConfiguration probesConfiguration;
 
     private Method runMethod;
+    private Method timeStepMethod;
+    private IntervalProbe timeStepProbe;
+    private volatile TimeStepRunner timeStepRunner;
+    private int timeStepThreadCount;
+    private int timeStepMaxInFlight;
+    private int measurementDelaySeconds;
+    private boolean measurementAutoStart;
+    private volatile MeasurementWindow measurementWindow;
+    // the rate limit of a time step test without MetronomeSettings field
+    private final MetronomeSettings timeStepMetronomeSettings = new MetronomeSettings();
     private Method setupMethod;
 
     private Method localTeardownMethod;
@@ -64,7 +88,12 @@ public class TestContainer<T extends TestContext> {
     private Method operationCountMethod;
     private Method messageConsumerMethod;
 
+    private OperationCounter operationCounter;
     private Map<String, SimpleProbe<?, ?>> probeMap = new ConcurrentHashMap<String, SimpleProbe<?, ?>>();
+    // the names of the per operation probes, by the name of their combined result.
+    private Map<String, List<String>> operationProbeNames = new ConcurrentHashMap<String, List<String>>();
+    private List<OperationSelector<?>> operationSelectors = new LinkedList<OperationSelector<?>>();
+    private List<Field> metronomeSettingsFields = new LinkedList<Field>();
     private Object[] setupArguments;
 
     public TestContainer(Object testObject, T testContext, ProbesConfiguration probesConfiguration) {
@@ -93,9 +122,173 @@ public class TestContainer<T extends TestContext> {
                 results.put(name, result);
             }
         }
+        addCombinedOperationResults(results);
+
+        MeasurementWindow window = measurementWindow;
+        if (window != null) {
+            MeasurementWindowResult windowResult = window.getResult();
+            if (windowResult != null) {
+                results.put(MEASUREMENT_WINDOW_RESULT, windowResult);
+            }
+        }
+        return results;
+    }
+
+    // the results of the per operation probes are also reported combined, if they are of the same type.
+    private void addCombinedOperationResults(Map<String, Result<?>> results) {
+        for (Map.Entry<String, List<String>> entry : operationProbeNames.entrySet()) {
+            String combinedName = entry.getKey();
+            if (results.containsKey(combinedName)) {
+                continue;
+            }
+
+            Result combined = null;
+            for (String probeName : entry.getValue()) {
+                Result result = results.get(probeName);
+                if (result == null) {
+                    continue;
+                }
+                if (combined != null && combined.getClass() != result.getClass()) {
+                    combined = null;
+                    break;
+                }
+                combined = combined == null ? result : combined.combine(result);
+            }
+            if (combined != null) {
+                results.put(combinedName, combined);
+            }
+        }
+    }
+
+    /**
+     * Returns the results recorded since the previous call for all probes that support intervals.
+     *
+     * @return the interval results by probe name.
+     */
+    public Map<String, Result<?>> getIntervalProbeResults() {
+        Map<String, Result<?>> results = new HashMap<String, Result<?>>();
+        for (Map.Entry<String, SimpleProbe<?, ?>> entry : probeMap.entrySet()) {
+            SimpleProbe<?, ?> probe = entry.getValue();
+            if (!(probe instanceof IntervalResultProbe)) {
+                continue;
+            }
+            Result<?> result = ((IntervalResultProbe<?>) probe).getIntervalResult();
+            if (result != null) {
+                results.put(entry.getKey(), result);
+            }
+        }
         return results;
     }
 
+    /**
+     * Leaves the start of the run of the test out of the probe results, see {@link MeasurementWindow}.
+     *
+     * Should be called before the test is run.
+     *
+     * @param delaySeconds the number of seconds the probes don't record after the test is started.
+     * @param autoStart    true if the probes should only start recording once the throughput has settled.
+     */
+    public void setMeasurementWindow(int delaySeconds, boolean autoStart) {
+        if (delaySeconds < 0) {
+            throw new IllegalArgumentException("Measurement delay can't be negative, but was " + delaySeconds);
+        }
+        this.measurementDelaySeconds = delaySeconds;
+        this.measurementAutoStart = autoStart;
+    }
+
+    /**
+     * Overrides the threadCount and maxInFlight of the {@link TimeStep} annotation of the test.
+     *
+     * Should be called before the test is run.
+     *
+     * @param threadCount the number of load threads, 0 to use the value of the annotation.
+     * @param maxInFlight the number of outstanding operations per load thread, 0 to use the value of the annotation.
+     */
+    public void setTimeStepSettings(int threadCount, int maxInFlight) {
+        if (threadCount < 0) {
+            throw new IllegalArgumentException("Thread count can't be negative, but was " + threadCount);
+        }
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("Max in flight can't be negative, but was " + maxInFlight);
+        }
+        this.timeStepThreadCount = threadCount;
+        this.timeStepMaxInFlight = maxInFlight;
+    }
+
+    /**
+     * Sets the seed of the {@link OperationSelector} fields of the test; every selector gets its own seed derived from
+     * it, so multiple selectors don't select the same sequence.
+     *
+     * Should be called before the test is run.
+     *
+     * @param seed the seed.
+     */
+    public void setOperationSeed(long seed) {
+        long selectorSeed = seed;
+        for (OperationSelector<?> operationSelector : operationSelectors) {
+            operationSelector.setSeed(selectorSeed++);
+        }
+    }
+
+    /**
+     * Opens the measurement window right away instead of after the delay, if the test has one and it isn't closed yet.
+     */
+    void openMeasurementWindow() {
+        MeasurementWindow window = measurementWindow;
+        if (window != null) {
+            window.open();
+        }
+    }
+
+    /**
+     * Stops the recording of the probes, if the test has a measurement window. Called when the test is asked to stop,
+     * so the ramp-down of the test isn't recorded.
+     */
+    public void closeMeasurementWindow() {
+        MeasurementWindow window = measurementWindow;
+        if (window != null) {
+            window.close();
+        }
+    }
+
+    /**
+     * Sets the target throughput of this test on this worker by updating the {@link MetronomeSettings} of the test.
+     *
+     * The metronomes created from these settings pick up the new rate, so this can be called while the test is running.
+     * Setting the same target again changes nothing.
+     *
+     * @param opsPerSecond the number of operations per second.
+     * @return true if the target throughput is applied, false if the test has no MetronomeSettings to apply it to.
+     */
+    public boolean setTargetThroughput(double opsPerSecond) {
+        boolean changed = getTargetThroughput() != opsPerSecond;
+        timeStepMetronomeSettings.opsPerSecond = opsPerSecond;
+        if (metronomeSettingsFields.isEmpty() && timeStepMethod == null) {
+            if (changed) {
+                log.warning(format("Test %s has no MetronomeSettings field, so the target throughput is ignored",
+                        clazz.getName()));
+            }
+            return false;
+        }
+
+        for (Field field : metronomeSettingsFields) {
+            MetronomeSettings metronomeSettings = getFieldValue(field);
+            if (metronomeSettings != null) {
+                metronomeSettings.opsPerSecond = opsPerSecond;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the target throughput last set by {@link #setTargetThroughput(double)}.
+     *
+     * @return the number of operations per second, 0 if no target throughput has been set.
+     */
+    public double getTargetThroughput() {
+        return timeStepMetronomeSettings.opsPerSecond;
+    }
+
     private void initMethods() {
         initRunMethod();
         initSetupMethod();
@@ -119,20 +312,83 @@ public class TestContainer<T extends TestContext> {
         return testContext;
     }
 
+    /**
+     * Returns the number of operations of the test, from the injected {@link OperationCounter} or else from the
+     * {@link Performance} method.
+     *
+     * @return the number of operations or -1 if the test doesn't count its operations.
+     */
     public long getOperationCount() throws Throwable {
+        if (operationCounter != null) {
+            return operationCounter.get();
+        }
         Long count = invoke(operationCountMethod);
         return count == null ? -1 : count;
     }
 
+    /**
+     * Returns the number of operations per type counted by the injected {@link OperationCounter}.
+     *
+     * @return the counts by operation name; empty if the test doesn't count its operations by type.
+     */
+    public Map<String, Long> getOperationCounts() {
+        if (operationCounter == null) {
+            return Collections.emptyMap();
+        }
+        return operationCounter.getOperationCounts();
+    }
+
+    /**
+     * Returns the average number of operations a load thread had in flight when it issued an operation, for a test with
+     * a {@link TimeStep} method that returns a future.
+     *
+     * @return the achieved pipeline depth or -1 if the test doesn't run asynchronously.
+     */
+    public double getAveragePipelineDepth() {
+        TimeStepRunner runner = timeStepRunner;
+        if (runner == null || !runner.isAsync()) {
+            return -1;
+        }
+        return runner.getAveragePipelineDepth();
+    }
+
     public void run() throws Throwable {
+        for (OperationSelector<?> operationSelector : operationSelectors) {
+            operationSelector.initProbes();
+        }
+
         long now = Clock.currentTimeMillis();
         for (SimpleProbe probe : probeMap.values()) {
             probe.startProbing(now);
         }
-        invoke(runMethod);
-        now = Clock.currentTimeMillis();
-        for (SimpleProbe probe : probeMap.values()) {
-            probe.stopProbing(now);
+        if (measurementDelaySeconds > 0 || measurementAutoStart) {
+            measurementWindow = new MeasurementWindow(this, probeMap.values(), measurementDelaySeconds,
+                    measurementAutoStart);
+            measurementWindow.start();
+        }
+
+        try {
+            if (runMethod != null) {
+                invoke(runMethod);
+            } else {
+                timeStepRunner = newTimeStepRunner();
+                timeStepRunner.run();
+                if (timeStepRunner.isAsync()) {
+                    log.info(format("Test %s kept %.2f operations in flight per thread on average (maxInFlight=%d)",
+                            testContext.getTestId(), timeStepRunner.getAveragePipelineDepth(),
+                            timeStepRunner.getMaxInFlight()));
+                }
+            }
+        } finally {
+            // also when the test fails, so the window doesn't stay open and the opener doesn't linger
+            if (measurementWindow != null) {
+                measurementWindow.close();
+            } else {
+                now = Clock.currentTimeMillis();
+                for (SimpleProbe probe : probeMap.values()) {
+                    probe.stopProbing(now);
+                }
+            }
         }
     }
 
@@ -208,7 +464,78 @@ public class TestContainer<T extends TestContext> {
             } else if (IntervalProbe.class.equals(field.getType())) {
                 IntervalProbe probe = getOrCreateProbe(name, IntervalProbe.class);
                 injectObjectToTest(field, probe);
+            } else if (OperationCounter.class.equals(field.getType())) {
+                if (operationCounter == null) {
+                    operationCounter = new OperationCounter();
+                }
+                injectObjectToTest(field, operationCounter);
+            } else if (MetronomeSettings.class.equals(field.getType())) {
+                field.setAccessible(true);
+                metronomeSettingsFields.add(field);
+            } else if (OperationSelector.class.equals(field.getType())) {
+                field.setAccessible(true);
+                OperationSelector<?> operationSelector = getFieldValue(field);
+                if (operationSelector != null) {
+                    operationSelector.setProbeFactory(new TestOperationProbeFactory(clazz.getSimpleName()));
+                    operationSelectors.add(operationSelector);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the latency probes of the operations of an {@link OperationSelector}, named {@code <test>.<operation>}.
+     *
+     * A probe is configured by its own name, else by the name of the test, else like the probe of the
+     * {@link TimeStep} method; so a single probe configuration enables the probes of all operations, and measuring
+     * the time step also measures every operation. Unconfigured probes are not created at all.
+     */
+    private class TestOperationProbeFactory implements OperationSelector.OperationProbeFactory {
+        private final String combinedName;
+
+        private TestOperationProbeFactory(String combinedName) {
+            this.combinedName = combinedName;
+        }
+
+        @Override
+        public IntervalProbe createProbe(String operationName) {
+            String probeName = combinedName + "." + operationName;
+            String configName = getConfigName(probeName);
+            if (configName == null) {
+                return null;
+            }
+
+            IntervalProbe probe;
+            SimpleProbe<?, ?> existing = probeMap.get(probeName);
+            if (existing instanceof IntervalProbe) {
+                probe = (IntervalProbe) existing;
+            } else {
+                probe = Probes.createProbe(IntervalProbe.class, configName, probesConfiguration);
+                probeMap.put(probeName, probe);
+            }
+
+            List<String> probeNames = operationProbeNames.get(combinedName);
+            if (probeNames == null) {
+                probeNames = new CopyOnWriteArrayList<String>();
+                operationProbeNames.put(combinedName, probeNames);
             }
+            if (!probeNames.contains(probeName)) {
+                probeNames.add(probeName);
+            }
+            return probe;
+        }
+
+        private String getConfigName(String probeName) {
+            if (probesConfiguration.getConfig(probeName) != null) {
+                return probeName;
+            }
+            if (probesConfiguration.getConfig(combinedName) != null) {
+                return combinedName;
+            }
+            if (timeStepMethod != null && probesConfiguration.getConfig(timeStepMethod.getName()) != null) {
+                return timeStepMethod.getName();
+            }
+            return null;
         }
     }
 
@@ -220,6 +547,14 @@ public class TestContainer<T extends TestContext> {
         return field.getName();
     }
 
+    private <E> E getFieldValue(Field field) {
+        try {
+            return (E) field.get(testObject);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void injectObjectToTest(Field field, Object object) {
         field.setAccessible(true);
         try {
@@ -296,6 +631,17 @@ public class TestContainer<T extends TestContext> {
     }
 
     private void initRunMethod() {
+        List<Method> timeStepMethods = findMethod(TimeStep.class);
+        assertAtMostOne(timeStepMethods, TimeStep.class);
+        if (!timeStepMethods.isEmpty()) {
+            if (!findMethod(Run.class).isEmpty()) {
+                throw new IllegalTestException(format("Class %s can't have both a method with annotation %s and %s",
+                        clazz.getName(), Run.class.getName(), TimeStep.class.getName()));
+            }
+            initTimeStepMethod(timeStepMethods.get(0));
+            return;
+        }
+
         List<Method> methods = findMethod(Run.class);
         assertExactlyOne(methods, Run.class);
 
@@ -307,6 +653,37 @@ public class TestContainer<T extends TestContext> {
         runMethod = method;
     }
 
+    private void initTimeStepMethod(Method method) {
+        method.setAccessible(true);
+        if (!ICompletableFuture.class.equals(method.getReturnType())) {
+            assertVoidReturnType(method);
+        }
+        assertNotStatic(method);
+        assertNoArgs(method);
+        timeStepMethod = method;
+        timeStepProbe = getOrCreateProbe(method.getName(), IntervalProbe.class);
+        if (operationCounter == null) {
+            operationCounter = new OperationCounter();
+        }
+    }
+
+    private TimeStepRunner newTimeStepRunner() {
+        MetronomeSettings metronomeSettings = timeStepMetronomeSettings;
+        for (Field field : metronomeSettingsFields) {
+            MetronomeSettings fieldValue = getFieldValue(field);
+            if (fieldValue != null) {
+                metronomeSettings = fieldValue;
+                break;
+            }
+        }
+        TimeStep timeStep = timeStepMethod.getAnnotation(TimeStep.class);
+        int threadCount = timeStepThreadCount > 0 ? timeStepThreadCount : timeStep.threadCount();
+        int maxInFlight = timeStepMaxInFlight > 0 ? timeStepMaxInFlight : timeStep.maxInFlight();
+        return new TimeStepRunner(testObject, timeStepMethod, testContext, threadCount, maxInFlight, metronomeSettings,
+                timeStepProbe, operationCounter,
+                operationSelectors.toArray(new OperationSelector<?>[operationSelectors.size()]));
+    }
+
     private void initLocalVerifyMethod() {
         List<Method> methods = findMethod(Verify.class, new Filter<Verify>() {
             @Override
@@ -539,12 +916,37 @@ public class TestContainer<T extends TestContext> {
     }
 
     private List<Method> findMethod(Class<? extends Annotation> annotation, Filter filter) {
-        List<Method> methods = new LinkedList<Method>();
+        return findMethods(clazz, annotation, filter);
+    }
 
-        for (Method method : clazz.getDeclaredMethods()) {
-            Annotation found = method.getAnnotation(annotation);
-            if (found != null && filter.allowed(found)) {
-                methods.add(method);
+    /**
+     * Checks if the test class has a {@link TimeStep} method, declared or inherited, so the worker drives its load loop.
+     *
+     * @param clazz the test class.
+     * @return true if the class has a TimeStep method.
+     */
+    public static boolean hasTimeStepMethod(Class<?> clazz) {
+        return !findMethods(clazz, TimeStep.class, new AlwaysFilter()).isEmpty();
+    }
+
+    // the annotated methods of the class and its superclasses; a method overridden by a subclass is only found once.
+    private static List<Method> findMethods(Class<?> clazz, Class<? extends Annotation> annotation, Filter filter) {
+        List<Method> methods = new LinkedList<Method>();
+        Set<String> signatures = new HashSet<String>();
+
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+                boolean overridden = signatures.contains(signature) && !Modifier.isPrivate(method.getModifiers());
+                signatures.add(signature);
+                if (overridden) {
+                    continue;
+                }
+
+                Annotation found = method.getAnnotation(annotation);
+                if (found != null && filter.allowed(found)) {
+                    methods.add(method);
+                }
             }
         }
 
@@ -555,7 +957,7 @@ public class TestContainer<T extends TestContext> {
         boolean allowed(A m);
     }
 
-    private class AlwaysFilter implements Filter {
+    private static class AlwaysFilter implements Filter {
         @Override
         public boolean allowed(Annotation m) {
             return true;
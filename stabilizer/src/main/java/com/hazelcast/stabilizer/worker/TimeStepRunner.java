@@ -0,0 +1,269 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.test.TestContext;
+import com.hazelcast.stabilizer.test.utils.ExceptionReporter;
+import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Runs the {@link com.hazelcast.stabilizer.test.annotations.TimeStep} method of a test: starts the load threads and
+ * calls the method in a loop till the test is stopped, with the rate limiting, latency measuring and operation counting
+ * around it.
+ *
+ * If the method returns an {@link ICompletableFuture}, every load thread keeps up to maxInFlight operations outstanding
+ * and only issues the next one when a slot is free. The latency and the operation count are then recorded in the
+ * completion callback. The callbacks are allocated once per slot, so the pipelining itself doesn't allocate per
+ * operation.
+ *
+ * If the test has {@link OperationSelector} fields, the latency of every time step is also recorded in the probe of the
+ * operation the step selected, so the latency per operation comes for free.
+ *
+ * A failing call is reported and ends the load thread, like an exception thrown in a thread spawned by a test. A failed
+ * future doesn't stop the load thread; only the first one is reported and the others are counted, so many operations
+ * in flight against a failing cluster don't flood the coordinator with identical reports. When a load thread ends, it
+ * waits a bounded time for its outstanding operations; operations that don't complete in time are logged as lost.
+ */
+class TimeStepRunner {
+    static final long DRAIN_TIMEOUT_MILLIS = SECONDS.toMillis(60);
+
+    private static final ILogger log = Logger.getLogger(TimeStepRunner.class);
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Object testObject;
+    private final Method timeStepMethod;
+    private final TestContext testContext;
+    private final int threadCount;
+    private final int maxInFlight;
+    private final boolean async;
+    private final MetronomeSettings metronomeSettings;
+    private final IntervalProbe latencyProbe;
+    private final OperationCounter operationCounter;
+    private final OperationSelector<?>[] operationSelectors;
+
+    private final AtomicLong issuedCount = new AtomicLong();
+    private final AtomicLong inFlightSum = new AtomicLong();
+    private final AtomicLong lostCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    // the time a load thread waits for its outstanding operations when it ends.
+    long drainTimeoutMillis = DRAIN_TIMEOUT_MILLIS;
+
+    TimeStepRunner(Object testObject, Method timeStepMethod, TestContext testContext, int threadCount, int maxInFlight,
+                   MetronomeSettings metronomeSettings, IntervalProbe latencyProbe, OperationCounter operationCounter,
+                   OperationSelector<?>... operationSelectors) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight can't be smaller than 1, but was " + maxInFlight);
+        }
+        this.testObject = testObject;
+        this.timeStepMethod = timeStepMethod;
+        this.testContext = testContext;
+        this.threadCount = threadCount;
+        this.maxInFlight = maxInFlight;
+        this.async = ICompletableFuture.class.equals(timeStepMethod.getReturnType());
+        this.metronomeSettings = metronomeSettings;
+        this.latencyProbe = latencyProbe;
+        this.operationCounter = operationCounter;
+        this.operationSelectors = operationSelectors;
+    }
+
+    void run() {
+        ThreadSpawner spawner = new ThreadSpawner(testContext.getTestId());
+        for (int k = 0; k < threadCount; k++) {
+            spawner.spawn("TimeStepThread", async ? new AsyncTimeStepLoop() : new TimeStepLoop());
+        }
+        spawner.awaitCompletion();
+
+        long failed = failedCount.get();
+        if (failed > 1) {
+            log.warning(format("%s operations of test %s failed, only the first failure has been reported",
+                    failed, testContext.getTestId()));
+        }
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the average number of outstanding operations of a load thread, including the one being issued, sampled
+     * every time an operation is issued.
+     *
+     * @return the achieved pipeline depth, 0 if no operation has been issued.
+     */
+    double getAveragePipelineDepth() {
+        long issued = issuedCount.get();
+        return issued == 0 ? 0 : (double) inFlightSum.get() / issued;
+    }
+
+    /**
+     * Returns the number of operations that didn't complete before their load thread ended.
+     *
+     * @return the number of lost operations.
+     */
+    long getLostOperationCount() {
+        return lostCount.get();
+    }
+
+    /**
+     * Returns the number of operations whose future failed.
+     *
+     * @return the number of failed operations.
+     */
+    long getFailedOperationCount() {
+        return failedCount.get();
+    }
+
+    private class TimeStepLoop implements Runnable {
+        @Override
+        public void run() {
+            Metronome metronome = metronomeSettings.newMetronome(threadCount);
+            try {
+                while (!testContext.isStopped()) {
+                    metronome.waitForNext();
+                    long intendedStartNanos = metronome.getIntendedStartNanos();
+                    long startedNanos = operationSelectors.length == 0 ? 0 : System.nanoTime();
+                    latencyProbe.started(intendedStartNanos);
+                    // setAccessible skips the access check and NO_ARGS avoids an argument array per call, but the
+                    // reflection call still costs more than a direct call; it is small next to a cluster operation.
+                    timeStepMethod.invoke(testObject, NO_ARGS);
+                    latencyProbe.done();
+                    for (OperationSelector<?> operationSelector : operationSelectors) {
+                        IntervalProbe operationProbe = operationSelector.takeSelectedProbe();
+                        if (operationProbe != null) {
+                            operationProbe.done(startedNanos, intendedStartNanos);
+                        }
+                    }
+                    operationCounter.increment();
+                }
+            } catch (InvocationTargetException e) {
+                ExceptionReporter.report(testContext.getTestId(), e.getCause());
+            } catch (Throwable t) {
+                ExceptionReporter.report(testContext.getTestId(), t);
+            }
+        }
+    }
+
+    private class AsyncTimeStepLoop implements Runnable {
+        private final BlockingQueue<Completion> freeCompletions = new ArrayBlockingQueue<Completion>(maxInFlight);
+
+        @Override
+        public void run() {
+            for (int k = 0; k < maxInFlight; k++) {
+                freeCompletions.add(new Completion(freeCompletions));
+            }
+
+            Metronome metronome = metronomeSettings.newMetronome(threadCount);
+            long issued = 0;
+            long inFlightSum = 0;
+            try {
+                while (!testContext.isStopped()) {
+                    metronome.waitForNext();
+                    Completion completion = freeCompletions.take();
+                    inFlightSum += maxInFlight - freeCompletions.size();
+                    issued++;
+
+                    completion.intendedStartNanos = metronome.getIntendedStartNanos();
+                    completion.startedNanos = System.nanoTime();
+                    ICompletableFuture future = null;
+                    try {
+                        future = (ICompletableFuture) timeStepMethod.invoke(testObject, NO_ARGS);
+                    } finally {
+                        // no operation is outstanding if the call failed or returned no future
+                        if (future == null) {
+                            freeCompletions.add(completion);
+                        }
+                    }
+                    for (int k = 0; k < operationSelectors.length; k++) {
+                        completion.operationProbes[k] = operationSelectors[k].takeSelectedProbe();
+                    }
+                    if (future != null) {
+                        future.andThen(completion);
+                    }
+                }
+            } catch (InvocationTargetException e) {
+                ExceptionReporter.report(testContext.getTestId(), e.getCause());
+            } catch (Throwable t) {
+                ExceptionReporter.report(testContext.getTestId(), t);
+            } finally {
+                awaitOutstanding();
+                issuedCount.addAndGet(issued);
+                TimeStepRunner.this.inFlightSum.addAndGet(inFlightSum);
+            }
+        }
+
+        // waits for the outstanding operations, so their latency is recorded before the probes are stopped
+        private void awaitOutstanding() {
+            long deadlineMillis = System.currentTimeMillis() + drainTimeoutMillis;
+            int completed = 0;
+            try {
+                while (completed < maxInFlight) {
+                    long remainingMillis = deadlineMillis - System.currentTimeMillis();
+                    if (freeCompletions.poll(Math.max(remainingMillis, 0), MILLISECONDS) == null) {
+                        break;
+                    }
+                    completed++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            int lost = maxInFlight - completed;
+            if (lost > 0) {
+                lostCount.addAndGet(lost);
+                log.warning(format("%s operations of test %s didn't complete within %d ms and are lost",
+                        lost, testContext.getTestId(), drainTimeoutMillis));
+            }
+        }
+    }
+
+    private class Completion implements ExecutionCallback<Object> {
+        private final BlockingQueue<Completion> freeCompletions;
+        // written by the load thread before the operation is issued, so the completing thread sees them.
+        private long startedNanos;
+        private long intendedStartNanos;
+        // the probes of the operations the time step selected, by selector; an element is null if nothing is recorded.
+        private final IntervalProbe[] operationProbes = new IntervalProbe[operationSelectors.length];
+
+        Completion(BlockingQueue<Completion> freeCompletions) {
+            this.freeCompletions = freeCompletions;
+        }
+
+        @Override
+        public void onResponse(Object response) {
+            latencyProbe.done(startedNanos, intendedStartNanos);
+            for (IntervalProbe operationProbe : operationProbes) {
+                if (operationProbe != null) {
+                    operationProbe.done(startedNanos, intendedStartNanos);
+                }
+            }
+            operationCounter.increment();
+            freeCompletions.add(this);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            if (failedCount.incrementAndGet() == 1) {
+                ExceptionReporter.report(testContext.getTestId(), t);
+            }
+            freeCompletions.add(this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hazelcast.stabilizer.worker;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The way a {@link Metronome} waits for the next operation to be released.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins until the deadline. The most accurate, but it burns a core per load thread.
+     */
+    BUSY_SPIN {
+        @Override
+        public void waitUntil(long deadlineNanos) {
+            while (System.nanoTime() - deadlineNanos < 0) {
+                //noop
+            }
+        }
+    },
+
+    /**
+     * Yields until the deadline. Still keeps the core busy when there is nothing else to run.
+     */
+    YIELD {
+        @Override
+        public void waitUntil(long deadlineNanos) {
+            while (System.nanoTime() - deadlineNanos < 0) {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Parks until the deadline. Cheap, but the wakeup can be tens of microseconds late.
+     */
+    PARK {
+        @Override
+        public void waitUntil(long deadlineNanos) {
+            long remainingNanos;
+            while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remainingNanos);
+            }
+        }
+    },
+
+    /**
+     * Parks until shortly before the deadline and spins the rest of the time.
+     */
+    HYBRID {
+        @Override
+        public void waitUntil(long deadlineNanos) {
+            long remainingNanos;
+            while ((remainingNanos = deadlineNanos - System.nanoTime()) > HYBRID_SPIN_NANOS) {
+                LockSupport.parkNanos(remainingNanos - HYBRID_SPIN_NANOS);
+            }
+            BUSY_SPIN.waitUntil(deadlineNanos);
+        }
+    };
+
+    static final long HYBRID_SPIN_NANOS = 50 * 1000;
+
+    /**
+     * Waits until {@link System#nanoTime()} has passed the deadline.
+     *
+     * @param deadlineNanos the deadline in {@link System#nanoTime()}.
+     */
+    public abstract void waitUntil(long deadlineNanos);
+}
@@ -0,0 +1,33 @@
+package com.hazelcast.stabilizer.worker.commands;
+
+/**
+ * Checks if a worker generates load for a given test, so the target throughput can be divided over these workers.
+ */
+public class IsLoadGeneratorCommand extends Command {
+
+    public static final long serialVersionUID = 0l;
+
+    public final String testId;
+    public final boolean clientOnly;
+
+    public IsLoadGeneratorCommand(String testId, boolean clientOnly) {
+        if (testId == null) {
+            throw new NullPointerException("testId can't be null");
+        }
+        this.testId = testId;
+        this.clientOnly = clientOnly;
+    }
+
+    @Override
+    public boolean ignoreTimeout() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "IsLoadGeneratorCommand{" +
+                "testId='" + testId + '\'' +
+                ", clientOnly=" + clientOnly +
+                '}';
+    }
+}
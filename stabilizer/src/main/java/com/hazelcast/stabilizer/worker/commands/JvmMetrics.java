@@ -0,0 +1,71 @@
+package com.hazelcast.stabilizer.worker.commands;
+
+import java.io.Serializable;
+
+/**
+ * The JVM runtime metrics of a single worker over an interval: the time spent in garbage collection and safepoints,
+ * the allocated bytes, and the heap usage and thread counts at the end of the interval.
+ *
+ * A metric the JVM doesn't provide is -1.
+ */
+public class JvmMetrics implements Serializable {
+
+    public static final long serialVersionUID = 0l;
+
+    public long gcCount;
+    public long gcTimeMillis;
+    public long safepointTimeMillis = -1;
+    public long allocatedBytes = -1;
+    public long heapUsedBytes;
+    public long heapCommittedBytes;
+    public int threadCount;
+    public int daemonThreadCount;
+
+    public JvmMetrics copy() {
+        JvmMetrics copy = new JvmMetrics();
+        copy.gcCount = gcCount;
+        copy.gcTimeMillis = gcTimeMillis;
+        copy.safepointTimeMillis = safepointTimeMillis;
+        copy.allocatedBytes = allocatedBytes;
+        copy.heapUsedBytes = heapUsedBytes;
+        copy.heapCommittedBytes = heapCommittedBytes;
+        copy.threadCount = threadCount;
+        copy.daemonThreadCount = daemonThreadCount;
+        return copy;
+    }
+
+    /**
+     * Adds the metrics of the next interval of the same worker.
+     */
+    public void add(JvmMetrics next) {
+        gcCount += next.gcCount;
+        gcTimeMillis += next.gcTimeMillis;
+        safepointTimeMillis = addAvailable(safepointTimeMillis, next.safepointTimeMillis);
+        allocatedBytes = addAvailable(allocatedBytes, next.allocatedBytes);
+        heapUsedBytes = next.heapUsedBytes;
+        heapCommittedBytes = next.heapCommittedBytes;
+        threadCount = next.threadCount;
+        daemonThreadCount = next.daemonThreadCount;
+    }
+
+    private static long addAvailable(long value, long next) {
+        if (value < 0 || next < 0) {
+            return -1;
+        }
+        return value + next;
+    }
+
+    @Override
+    public String toString() {
+        return "JvmMetrics{" +
+                "gcCount=" + gcCount +
+                ", gcTimeMillis=" + gcTimeMillis +
+                ", safepointTimeMillis=" + safepointTimeMillis +
+                ", allocatedBytes=" + allocatedBytes +
+                ", heapUsedBytes=" + heapUsedBytes +
+                ", heapCommittedBytes=" + heapCommittedBytes +
+                ", threadCount=" + threadCount +
+                ", daemonThreadCount=" + daemonThreadCount +
+                '}';
+    }
+}
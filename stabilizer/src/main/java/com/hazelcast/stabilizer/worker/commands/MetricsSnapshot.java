@@ -0,0 +1,173 @@
+package com.hazelcast.stabilizer.worker.commands;
+
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The live metrics of a single interval: the number of operations per test, the interval latency histogram per
+ * probe and the {@link JvmMetrics} per worker.
+ *
+ * A worker pushes a snapshot to its agent every interval. The agent adds up the snapshots of its workers and hands
+ * one snapshot per interval to the coordinator, numbered by its sequence.
+ *
+ * The interval is the one the worker measured, ending at {@link #timeMillis}. Adding up snapshots spans their
+ * intervals, so the snapshots of workers running side by side cover about a single interval, while consecutive
+ * snapshots of the same worker cover their intervals together. The rates are calculated over that span; since the
+ * clocks of different machines aren't in sync, only snapshots of the same machine should be added up for that.
+ */
+public class MetricsSnapshot implements Serializable {
+
+    public static final long serialVersionUID = 0l;
+
+    public long sequence;
+    public long timeMillis;
+    public long intervalMillis;
+
+    // the key is the test id.
+    public final Map<String, Long> operationCounts = new HashMap<String, Long>();
+    // the key is the probe name, prefixed with the test id if the test has one.
+    public final Map<String, HdrLatencyProbeResult> latencies = new HashMap<String, HdrLatencyProbeResult>();
+    // the key is the worker id.
+    public final Map<String, JvmMetrics> jvmMetrics = new HashMap<String, JvmMetrics>();
+
+    public boolean isEmpty() {
+        return operationCounts.isEmpty() && latencies.isEmpty() && jvmMetrics.isEmpty();
+    }
+
+    public long getStartMillis() {
+        return timeMillis - intervalMillis;
+    }
+
+    /**
+     * Returns the number of operations per second over the interval of this snapshot.
+     *
+     * @return the operations per second, or 0 if the snapshot doesn't cover an interval.
+     */
+    public double getOperationsPerSecond() {
+        return intervalMillis <= 0 ? 0 : (getTotalOperationCount() * 1000d) / intervalMillis;
+    }
+
+    public long getTotalOperationCount() {
+        long total = 0;
+        for (Long count : operationCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the latencies of all probes combined.
+     *
+     * @return the combined latencies or null if there are no latencies.
+     */
+    public HdrLatencyProbeResult getCombinedLatency() {
+        HdrLatencyProbeResult combined = null;
+        for (HdrLatencyProbeResult latency : latencies.values()) {
+            combined = combined == null ? latency : combined.combine(latency);
+        }
+        return combined;
+    }
+
+    /**
+     * Returns the longest time a single worker spent in garbage collection, since a pause in any worker stalls the
+     * operations that go through it.
+     *
+     * @return the gc time in ms, 0 if there are no jvm metrics.
+     */
+    public long getMaxGcTimeMillis() {
+        long max = 0;
+        for (JvmMetrics metrics : jvmMetrics.values()) {
+            max = Math.max(max, metrics.gcTimeMillis);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the longest time a single worker spent in safepoints.
+     *
+     * @return the safepoint time in ms, or -1 if no worker provides it.
+     */
+    public long getMaxSafepointTimeMillis() {
+        long max = -1;
+        for (JvmMetrics metrics : jvmMetrics.values()) {
+            max = Math.max(max, metrics.safepointTimeMillis);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the bytes allocated by all workers.
+     *
+     * @return the allocated bytes, or -1 if no worker provides them.
+     */
+    public long getTotalAllocatedBytes() {
+        long total = -1;
+        for (JvmMetrics metrics : jvmMetrics.values()) {
+            if (metrics.allocatedBytes >= 0) {
+                total = Math.max(total, 0) + metrics.allocatedBytes;
+            }
+        }
+        return total;
+    }
+
+    public long getTotalHeapUsedBytes() {
+        long total = 0;
+        for (JvmMetrics metrics : jvmMetrics.values()) {
+            total += metrics.heapUsedBytes;
+        }
+        return total;
+    }
+
+    public int getTotalThreadCount() {
+        int total = 0;
+        for (JvmMetrics metrics : jvmMetrics.values()) {
+            total += metrics.threadCount;
+        }
+        return total;
+    }
+
+    public void add(MetricsSnapshot other) {
+        if (timeMillis == 0) {
+            timeMillis = other.timeMillis;
+            intervalMillis = other.intervalMillis;
+        } else if (other.timeMillis != 0) {
+            long startMillis = Math.min(getStartMillis(), other.getStartMillis());
+            timeMillis = Math.max(timeMillis, other.timeMillis);
+            intervalMillis = timeMillis - startMillis;
+        }
+
+        for (Map.Entry<String, Long> entry : other.operationCounts.entrySet()) {
+            Long count = operationCounts.get(entry.getKey());
+            operationCounts.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+        }
+
+        for (Map.Entry<String, HdrLatencyProbeResult> entry : other.latencies.entrySet()) {
+            HdrLatencyProbeResult latency = latencies.get(entry.getKey());
+            latencies.put(entry.getKey(), entry.getValue().combine(latency));
+        }
+
+        for (Map.Entry<String, JvmMetrics> entry : other.jvmMetrics.entrySet()) {
+            JvmMetrics metrics = jvmMetrics.get(entry.getKey());
+            if (metrics == null) {
+                jvmMetrics.put(entry.getKey(), entry.getValue().copy());
+            } else {
+                metrics.add(entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "sequence=" + sequence +
+                ", timeMillis=" + timeMillis +
+                ", intervalMillis=" + intervalMillis +
+                ", operationCounts=" + operationCounts +
+                ", latencies=" + latencies.keySet() +
+                ", jvmMetrics=" + jvmMetrics +
+                '}';
+    }
+}
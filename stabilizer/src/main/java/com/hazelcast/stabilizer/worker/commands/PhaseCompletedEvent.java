@@ -0,0 +1,28 @@
+package com.hazelcast.stabilizer.worker.commands;
+
+import java.io.Serializable;
+
+/**
+ * Is pushed by a worker to its agent as soon as the command running a phase of a test has completed, so the agent
+ * doesn't need to poll the worker to find out.
+ */
+public class PhaseCompletedEvent implements Serializable {
+
+    public static final long serialVersionUID = 0l;
+
+    public final String testId;
+    public final String phase;
+
+    public PhaseCompletedEvent(String testId, String phase) {
+        this.testId = testId;
+        this.phase = phase;
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseCompletedEvent{" +
+                "testId='" + testId + '\'' +
+                ", phase='" + phase + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.hazelcast.stabilizer.worker.commands;
+
+/**
+ * Sets the number of operations per second a single worker should generate for a given test.
+ *
+ * Workers that don't generate load for the test ignore the command.
+ */
+public class SetTargetThroughputCommand extends Command {
+
+    public static final long serialVersionUID = 0l;
+
+    public final String testId;
+    public final double opsPerSecond;
+    public final boolean clientOnly;
+
+    public SetTargetThroughputCommand(String testId, double opsPerSecond, boolean clientOnly) {
+        if (testId == null) {
+            throw new NullPointerException("testId can't be null");
+        }
+        this.testId = testId;
+        this.opsPerSecond = opsPerSecond;
+        this.clientOnly = clientOnly;
+    }
+
+    @Override
+    public String toString() {
+        return "SetTargetThroughputCommand{" +
+                "testId='" + testId + '\'' +
+                ", opsPerSecond=" + opsPerSecond +
+                ", clientOnly=" + clientOnly +
+                '}';
+    }
+}
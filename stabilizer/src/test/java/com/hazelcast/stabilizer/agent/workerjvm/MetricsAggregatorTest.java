@@ -0,0 +1,84 @@
+package com.hazelcast.stabilizer.agent.workerjvm;
+
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsAggregatorTest {
+
+    @Test
+    public void testSnapshotsOfWorkersAreAddedUp() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        aggregator.add(snapshot("map", 10));
+        aggregator.add(snapshot("map", 15));
+        aggregator.flush();
+
+        List<MetricsSnapshot> snapshots = aggregator.poll(0, 0);
+        assertEquals(1, snapshots.size());
+        MetricsSnapshot snapshot = snapshots.get(0);
+        assertEquals(1, snapshot.sequence);
+        assertEquals(25L, (long) snapshot.operationCounts.get("map"));
+    }
+
+    @Test
+    public void testIntervalOfWorkersSideBySide() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        aggregator.add(snapshot("map", 1000, 61000, 1000));
+        aggregator.add(snapshot("map", 3000, 61500, 1000));
+        aggregator.flush();
+
+        MetricsSnapshot snapshot = aggregator.poll(0, 0).get(0);
+        assertEquals(61500, snapshot.timeMillis);
+        assertEquals(1500, snapshot.intervalMillis);
+        assertEquals(4000 / 1.5, snapshot.getOperationsPerSecond(), 0.01);
+    }
+
+    @Test
+    public void testIntervalOfConsecutiveSnapshots() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        aggregator.add(snapshot("map", 1000, 61000, 1000));
+        aggregator.add(snapshot("map", 1000, 62000, 1000));
+        aggregator.flush();
+
+        MetricsSnapshot snapshot = aggregator.poll(0, 0).get(0);
+        assertEquals(62000, snapshot.timeMillis);
+        assertEquals(2000, snapshot.intervalMillis);
+        assertEquals(1000, snapshot.getOperationsPerSecond(), 0.01);
+    }
+
+    @Test
+    public void testPollReturnsOnlyNewerSnapshots() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        aggregator.add(snapshot("map", 10));
+        aggregator.flush();
+        aggregator.add(snapshot("map", 20));
+        aggregator.flush();
+
+        List<MetricsSnapshot> snapshots = aggregator.poll(1, 0);
+        assertEquals(1, snapshots.size());
+        assertEquals(20L, snapshots.get(0).getTotalOperationCount());
+    }
+
+    @Test
+    public void testPollTimesOut() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+
+        assertTrue(aggregator.poll(-1, 10).isEmpty());
+    }
+
+    private static MetricsSnapshot snapshot(String testId, long operationCount) {
+        return snapshot(testId, operationCount, 60000, 60000);
+    }
+
+    private static MetricsSnapshot snapshot(String testId, long operationCount, long timeMillis, long intervalMillis) {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.timeMillis = timeMillis;
+        snapshot.intervalMillis = intervalMillis;
+        snapshot.operationCounts.put(testId, operationCount);
+        return snapshot;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hazelcast.stabilizer.agent.workerjvm;
+
+import com.hazelcast.stabilizer.agent.SpawnWorkerFailedException;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerJvmLauncherTest {
+
+    private final WorkerJvmSettings settings = new WorkerJvmSettings();
+
+    @Test
+    public void getCpuAffinityArgs_taskset() {
+        settings.cpuAffinityCommand = "taskset";
+
+        assertEquals(asList("taskset", "-c", "0-3"), newLauncher().getCpuAffinityArgs("0-3"));
+    }
+
+    @Test
+    public void getCpuAffinityArgs_numactl() {
+        settings.cpuAffinityCommand = "numactl";
+
+        assertEquals(asList("numactl", "--physcpubind=0-3", "--localalloc"), newLauncher().getCpuAffinityArgs("0-3"));
+    }
+
+    @Test
+    public void getCpuAffinityArgs_notBound() {
+        assertTrue(newLauncher().getCpuAffinityArgs(null).isEmpty());
+    }
+
+    @Test(expected = SpawnWorkerFailedException.class)
+    public void getCpuAffinityArgs_unknownCommand() {
+        settings.cpuAffinityCommand = "foo";
+
+        newLauncher().getCpuAffinityArgs("0-3");
+    }
+
+    @Test
+    public void getCpuSet_roundRobin() {
+        settings.memberCpuSets = "0-3 4-7";
+        WorkerJvmLauncher launcher = newLauncher();
+
+        assertEquals("0-3", launcher.getCpuSet("server", 0));
+        assertEquals("4-7", launcher.getCpuSet("server", 1));
+        assertEquals("0-3", launcher.getCpuSet("server", 2));
+        assertNull(launcher.getCpuSet("client", 0));
+    }
+
+    private WorkerJvmLauncher newLauncher() {
+        return new WorkerJvmLauncher(null, new ConcurrentHashMap<String, WorkerJvm>(), settings);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hazelcast.stabilizer.common;
+
+import com.hazelcast.stabilizer.common.wire.WireFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hazelcast.stabilizer.Utils.closeQuietly;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FramedConnectionTest {
+
+    private ServerSocket serverSocket;
+    private FramedConnection client;
+    private FramedConnection server;
+
+    @Before
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null));
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    server = FramedConnection.accept(serverSocket.accept());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        acceptor.start();
+
+        client = FramedConnection.connect(new Socket(InetAddress.getByName(null), serverSocket.getLocalPort()));
+        acceptor.join();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        closeQuietly(client, server);
+        serverSocket.close();
+    }
+
+    @Test
+    public void testVersionIsNegotiated() {
+        assertEquals(WireFormat.VERSION, client.getVersion());
+        assertEquals(WireFormat.VERSION, server.getVersion());
+    }
+
+    @Test
+    public void testFramesInBothDirections() throws Exception {
+        client.writeFrame("worker-1");
+        client.writeFrame(new ArrayList<String>(Arrays.asList("a", "b")));
+        server.writeFrame(new ArrayList<String>());
+
+        assertEquals("worker-1", server.readFrame());
+        assertEquals(Arrays.asList("a", "b"), server.readFrame());
+        assertEquals(0, ((List) client.readFrame()).size());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testReadFromClosedPeer() throws Exception {
+        client.close();
+        assertTrue(client.isClosed());
+
+        server.readFrame();
+    }
+}
@@ -0,0 +1,215 @@
+package com.hazelcast.stabilizer.common.wire;
+
+import com.hazelcast.stabilizer.probes.probes.LinearHistogram;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.impl.DisabledResult;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MaxLatencyResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
+import com.hazelcast.stabilizer.probes.probes.impl.OperationsPerSecondResult;
+import com.hazelcast.stabilizer.probes.probes.impl.ThroughputTimelineResult;
+import com.hazelcast.stabilizer.test.Failure;
+import com.hazelcast.stabilizer.test.TestCase;
+import com.hazelcast.stabilizer.test.TestSuite;
+import com.hazelcast.stabilizer.worker.commands.CommandRequest;
+import com.hazelcast.stabilizer.worker.commands.CommandResponse;
+import com.hazelcast.stabilizer.worker.commands.InitCommand;
+import com.hazelcast.stabilizer.worker.commands.JvmMetrics;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import com.hazelcast.stabilizer.worker.commands.PhaseCompletedEvent;
+import com.hazelcast.stabilizer.worker.commands.SetTargetThroughputCommand;
+import com.hazelcast.stabilizer.worker.commands.StopCommand;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryCodecTest {
+
+    @Test
+    public void testBasicTypes() throws Exception {
+        assertNull(roundTrip(null));
+        assertEquals("foo", roundTrip("foo"));
+        assertEquals(Boolean.TRUE, roundTrip(true));
+        assertEquals(Integer.valueOf(10), roundTrip(10));
+        assertEquals(Long.valueOf(Long.MIN_VALUE), roundTrip(Long.MIN_VALUE));
+        assertEquals(Double.valueOf(1.5d), roundTrip(1.5d));
+        assertEquals(Failure.Type.WORKER_EXCEPTION, roundTrip(Failure.Type.WORKER_EXCEPTION));
+        assertEquals(Arrays.asList("a", null, 1L), roundTrip(Arrays.asList("a", null, 1L)));
+    }
+
+    @Test
+    public void testCommandRequest() throws Exception {
+        TestCase testCase = new TestCase();
+        testCase.id = "map";
+        testCase.setProperty("class", "com.hazelcast.stabilizer.tests.map.StringMapTest");
+        testCase.setProperty("keyCount", "1000");
+
+        CommandRequest request = new CommandRequest();
+        request.id = 300;
+        request.task = new InitCommand(testCase);
+
+        CommandRequest found = roundTrip(request);
+        assertEquals(300, found.id);
+        TestCase foundTestCase = ((InitCommand) found.task).testCase;
+        assertEquals("map", foundTestCase.id);
+        assertEquals(testCase.properties, foundTestCase.properties);
+    }
+
+    @Test
+    public void testCommands() throws Exception {
+        StopCommand stopCommand = new StopCommand("map");
+        stopCommand.timeoutMs = 1000;
+        StopCommand foundStop = roundTrip(stopCommand);
+        assertEquals("map", foundStop.testId);
+        assertEquals(1000, foundStop.timeoutMs);
+
+        SetTargetThroughputCommand foundSet = roundTrip(new SetTargetThroughputCommand("map", 250.5, true));
+        assertEquals("map", foundSet.testId);
+        assertEquals(250.5, foundSet.opsPerSecond, 0);
+        assertTrue(foundSet.clientOnly);
+
+        PhaseCompletedEvent foundEvent = roundTrip(new PhaseCompletedEvent("map", "setup"));
+        assertEquals("map", foundEvent.testId);
+        assertEquals("setup", foundEvent.phase);
+    }
+
+    @Test
+    public void testProbeResults() throws Exception {
+        Histogram histogram = new Histogram(1000, 3);
+        histogram.recordValue(10);
+        histogram.recordValue(100);
+
+        LinearHistogram linearHistogram = new LinearHistogram(100, 10);
+        linearHistogram.addValue(5);
+        linearHistogram.addValue(55);
+        linearHistogram.addMultipleValues(1000, 3);
+
+        Map<String, Result<?>> results = new HashMap<String, Result<?>>();
+        results.put("hdr", new HdrLatencyProbeResult(histogram, histogram));
+        results.put("throughput", new OperationsPerSecondResult(100.5));
+        results.put("max", new MaxLatencyResult(20));
+        results.put("latency", new LatencyDistributionResult(linearHistogram));
+        results.put("timeline", new ThroughputTimelineResult(1400000000, new long[]{100, 0, 200}));
+        results.put("window", new MeasurementWindowResult(1000, 2000));
+        results.put("disabled", new DisabledResult());
+
+        CommandResponse response = new CommandResponse();
+        response.commandId = 1;
+        response.result = results;
+
+        CommandResponse found = roundTrip(response);
+        assertEquals(results, found.result);
+    }
+
+    @Test
+    public void testMetricsSnapshot() throws Exception {
+        Histogram histogram = new Histogram(1000, 3);
+        histogram.recordValue(10);
+
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.sequence = 5;
+        snapshot.timeMillis = 1000;
+        snapshot.intervalMillis = 100;
+        snapshot.operationCounts.put("map", 20L);
+        snapshot.latencies.put("map.latency", new HdrLatencyProbeResult(histogram, null));
+        JvmMetrics jvmMetrics = new JvmMetrics();
+        jvmMetrics.gcCount = 2;
+        jvmMetrics.gcTimeMillis = 30;
+        jvmMetrics.allocatedBytes = 1 << 20;
+        jvmMetrics.heapUsedBytes = 1 << 24;
+        jvmMetrics.heapCommittedBytes = 1 << 25;
+        jvmMetrics.threadCount = 40;
+        jvmMetrics.daemonThreadCount = 30;
+        snapshot.jvmMetrics.put("worker-1", jvmMetrics);
+
+        MetricsSnapshot found = roundTrip(snapshot);
+        assertEquals(5, found.sequence);
+        assertEquals(1000, found.timeMillis);
+        assertEquals(100, found.intervalMillis);
+        assertEquals(snapshot.operationCounts, found.operationCounts);
+        assertEquals(snapshot.latencies, found.latencies);
+        assertEquals(snapshot.jvmMetrics.toString(), found.jvmMetrics.toString());
+        assertEquals(-1, found.jvmMetrics.get("worker-1").safepointTimeMillis);
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        Failure failure = new Failure();
+        failure.type = Failure.Type.WORKER_OOM;
+        failure.message = "out of memory";
+        failure.workerId = "worker-1";
+        failure.testSuite = new TestSuite();
+
+        Failure found = roundTrip(failure);
+        assertEquals(failure.type, found.type);
+        assertEquals(failure.message, found.message);
+        assertEquals(failure.workerId, found.workerId);
+        assertNull(found.agentAddress);
+        assertEquals(failure.time, found.time);
+        assertEquals(failure.testSuite.id, found.testSuite.id);
+    }
+
+    @Test
+    public void testFallbackToJavaSerialization() throws Exception {
+        Exception exception = new IllegalStateException("foo");
+
+        Exception found = roundTrip(exception);
+        assertEquals(IllegalStateException.class, found.getClass());
+        assertEquals("foo", found.getMessage());
+    }
+
+    @Test
+    public void testListsOfLists() throws Exception {
+        List<List<Long>> result = Arrays.asList(Arrays.asList(1L, 2L), Arrays.<Long>asList());
+
+        assertEquals(result, roundTrip(result));
+    }
+
+    @Test
+    public void testReadHeader() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WireFormat.writeHeader(bytes, WireFormat.VERSION);
+        assertEquals(WireFormat.VERSION, WireFormat.readHeader(new ByteArrayInputStream(bytes.toByteArray())));
+
+        bytes = new ByteArrayOutputStream();
+        new ObjectOutputStream(bytes).close();
+        assertEquals(WireFormat.JAVA_SERIALIZATION, WireFormat.readHeader(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testUnknownTagIsRejected() throws Exception {
+        BinaryObjectInput in = new BinaryObjectInput(new ByteArrayInputStream(new byte[]{99}));
+        in.readObject();
+    }
+
+    @Test
+    public void testNegotiate() {
+        assertEquals(WireFormat.VERSION, WireFormat.negotiate(WireFormat.VERSION));
+        assertEquals(WireFormat.VERSION, WireFormat.negotiate((byte) (WireFormat.VERSION + 1)));
+        assertEquals(WireFormat.JAVA_SERIALIZATION, WireFormat.negotiate(WireFormat.JAVA_SERIALIZATION));
+        assertEquals(WireFormat.JAVA_SERIALIZATION, WireFormat.negotiate((byte) (WireFormat.VERSION - 1)));
+    }
+
+    private static <E> E roundTrip(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryObjectOutput out = new BinaryObjectOutput(bytes);
+        out.writeObject(value);
+        out.close();
+
+        BinaryObjectInput in = new BinaryObjectInput(new ByteArrayInputStream(bytes.toByteArray()));
+        return (E) in.readObject();
+    }
+}
@@ -1,6 +1,8 @@
 package com.hazelcast.stabilizer.tests.utils;
 
 import com.hazelcast.stabilizer.Utils;
+import com.hazelcast.stabilizer.test.TestCase;
+import com.hazelcast.stabilizer.test.annotations.TimeStep;
 import com.hazelcast.stabilizer.test.exceptions.BindException;
 import org.junit.Test;
 
@@ -9,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.stabilizer.test.utils.PropertyBindingSupport.bindProperties;
 import static com.hazelcast.stabilizer.test.utils.PropertyBindingSupport.bindProperty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -117,6 +120,60 @@ public class PropertyBindingSupportTest {
         bindProperty(someObject, "notexist.stringField", "newvalue");
     }
 
+    @Test
+    public void bindProperties_timeStepSettingsNotBound() throws Exception {
+        TestCase testCase = new TestCase();
+        testCase.setProperty("threadCount", "5");
+        testCase.setProperty("maxInFlight", "2");
+        testCase.setProperty("stringField", "foo");
+        TimeStepObject timeStepObject = new TimeStepObject();
+
+        bindProperties(timeStepObject, testCase);
+
+        assertEquals("foo", timeStepObject.stringField);
+        assertEquals(5, testCase.getThreadCount());
+        assertEquals(2, testCase.getMaxInFlight());
+    }
+
+    @Test
+    public void bindProperties_timeStepSettingsNotBound_inheritedTimeStep() throws Exception {
+        TestCase testCase = new TestCase();
+        testCase.setProperty("threadCount", "5");
+
+        bindProperties(new InheritedTimeStepObject(), testCase);
+
+        assertEquals(5, testCase.getThreadCount());
+    }
+
+    @Test
+    public void bindProperties_operationSeedNotBound() throws Exception {
+        TestCase testCase = new TestCase();
+        testCase.setProperty("operationSeed", "42");
+
+        bindProperties(new SomeObject(), testCase);
+
+        assertEquals(Long.valueOf(42), testCase.getOperationSeed());
+    }
+
+    @Test(expected = BindException.class)
+    public void bindProperties_threadCountWithoutTimeStep() throws Exception {
+        TestCase testCase = new TestCase();
+        testCase.setProperty("threadCount", "5");
+
+        bindProperties(new SomeObject(), testCase);
+    }
+
+    class TimeStepObject {
+        private String stringField;
+
+        @TimeStep
+        void timeStep() {
+        }
+    }
+
+    class InheritedTimeStepObject extends TimeStepObject {
+    }
+
     class SomeObject {
         private String stringField;
         private TimeUnit enumField;
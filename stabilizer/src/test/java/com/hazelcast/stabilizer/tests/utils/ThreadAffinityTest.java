@@ -0,0 +1,43 @@
+package com.hazelcast.stabilizer.tests.utils;
+
+import com.hazelcast.stabilizer.test.utils.ThreadAffinity;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ThreadAffinityTest {
+
+    @After
+    public void tearDown() {
+        ThreadAffinity.configure(null);
+    }
+
+    @Test
+    public void parseCpuSet() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, ThreadAffinity.parseCpuSet("0-3,8,10-11"));
+    }
+
+    @Test
+    public void parseCpuSet_singleCpu() {
+        assertArrayEquals(new int[]{5}, ThreadAffinity.parseCpuSet(" 5 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseCpuSet_reversedRange() {
+        ThreadAffinity.parseCpuSet("3-0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseCpuSet_notANumber() {
+        ThreadAffinity.parseCpuSet("0-x");
+    }
+
+    @Test
+    public void configure_disabled() {
+        assertArrayEquals(new int[0], ThreadAffinity.configure(null));
+
+        // without CPUs this must not touch the thread
+        ThreadAffinity.pinCurrentThread();
+    }
+}
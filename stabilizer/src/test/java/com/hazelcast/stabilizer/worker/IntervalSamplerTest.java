@@ -0,0 +1,120 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
+import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.test.TestContext;
+import com.hazelcast.stabilizer.test.annotations.Run;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalSamplerTest {
+
+    private final List<TestContainer<TestContext>> testContainers = new CopyOnWriteArrayList<TestContainer<TestContext>>();
+    private ProbeTest test;
+    private TestContainer<TestContext> testContainer;
+    private IntervalSampler sampler;
+
+    @Before
+    public void setUp() {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("latency", "hdr");
+        test = new ProbeTest();
+        testContainer = new TestContainer<TestContext>(test, new TestContainerTest.DummyTestContext(),
+                probesConfiguration);
+        testContainers.add(testContainer);
+        sampler = new IntervalSampler(testContainers, 1000);
+    }
+
+    @Test
+    public void sample_listenersShareTheIntervalResults() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        sampler.addListener(first);
+        sampler.addListener(second);
+
+        record(3);
+        sampler.sample();
+
+        assertEquals(1, first.results.size());
+        assertSame(first.results.get(0), second.results.get(0));
+        assertEquals(3, getLatencyCount(first.results.get(0)));
+    }
+
+    @Test
+    public void sample_everyIntervalIsHandedOutOnce() {
+        RecordingListener listener = new RecordingListener();
+        sampler.addListener(listener);
+
+        record(3);
+        sampler.sample();
+        record(2);
+        sampler.sample();
+
+        assertEquals(3, getLatencyCount(listener.results.get(0)));
+        assertEquals(2, getLatencyCount(listener.results.get(1)));
+    }
+
+    @Test
+    public void sample_removedTestIsSampledOnceMore() {
+        RecordingListener listener = new RecordingListener();
+        sampler.addListener(listener);
+        sampler.sample();
+
+        record(4);
+        testContainers.remove(testContainer);
+        sampler.sample();
+        sampler.sample();
+
+        assertEquals(4, getLatencyCount(listener.results.get(1)));
+        assertEquals(1, listener.removed.get(1).size());
+        assertTrue(listener.results.get(2).isEmpty());
+        assertTrue(listener.removed.get(2).isEmpty());
+    }
+
+    private void record(int count) {
+        for (int k = 0; k < count; k++) {
+            test.latency.started();
+            test.latency.done();
+        }
+    }
+
+    private long getLatencyCount(Map<TestContainer<TestContext>, Map<String, Result<?>>> results) {
+        HdrLatencyProbeResult result = (HdrLatencyProbeResult) results.get(testContainer).get("latency");
+        return result.getHistogram().getTotalCount();
+    }
+
+    static class ProbeTest {
+        IntervalProbe latency;
+
+        @Run
+        void run() {
+        }
+    }
+
+    static class RecordingListener implements IntervalSampler.Listener {
+        final List<Map<TestContainer<TestContext>, Map<String, Result<?>>>> results
+                = new ArrayList<Map<TestContainer<TestContext>, Map<String, Result<?>>>>();
+        final List<Collection<TestContainer<TestContext>>> removed
+                = new ArrayList<Collection<TestContainer<TestContext>>>();
+
+        @Override
+        public void onInterval(long startMillis, long endMillis,
+                               Map<TestContainer<TestContext>, Map<String, Result<?>>> results,
+                               Collection<TestContainer<TestContext>> removed) {
+            this.results.add(results);
+            this.removed.add(removed);
+        }
+    }
+}
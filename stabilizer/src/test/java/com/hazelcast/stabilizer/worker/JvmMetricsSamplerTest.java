@@ -0,0 +1,74 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.stabilizer.worker.commands.JvmMetrics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JvmMetricsSamplerTest {
+
+    private final JvmMetricsSampler sampler = new JvmMetricsSampler();
+
+    private static volatile byte[] sink;
+
+    @Test
+    public void sample() {
+        JvmMetrics metrics = sampler.sample();
+
+        assertTrue(metrics.heapUsedBytes > 0);
+        assertTrue(metrics.heapCommittedBytes >= metrics.heapUsedBytes);
+        assertTrue(metrics.threadCount > 0);
+        assertTrue(metrics.daemonThreadCount <= metrics.threadCount);
+    }
+
+    @Test
+    public void sample_gc() {
+        sampler.sample();
+        System.gc();
+
+        JvmMetrics metrics = sampler.sample();
+        assertTrue(metrics.gcCount >= 1);
+        assertTrue(metrics.gcTimeMillis >= 0);
+
+        metrics = sampler.sample();
+        assertEquals(0, metrics.gcCount);
+    }
+
+    @Test
+    public void sample_allocatedBytes() {
+        sampler.sample();
+        for (int k = 0; k < 10; k++) {
+            sink = new byte[1024 * 1024];
+        }
+
+        JvmMetrics metrics = sampler.sample();
+        if (metrics.allocatedBytes >= 0) {
+            assertTrue(metrics.allocatedBytes >= 10 * 1024 * 1024);
+        }
+    }
+
+    @Test
+    public void add() {
+        JvmMetrics first = new JvmMetrics();
+        first.gcCount = 1;
+        first.gcTimeMillis = 10;
+        first.safepointTimeMillis = 5;
+        first.allocatedBytes = 100;
+        first.threadCount = 10;
+
+        JvmMetrics second = new JvmMetrics();
+        second.gcCount = 2;
+        second.gcTimeMillis = 20;
+        second.allocatedBytes = 200;
+        second.threadCount = 12;
+
+        first.add(second);
+
+        assertEquals(3, first.gcCount);
+        assertEquals(30, first.gcTimeMillis);
+        assertEquals(-1, first.safepointTimeMillis);
+        assertEquals(300, first.allocatedBytes);
+        assertEquals(12, first.threadCount);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hazelcast.stabilizer.worker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MeasurementWindowTest {
+
+    @Test
+    public void isStable() {
+        assertTrue(MeasurementWindow.isStable(new long[]{1000, 1020, 980, 1010, 990}));
+    }
+
+    @Test
+    public void isStable_rampingUp() {
+        assertFalse(MeasurementWindow.isStable(new long[]{100, 400, 700, 1000, 1000}));
+    }
+
+    @Test
+    public void isStable_noOperations() {
+        assertFalse(MeasurementWindow.isStable(new long[]{0, 0, 0, 0, 0}));
+    }
+}
@@ -0,0 +1,45 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.test.TestContext;
+import com.hazelcast.stabilizer.worker.commands.MetricsSnapshot;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsPublisherTest {
+
+    private final LinkedBlockingDeque<Object> responseQueue = new LinkedBlockingDeque<Object>();
+    private final MetricsPublisher publisher = new MetricsPublisher(responseQueue, "worker");
+
+    @Test
+    public void onInterval_dropsStaleSnapshots() {
+        Object response = new Object();
+        responseQueue.add(response);
+
+        for (int k = 0; k < 3 * MetricsPublisher.MAX_QUEUED_SNAPSHOTS; k++) {
+            publish(k * 1000L);
+        }
+
+        assertEquals(MetricsPublisher.MAX_QUEUED_SNAPSHOTS + 1, responseQueue.size());
+        assertSame(response, responseQueue.poll());
+        long expectedTimeMillis = 2 * MetricsPublisher.MAX_QUEUED_SNAPSHOTS * 1000L + 1000;
+        for (Object snapshot : responseQueue) {
+            assertTrue(snapshot instanceof MetricsSnapshot);
+            assertEquals(expectedTimeMillis, ((MetricsSnapshot) snapshot).timeMillis);
+            expectedTimeMillis += 1000;
+        }
+    }
+
+    private void publish(long startMillis) {
+        Map<TestContainer<TestContext>, Map<String, Result<?>>> results = Collections.emptyMap();
+        publisher.onInterval(startMillis, startMillis + 1000, results,
+                Collections.<TestContainer<TestContext>>emptyList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.stabilizer.probes.probes.ProbeThread;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OperationCounterTest {
+
+    private final OperationCounter counter = new OperationCounter();
+
+    @Test
+    public void get_noOperations() {
+        assertEquals(0, counter.get());
+        assertTrue(counter.getOperationCounts().isEmpty());
+    }
+
+    @Test
+    public void add() {
+        counter.increment();
+        counter.add(10);
+
+        assertEquals(11, counter.get());
+    }
+
+    @Test
+    public void concurrentIncrements() throws InterruptedException {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int k = 0; k < 4; k++) {
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        counter.increment(i % 4 == 0 ? Operation.PUT : Operation.GET);
+                    }
+                }
+            };
+            // mix probe threads, which use a slot, and plain threads, which use a thread local.
+            threads.add(k % 2 == 0 ? new ProbeThread(task, "counter-" + k) : new Thread(task));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400000, counter.get());
+        Map<String, Long> operationCounts = counter.getOperationCounts();
+        assertEquals(Long.valueOf(100000), operationCounts.get("PUT"));
+        assertEquals(Long.valueOf(300000), operationCounts.get("GET"));
+    }
+
+    @Test
+    public void countType() {
+        counter.increment();
+        counter.countType(Operation.GET);
+
+        assertEquals(1, counter.get());
+        assertEquals(Long.valueOf(1), counter.getOperationCounts().get("GET"));
+        assertEquals(Long.valueOf(0), counter.getOperationCounts().get("PUT"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void increment_differentOperationTypes() {
+        counter.increment(Operation.PUT);
+        counter.increment(Thread.State.NEW);
+    }
+
+    private enum Operation {
+        PUT, GET
+    }
+}
@@ -1,11 +1,16 @@
 package com.hazelcast.stabilizer.worker;
 
+import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class OperationSelectorTest {
@@ -68,6 +73,122 @@ public class OperationSelectorTest {
         assertCountIsWithinTolerance(MyOps.OP3, op3Count, op3Prob);
     }
 
+    @Test
+    public void testSelect_remainingProbability() {
+        selector.addOperation(MyOps.OP1, 0.25)
+                .addOperationRemainingProbability(MyOps.OP2);
+        Map<MyOps, Integer> opsStats = exerciseSelector(selector);
+
+        assertCountIsWithinTolerance(MyOps.OP1, opsStats.get(MyOps.OP1), 0.25);
+        assertCountIsWithinTolerance(MyOps.OP2, opsStats.get(MyOps.OP2), 0.75);
+        assertNull(opsStats.get(null));
+    }
+
+    @Test
+    public void testSelect_noOperations() {
+        selector.empty(MyOps.EMPTY);
+
+        assertEquals(MyOps.EMPTY, selector.select());
+    }
+
+    @Test
+    public void testSelect_sameSeedGivesSameSequence() {
+        OperationSelector<MyOps> selector1 = newSeededSelector(42);
+        OperationSelector<MyOps> selector2 = newSeededSelector(42);
+        OperationSelector<MyOps> selector3 = newSeededSelector(43);
+
+        StringBuilder sequence1 = new StringBuilder();
+        StringBuilder sequence2 = new StringBuilder();
+        StringBuilder sequence3 = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sequence1.append(selector1.select().ordinal());
+            sequence2.append(selector2.select().ordinal());
+            sequence3.append(selector3.select().ordinal());
+        }
+        assertEquals(sequence1.toString(), sequence2.toString());
+        assertNotEquals(sequence1.toString(), sequence3.toString());
+    }
+
+    @Test
+    public void testSelect_spawnedThreadsIndependentOfStartOrder() throws Exception {
+        // the second thread selects first in the first run, the first thread in the second run
+        String[] sequences1 = selectBySpawnedThreads(newSeededSelector(42), 1);
+        String[] sequences2 = selectBySpawnedThreads(newSeededSelector(42), 0);
+
+        assertEquals(sequences1[0], sequences2[0]);
+        assertEquals(sequences1[1], sequences2[1]);
+        assertNotEquals(sequences1[0], sequences1[1]);
+    }
+
+    @Test
+    public void testSetSeed() {
+        OperationSelector<MyOps> selector1 = newSeededSelector(42);
+        OperationSelector<MyOps> selector2 = newSeededSelector(43);
+        selector2.setSeed(42);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(selector1.select(), selector2.select());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSetSeed_afterSelect() {
+        selector.addOperation(MyOps.OP1, 0.5);
+        selector.select();
+
+        selector.setSeed(42);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddOperations_cannotBeAddedAfterSelect() {
+        selector.addOperation(MyOps.OP1, 0.5);
+        selector.select();
+
+        selector.addOperation(MyOps.OP2, 0.5);
+    }
+
+    // every spawned thread selects a sequence once the thread with the given index has finished selecting
+    private static String[] selectBySpawnedThreads(final OperationSelector<MyOps> selector, final int firstThreadIndex) {
+        final String[] sequences = new String[2];
+        final CountDownLatch firstDone = new CountDownLatch(1);
+        ThreadSpawner spawner = new ThreadSpawner();
+        for (int k = 0; k < sequences.length; k++) {
+            spawner.spawn(new Runnable() {
+                @Override
+                public void run() {
+                    int threadIndex = ThreadSpawner.getThreadIndex();
+                    if (threadIndex != firstThreadIndex) {
+                        await(firstDone);
+                    }
+                    StringBuilder sequence = new StringBuilder();
+                    for (int i = 0; i < 1000; i++) {
+                        sequence.append(selector.select().ordinal());
+                    }
+                    sequences[threadIndex] = sequence.toString();
+                    firstDone.countDown();
+                }
+            });
+        }
+        spawner.awaitCompletion();
+        return sequences;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static OperationSelector<MyOps> newSeededSelector(long seed) {
+        return new OperationSelector<MyOps>(seed)
+                .addOperation(MyOps.OP1, 0.3)
+                .addOperation(MyOps.OP2, 0.3)
+                .addOperation(MyOps.OP3, 0.3)
+                .empty(MyOps.EMPTY);
+    }
+
     private void assertCountIsWithinTolerance(MyOps op, int count, double probability) {
         double lowerBound = (ITERATIONS * probability - ITERATIONS * TOLERANCE);
         double upperBound = (ITERATIONS * probability + ITERATIONS * TOLERANCE);
@@ -2,6 +2,9 @@ package com.hazelcast.stabilizer.worker;
 
 import org.junit.Test;
 
+import static com.hazelcast.stabilizer.probes.probes.IntervalProbe.NOT_SCHEDULED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class SimpleMetronomeTest {
@@ -22,4 +25,73 @@ public class SimpleMetronomeTest {
             lastTimestamp = startTimestamp;
         }
     }
+
+    @Test
+    public void testWaitStrategies() {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            assertFixedSchedule(SimpleMetronome.withRate(1000, waitStrategy));
+        }
+    }
+
+    @Test
+    public void testScheduleDoesNotDrift() throws Exception {
+        long intervalNanos = MILLISECONDS.toNanos(1);
+        Metronome metronome = SimpleMetronome.withFixedIntervalNanos(intervalNanos, WaitStrategy.PARK);
+
+        metronome.waitForNext();
+        long firstIntendedStart = metronome.getIntendedStartNanos();
+
+        // a stalled operation doesn't move the schedule
+        Thread.sleep(10);
+        for (int i = 1; i <= 10; i++) {
+            metronome.waitForNext();
+            assertEquals(firstIntendedStart + i * intervalNanos, metronome.getIntendedStartNanos());
+        }
+    }
+
+    @Test
+    public void testNoRateLimit() {
+        MetronomeSettings settings = new MetronomeSettings();
+        Metronome metronome = settings.newMetronome(10);
+
+        metronome.waitForNext();
+        assertEquals(NOT_SCHEDULED, metronome.getIntendedStartNanos());
+        assertEquals(NOT_SCHEDULED, SimpleMetronome.withRate(0, WaitStrategy.PARK).getIntendedStartNanos());
+    }
+
+    @Test
+    public void testFollowsSettings() {
+        MetronomeSettings settings = new MetronomeSettings();
+        settings.waitStrategy = WaitStrategy.PARK;
+        Metronome metronome = settings.newMetronome(2);
+
+        // no rate limit yet, so there is no intended start
+        metronome.waitForNext();
+        assertEquals(NOT_SCHEDULED, metronome.getIntendedStartNanos());
+
+        // 2000 ops/s divided over 2 threads gives an interval of 1 ms per thread
+        settings.opsPerSecond = 2000;
+        metronome.waitForNext();
+        long previousIntendedStart = metronome.getIntendedStartNanos();
+        metronome.waitForNext();
+        assertEquals(previousIntendedStart + MILLISECONDS.toNanos(1), metronome.getIntendedStartNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRate() {
+        SimpleMetronome.withRate(-1, WaitStrategy.PARK);
+    }
+
+    private void assertFixedSchedule(Metronome metronome) {
+        long intervalNanos = MILLISECONDS.toNanos(1);
+        metronome.waitForNext();
+        long previousIntendedStart = metronome.getIntendedStartNanos();
+        for (int i = 0; i < 10; i++) {
+            metronome.waitForNext();
+            long intendedStart = metronome.getIntendedStartNanos();
+            assertEquals(previousIntendedStart + intervalNanos, intendedStart);
+            assertTrue(System.nanoTime() >= intendedStart);
+            previousIntendedStart = intendedStart;
+        }
+    }
 }
@@ -1,11 +1,16 @@
 package com.hazelcast.stabilizer.worker;
 
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.stabilizer.common.messaging.Message;
 import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
 import com.hazelcast.stabilizer.probes.probes.ProbesConfiguration;
+import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
 import com.hazelcast.stabilizer.probes.probes.impl.DisabledProbe;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
+import com.hazelcast.stabilizer.probes.probes.impl.MeasurementWindowResult;
 import com.hazelcast.stabilizer.test.exceptions.IllegalTestException;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.annotations.Name;
@@ -13,16 +18,28 @@ import com.hazelcast.stabilizer.test.annotations.Performance;
 import com.hazelcast.stabilizer.test.annotations.Receive;
 import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
+import com.hazelcast.stabilizer.test.annotations.TimeStep;
 import com.hazelcast.stabilizer.test.annotations.Verify;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TestContainerTest {
     // =================== setup ========================
@@ -243,6 +260,470 @@ public class TestContainerTest {
         }
     }
 
+    @Test
+    public void performance_operationCounter() throws Throwable {
+        OperationCounterTest test = new OperationCounterTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), new ProbesConfiguration());
+        invoker.run();
+
+        assertEquals(3, invoker.getOperationCount());
+        Map<String, Long> operationCounts = invoker.getOperationCounts();
+        assertEquals(Long.valueOf(2), operationCounts.get("PUT"));
+        assertEquals(Long.valueOf(1), operationCounts.get("GET"));
+    }
+
+    @Test
+    public void performance_notAvailable() throws Throwable {
+        TestContainer invoker = new TestContainer(new TargetThroughputTest(), new DummyTestContext(),
+                new ProbesConfiguration());
+
+        assertEquals(-1, invoker.getOperationCount());
+        assertTrue(invoker.getOperationCounts().isEmpty());
+    }
+
+    static class OperationCounterTest {
+        enum Operation {
+            PUT, GET
+        }
+
+        private OperationCounter operationCounter;
+
+        @Run
+        void run() {
+            operationCounter.increment(Operation.PUT);
+            operationCounter.increment(Operation.PUT);
+            operationCounter.increment(Operation.GET);
+        }
+    }
+
+    // =================== operation probes ========================
+
+    @Test
+    public void operationProbes() throws Throwable {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("OperationSelectorTest", "maxLatency");
+        OperationSelectorTest test = new OperationSelectorTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), probesConfiguration);
+        invoker.setup();
+        invoker.run();
+
+        Map<String, Result<?>> results = invoker.getProbeResults();
+        assertNotNull(results.get("OperationSelectorTest.PUT"));
+        assertNotNull(results.get("OperationSelectorTest.GET"));
+        assertNotNull(results.get("OperationSelectorTest"));
+    }
+
+    @Test
+    public void operationProbes_notConfigured() throws Throwable {
+        OperationSelectorTest test = new OperationSelectorTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), new ProbesConfiguration());
+        invoker.setup();
+        invoker.run();
+
+        assertTrue(invoker.getProbeResults().isEmpty());
+    }
+
+    static class OperationSelectorTest {
+        enum Operation {
+            PUT, GET
+        }
+
+        private OperationSelector<Operation> selector = new OperationSelector<Operation>();
+
+        @Setup
+        void setup(TestContext context) {
+            selector.addOperation(Operation.PUT, 0.5)
+                    .addOperationRemainingProbability(Operation.GET);
+        }
+
+        @Run
+        void run() {
+            for (Operation operation : Operation.values()) {
+                selector.started(operation);
+                selector.done(operation);
+            }
+        }
+    }
+
+    @Test
+    public void operationProbes_timeStep() throws Throwable {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("timeStep", "hdr");
+        TimeStepOperationSelectorTest test = new TimeStepOperationSelectorTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), probesConfiguration);
+        invoker.setup();
+        invoker.run();
+
+        Map<String, Result<?>> results = invoker.getProbeResults();
+        HdrLatencyProbeResult putResult = (HdrLatencyProbeResult) results.get("TimeStepOperationSelectorTest.PUT");
+        HdrLatencyProbeResult getResult = (HdrLatencyProbeResult) results.get("TimeStepOperationSelectorTest.GET");
+        long puts = putResult.getHistogram().getTotalCount();
+        long gets = getResult.getHistogram().getTotalCount();
+        assertEquals(test.puts.get(), puts);
+        assertEquals(TimeStepOperationSelectorTest.ITERATIONS, puts + gets);
+    }
+
+    static class TimeStepOperationSelectorTest {
+        static final int ITERATIONS = 1000;
+
+        enum Operation {
+            PUT, GET
+        }
+
+        private OperationSelector<Operation> selector = new OperationSelector<Operation>();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger puts = new AtomicInteger();
+        TestContext context;
+
+        @Setup
+        void setup(TestContext context) {
+            this.context = context;
+            selector.addOperation(Operation.PUT, 0.5)
+                    .addOperationRemainingProbability(Operation.GET);
+        }
+
+        // doesn't measure anything itself
+        @TimeStep(threadCount = 1)
+        void timeStep() {
+            if (selector.select() == Operation.PUT) {
+                puts.incrementAndGet();
+            }
+            if (calls.incrementAndGet() == ITERATIONS) {
+                context.stop();
+            }
+        }
+    }
+
+    // =================== time step ========================
+
+    @Test
+    public void timeStep() throws Throwable {
+        TimeStepTest test = new TimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        invoker.setup();
+        invoker.run();
+
+        assertEquals(TimeStepTest.ITERATIONS, test.calls.get());
+        assertEquals(TimeStepTest.ITERATIONS, invoker.getOperationCount());
+    }
+
+    @Test
+    public void timeStep_threadCountOverride() throws Throwable {
+        ThreadCountTest test = new ThreadCountTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        invoker.setTimeStepSettings(ThreadCountTest.THREAD_COUNT, 0);
+        invoker.setup();
+        invoker.run();
+
+        assertEquals(ThreadCountTest.THREAD_COUNT, test.threads.size());
+    }
+
+    @Test
+    public void timeStep_inherited() throws Throwable {
+        InheritedTimeStepTest test = new InheritedTimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        invoker.setup();
+        invoker.run();
+
+        assertEquals(TimeStepTest.ITERATIONS, test.calls.get());
+        assertTrue(TestContainer.hasTimeStepMethod(InheritedTimeStepTest.class));
+    }
+
+    @Test
+    public void timeStep_overridden() throws Throwable {
+        OverriddenTimeStepTest test = new OverriddenTimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        invoker.setup();
+        invoker.run();
+
+        assertEquals(TimeStepTest.ITERATIONS, test.overriddenCalls.get());
+        assertEquals(0, test.calls.get());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void timeStep_andRun() throws Throwable {
+        new TestContainer(new TimeStepAndRunTest(), new DummyTestContext(), new ProbesConfiguration());
+    }
+
+    static class TimeStepTest {
+        static final int ITERATIONS = 1000;
+
+        AtomicInteger calls = new AtomicInteger();
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        TestContext context;
+
+        @Setup
+        void setup(TestContext context) {
+            this.context = context;
+        }
+
+        @TimeStep(threadCount = 1)
+        void timeStep() {
+            threads.add(Thread.currentThread());
+            if (calls.incrementAndGet() == ITERATIONS) {
+                context.stop();
+            }
+        }
+    }
+
+    static class InheritedTimeStepTest extends TimeStepTest {
+    }
+
+    static class OverriddenTimeStepTest extends TimeStepTest {
+        AtomicInteger overriddenCalls = new AtomicInteger();
+
+        @Override
+        @TimeStep(threadCount = 1)
+        void timeStep() {
+            if (overriddenCalls.incrementAndGet() == ITERATIONS) {
+                context.stop();
+            }
+        }
+    }
+
+    // runs until all threads made a time step, since a single thread could otherwise do all the work
+    static class ThreadCountTest {
+        static final int THREAD_COUNT = 3;
+        static final int MAX_ITERATIONS = 100 * 1000 * 1000;
+
+        AtomicInteger calls = new AtomicInteger();
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        TestContext context;
+
+        @Setup
+        void setup(TestContext context) {
+            this.context = context;
+        }
+
+        @TimeStep(threadCount = 1)
+        void timeStep() {
+            threads.add(Thread.currentThread());
+            if (threads.size() == THREAD_COUNT || calls.incrementAndGet() == MAX_ITERATIONS) {
+                context.stop();
+            }
+        }
+    }
+
+    @Test
+    public void timeStep_async() throws Throwable {
+        AsyncTimeStepTest test = new AsyncTimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        invoker.setup();
+        invoker.run();
+
+        assertEquals(AsyncTimeStepTest.ITERATIONS, invoker.getOperationCount());
+        // the operations are issued with 1, 2, 3 and 4 in flight
+        assertEquals(2.5, invoker.getAveragePipelineDepth(), 0.01);
+    }
+
+    static class AsyncTimeStepTest {
+        static final int ITERATIONS = 1000;
+        static final int MAX_IN_FLIGHT = 4;
+
+        AtomicInteger calls = new AtomicInteger();
+        List<ExecutionCallback> callbacks = new ArrayList<ExecutionCallback>();
+        TestContext context;
+
+        @Setup
+        void setup(TestContext context) {
+            this.context = context;
+        }
+
+        // completes the operations in batches of maxInFlight
+        @TimeStep(threadCount = 1, maxInFlight = MAX_IN_FLIGHT)
+        ICompletableFuture timeStep() {
+            if (calls.incrementAndGet() == ITERATIONS) {
+                context.stop();
+            }
+            return new ICompletableFutureStub() {
+                @Override
+                public void andThen(ExecutionCallback callback) {
+                    callbacks.add(callback);
+                    if (callbacks.size() == MAX_IN_FLIGHT || context.isStopped()) {
+                        for (ExecutionCallback pending : callbacks) {
+                            pending.onResponse(null);
+                        }
+                        callbacks.clear();
+                    }
+                }
+            };
+        }
+    }
+
+    abstract static class ICompletableFutureStub implements ICompletableFuture<Object> {
+        @Override
+        public void andThen(ExecutionCallback<Object> callback, Executor executor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class TimeStepAndRunTest {
+        @Run
+        void run() {
+        }
+
+        @TimeStep
+        void timeStep() {
+        }
+    }
+
+    // =================== measurement window ========================
+
+    @Test
+    public void measurementWindow() throws Throwable {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("timeStep", "hdr");
+        WindowedTimeStepTest test = new WindowedTimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), probesConfiguration);
+        test.invoker = invoker;
+        invoker.setMeasurementWindow(60, false);
+        invoker.setup();
+        invoker.run();
+
+        Map<String, Result<?>> results = invoker.getProbeResults();
+        MeasurementWindowResult window = (MeasurementWindowResult) results.get(TestContainer.MEASUREMENT_WINDOW_RESULT);
+        assertNotNull(window);
+        assertTrue(window.getEndMillis() >= window.getStartMillis());
+
+        // the time step that opens the window completes inside it
+        long recorded = ((HdrLatencyProbeResult) results.get("timeStep")).getHistogram().getTotalCount();
+        assertEquals(WindowedTimeStepTest.STOP_ITERATION - WindowedTimeStepTest.OPEN_ITERATION + 1, recorded);
+    }
+
+    @Test
+    public void measurementWindow_closedWhenRunFails() throws Throwable {
+        FailingWindowTest test = new FailingWindowTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), new ProbesConfiguration());
+        test.invoker = invoker;
+        invoker.setMeasurementWindow(60, false);
+        invoker.setup();
+        try {
+            invoker.run();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        MeasurementWindowResult window = (MeasurementWindowResult) invoker.getProbeResults()
+                .get(TestContainer.MEASUREMENT_WINDOW_RESULT);
+        Thread.sleep(10);
+        // an open window ends now, a closed one keeps its end
+        assertEquals(window, invoker.getProbeResults().get(TestContainer.MEASUREMENT_WINDOW_RESULT));
+    }
+
+    @Test
+    public void measurementWindow_closedBeforeOpened() throws Throwable {
+        ProbesConfiguration probesConfiguration = new ProbesConfiguration();
+        probesConfiguration.addConfig("timeStep", "hdr");
+        TimeStepTest test = new TimeStepTest();
+        TestContainer invoker = new TestContainer(test, new StoppableTestContext(), probesConfiguration);
+        invoker.setMeasurementWindow(60, false);
+        invoker.setup();
+        invoker.run();
+
+        Map<String, Result<?>> results = invoker.getProbeResults();
+        assertNull(results.get(TestContainer.MEASUREMENT_WINDOW_RESULT));
+        assertEquals(0, ((HdrLatencyProbeResult) results.get("timeStep")).getHistogram().getTotalCount());
+    }
+
+    static class WindowedTimeStepTest {
+        static final int OPEN_ITERATION = 10;
+        static final int STOP_ITERATION = 30;
+
+        TestContainer invoker;
+        TestContext context;
+        int iteration;
+
+        @Setup
+        void setup(TestContext context) {
+            this.context = context;
+        }
+
+        @TimeStep(threadCount = 1)
+        void timeStep() {
+            iteration++;
+            if (iteration == OPEN_ITERATION) {
+                invoker.openMeasurementWindow();
+            } else if (iteration == STOP_ITERATION) {
+                context.stop();
+            }
+        }
+    }
+
+    static class FailingWindowTest {
+        TestContainer invoker;
+
+        @Run
+        void run() {
+            invoker.openMeasurementWindow();
+            throw new IllegalStateException();
+        }
+    }
+
+    // =================== target throughput ========================
+
+    @Test
+    public void targetThroughput() throws Throwable {
+        TargetThroughputTest test = new TargetThroughputTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), new ProbesConfiguration());
+        assertTrue(invoker.setTargetThroughput(1000));
+
+        assertEquals(1000, test.metronomeSettings.opsPerSecond, 0);
+        assertEquals(1000, invoker.getTargetThroughput(), 0);
+    }
+
+    @Test
+    public void targetThroughput_setAgain() throws Throwable {
+        TargetThroughputTest test = new TargetThroughputTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), new ProbesConfiguration());
+        invoker.setTargetThroughput(1000);
+        test.metronomeSettings = new MetronomeSettings();
+
+        // e.g. a replaced worker, which missed the first command
+        assertTrue(invoker.setTargetThroughput(1000));
+        assertEquals(1000, test.metronomeSettings.opsPerSecond, 0);
+    }
+
+    @Test
+    public void targetThroughput_noMetronomeSettings() throws Throwable {
+        DummyTest test = new DummyTest();
+        TestContainer invoker = new TestContainer(test, new DummyTestContext(), new ProbesConfiguration());
+
+        assertFalse(invoker.setTargetThroughput(1000));
+    }
+
+    static class TargetThroughputTest {
+        public MetronomeSettings metronomeSettings = new MetronomeSettings();
+
+        @Run
+        void run() {
+        }
+    }
+
     static class DummyTest {
         boolean runCalled;
         boolean setupCalled;
@@ -290,4 +771,18 @@ public class TestContainerTest {
             throw new UnsupportedOperationException("Not implemented");
         }
     }
+
+    static class StoppableTestContext extends DummyTestContext {
+        private volatile boolean stopped;
+
+        @Override
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.hazelcast.stabilizer.worker;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyDistributionProbe;
+import com.hazelcast.stabilizer.test.TestContext;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeStepRunnerTest {
+
+    @Test
+    public void run_lostOperations() throws Exception {
+        TestContext testContext = new TestContainerTest.StoppableTestContext();
+        NeverCompletingTest test = new NeverCompletingTest(testContext);
+        Method timeStepMethod = NeverCompletingTest.class.getDeclaredMethod("timeStep");
+        timeStepMethod.setAccessible(true);
+
+        TimeStepRunner runner = new TimeStepRunner(test, timeStepMethod, testContext, 1,
+                NeverCompletingTest.MAX_IN_FLIGHT, new MetronomeSettings(), new HdrLatencyDistributionProbe(),
+                new OperationCounter());
+        runner.drainTimeoutMillis = 10;
+        runner.run();
+
+        assertEquals(NeverCompletingTest.MAX_IN_FLIGHT, test.calls.get());
+        assertEquals(NeverCompletingTest.MAX_IN_FLIGHT, runner.getLostOperationCount());
+    }
+
+    @Test
+    public void run_failedOperations() throws Exception {
+        TestContext testContext = new TestContainerTest.StoppableTestContext();
+        FailingTest test = new FailingTest(testContext);
+        Method timeStepMethod = FailingTest.class.getDeclaredMethod("timeStep");
+        timeStepMethod.setAccessible(true);
+
+        TimeStepRunner runner = new TimeStepRunner(test, timeStepMethod, testContext, 1, 4, new MetronomeSettings(),
+                new HdrLatencyDistributionProbe(), new OperationCounter());
+        runner.run();
+
+        assertEquals(FailingTest.CALL_COUNT, test.calls.get());
+        assertEquals(FailingTest.CALL_COUNT, runner.getFailedOperationCount());
+        assertEquals(0, runner.getLostOperationCount());
+    }
+
+    static class NeverCompletingTest {
+        static final int MAX_IN_FLIGHT = 4;
+
+        final AtomicInteger calls = new AtomicInteger();
+        final TestContext context;
+
+        NeverCompletingTest(TestContext context) {
+            this.context = context;
+        }
+
+        // stops once all slots are taken, so the run only ends if the outstanding operations are given up on
+        ICompletableFuture timeStep() {
+            if (calls.incrementAndGet() == MAX_IN_FLIGHT) {
+                context.stop();
+            }
+            return new TestContainerTest.ICompletableFutureStub() {
+                @Override
+                public void andThen(ExecutionCallback callback) {
+                }
+            };
+        }
+    }
+
+    static class FailingTest {
+        static final int CALL_COUNT = 100;
+
+        final AtomicInteger calls = new AtomicInteger();
+        final TestContext context;
+
+        FailingTest(TestContext context) {
+            this.context = context;
+        }
+
+        ICompletableFuture timeStep() {
+            if (calls.incrementAndGet() == CALL_COUNT) {
+                context.stop();
+            }
+            return new TestContainerTest.ICompletableFutureStub() {
+                @Override
+                public void andThen(ExecutionCallback callback) {
+                    callback.onFailure(new IllegalStateException("operation failed"));
+                }
+            };
+        }
+    }
+}
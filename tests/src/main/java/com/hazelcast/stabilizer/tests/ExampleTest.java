@@ -7,16 +7,14 @@ import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.TestRunner;
-import com.hazelcast.stabilizer.test.annotations.Performance;
 import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
 import com.hazelcast.stabilizer.test.annotations.Teardown;
 import com.hazelcast.stabilizer.test.annotations.Verify;
 import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
+import com.hazelcast.stabilizer.worker.OperationCounter;
 import com.hazelcast.stabilizer.worker.OperationSelector;
 
-import java.util.concurrent.atomic.AtomicLong;
-
 import static org.junit.Assert.assertEquals;
 
 public class ExampleTest {
@@ -31,6 +29,8 @@ public class ExampleTest {
     // properties
     public int threadCount = 1;
     public int logFrequency = 10000;
+    // ignored since the operations are counted by the OperationCounter; kept so existing configurations still bind
+    @Deprecated
     public int performanceUpdateFrequency = 10000;
     public double putProbability = 0.2;
     public double getProbability = 0.8;
@@ -40,9 +40,9 @@ public class ExampleTest {
     public IntervalProbe getLatencyProbe;
 
     private IAtomicLong totalCounter;
-    private AtomicLong operations = new AtomicLong();
     private IAtomicLong counter;
     private TestContext testContext;
+    private OperationCounter operationCounter;
 
     private OperationSelector<Operation> selector = new OperationSelector<Operation>();
 
@@ -81,11 +81,6 @@ public class ExampleTest {
         totalCounter.destroy();
     }
 
-    @Performance
-    public long getOperationCount() {
-        return operations.get();
-    }
-
     private class Worker implements Runnable {
         @Override
         public void run() {
@@ -111,13 +106,10 @@ public class ExampleTest {
                     log.info(Thread.currentThread().getName() + " At iteration: " + iteration);
                 }
 
-                if (iteration % performanceUpdateFrequency == 0) {
-                    operations.addAndGet(performanceUpdateFrequency);
-                }
+                operationCounter.increment(operation);
                 iteration++;
             }
 
-            operations.addAndGet(iteration % performanceUpdateFrequency);
             totalCounter.addAndGet(iteration);
         }
     }
@@ -0,0 +1,23 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+/**
+ * Supplies the key or value that belongs to an index, so a load generator can pick keys and values by index without
+ * caring if they are stored in an array or computed on the fly.
+ *
+ * Implementations are thread-safe.
+ *
+ * @param <T> the type of the keys or values.
+ * @see IndexedSources
+ */
+public interface IndexedSource<T> {
+
+    /**
+     * Returns the number of keys or values; the valid indices are 0 (inclusive) till size (exclusive).
+     */
+    int size();
+
+    /**
+     * Returns the key or value of the index. Calling this method again with the same index returns an equal object.
+     */
+    T get(int index);
+}
@@ -0,0 +1,142 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+/**
+ * Creates {@link IndexedSource}s.
+ *
+ * The computed sources derive the key or value of an index from a fast hash of the index and a seed, so they take
+ * constant memory no matter how many keys there are, and every worker with the same seed sees the same keys. The
+ * computed int and string keys are distinct: the hash is a bijection, so different indices never collide.
+ */
+public final class IndexedSources {
+
+    private static final int HASHED_STRING_LENGTH = 14;
+
+    private IndexedSources() {
+    }
+
+    public static IndexedSource<Integer> of(final int[] array) {
+        return new IndexedSource<Integer>() {
+            @Override
+            public int size() {
+                return array.length;
+            }
+
+            @Override
+            public Integer get(int index) {
+                return array[index];
+            }
+        };
+    }
+
+    public static <T> IndexedSource<T> of(final T[] array) {
+        return new IndexedSource<T>() {
+            @Override
+            public int size() {
+                return array.length;
+            }
+
+            @Override
+            public T get(int index) {
+                return array[index];
+            }
+        };
+    }
+
+    /**
+     * Returns count distinct ints computed from their index.
+     */
+    public static IndexedSource<Integer> computedInts(final int count, long seed) {
+        checkCount(count);
+        final int salt = (int) mix64(seed);
+        return new IndexedSource<Integer>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public Integer get(int index) {
+                return mix32(index ^ salt);
+            }
+        };
+    }
+
+    /**
+     * Returns count distinct strings of the given length computed from their index. The strings use the same
+     * characters as {@link StringUtils#generateString(int)}.
+     */
+    public static IndexedSource<String> computedStrings(final int count, final int length, long seed) {
+        checkCount(count);
+        final long maxDistinctStrings = StringUtils.getMaxDistinctStrings(length);
+        if (maxDistinctStrings < count) {
+            throw new IllegalArgumentException("Can't create " + count + " distinct strings of length " + length);
+        }
+
+        final long salt = mix64(seed);
+        // the characters are formatted into a per thread buffer, so a get only allocates the returned string
+        final ThreadLocal<char[]> buffer = new ThreadLocal<char[]>() {
+            @Override
+            protected char[] initialValue() {
+                return new char[length];
+            }
+        };
+        return new IndexedSource<String>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public String get(int index) {
+                char[] chars = buffer.get();
+                if (length < HASHED_STRING_LENGTH) {
+                    // too short to hold a 64 bit hash; shift the index by the salt within the distinct strings
+                    long offset = (salt & Long.MAX_VALUE) % maxDistinctStrings;
+                    StringUtils.fillString(chars, 0, (offset + index) % maxDistinctStrings, length);
+                    return new String(chars);
+                }
+
+                // the first 14 characters hold the 64 bit hash (unique), the rest is filled with a second hash
+                long hash = mix64(index ^ salt);
+                StringUtils.fillString(chars, 0, hash >>> 1, HASHED_STRING_LENGTH - 1);
+                chars[HASHED_STRING_LENGTH - 1] = (hash & 1) == 0 ? '0' : '1';
+                long fill = hash;
+                for (int k = HASHED_STRING_LENGTH; k < length; k += 12) {
+                    fill = mix64(fill);
+                    StringUtils.fillString(chars, k, fill >>> 1, Math.min(length - k, 12));
+                }
+                return new String(chars);
+            }
+        };
+    }
+
+    /**
+     * The murmur3 32 bit finalizer; a bijection on int.
+     */
+    static int mix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * The murmur3 64 bit finalizer; a bijection on long.
+     */
+    static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void checkCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be larger than 0, but was " + count);
+        }
+    }
+}
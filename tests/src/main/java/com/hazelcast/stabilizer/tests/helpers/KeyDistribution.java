@@ -0,0 +1,61 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+/**
+ * The distribution of the key accesses of a test, selectable with the keyDistribution property:
+ * <ol>
+ *     <li>Uniform: every key is accessed equally often</li>
+ *     <li>Zipfian: a few keys are very popular; the lowest indices are the most popular</li>
+ *     <li>ScrambledZipfian: like Zipfian, but the popular keys are scattered over the key space</li>
+ *     <li>Hotspot: 20% of the keys receive 80% of the accesses</li>
+ *     <li>Latest: like Zipfian, but the last inserted keys are the most popular; writes insert new keys</li>
+ *     <li>Exponential: 95% of the accesses go to the lowest 85.71% of the indices, with an exponential decay</li>
+ *     <li>Sequential: the keys are accessed one after the other</li>
+ * </ol>
+ * Use the {@link KeyIndexGenerators} directly for other parameters.
+ */
+public enum KeyDistribution {
+    Uniform {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.uniform(keyCount);
+        }
+    },
+    Zipfian {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.zipfian(keyCount, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        }
+    },
+    ScrambledZipfian {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.scrambledZipfian(keyCount, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        }
+    },
+    Hotspot {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.hotspot(keyCount, 0.2, 0.8);
+        }
+    },
+    Latest {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.latest(keyCount, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        }
+    },
+    Exponential {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.exponential(keyCount, 95, 0.8571428571);
+        }
+    },
+    Sequential {
+        @Override
+        public KeyIndexGenerator newGenerator(int keyCount) {
+            return KeyIndexGenerators.sequential(keyCount);
+        }
+    };
+
+    public abstract KeyIndexGenerator newGenerator(int keyCount);
+}
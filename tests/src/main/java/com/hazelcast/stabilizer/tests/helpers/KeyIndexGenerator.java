@@ -0,0 +1,49 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import java.util.Random;
+
+/**
+ * Generates the index of the next key to access, following some distribution over the indices 0 (inclusive) till the
+ * key count (exclusive). The index can be used to look up the key in an array or an {@link IndexedSource}.
+ *
+ * A generator is immutable once created (apart from the {@link KeyDistribution#Sequential} and
+ * {@link KeyDistribution#Latest} positions), so a single instance can be shared by all threads of a test; the
+ * randomness comes from the random passed by the calling thread.
+ *
+ * @see KeyIndexGenerators
+ */
+public abstract class KeyIndexGenerator {
+
+    protected final int keyCount;
+
+    protected KeyIndexGenerator(int keyCount) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("keyCount must be larger than 0, but was " + keyCount);
+        }
+        this.keyCount = keyCount;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Returns the index of the next key.
+     *
+     * @param random the random of the calling thread.
+     * @return the index between 0 (inclusive) and the key count (exclusive).
+     */
+    public abstract int nextIndex(Random random);
+
+    /**
+     * Returns the index of the next key to write. Only differs from {@link #nextIndex(Random)} for the
+     * {@link KeyDistribution#Latest} distribution, where a write inserts the key after the latest inserted key, so the
+     * popular keys move along with the writes.
+     *
+     * @param random the random of the calling thread.
+     * @return the index between 0 (inclusive) and the key count (exclusive).
+     */
+    public int nextWriteIndex(Random random) {
+        return nextIndex(random);
+    }
+}
@@ -0,0 +1,202 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates {@link KeyIndexGenerator}s.
+ *
+ * The zipfian generators use the algorithm from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al,
+ * SIGMOD 1994, like the ZipfianGenerator of YCSB. Instead of summing zeta(n) over all n items, which takes minutes for
+ * a few hundred million keys, zeta is summed exactly over the first terms and the tail is approximated with the
+ * Euler-Maclaurin formula, so creating a generator takes constant time with a relative error far below 1e-6.
+ */
+public final class KeyIndexGenerators {
+
+    public static final double ZIPFIAN_CONSTANT = 0.99;
+
+    // zeta is summed exactly up to this number of terms
+    static final int ZETA_EXACT_TERMS = 10000;
+
+    private KeyIndexGenerators() {
+    }
+
+    public static KeyIndexGenerator uniform(int keyCount) {
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                return random.nextInt(keyCount);
+            }
+        };
+    }
+
+    /**
+     * @param keyCount the number of keys
+     * @param theta    the zipfian constant; between 0 and 1 (exclusive). The higher, the more skewed.
+     */
+    public static KeyIndexGenerator zipfian(int keyCount, double theta) {
+        return new ZipfianKeyIndexGenerator(keyCount, theta);
+    }
+
+    /**
+     * A zipfian distribution with the popular indices scattered over the key space.
+     */
+    public static KeyIndexGenerator scrambledZipfian(int keyCount, double theta) {
+        final ZipfianKeyIndexGenerator zipfian = new ZipfianKeyIndexGenerator(keyCount, theta);
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                return (int) ((IndexedSources.mix64(zipfian.nextIndex(random)) & Long.MAX_VALUE) % keyCount);
+            }
+        };
+    }
+
+    /**
+     * A zipfian distribution where the latest inserted keys are the most popular.
+     *
+     * The keys are treated as a ring that is filled in index order: initially all keys are inserted, so the highest
+     * index is the latest. Every {@link KeyIndexGenerator#nextWriteIndex(Random)} inserts the key after the latest one,
+     * overwriting the oldest key, and the popular keys move along. The position is shared by all threads.
+     */
+    public static KeyIndexGenerator latest(int keyCount, double theta) {
+        final ZipfianKeyIndexGenerator zipfian = new ZipfianKeyIndexGenerator(keyCount, theta);
+        final AtomicLong latest = new AtomicLong(keyCount - 1);
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                long index = (latest.get() - zipfian.nextIndex(random)) % keyCount;
+                return (int) (index < 0 ? index + keyCount : index);
+            }
+
+            @Override
+            public int nextWriteIndex(Random random) {
+                return (int) (latest.incrementAndGet() % keyCount);
+            }
+        };
+    }
+
+    /**
+     * @param keyCount       the number of keys
+     * @param hotSetFraction the fraction of the keys that is hot; the hot keys are the lowest indices.
+     * @param hotOpnFraction the fraction of the accesses that goes to the hot keys.
+     */
+    public static KeyIndexGenerator hotspot(int keyCount, final double hotSetFraction, final double hotOpnFraction) {
+        if (hotSetFraction < 0 || hotSetFraction > 1 || hotOpnFraction < 0 || hotOpnFraction > 1) {
+            throw new IllegalArgumentException("Hotspot fractions must be between 0 and 1, hotSetFraction: "
+                    + hotSetFraction + ", hotOpnFraction: " + hotOpnFraction);
+        }
+
+        final int hotCount = Math.max(1, Math.min(keyCount, (int) (keyCount * hotSetFraction)));
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                if (hotCount == keyCount || random.nextDouble() < hotOpnFraction) {
+                    return random.nextInt(hotCount);
+                }
+                return hotCount + random.nextInt(keyCount - hotCount);
+            }
+        };
+    }
+
+    /**
+     * An exponential distribution where percentile percent of the accesses go to the lowest fraction of the indices.
+     * Indices beyond the key count wrap around.
+     */
+    public static KeyIndexGenerator exponential(int keyCount, double percentile, double fraction) {
+        if (percentile <= 0 || percentile >= 100 || fraction <= 0) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100 and fraction larger than 0, "
+                    + "percentile: " + percentile + ", fraction: " + fraction);
+        }
+
+        final double gamma = -Math.log(1.0 - percentile / 100.0) / (keyCount * fraction);
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                // 1 - nextDouble() is in (0, 1], so the log is finite
+                return (int) ((long) (-Math.log(1 - random.nextDouble()) / gamma) % keyCount);
+            }
+        };
+    }
+
+    /**
+     * Accesses the keys one after the other. The position is shared by all threads.
+     */
+    public static KeyIndexGenerator sequential(int keyCount) {
+        final AtomicLong position = new AtomicLong();
+        return new KeyIndexGenerator(keyCount) {
+            @Override
+            public int nextIndex(Random random) {
+                return (int) (position.getAndIncrement() % keyCount);
+            }
+        };
+    }
+
+    /**
+     * Returns the generalized harmonic number zeta(n, theta), the sum of 1/i^theta for i from 1 to n.
+     */
+    static double zeta(long n, double theta) {
+        long exactTerms = Math.min(n, ZETA_EXACT_TERMS);
+        double sum = 0;
+        for (long i = 1; i <= exactTerms; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        if (n == exactTerms) {
+            return sum;
+        }
+
+        // Euler-Maclaurin for the terms m+1 till n: the integral, half the end points and the derivative correction
+        double m = exactTerms;
+        double integral = theta == 1
+                ? Math.log(n / m)
+                : (Math.pow(n, 1 - theta) - Math.pow(m, 1 - theta)) / (1 - theta);
+        double endPoints = (Math.pow(n, -theta) - Math.pow(m, -theta)) / 2;
+        double derivatives = theta * (Math.pow(m, -theta - 1) - Math.pow(n, -theta - 1)) / 12;
+        return sum + integral + endPoints + derivatives;
+    }
+
+    static final class ZipfianKeyIndexGenerator extends KeyIndexGenerator {
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+        private final double halfPowTheta;
+
+        ZipfianKeyIndexGenerator(int keyCount, double theta) {
+            super(keyCount);
+            if (theta <= 0 || theta >= 1) {
+                throw new IllegalArgumentException("The zipfian constant must be between 0 and 1 (exclusive), but was "
+                        + theta);
+            }
+
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetan = zeta(keyCount, theta);
+            this.halfPowTheta = Math.pow(0.5, theta);
+            double zeta2theta = zeta(2, theta);
+            this.eta = (1 - Math.pow(2.0 / keyCount, 1 - theta)) / (1 - zeta2theta / zetan);
+        }
+
+        double getZetan() {
+            return zetan;
+        }
+
+        @Override
+        public int nextIndex(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + halfPowTheta) {
+                return 1;
+            }
+            long index = (long) (keyCount * Math.pow(eta * u - eta + 1, alpha));
+            return (int) Math.min(index, keyCount - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "ZipfianKeyIndexGenerator{keyCount=" + keyCount + ", theta=" + theta + '}';
+        }
+    }
+}
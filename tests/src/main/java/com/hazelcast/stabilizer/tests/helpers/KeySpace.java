@@ -0,0 +1,497 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.Partition;
+import com.hazelcast.core.PartitionService;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.stabilizer.Utils.sleepSeconds;
+import static com.hazelcast.stabilizer.test.utils.TestUtils.isClient;
+
+/**
+ * A fixed set of candidate keys, indexed by the partition they belong to.
+ *
+ * The index is built once, in parallel, by calculating the partition of every candidate key. Selecting local, remote,
+ * single partition, per member or balanced keys is then a matter of picking keys from the right partitions, instead of
+ * generating random keys until one happens to be owned by the right member. The owners of the partitions are looked up
+ * on every selection, so a key space stays valid when partitions migrate.
+ *
+ * A key space for a number of keys with a given locality only indexes the partitions with that locality, and stops
+ * once they hold enough keys, so it doesn't index many more candidates than the keys it is asked for. Since the
+ * partition of a key only depends on the key and the partition count, the finished key spaces are cached and shared by
+ * all test cases in the same worker; the least recently used ones are evicted once the cache holds more than
+ * {@link #MAX_CACHED_KEY_COUNT} keys.
+ *
+ * The keys are selected round robin over the selected partitions, so they are spread evenly. If more keys are
+ * requested than the selected partitions contain, the keys are repeated; use {@link #getDistinctKeyCount(KeyLocality)}
+ * to check if there are enough keys.
+ *
+ * @param <K> the type of the keys.
+ */
+public final class KeySpace<K> {
+
+    private static final int MAX_CACHED_KEY_COUNT = 16 * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int[] NO_KEYS = new int[0];
+
+    // the partition indices by key factory, indexed partitions and keys per partition; least recently used first.
+    private static final LinkedHashMap<String, int[][]> INDICES = new LinkedHashMap<String, int[][]>(16, 0.75f, true);
+    // guarded by INDICES.
+    private static long cachedKeyCount;
+
+    private final HazelcastInstance instance;
+    private final KeyFactory<K> keyFactory;
+    // the indices of the candidate keys per partition.
+    private final int[][] partitionKeys;
+
+    private KeySpace(HazelcastInstance instance, KeyFactory<K> keyFactory, int[][] partitionKeys) {
+        this.instance = instance;
+        this.keyFactory = keyFactory;
+        this.partitionKeys = partitionKeys;
+    }
+
+    /**
+     * Returns the key space with the integer keys 0 (inclusive) till keyMaxValue (exclusive).
+     */
+    public static KeySpace<Integer> getIntKeySpace(HazelcastInstance instance, int keyMaxValue) {
+        return getKeySpace(instance, new IntKeyFactory(keyMaxValue), getAllPartitionIds(instance), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a key space with at least keyCount integer keys below keyMaxValue with the given locality, or all of
+     * them if there are fewer. Only the partitions with the locality are indexed.
+     */
+    public static KeySpace<Integer> getIntKeySpace(HazelcastInstance instance, int keyMaxValue, KeyLocality keyLocality,
+                                                   int keyCount) {
+        return getKeySpace(instance, new IntKeyFactory(keyMaxValue), keyLocality, keyCount);
+    }
+
+    /**
+     * Returns the key space with keyCount distinct string keys of the given length. The keys are derived from their
+     * index, so every worker gets the same keys.
+     */
+    public static KeySpace<String> getStringKeySpace(HazelcastInstance instance, int keyCount, int keyLength) {
+        return getKeySpace(instance, new StringKeyFactory(keyCount, keyLength), getAllPartitionIds(instance),
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a key space with at least keyCount distinct string keys of the given length with the given locality, or
+     * all of them if the key length doesn't allow that many. Only the partitions with the locality are indexed.
+     */
+    public static KeySpace<String> getStringKeySpace(HazelcastInstance instance, int keyLength, KeyLocality keyLocality,
+                                                     int keyCount) {
+        int candidateCount = (int) Math.min(Integer.MAX_VALUE, StringUtils.getMaxDistinctStrings(keyLength));
+        return getKeySpace(instance, new StringKeyFactory(candidateCount, keyLength), keyLocality, keyCount);
+    }
+
+    private static <K> KeySpace<K> getKeySpace(HazelcastInstance instance, KeyFactory<K> keyFactory,
+                                               KeyLocality keyLocality, int keyCount) {
+        if (keyCount <= 0) {
+            throw new IllegalArgumentException("keyCount must be larger than 0, but was " + keyCount);
+        }
+        List<Integer> partitionIds = getPartitionIds(instance, keyLocality);
+        // the keys are spread evenly, so every partition needs its share of the keys
+        int keysPerPartition = partitionIds.isEmpty() ? 0 : (keyCount - 1) / partitionIds.size() + 1;
+        return getKeySpace(instance, keyFactory, partitionIds, keysPerPartition);
+    }
+
+    private static <K> KeySpace<K> getKeySpace(HazelcastInstance instance, KeyFactory<K> keyFactory,
+                                               List<Integer> partitionIds, int keysPerPartition) {
+        int partitionCount = instance.getPartitionService().getPartitions().size();
+        String cacheKey = keyFactory + "-" + partitionCount + "-" + partitionIds + "-" + keysPerPartition;
+
+        int[][] partitionKeys = getCachedIndex(cacheKey);
+        if (partitionKeys == null) {
+            // concurrent test cases may build the same index; all of them use the one that was cached first
+            partitionKeys = cacheIndex(cacheKey, buildIndex(instance, keyFactory, partitionCount, partitionIds,
+                    keysPerPartition));
+        }
+        return new KeySpace<K>(instance, keyFactory, partitionKeys);
+    }
+
+    private static int[][] getCachedIndex(String cacheKey) {
+        synchronized (INDICES) {
+            return INDICES.get(cacheKey);
+        }
+    }
+
+    private static int[][] cacheIndex(String cacheKey, int[][] partitionKeys) {
+        long keyCount = countKeys(partitionKeys);
+        synchronized (INDICES) {
+            int[][] cached = INDICES.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            if (keyCount > MAX_CACHED_KEY_COUNT) {
+                return partitionKeys;
+            }
+
+            INDICES.put(cacheKey, partitionKeys);
+            cachedKeyCount += keyCount;
+            Iterator<Map.Entry<String, int[][]>> iterator = INDICES.entrySet().iterator();
+            while (cachedKeyCount > MAX_CACHED_KEY_COUNT) {
+                cachedKeyCount -= countKeys(iterator.next().getValue());
+                iterator.remove();
+            }
+            return partitionKeys;
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitionKeys.length;
+    }
+
+    /**
+     * Selects keys with the given locality. If the instance is a client, the locality Local and Remote are ignored.
+     */
+    public List<K> getKeys(KeyLocality keyLocality, int count) {
+        return select(getPartitionIds(instance, keyLocality), count, describe(keyLocality));
+    }
+
+    /**
+     * Returns the number of distinct keys with the given locality; if more keys are selected, keys are repeated.
+     */
+    public int getDistinctKeyCount(KeyLocality keyLocality) {
+        return countKeys(getPartitionIds(instance, keyLocality));
+    }
+
+    /**
+     * Selects keys owned by the given instance, or keys of all partitions if the instance is a client.
+     */
+    public List<K> getLocalKeys(int count) {
+        return getKeys(KeyLocality.Local, count);
+    }
+
+    /**
+     * Selects keys not owned by the given instance, or keys of all partitions if the instance is a client.
+     */
+    public List<K> getRemoteKeys(int count) {
+        return getKeys(KeyLocality.Remote, count);
+    }
+
+    /**
+     * Selects keys owned by the given member.
+     */
+    public List<K> getMemberKeys(Member member, int count) {
+        return select(getOwnedPartitionIds(instance, member, true), count, "owned by " + member);
+    }
+
+    /**
+     * Selects keys that all belong to the given partition.
+     */
+    public List<K> getPartitionKeys(int partitionId, int count) {
+        List<Integer> partitionIds = new ArrayList<Integer>();
+        partitionIds.add(partitionId);
+        return select(partitionIds, count, "of partition " + partitionId);
+    }
+
+    /**
+     * Selects keys spread evenly over all partitions.
+     */
+    public List<K> getBalancedKeys(int count) {
+        return getKeys(KeyLocality.Random, count);
+    }
+
+    private static List<Integer> getPartitionIds(HazelcastInstance instance, KeyLocality keyLocality) {
+        switch (keyLocality) {
+            case Local:
+                if (isClient(instance)) {
+                    return getAllPartitionIds(instance);
+                }
+                return getOwnedPartitionIds(instance, instance.getCluster().getLocalMember(), true);
+            case Remote:
+                if (isClient(instance)) {
+                    return getAllPartitionIds(instance);
+                }
+                return getOwnedPartitionIds(instance, instance.getCluster().getLocalMember(), false);
+            case Random:
+                return getAllPartitionIds(instance);
+            case SinglePartition:
+                List<Integer> partitionIds = new ArrayList<Integer>();
+                partitionIds.add(0);
+                return partitionIds;
+            default:
+                throw new IllegalArgumentException("Unrecognized keyLocality:" + keyLocality);
+        }
+    }
+
+    private static String describe(KeyLocality keyLocality) {
+        switch (keyLocality) {
+            case Local:
+                return "local";
+            case Remote:
+                return "remote";
+            case SinglePartition:
+                return "of partition 0";
+            default:
+                return "";
+        }
+    }
+
+    private static List<Integer> getAllPartitionIds(HazelcastInstance instance) {
+        int partitionCount = instance.getPartitionService().getPartitions().size();
+        List<Integer> partitionIds = new ArrayList<Integer>();
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            partitionIds.add(partitionId);
+        }
+        return partitionIds;
+    }
+
+    // the partitions owned by the member if owned is true, else the partitions owned by the other members
+    private static List<Integer> getOwnedPartitionIds(HazelcastInstance instance, Member member, boolean owned) {
+        Member[] owners = getOwners(instance);
+        List<Integer> partitionIds = new ArrayList<Integer>();
+        for (int partitionId = 0; partitionId < owners.length; partitionId++) {
+            if (member.equals(owners[partitionId]) == owned) {
+                partitionIds.add(partitionId);
+            }
+        }
+        return partitionIds;
+    }
+
+    private int countKeys(List<Integer> partitionIds) {
+        int available = 0;
+        for (Integer partitionId : partitionIds) {
+            available += partitionKeys[partitionId].length;
+        }
+        return available;
+    }
+
+    private static long countKeys(int[][] partitionKeys) {
+        long keyCount = 0;
+        for (int[] keys : partitionKeys) {
+            keyCount += keys.length;
+        }
+        return keyCount;
+    }
+
+    private List<K> select(List<Integer> partitionIds, int count, String description) {
+        int available = countKeys(partitionIds);
+        if (count > 0 && available == 0) {
+            throw new IllegalStateException("There are no " + description + " keys in the key space of " + keyFactory);
+        }
+
+        // round robin over the partitions; a partition that runs out of keys is skipped
+        final int[] keys = new int[Math.min(count, available)];
+        int index = 0;
+        for (int round = 0; index < keys.length; round++) {
+            for (Integer partitionId : partitionIds) {
+                int[] candidates = partitionKeys[partitionId];
+                if (round < candidates.length && index < keys.length) {
+                    keys[index++] = candidates[round];
+                }
+            }
+        }
+
+        final int size = count;
+        return new AbstractList<K>() {
+            @Override
+            public K get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return keyFactory.getKey(keys[index % keys.length]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static Member[] getOwners(HazelcastInstance instance) {
+        PartitionService partitionService = instance.getPartitionService();
+        Member[] owners = new Member[partitionService.getPartitions().size()];
+        for (Partition partition : partitionService.getPartitions()) {
+            Member owner = partition.getOwner();
+            while (owner == null) {
+                sleepSeconds(1);
+                owner = partition.getOwner();
+            }
+            owners[partition.getPartitionId()] = owner;
+        }
+        return owners;
+    }
+
+    /**
+     * Indexes the candidate keys of the given partitions, in order, till every partition has keysPerPartition keys or
+     * the candidates run out. The partitions of a round of chunks are calculated in parallel, so only the partitions of
+     * one round are kept besides the index.
+     *
+     * If the candidates run out before every partition has its share, keys that were skipped because their partition
+     * already had its share are needed after all, so then all candidate keys of the partitions are indexed.
+     */
+    private static <K> int[][] buildIndex(HazelcastInstance instance, final KeyFactory<K> keyFactory,
+                                          int partitionCount, List<Integer> partitionIds, int keysPerPartition) {
+        int[][] partitionKeys = new int[partitionCount][];
+        int[] counts = new int[partitionCount];
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            partitionKeys[partitionId] = NO_KEYS;
+        }
+        // the partitions that are indexed and still need keys are marked with a non empty array
+        int unfilled = 0;
+        for (Integer partitionId : partitionIds) {
+            if (keysPerPartition > 0) {
+                partitionKeys[partitionId] = new int[Math.min(keysPerPartition, 16)];
+                unfilled++;
+            }
+        }
+
+        final PartitionService partitionService = instance.getPartitionService();
+        final int keyCount = keyFactory.getKeyCount();
+        int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                (keyCount - 1) / CHUNK_SIZE + 1));
+        final int[][] chunkPartitionIds = new int[threadCount][CHUNK_SIZE];
+        boolean skipped = false;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(threadCount);
+            long roundSize = (long) threadCount * CHUNK_SIZE;
+            for (long roundStart = 0; roundStart < keyCount && unfilled > 0; roundStart += roundSize) {
+                futures.clear();
+                for (int chunk = 0; chunk < threadCount && roundStart + (long) chunk * CHUNK_SIZE < keyCount; chunk++) {
+                    final int[] chunkIds = chunkPartitionIds[chunk];
+                    final int from = (int) (roundStart + (long) chunk * CHUNK_SIZE);
+                    final int to = (int) Math.min(keyCount, (long) from + CHUNK_SIZE);
+                    futures.add(executor.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() {
+                            for (int index = from; index < to; index++) {
+                                chunkIds[index - from] = partitionService.getPartition(keyFactory.getKey(index))
+                                        .getPartitionId();
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                // the chunks are added in order, so the index doesn't depend on the number of threads
+                for (int chunk = 0; chunk < futures.size() && unfilled > 0; chunk++) {
+                    int from = (int) (roundStart + (long) chunk * CHUNK_SIZE);
+                    int to = (int) Math.min(keyCount, (long) from + CHUNK_SIZE);
+                    for (int index = from; index < to; index++) {
+                        int partitionId = chunkPartitionIds[chunk][index - from];
+                        int[] keys = partitionKeys[partitionId];
+                        int count = counts[partitionId];
+                        if (keys.length == 0) {
+                            continue;
+                        }
+                        if (count == keysPerPartition) {
+                            skipped = true;
+                            continue;
+                        }
+                        if (count == keys.length) {
+                            keys = Arrays.copyOf(keys, (int) Math.min(keysPerPartition, 2L * keys.length));
+                            partitionKeys[partitionId] = keys;
+                        }
+                        keys[count] = index;
+                        counts[partitionId] = count + 1;
+                        if (count + 1 == keysPerPartition) {
+                            unfilled--;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (unfilled > 0 && skipped) {
+            return buildIndex(instance, keyFactory, partitionCount, partitionIds, Integer.MAX_VALUE);
+        }
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            if (partitionKeys[partitionId].length != counts[partitionId]) {
+                partitionKeys[partitionId] = Arrays.copyOf(partitionKeys[partitionId], counts[partitionId]);
+            }
+        }
+        return partitionKeys;
+    }
+
+    private interface KeyFactory<K> {
+        int getKeyCount();
+
+        K getKey(int index);
+    }
+
+    private static class IntKeyFactory implements KeyFactory<Integer> {
+        private final int keyMaxValue;
+
+        private IntKeyFactory(int keyMaxValue) {
+            if (keyMaxValue <= 0) {
+                throw new IllegalArgumentException("keyMaxValue must be larger than 0, but was " + keyMaxValue);
+            }
+            this.keyMaxValue = keyMaxValue;
+        }
+
+        @Override
+        public int getKeyCount() {
+            return keyMaxValue;
+        }
+
+        @Override
+        public Integer getKey(int index) {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "int-" + keyMaxValue;
+        }
+    }
+
+    private static class StringKeyFactory implements KeyFactory<String> {
+        private final int keyCount;
+        private final int keyLength;
+
+        private StringKeyFactory(int keyCount, int keyLength) {
+            if (keyCount <= 0) {
+                throw new IllegalArgumentException("keyCount must be larger than 0, but was " + keyCount);
+            }
+            if (StringUtils.getMaxDistinctStrings(keyLength) < keyCount) {
+                throw new IllegalArgumentException("Can't create " + keyCount + " distinct keys of length "
+                        + keyLength);
+            }
+            this.keyCount = keyCount;
+            this.keyLength = keyLength;
+        }
+
+        @Override
+        public int getKeyCount() {
+            return keyCount;
+        }
+
+        @Override
+        public String getKey(int index) {
+            return StringUtils.generateString(index, keyLength);
+        }
+
+        @Override
+        public String toString() {
+            return "string-" + keyCount + "-" + keyLength;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.hazelcast.core.Member;
 import com.hazelcast.core.Partition;
 import com.hazelcast.core.PartitionService;
 
+import java.util.List;
 import java.util.Random;
 
 import static com.hazelcast.stabilizer.Utils.sleepSeconds;
@@ -19,7 +20,9 @@ public class KeyUtils {
     /**
      * Generates an array of key-strings with a configurable locality.
      *
-     * If the instance is a client, keyLocality is ignored.
+     * If the instance is a client, keyLocality is ignored. Local and remote keys are selected from a {@link KeySpace},
+     * so they are spread evenly over the partitions. If keyMaxValue doesn't allow keyCount distinct keys with the given
+     * locality, the keys are repeated.
      *
      * @param keyCount the number of keys in the array.
      * @param keyMaxValue the size of of keys-strings
@@ -29,6 +32,15 @@ public class KeyUtils {
      */
     public static int[] generateIntKeys(int keyCount, int keyMaxValue, KeyLocality keyLocality, HazelcastInstance instance){
         int[] keys = new int[keyCount];
+        if (isPartitionAware(keyLocality, instance)) {
+            List<Integer> selected = KeySpace.getIntKeySpace(instance, keyMaxValue, keyLocality, keyCount)
+                    .getKeys(keyLocality, keyCount);
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = selected.get(k);
+            }
+            return keys;
+        }
+
         for (int k = 0; k < keys.length; k++) {
             keys[k] = KeyUtils.generateIntKey(keyMaxValue, keyLocality, instance);
         }
@@ -42,7 +54,9 @@ public class KeyUtils {
     /**
      * Generates an array of key-strings with a configurable locality.
      *
-     * If the instance is a client, keyLocality is ignored.
+     * If the instance is a client, keyLocality is ignored. Local and remote keys are selected from a {@link KeySpace},
+     * so they are distinct. If the key length doesn't allow
+     * keyCount distinct keys with the given locality, an IllegalStateException is thrown.
      *
      * @param keyCount the number of keys in the array.
      * @param keyLength the size of of keys-strings
@@ -52,12 +66,26 @@ public class KeyUtils {
      */
     public static String[] generateStringKeys(int keyCount, int keyLength, KeyLocality keyLocality, HazelcastInstance instance){
         String[] keys = new String[keyCount];
+        if (isPartitionAware(keyLocality, instance)) {
+            KeySpace<String> keySpace = KeySpace.getStringKeySpace(instance, keyLength, keyLocality, keyCount);
+            int distinctKeyCount = keySpace.getDistinctKeyCount(keyLocality);
+            if (distinctKeyCount < keyCount) {
+                throw new IllegalStateException("Can't create " + keyCount + " distinct " + keyLocality
+                        + " keys of length " + keyLength + ", there are only " + distinctKeyCount);
+            }
+            return keySpace.getKeys(keyLocality, keyCount).toArray(keys);
+        }
+
         for (int k = 0; k < keys.length; k++) {
             keys[k] = KeyUtils.generateStringKey(keyLength, keyLocality, instance);
         }
         return keys;
     }
 
+    private static boolean isPartitionAware(KeyLocality keyLocality, HazelcastInstance instance) {
+        return (keyLocality == KeyLocality.Local || keyLocality == KeyLocality.Remote) && !isClient(instance);
+    }
+
     private static <T> T generateKey(KeyLocality keyLocality, HazelcastInstance instance, Generator<T> generator) {
         switch (keyLocality) {
             case Local:
@@ -30,4 +30,36 @@ public class StringUtils {
 
         return sb.toString();
     }
+
+    /**
+     * Returns the distinct string of the given length that belongs to the index, so the same index always gives the
+     * same string.
+     *
+     * @param index  the index of the string; must be lower than {@link #getMaxDistinctStrings(int)}.
+     * @param length the length of the string
+     * @return the string
+     */
+    public static String generateString(long index, int length) {
+        char[] chars = new char[length];
+        fillString(chars, 0, index, length);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the characters of {@link #generateString(long, int)} into the array, starting at the offset.
+     */
+    static void fillString(char[] chars, int offset, long index, int length) {
+        long value = index;
+        for (int k = offset + length - 1; k >= offset; k--) {
+            chars[k] = alphabet.charAt((int) (value % alphabet.length()));
+            value /= alphabet.length();
+        }
+    }
+
+    /**
+     * Returns the number of distinct strings of the given length, limited to {@link Long#MAX_VALUE}.
+     */
+    public static long getMaxDistinctStrings(int length) {
+        return (long) Math.min(Long.MAX_VALUE, Math.pow(alphabet.length(), length));
+    }
 }
@@ -15,27 +15,22 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.TestRunner;
-import com.hazelcast.stabilizer.test.annotations.Performance;
-import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
 import com.hazelcast.stabilizer.test.annotations.Teardown;
+import com.hazelcast.stabilizer.test.annotations.TimeStep;
 import com.hazelcast.stabilizer.test.annotations.Warmup;
 import com.hazelcast.stabilizer.test.utils.TestUtils;
-import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
 import com.hazelcast.stabilizer.worker.OperationSelector;
 
 import javax.cache.CacheException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This test demonstrates effect of batching. It uses async methods to invoke operation and wait for future
- * to complete every {@code batchSize} invocations. Hence setting batchSize to 1 is effectively the same as
- * using sync operations.
+ * This test demonstrates effect of pipelining. It uses async methods to invoke operations and the worker keeps up to
+ * {@code maxInFlight} of them outstanding per thread; the threadCount and maxInFlight properties configure the load loop
+ * of the worker. Hence setting maxInFlight to 1 is effectively the same as using sync operations.
  *
- * {@code batchSize > 1} causes batch-effect to kick-in, pipe-lines are utilized better
+ * {@code maxInFlight > 1} causes batch-effect to kick-in, pipe-lines are utilized better
  * and overall throughput goes up.
  */
 public class BatchingICacheTest {
@@ -43,16 +38,25 @@ public class BatchingICacheTest {
     private final static ILogger log = Logger.getLogger(PerformanceICacheTest.class);
 
     //props
-    public int threadCount = 10;
     public int keyCount = 1000000;
-    public int logFrequency = 10000;
-    public int performanceUpdateFrequency = 10000;
     public String basename = getClass().getSimpleName().toLowerCase();
     public double writeProbability = 0.1;
+    // ignored since the worker keeps maxInFlight operations outstanding and counts them; kept so existing
+    // configurations still bind
+    @Deprecated
     public int batchSize = 1;
+    @Deprecated
+    public int logFrequency = 10000;
+    @Deprecated
+    public int performanceUpdateFrequency = 10000;
 
     private ICache<Object, Object> cache;
-    private final AtomicLong operations = new AtomicLong();
+    private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
     private TestContext testContext;
     private HazelcastInstance targetInstance;
     private OperationSelector<Operation> selector = new OperationSelector<Operation>();
@@ -60,6 +64,9 @@ public class BatchingICacheTest {
     @Setup
     public void setup(TestContext testContext) throws Exception {
         this.testContext = testContext;
+        if (batchSize != 1) {
+            log.warning("batchSize is deprecated and ignored, use maxInFlight=" + batchSize + " instead");
+        }
 
         targetInstance = testContext.getTargetInstance();
         CacheManager cacheManager;
@@ -104,71 +111,19 @@ public class BatchingICacheTest {
         }
     }
 
-    @Run
-    public void run() {
-        ThreadSpawner spawner = new ThreadSpawner(testContext.getTestId());
-        for (int k = 0; k < threadCount; k++) {
-            spawner.spawn(new Worker());
-        }
-        spawner.awaitCompletion();
-    }
-
-    @Performance
-    public long getOperationCount() {
-        return operations.get();
-    }
-
-    private class Worker implements Runnable {
-        private final Random random = new Random();
-        private final List<ICompletableFuture<?>> futureList = new ArrayList<ICompletableFuture<?>>(batchSize);
-
-        @Override
-        public void run() {
-            long iteration = 0;
-            while (!testContext.isStopped()) {
-                ICompletableFuture<?> future = selectAndInvokeOperation();
-                futureList.add(future);
-
-                iteration++;
-                if (iteration % logFrequency == 0) {
-                    log.info(Thread.currentThread().getName() + " At iteration: " + iteration);
-                }
-                if (iteration % performanceUpdateFrequency == 0) {
-                    operations.addAndGet(performanceUpdateFrequency);
-                }
-
-                syncIfNecessary(iteration);
-            }
-            operations.addAndGet(iteration % performanceUpdateFrequency);
-        }
-
-        private ICompletableFuture<?> selectAndInvokeOperation() {
-            Integer key = random.nextInt(keyCount);
-            Operation operation = selector.select();
-            switch (operation) {
-                case PUT:
-                    Integer value = random.nextInt();
-                    return cache.putAsync(key, value);
-                case GET:
-                    return cache.getAsync(key);
-                default:
-                    throw new RuntimeException("Unknown operation '" + operation + "' selected.");
-            }
-        }
-
-        private void syncIfNecessary(long iteration) {
-            if (iteration % batchSize == 0) {
-                for (ICompletableFuture<?> f : futureList) {
-                    try {
-                        f.get();
-                    } catch (RuntimeException e) {
-                        throw e;
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                futureList.clear();
-            }
+    @TimeStep
+    public ICompletableFuture<?> timeStep() {
+        Random random = this.random.get();
+        Integer key = random.nextInt(keyCount);
+        Operation operation = selector.select();
+        switch (operation) {
+            case PUT:
+                Integer value = random.nextInt();
+                return cache.putAsync(key, value);
+            case GET:
+                return cache.getAsync(key);
+            default:
+                throw new RuntimeException("Unknown operation '" + operation + "' selected.");
         }
     }
 
@@ -21,38 +21,51 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
 import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
+import com.hazelcast.stabilizer.tests.helpers.IndexedSource;
+import com.hazelcast.stabilizer.tests.helpers.IndexedSources;
+import com.hazelcast.stabilizer.tests.helpers.KeyDistribution;
+import com.hazelcast.stabilizer.tests.helpers.KeyIndexGenerator;
 import com.hazelcast.stabilizer.tests.helpers.KeyLocality;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.TestRunner;
-import com.hazelcast.stabilizer.test.annotations.Performance;
-import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
 import com.hazelcast.stabilizer.test.annotations.Teardown;
+import com.hazelcast.stabilizer.test.annotations.TimeStep;
 import com.hazelcast.stabilizer.test.annotations.Warmup;
 import com.hazelcast.stabilizer.tests.helpers.KeyUtils;
 import com.hazelcast.stabilizer.test.utils.TestUtils;
-import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
+import com.hazelcast.stabilizer.worker.OperationCounter;
 import com.hazelcast.stabilizer.worker.OperationSelector;
 
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.stabilizer.tests.map.IntIntMapTest.Operation.*;
 
+/**
+ * Puts and gets random int keys and values. The worker drives the load loop, configured with the threadCount property.
+ *
+ * Besides the putLatency and getLatency probes, the worker measures the latency per selected operation in the probes
+ * IntIntMapTest.PUT and IntIntMapTest.GET; they are enabled by probe-IntIntMapTest or probe-timeStep.
+ */
 public class IntIntMapTest {
 
     private final static ILogger log = Logger.getLogger(IntIntMapTest.class);
 
     // properties
-    public int threadCount = 10;
     public int keyLength = 10;
     public int valueLength = 10;
     public int keyCount = 10000;
     public int valueCount = 10000;
     public int logFrequency = 10000;
+    // ignored since the operations are counted by the OperationCounter; kept so existing configurations still bind
+    @Deprecated
     public int performanceUpdateFrequency = 10000;
     public String basename = "intIntMap";
     public KeyLocality keyLocality = KeyLocality.Random;
+    public KeyDistribution keyDistribution = KeyDistribution.Uniform;
+    // if true the keys are computed from their index instead of being stored; requires Random keyLocality
+    public boolean computedKeys = false;
+    public long seed = 0;
     public int minNumberOfMembers = 0;
 
     public double putProb = 0.1;
@@ -64,16 +77,27 @@ public class IntIntMapTest {
     public SimpleProbe throughput;
 
     private IMap<Integer, Integer> map;
-    private int[] keys;
-    private final AtomicLong operations = new AtomicLong();
+    private IndexedSource<Integer> keys;
+    private KeyIndexGenerator keyIndexGenerator;
+    private OperationCounter operationCounter;
     private TestContext testContext;
 
     private HazelcastInstance targetInstance;
+    private final ThreadLocal<LoadThreadState> loadThreadState = new ThreadLocal<LoadThreadState>() {
+        @Override
+        protected LoadThreadState initialValue() {
+            return new LoadThreadState();
+        }
+    };
 
     private OperationSelector<Operation> selector = new OperationSelector<Operation>();
 
     @Setup
     public void setup(TestContext testContext) throws Exception {
+        if (computedKeys && keyLocality != KeyLocality.Random) {
+            throw new IllegalArgumentException("Computed keys only support keyLocality Random");
+        }
+
         this.testContext = testContext;
         targetInstance = testContext.getTargetInstance();
         map = targetInstance.getMap(basename + "-" + testContext.getTestId());
@@ -91,81 +115,59 @@ public class IntIntMapTest {
     @Warmup(global = false)
     public void warmup() throws InterruptedException {
         TestUtils.waitClusterSize(log, targetInstance, minNumberOfMembers);
-        keys = KeyUtils.generateIntKeys(keyCount, Integer.MAX_VALUE, keyLocality, testContext.getTargetInstance());
+        if (computedKeys) {
+            keys = IndexedSources.computedInts(keyCount, seed);
+        } else {
+            keys = IndexedSources.of(
+                    KeyUtils.generateIntKeys(keyCount, Integer.MAX_VALUE, keyLocality, testContext.getTargetInstance()));
+        }
+
+        keyIndexGenerator = keyDistribution.newGenerator(keys.size());
 
         Random random = new Random();
-        for (int key : keys) {
+        for (int k = 0; k < keys.size(); k++) {
             int value = random.nextInt(Integer.MAX_VALUE);
-            map.put(key, value);
-        }
-    }
-
-    @Run
-    public void run() {
-        ThreadSpawner spawner = new ThreadSpawner(testContext.getTestId());
-        for (int k = 0; k < threadCount; k++) {
-            spawner.spawn(new Worker());
+            map.put(keys.get(k), value);
         }
-        spawner.awaitCompletion();
-    }
-
-    @Performance
-    public long getOperationCount() {
-        return operations.get();
     }
 
-    private class Worker implements Runnable {
-        private final Random random = new Random();
-
-        @Override
-        public void run() {
-            long iteration = 0;
-            while (!testContext.isStopped()) {
-
-                int key = randomKey();
-                int value = randomValue();
-
-                switch (selector.select()) {
-                    case PUT:
-                        putLatency.started();
-                        if (useSet) {
-                            map.set(key, value);
-                        } else {
-                            map.put(key, value);
-                        }
-                        putLatency.done();
-                        break;
-                    case GET:
-                        getLatency.started();
-                        map.put(key, value);
-                        getLatency.done();
-                        break;
-                    default:
-                        throw new UnsupportedOperationException();
-                }
-
-                iteration++;
-                if (iteration % logFrequency == 0) {
-                    log.info(Thread.currentThread().getName() + " At iteration: " + iteration);
-                }
-
-                if (iteration % performanceUpdateFrequency == 0) {
-                    operations.addAndGet(performanceUpdateFrequency);
+    @TimeStep
+    public void timeStep() {
+        LoadThreadState state = loadThreadState.get();
+        Operation operation = selector.select();
+        switch (operation) {
+            case PUT:
+                int key = keys.get(keyIndexGenerator.nextWriteIndex(state.random));
+                int value = state.random.nextInt(Integer.MAX_VALUE);
+                putLatency.started();
+                if (useSet) {
+                    map.set(key, value);
+                } else {
+                    map.put(key, value);
                 }
-
-                throughput.done();
-            }
-            operations.addAndGet(iteration % performanceUpdateFrequency);
+                putLatency.done();
+                break;
+            case GET:
+                getLatency.started();
+                map.get(keys.get(keyIndexGenerator.nextIndex(state.random)));
+                getLatency.done();
+                break;
+            default:
+                throw new UnsupportedOperationException();
         }
 
-        private int randomKey() {
-            int length = keys.length;
-            return keys[random.nextInt(length)];
+        state.iteration++;
+        if (state.iteration % logFrequency == 0) {
+            log.info(Thread.currentThread().getName() + " At iteration: " + state.iteration);
         }
 
-        private int randomValue() {
-            return random.nextInt(Integer.MAX_VALUE);
-        }
+        throughput.done();
+        operationCounter.countType(operation);
+    }
+
+    private static class LoadThreadState {
+        private final Random random = new Random();
+        private long iteration;
     }
 
     public static void main(String[] args) throws Throwable {
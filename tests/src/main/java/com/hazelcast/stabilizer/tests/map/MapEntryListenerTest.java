@@ -20,10 +20,11 @@ import com.hazelcast.core.IList;
 import com.hazelcast.core.IMap;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.stabilizer.tests.helpers.KeyIndexGenerator;
+import com.hazelcast.stabilizer.tests.helpers.KeyIndexGenerators;
 import com.hazelcast.stabilizer.tests.helpers.StringUtils;
 import com.hazelcast.stabilizer.tests.map.helpers.EntryListenerImpl;
 import com.hazelcast.stabilizer.tests.map.helpers.EventCount;
-import com.hazelcast.stabilizer.tests.map.helpers.ScrambledZipfianGenerator;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
@@ -71,7 +72,7 @@ public class MapEntryListenerTest {
     private TestContext testContext;
     private HazelcastInstance targetInstance;
     private EntryListenerImpl listener;
-    private ScrambledZipfianGenerator kesyZipfian = new ScrambledZipfianGenerator(keyCount);
+    private KeyIndexGenerator keyIndexGenerator;
     private int sleepMs_CatchEvents = 8000;
     private IMap<Object, Object> map;
 
@@ -80,6 +81,7 @@ public class MapEntryListenerTest {
         this.testContext = testContext;
         targetInstance = testContext.getTargetInstance();
         values = StringUtils.generateStrings(valueCount, valueLength);
+        keyIndexGenerator = KeyIndexGenerators.scrambledZipfian(keyCount, KeyIndexGenerators.ZIPFIAN_CONSTANT);
 
         map = targetInstance.getMap(basename);
         listener = new EntryListenerImpl(minEntryListenerDelayMs, maxEntryListenerDelayMs);
@@ -135,7 +137,7 @@ public class MapEntryListenerTest {
                 if (randomDistributionUniform) {
                     key = random.nextInt(keyCount);
                 } else {
-                    key = kesyZipfian.nextInt();
+                    key = keyIndexGenerator.nextIndex(random);
                 }
 
                 double chance = random.nextDouble();
@@ -95,7 +95,7 @@ public class SqlPredicateTest {
 
             while (!testContext.isStopped()) {
                 metronome.waitForNext();
-                search.started();
+                search.started(metronome.getIntendedStartNanos());
                 map.values(sqlPredicate);
                 search.done();
                 
@@ -21,11 +21,14 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.stabilizer.probes.probes.IntervalProbe;
 import com.hazelcast.stabilizer.probes.probes.SimpleProbe;
+import com.hazelcast.stabilizer.tests.helpers.IndexedSource;
+import com.hazelcast.stabilizer.tests.helpers.IndexedSources;
+import com.hazelcast.stabilizer.tests.helpers.KeyDistribution;
+import com.hazelcast.stabilizer.tests.helpers.KeyIndexGenerator;
 import com.hazelcast.stabilizer.tests.helpers.KeyLocality;
 import com.hazelcast.stabilizer.tests.helpers.StringUtils;
 import com.hazelcast.stabilizer.test.TestContext;
 import com.hazelcast.stabilizer.test.TestRunner;
-import com.hazelcast.stabilizer.test.annotations.Performance;
 import com.hazelcast.stabilizer.test.annotations.Run;
 import com.hazelcast.stabilizer.test.annotations.Setup;
 import com.hazelcast.stabilizer.test.annotations.Teardown;
@@ -34,10 +37,11 @@ import com.hazelcast.stabilizer.tests.helpers.KeyUtils;
 import com.hazelcast.stabilizer.test.utils.TestUtils;
 import com.hazelcast.stabilizer.test.utils.ThreadSpawner;
 import com.hazelcast.stabilizer.worker.Metronome;
+import com.hazelcast.stabilizer.worker.MetronomeSettings;
+import com.hazelcast.stabilizer.worker.OperationCounter;
 import com.hazelcast.stabilizer.worker.SimpleMetronome;
 
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicLong;
 
 public class StringMapTest {
 
@@ -51,12 +55,19 @@ public class StringMapTest {
     public int keyCount = 10000;
     public int valueCount = 10000;
     public int logFrequency = 10000;
+    // ignored since the operations are counted by the OperationCounter; kept so existing configurations still bind
+    @Deprecated
     public int performanceUpdateFrequency = 10000;
     public boolean usePut = true;
     public String basename = "stringmap";
     public KeyLocality keyLocality = KeyLocality.Random;
+    public KeyDistribution keyDistribution = KeyDistribution.Uniform;
+    // if true the keys and values are computed from their index instead of being stored; requires Random keyLocality
+    public boolean computedKeys = false;
+    public long seed = 0;
     public int minNumberOfMembers = 0;
     private int intervalMs;
+    public MetronomeSettings metronomeSettings = new MetronomeSettings();
 
     //probes
     public IntervalProbe getLatency;
@@ -64,9 +75,10 @@ public class StringMapTest {
 
     public SimpleProbe throughput;
     private IMap<String, String> map;
-    private String[] keys;
-    private String[] values;
-    private final AtomicLong operations = new AtomicLong();
+    private IndexedSource<String> keys;
+    private KeyIndexGenerator keyIndexGenerator;
+    private IndexedSource<String> values;
+    private OperationCounter operationCounter;
 
     private TestContext testContext;
 
@@ -82,6 +94,10 @@ public class StringMapTest {
             throw new IllegalArgumentException("Write percentage can't be larger than 100");
         }
 
+        if (computedKeys && keyLocality != KeyLocality.Random) {
+            throw new IllegalArgumentException("Computed keys only support keyLocality Random");
+        }
+
         this.testContext = testContext;
         targetInstance = testContext.getTargetInstance();
         map = targetInstance.getMap(basename + "-" + testContext.getTestId());
@@ -96,13 +112,21 @@ public class StringMapTest {
     @Warmup(global = false)
     public void warmup() throws InterruptedException {
         TestUtils.waitClusterSize(log, targetInstance, minNumberOfMembers);
-        keys = KeyUtils.generateStringKeys(keyCount, keyLength, keyLocality, testContext.getTargetInstance());
-        values = StringUtils.generateStrings(valueCount, valueLength);
+        if (computedKeys) {
+            keys = IndexedSources.computedStrings(keyCount, keyLength, seed);
+            values = IndexedSources.computedStrings(valueCount, valueLength, seed + 1);
+        } else {
+            keys = IndexedSources.of(
+                    KeyUtils.generateStringKeys(keyCount, keyLength, keyLocality, testContext.getTargetInstance()));
+            values = IndexedSources.of(StringUtils.generateStrings(valueCount, valueLength));
+        }
+
+        keyIndexGenerator = keyDistribution.newGenerator(keys.size());
 
         Random random = new Random();
-        for (String key : keys) {
-            String value = values[random.nextInt(valueCount)];
-            map.put(key, value);
+        for (int k = 0; k < keys.size(); k++) {
+            String value = values.get(random.nextInt(values.size()));
+            map.put(keys.get(k), value);
         }
     }
 
@@ -115,25 +139,22 @@ public class StringMapTest {
         spawner.awaitCompletion();
     }
 
-    @Performance
-    public long getOperationCount() {
-        return operations.get();
-    }
-
     private class Worker implements Runnable {
         private final Random random = new Random();
 
         @Override
         public void run() {
             long iteration = 0;
-            Metronome metronome = SimpleMetronome.withFixedIntervalMs(intervalMs);
+            Metronome metronome = intervalMs > 0
+                    ? SimpleMetronome.withFixedIntervalMs(intervalMs)
+                    : metronomeSettings.newMetronome(threadCount);
             while (!testContext.isStopped()) {
                 metronome.waitForNext();
-                String key = randomKey();
 
                 if (shouldWrite(iteration)) {
+                    String key = keys.get(keyIndexGenerator.nextWriteIndex(random));
                     String value = randomValue();
-                    putLatency.started();
+                    putLatency.started(metronome.getIntendedStartNanos());
                     if (usePut) {
                         map.put(key, value);
                     } else {
@@ -141,31 +162,28 @@ public class StringMapTest {
                     }
                     putLatency.done();
                 } else {
-                    getLatency.started();
+                    String key = randomKey();
+                    getLatency.started(metronome.getIntendedStartNanos());
                     map.get(key);
                     getLatency.done();
                 }
 
                 throughput.done();
+                operationCounter.increment();
 
                 iteration++;
                 if (iteration % logFrequency == 0) {
                     log.info(Thread.currentThread().getName() + " At iteration: " + iteration);
                 }
-                if (iteration % performanceUpdateFrequency == 0) {
-                    operations.addAndGet(performanceUpdateFrequency);
-                }
             }
-            operations.addAndGet(iteration % performanceUpdateFrequency);
         }
 
         private String randomValue() {
-            return values[random.nextInt(values.length)];
+            return values.get(random.nextInt(values.size()));
         }
 
         private String randomKey() {
-            int length = keys.length;
-            return keys[random.nextInt(length)];
+            return keys.get(keyIndexGenerator.nextIndex(random));
         }
 
         private boolean shouldWrite(long iteration) {
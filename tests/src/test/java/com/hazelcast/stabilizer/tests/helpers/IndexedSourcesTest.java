@@ -0,0 +1,54 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class IndexedSourcesTest {
+
+    private static final int COUNT = 100000;
+
+    @Test
+    public void computedInts_distinctAndDeterministic() {
+        IndexedSource<Integer> source = IndexedSources.computedInts(COUNT, 1);
+        IndexedSource<Integer> sameSeed = IndexedSources.computedInts(COUNT, 1);
+
+        Set<Integer> keys = new HashSet<Integer>();
+        for (int i = 0; i < COUNT; i++) {
+            keys.add(source.get(i));
+            assertEquals(source.get(i), sameSeed.get(i));
+        }
+        assertEquals(COUNT, keys.size());
+        assertNotEquals(source.get(0), IndexedSources.computedInts(COUNT, 2).get(0));
+    }
+
+    @Test
+    public void computedStrings_long() {
+        assertDistinctStrings(IndexedSources.computedStrings(COUNT, 30, 1), 30);
+    }
+
+    @Test
+    public void computedStrings_short() {
+        assertDistinctStrings(IndexedSources.computedStrings(COUNT, 4, 1), 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void computedStrings_tooShortForCount() {
+        IndexedSources.computedStrings(COUNT, 2, 1);
+    }
+
+    private static void assertDistinctStrings(IndexedSource<String> source, int length) {
+        Set<String> keys = new HashSet<String>();
+        for (int i = 0; i < source.size(); i++) {
+            String key = source.get(i);
+            assertEquals(length, key.length());
+            assertEquals(key, source.get(i));
+            keys.add(key);
+        }
+        assertEquals(source.size(), keys.size());
+    }
+}
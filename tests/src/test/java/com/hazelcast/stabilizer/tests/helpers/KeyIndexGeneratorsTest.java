@@ -0,0 +1,105 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyIndexGeneratorsTest {
+
+    private static final int KEY_COUNT = 1000;
+    private static final int ITERATIONS = 100000;
+
+    private final Random random = new Random(1);
+
+    @Test
+    public void zeta_approximationIsCloseToExactSum() {
+        long n = 1000000;
+        double exact = 0;
+        for (long i = 1; i <= n; i++) {
+            exact += 1 / Math.pow(i, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        }
+
+        double approximation = KeyIndexGenerators.zeta(n, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        assertEquals(exact, approximation, exact * 1e-9);
+    }
+
+    @Test
+    public void zipfian_largeKeyCountIsFast() {
+        long startMs = System.currentTimeMillis();
+        KeyIndexGenerator generator = KeyIndexGenerators.zipfian(Integer.MAX_VALUE, KeyIndexGenerators.ZIPFIAN_CONSTANT);
+        assertTrue(System.currentTimeMillis() - startMs < 1000);
+
+        int index = generator.nextIndex(random);
+        assertTrue(index >= 0);
+    }
+
+    @Test
+    public void allDistributions_indicesWithinKeyCount() {
+        for (KeyDistribution distribution : KeyDistribution.values()) {
+            KeyIndexGenerator generator = distribution.newGenerator(KEY_COUNT);
+            for (int i = 0; i < ITERATIONS; i++) {
+                int index = generator.nextIndex(random);
+                assertTrue(distribution + " generated " + index, index >= 0 && index < KEY_COUNT);
+            }
+        }
+    }
+
+    @Test
+    public void zipfian_lowIndicesArePopular() {
+        int[] counts = count(KeyDistribution.Zipfian.newGenerator(KEY_COUNT));
+
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[KEY_COUNT / 2]);
+    }
+
+    @Test
+    public void latest_highIndicesArePopular() {
+        int[] counts = count(KeyDistribution.Latest.newGenerator(KEY_COUNT));
+
+        assertTrue(counts[KEY_COUNT - 1] > counts[KEY_COUNT / 2]);
+    }
+
+    @Test
+    public void latest_movesWithInserts() {
+        KeyIndexGenerator generator = KeyDistribution.Latest.newGenerator(KEY_COUNT);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, generator.nextWriteIndex(random));
+        }
+
+        int[] counts = count(generator);
+        assertTrue(counts[9] > counts[KEY_COUNT - 1]);
+        assertTrue(counts[KEY_COUNT - 1] > counts[KEY_COUNT / 2]);
+    }
+
+    @Test
+    public void hotspot() {
+        int[] counts = count(KeyIndexGenerators.hotspot(KEY_COUNT, 0.2, 0.8));
+
+        int hot = 0;
+        for (int i = 0; i < KEY_COUNT / 5; i++) {
+            hot += counts[i];
+        }
+        assertEquals(0.8, hot / (double) ITERATIONS, 0.02);
+    }
+
+    @Test
+    public void sequential() {
+        KeyIndexGenerator generator = KeyIndexGenerators.sequential(3);
+
+        assertEquals(0, generator.nextIndex(random));
+        assertEquals(1, generator.nextIndex(random));
+        assertEquals(2, generator.nextIndex(random));
+        assertEquals(0, generator.nextIndex(random));
+    }
+
+    private int[] count(KeyIndexGenerator generator) {
+        int[] counts = new int[KEY_COUNT];
+        for (int i = 0; i < ITERATIONS; i++) {
+            counts[generator.nextIndex(random)]++;
+        }
+        return counts;
+    }
+}
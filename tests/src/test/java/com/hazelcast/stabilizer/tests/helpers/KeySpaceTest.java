@@ -0,0 +1,154 @@
+package com.hazelcast.stabilizer.tests.helpers;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.PartitionService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeySpaceTest {
+
+    private static HazelcastInstance instance;
+
+    @BeforeClass
+    public static void setUp() {
+        Config config = new Config();
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        instance = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        instance.shutdown();
+    }
+
+    @Test
+    public void getLocalKeys_allKeysAreLocal() {
+        List<Integer> keys = KeySpace.getIntKeySpace(instance, 10000).getLocalKeys(1000);
+
+        assertEquals(1000, keys.size());
+        assertEquals(1000, new HashSet<Integer>(keys).size());
+        for (Integer key : keys) {
+            assertTrue(KeyUtils.isLocalKey(instance, key));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getRemoteKeys_noRemoteMembers() {
+        KeySpace.getIntKeySpace(instance, 10000).getRemoteKeys(10);
+    }
+
+    @Test
+    public void getPartitionKeys_allKeysInPartition() {
+        PartitionService partitionService = instance.getPartitionService();
+        List<String> keys = KeySpace.getStringKeySpace(instance, 10000, 10).getPartitionKeys(5, 100);
+
+        assertEquals(100, keys.size());
+        for (String key : keys) {
+            assertEquals(10, key.length());
+            assertEquals(5, partitionService.getPartition(key).getPartitionId());
+        }
+    }
+
+    @Test
+    public void getBalancedKeys_spreadOverAllPartitions() {
+        KeySpace<Integer> keySpace = KeySpace.getIntKeySpace(instance, 100000);
+        PartitionService partitionService = instance.getPartitionService();
+
+        Set<Integer> partitionIds = new HashSet<Integer>();
+        for (Integer key : keySpace.getBalancedKeys(keySpace.getPartitionCount())) {
+            partitionIds.add(partitionService.getPartition(key).getPartitionId());
+        }
+        assertEquals(keySpace.getPartitionCount(), partitionIds.size());
+    }
+
+    @Test
+    public void getDistinctKeyCount() {
+        KeySpace<Integer> keySpace = KeySpace.getIntKeySpace(instance, 1000);
+
+        assertEquals(1000, keySpace.getDistinctKeyCount(KeyLocality.Local));
+        assertEquals(0, keySpace.getDistinctKeyCount(KeyLocality.Remote));
+        assertEquals(1000, keySpace.getDistinctKeyCount(KeyLocality.Random));
+    }
+
+    @Test
+    public void getIntKeySpace_locality_onlyIndexesTheRequestedKeys() {
+        KeySpace<Integer> keySpace = KeySpace.getIntKeySpace(instance, Integer.MAX_VALUE, KeyLocality.SinglePartition,
+                100);
+
+        assertEquals(100, keySpace.getDistinctKeyCount(KeyLocality.SinglePartition));
+        assertEquals(100, keySpace.getDistinctKeyCount(KeyLocality.Random));
+    }
+
+    @Test
+    public void getIntKeySpace_locality_allKeysWhenKeySpaceIsTooSmall() {
+        KeySpace<Integer> keySpace = KeySpace.getIntKeySpace(instance, 10, KeyLocality.Local, 25);
+
+        assertEquals(10, keySpace.getDistinctKeyCount(KeyLocality.Local));
+    }
+
+    @Test
+    public void generateStringKeys_localKeysAreDistinct() {
+        String[] keys = KeyUtils.generateStringKeys(1000, 10, KeyLocality.Local, instance);
+
+        assertEquals(1000, new HashSet<String>(Arrays.asList(keys)).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void generateStringKeys_notEnoughDistinctKeys() {
+        KeyUtils.generateStringKeys(1000, 1, KeyLocality.Local, instance);
+    }
+
+    @Test
+    public void getKeys_repeatsKeysWhenKeySpaceIsTooSmall() {
+        List<Integer> keys = KeySpace.getIntKeySpace(instance, 10).getKeys(KeyLocality.Random, 25);
+
+        assertEquals(25, keys.size());
+        assertEquals(10, new HashSet<Integer>(keys).size());
+    }
+
+    @Test
+    public void generateIntKeys_local() {
+        int[] keys = KeyUtils.generateIntKeys(500, 100000, KeyLocality.Local, instance);
+
+        assertEquals(500, keys.length);
+        for (int key : keys) {
+            assertTrue(KeyUtils.isLocalKey(instance, key));
+        }
+    }
+
+    @Test
+    public void generateIntKeys_local_maxKeyMaxValue() {
+        int[] keys = KeyUtils.generateIntKeys(500, Integer.MAX_VALUE, KeyLocality.Local, instance);
+
+        assertEquals(500, keys.length);
+        assertEquals(500, new HashSet<Integer>(asList(keys)).size());
+        for (int key : keys) {
+            assertTrue(KeyUtils.isLocalKey(instance, key));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void generateIntKeys_remote_maxKeyMaxValue_noRemoteMembers() {
+        KeyUtils.generateIntKeys(10, Integer.MAX_VALUE, KeyLocality.Remote, instance);
+    }
+
+    private static List<Integer> asList(int[] array) {
+        List<Integer> list = new ArrayList<Integer>(array.length);
+        for (int value : array) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -37,6 +37,7 @@ public class Main {
             @Override
             public void actionPerformed(ActionEvent e) {
                 final JFileChooser fc = new JFileChooser();
+                fc.addChoosableFileFilter(new ExtensionFileFilter("Binary Result Files", "bin"));
                 fc.setFileFilter(new ExtensionFileFilter("XML Files", "xml"));
                 int retVal = fc.showOpenDialog(null);
                 if (retVal == JFileChooser.APPROVE_OPTION) {
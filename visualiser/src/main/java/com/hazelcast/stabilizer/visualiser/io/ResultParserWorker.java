@@ -1,6 +1,7 @@
 package com.hazelcast.stabilizer.visualiser.io;
 
 import com.hazelcast.stabilizer.probes.probes.Result;
+import com.hazelcast.stabilizer.probes.probes.ProbesResultBinaryReader;
 import com.hazelcast.stabilizer.probes.probes.ProbesResultXmlReader;
 import com.hazelcast.stabilizer.probes.probes.util.Utils;
 import com.hazelcast.stabilizer.visualiser.data.BenchmarkResults;
@@ -9,6 +10,7 @@ import com.hazelcast.stabilizer.visualiser.data.Model;
 import javax.swing.*;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -23,22 +25,35 @@ public class ResultParserWorker extends SwingWorker<BenchmarkResults, Void> {
 
     @Override
     protected BenchmarkResults doInBackground() throws Exception {
+        Map<String, Result> read = file.getName().endsWith(".bin") ? readBinary() : readXml();
+        String filename = getName();
+        BenchmarkResults results = new BenchmarkResults(filename);
+        for (Map.Entry<String, Result> entry : read.entrySet()) {
+            results.addProbeData(entry.getKey(), entry.getValue());
+        }
+        return results;
+    }
+
+    private Map<String, Result> readXml() throws IOException {
         ProbesResultXmlReader reader = new ProbesResultXmlReader();
         FileInputStream is = null;
         try {
             is = new FileInputStream(file);
-            Map<String, Result> read = reader.read(is);
-            String filename = getName();
-            BenchmarkResults results = new BenchmarkResults(filename);
-            for (Map.Entry<String, Result> entry : read.entrySet()) {
-                results.addProbeData(entry.getKey(), entry.getValue());
-            }
-            return results;
+            return reader.read(is);
         } finally {
             Utils.closeQuietly(is);
         }
     }
 
+    private Map<String, Result> readBinary() throws IOException {
+        ProbesResultBinaryReader reader = new ProbesResultBinaryReader(file);
+        try {
+            return reader.readAll();
+        } finally {
+            Utils.closeQuietly(reader);
+        }
+    }
+
     private String getName() {
         String filename = removeExtension(file.getName());
         return filename;
@@ -1,6 +1,6 @@
 package com.hazelcast.stabilizer.visualiser.ui;
 
-import com.hazelcast.stabilizer.probes.probes.LinearHistogram;
+import com.hazelcast.stabilizer.probes.probes.LogLinearHistogram;
 import com.hazelcast.stabilizer.probes.probes.Result;
 import com.hazelcast.stabilizer.probes.probes.impl.HdrLatencyProbeResult;
 import com.hazelcast.stabilizer.probes.probes.impl.LatencyDistributionResult;
@@ -139,16 +139,15 @@ public class Chart extends JPanel {
 
     private SimpleHistogramDataset calculateSingleProbeDataset(LatencyDistributionResult probeData) {
         UnsafeSimpleHistogramDataset simpleHistogramDataset = new UnsafeSimpleHistogramDataset("key");
-        LinearHistogram histogram = probeData.getHistogram();
-        int[] buckets = histogram.getBuckets();
-        int step = histogram.getStep();
-        int binNo = 0;
-        for (int values : buckets) {
-            double lowerBound = step * binNo;
-            binNo++;
-            double upperBound = step * binNo;
-            SimpleHistogramBin bin = new SimpleHistogramBin(lowerBound, upperBound, true, false);
-            bin.setItemCount(values);
+        LogLinearHistogram histogram = probeData.getHistogram();
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            long values = histogram.getCount(i);
+            if (values == 0) {
+                continue;
+            }
+            SimpleHistogramBin bin = new SimpleHistogramBin(histogram.getLowerBound(i), histogram.getUpperBound(i),
+                    true, false);
+            bin.setItemCount((int) values);
             simpleHistogramDataset.addBin(bin);
         }
         return simpleHistogramDataset;